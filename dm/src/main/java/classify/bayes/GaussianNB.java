@@ -1,14 +1,22 @@
 package main.java.classify.bayes;
 
+import main.java.core.ColumnMoments;
+import main.java.core.DataChunk;
 import main.java.core.DataSet;
-import main.java.core.DataSets;
+import main.java.core.DataSource;
 import main.java.core.Instance;
+import main.java.core.exception.EstimatorNotFittedException;
 import main.java.utils.ArrayUtil;
 import main.java.utils.MathUtil;
+import main.java.utils.io.ModelSnapshot;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Gaussian Naive Bayes (GaussianNB).
@@ -19,6 +27,11 @@ import java.util.TreeMap;
  */
 public class GaussianNB extends NaiveBayesClassifier {
 
+    /**
+     * The kind of the model in its snapshot.
+     */
+    private static final String KIND = "GaussianNB";
+
     /**
      * Prior probabilities of the classes.
      * If specified, the priors are not adjusted according to the data.
@@ -109,31 +122,63 @@ public class GaussianNB extends NaiveBayesClassifier {
 
     /**
      * Fits Gaussian Naive Bayes according to training set.
+     * The weighted mean and variance of each feature per class are accumulated in one pass over the instances,
+     * as {@link #fit(DataSource)} does, so no column is copied and no value is counted per distinct value.
      *
      * @param dataset training set
      */
     @Override
     public void fit(DataSet dataset) {
+        int nFeatures = dataset.dimensionality();
+        double[] classes = dataset.classCounts().values(); // 升序排列的类
+        double[] classValues = dataset.classValues();
+        double[] weights = dataset.weightValues();
+        int nClasses = classes.length;
+        ColumnMoments overall = new ColumnMoments(nFeatures); // 所有样本的加权方差，用于计算epsilon
+        ColumnMoments[] classMoments = new ColumnMoments[nClasses];
+        for (int j = 0; j < nClasses; j++) {
+            classMoments[j] = new ColumnMoments(nFeatures);
+        }
+        int row = 0;
+        for (Instance instance: dataset) {
+            overall.add(instance, weights[row]);
+            classMoments[Arrays.binarySearch(classes, classValues[row])].add(instance, weights[row]);
+            row++;
+        }
+
         // If the ratio of data variance between dimensions is too small, it
         // will cause numerical errors. To address this, we artificially
         // boost the variance by epsilon, a small fraction of the standard
         // deviation of the largest dimension.
-        this.epsilon_ = this.varSmoothing * ArrayUtil.max(DataSets.var(dataset));
-        TreeMap<Double, Double> classDistMap = DataSets.columnDistMap(dataset, -1);
-        this.classes_ = (SortedSet<Double>) classDistMap.keySet();
-
-        // Initialize various counters.
-        int nFeatures = dataset.dimensionality();
-        int nClasses = this.classes_.size();
-        this.var_ = new double[nClasses][nFeatures];
-        this.theta_ = new double[nClasses][nFeatures];
+        this.epsilon_ = this.varSmoothing * ArrayUtil.max(overall.variance()); // 加权方差，合并重复行后结果不变
+        TreeSet<Double> classSet = new TreeSet<>();
+        for (double clazz: classes) {
+            classSet.add(clazz);
+        }
+        this.classes_ = classSet;
 
+        this.var_ = new double[nClasses][];
+        this.theta_ = new double[nClasses][];
         this.classCount_ = new double[nClasses];
-        int k = 0;
-        for (double count: classDistMap.values()) {
-            classCount_[k++] = count;
+        for (int j = 0; j < nClasses; j++) {
+            this.classCount_[j] = classMoments[j].weight();
+            this.theta_[j] = classMoments[j].mean();
+            this.var_[j] = classMoments[j].variance();
+            for (int i = 0; i < nFeatures; i++) {
+                this.var_[j][i] += this.epsilon_;
+            }
         }
+        this.initClassPrior(nClasses);
 
+        this.isFitted = true;
+    }
+
+    /**
+     * Initialises the class prior from the priors or from classCount_.
+     *
+     * @param nClasses the number of classes
+     */
+    private void initClassPrior(int nClasses) {
         // Initialise the class prior
         // Take into account the priors
         if (this.priors != null) {
@@ -160,35 +205,117 @@ public class GaussianNB extends NaiveBayesClassifier {
                 this.classPrior_[i] = classCount_[i] / sumCount;
             }
         }
+    }
 
-        for (int i = 0; i < nFeatures; i++) {
-            TreeMap<Double, TreeMap<Double, Double>> colConDistMap = DataSets.colConDistMap(dataset, -1, i);
-            int j = 0;
-            for (TreeMap<Double, Double> distMap : colConDistMap.values()) {
-                double sumX_i = 0;
-                double sumWeight = 0;
-                for (Map.Entry<Double, Double> entry : distMap.entrySet()) {
-                    double element = entry.getKey();
-                    double weight = entry.getValue();
-                    sumWeight += weight;
-                    sumX_i += element * weight;
-                }
-                double mean = sumX_i / sumWeight;
-                double variance = 0;
-                for (Map.Entry<Double, Double> entry : distMap.entrySet()) {
-                    double element = entry.getKey();
-                    double weight = entry.getValue();
-                    variance += weight / sumWeight * (element - mean) * (element - mean);
+    /**
+     * Fits Gaussian Naive Bayes in one pass over a source.
+     * The weighted mean and variance of each feature per class are updated row by row (West's method),
+     * so the memory is bounded by one chunk and the moments, whatever the number of distinct values.
+     *
+     * @param source training source
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void fit(DataSource source) throws IOException {
+        int nFeatures = source.dimensionality();
+        ColumnMoments overall = new ColumnMoments(nFeatures); // 所有样本的加权方差，用于计算epsilon
+        TreeMap<Double, ColumnMoments> classMoments = new TreeMap<>();
+        DataChunk chunk = source.newChunk();
+        try (DataSource.ChunkReader reader = source.open()) {
+            while (reader.next(chunk)) {
+                for (int r = 0; r < chunk.size(); r++) {
+                    overall.add(chunk, r, chunk.weight(r));
+                    ColumnMoments moments = classMoments.computeIfAbsent(chunk.classValue(r), key -> new ColumnMoments(nFeatures));
+                    moments.add(chunk, r, chunk.weight(r));
                 }
-                this.theta_[j][i] = mean;
-                this.var_[j][i] = variance + this.epsilon_;
-                j++;
             }
         }
+        this.epsilon_ = this.varSmoothing * ArrayUtil.max(overall.variance());
+        this.classes_ = (SortedSet<Double>) classMoments.keySet();
+
+        int nClasses = this.classes_.size();
+        this.var_ = new double[nClasses][];
+        this.theta_ = new double[nClasses][];
+        this.classCount_ = new double[nClasses];
+        int j = 0;
+        for (ColumnMoments moments: classMoments.values()) {
+            this.classCount_[j] = moments.weight();
+            this.theta_[j] = moments.mean();
+            this.var_[j] = moments.variance();
+            for (int i = 0; i < nFeatures; i++) {
+                this.var_[j][i] += this.epsilon_;
+            }
+            j++;
+        }
+        this.initClassPrior(nClasses);
 
         this.isFitted = true;
     }
 
+    /**
+     * Saves this fitted classifier as a {@link ModelSnapshot}:
+     * the class labels, counts and priors, and the mean and variance of each feature per class.
+     *
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     * @throws EstimatorNotFittedException if this is not fitted yet
+     */
+    public void save(Path path) throws IOException {
+        if (!this.isFitted) {
+            throw new EstimatorNotFittedException("Naive bayes classifier is not fitted yet.");
+        }
+        double[] classes = new double[this.classes_.size()];
+        int i = 0;
+        for (double clazz: this.classes_) {
+            classes[i++] = clazz;
+        }
+        ModelSnapshot.Writer out = ModelSnapshot.writer(KIND)
+                .writeDouble(this.varSmoothing)
+                .writeDouble(this.epsilon_)
+                .writeBoolean(this.priors != null);
+        if (this.priors != null) {
+            out.writeDoubles(this.priors);
+        }
+        out.writeDoubles(classes)
+                .writeDoubles(this.classCount_)
+                .writeDoubles(this.classPrior_)
+                .writeMatrix(this.theta_)
+                .writeMatrix(this.var_)
+                .save(path);
+    }
+
+    /**
+     * Loads a classifier saved by {@link #save(Path)}, which is fitted.
+     *
+     * @param path the snapshot file
+     * @return the classifier
+     * @throws IOException if an I/O error occurs or the file is not a snapshot of a GaussianNB
+     */
+    public static GaussianNB load(Path path) throws IOException {
+        try (ModelSnapshot.Reader in = ModelSnapshot.open(path, KIND)) {
+            double varSmoothing = in.readDouble();
+            double epsilon = in.readDouble();
+            double[] priors = in.readBoolean() ? in.readDoubles() : null;
+            GaussianNB res = new GaussianNB(priors, varSmoothing);
+            res.epsilon_ = epsilon;
+            SortedSet<Double> classes = new TreeSet<>();
+            for (double clazz: in.readDoubles()) {
+                classes.add(clazz);
+            }
+            res.classes_ = classes;
+            res.classCount_ = in.readDoubles();
+            res.classPrior_ = in.readDoubles();
+            res.theta_ = in.readMatrix();
+            res.var_ = in.readMatrix();
+            if (res.classCount_.length != classes.size() || res.classPrior_.length != classes.size()
+                    || res.theta_.length != classes.size() || res.var_.length != classes.size()) {
+                throw new IOException("Inconsistent parameters: " + path);
+            }
+            res.isFitted = true;
+            return res;
+        }
+    }
+
     @Override
     public Map<Double, Double> jointLogLikelihood(Instance instance) {
         Map<Double, Double> res = new TreeMap<>();
@@ -205,5 +332,4 @@ public class GaussianNB extends NaiveBayesClassifier {
         }
         return res;
     }
-
 }
@@ -1,13 +1,21 @@
 package main.java.classify.bayes;
 
+import main.java.core.ContingencyTable;
+import main.java.core.DataChunk;
 import main.java.core.DataSet;
 import main.java.core.DataSets;
+import main.java.core.DataSource;
 import main.java.core.Instance;
+import main.java.core.collection.DoubleDoubleHashMap;
+import main.java.core.collection.DoubleIntHashMap;
+import main.java.core.exception.EstimatorNotFittedException;
 import main.java.utils.ArrayUtil;
 import main.java.utils.MapUtil;
 import main.java.utils.MathUtil;
+import main.java.utils.io.ModelSnapshot;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -21,6 +29,11 @@ import java.util.TreeMap;
  */
 public class MultinomialNB extends NaiveBayesClassifier {
 
+    /**
+     * The kind of the model in its snapshot.
+     */
+    private static final String KIND = "MultinomialNB";
+
     /**
      * Prior probabilities of the classes.
      * If specified, the priors are not adjusted according to the data.
@@ -86,21 +99,73 @@ public class MultinomialNB extends NaiveBayesClassifier {
     private double[] classPrior_;
 
     /**
-     * Number of samples encountered for each (class, feature) during fitting.
+     * Number of samples encountered for each (feature value, class) of each feature during fitting.
      * This value is weighted by the sample weight when provided.
      */
-    private TreeMap<Double, TreeMap<Double, Double>>[] featureCountMaps;
+    private ContingencyTable[] featureCounts;
+
+    /**
+     * The index of each value of each feature, i.e. its row in {@link #featureCounts}.
+     */
+    private DoubleIntHashMap[] featureIndex_;
 
     /**
-     * Empirical log probability of features given a class, P(x_i|y).
+     * Empirical log probability of features given a class, log P(x_i|y),
+     * indexed by class, feature and the index of the feature value.
      */
-    private HashMap<Double, Double>[][] featureProb_;
+    private double[][][] featureLogProb_;
 
     @Override
     public void fit(DataSet dataset) {
         this.classCountMap = DataSets.columnDistMap(dataset, -1);
+        this.featureCounts = ContingencyTable.ofAll(dataset, dataset.weightValues(), -1, false);
+        this.fitCounts();
+    }
+
+    /**
+     * Fits this classifier in one pass over a source.
+     * The class counts and the (feature value, class) counts are accumulated chunk by chunk
+     * into primitive hash maps and {@link ContingencyTable.Builder}s,
+     * so the memory is bounded by one chunk and the number of distinct feature values.
+     *
+     * @param source training source
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void fit(DataSource source) throws IOException {
+        int nFeatures = source.dimensionality();
+        DoubleDoubleHashMap classCounts = new DoubleDoubleHashMap();
+        ContingencyTable.Builder[] builders = new ContingencyTable.Builder[nFeatures];
+        for (int c = 0; c < nFeatures; c++) {
+            builders[c] = new ContingencyTable.Builder();
+        }
+        DataChunk chunk = source.newChunk();
+        try (DataSource.ChunkReader reader = source.open()) {
+            while (reader.next(chunk)) {
+                for (int r = 0; r < chunk.size(); r++) {
+                    double clazz = chunk.classValue(r);
+                    double weight = chunk.weight(r);
+                    classCounts.addTo(clazz, weight);
+                    for (int c = 0; c < nFeatures; c++) {
+                        builders[c].add(chunk.value(r, c), clazz, weight);
+                    }
+                }
+            }
+        }
+        this.classCountMap = new TreeMap<>();
+        classCounts.forEach(this.classCountMap::put);
+        this.featureCounts = new ContingencyTable[nFeatures];
+        for (int c = 0; c < nFeatures; c++) {
+            this.featureCounts[c] = builders[c].build();
+        }
+        this.fitCounts();
+    }
 
-        int nFeatures = dataset.dimensionality();
+    /**
+     * Computes the class prior and the feature probabilities from classCountMap and featureCounts.
+     */
+    private void fitCounts() {
+        int nFeatures = this.featureCounts.length;
         int nClasses = this.classCountMap.size();
 
         // Initialise the class log prior
@@ -131,37 +196,132 @@ public class MultinomialNB extends NaiveBayesClassifier {
             }
         }
 
-        this.featureCountMaps = new TreeMap[nFeatures];
-        this.featureProb_ = new HashMap[nClasses][nFeatures];
+        this.featureIndex_ = new DoubleIntHashMap[nFeatures];
+        this.featureLogProb_ = new double[nClasses][nFeatures][];
         for (int c = 0; c < nFeatures; c++) {
-            TreeMap<Double, TreeMap<Double, Double>> colConDistMap = DataSets.colConDistMap(dataset, -1, c);
-            featureCountMaps[c] = colConDistMap;
-            int r = 0;
-            for (TreeMap<Double, Double> featureDistMap: colConDistMap.values()) {
-                HashMap<Double, Double> featureProb = new HashMap<>();
-                double sumCount = MapUtil.sumValues(featureDistMap) + this.alpha*featureDistMap.size();
-                for (Map.Entry<Double, Double> entry: featureDistMap.entrySet()) {
-                    double p = (entry.getValue()+this.alpha) / sumCount;
-                    featureProb.put(entry.getKey(), p);
+            ContingencyTable table = this.featureCounts[c]; // 第r列为类r下该特征的分布
+            DoubleIntHashMap featureIndex = new DoubleIntHashMap(table.rows());
+            for (int k = 0; k < table.rows(); k++) {
+                featureIndex.put(table.rowValue(k), k);
+            }
+            this.featureIndex_[c] = featureIndex;
+            for (int r = 0; r < table.columns(); r++) {
+                double[] featureLogProb = new double[table.rows()];
+                double sumCount = 0;
+                for (int k = 0; k < table.rows(); k++) {
+                    sumCount += table.count(k, r);
+                }
+                sumCount += this.alpha*table.rows();
+                for (int k = 0; k < table.rows(); k++) {
+                    double p = (table.count(k, r)+this.alpha) / sumCount;
+                    featureLogProb[k] = Math.log(p);
                 }
-                this.featureProb_[r++][c] = featureProb;
+                this.featureLogProb_[r][c] = featureLogProb;
             }
         }
 
         this.isFitted = true;
     }
 
+    /**
+     * Saves this fitted classifier as a {@link ModelSnapshot}:
+     * the class labels, counts and priors, then for each feature its values
+     * and their log probabilities given each class.
+     * The counts of the feature values are not saved, as predicting doesn't need them.
+     *
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     * @throws EstimatorNotFittedException if this is not fitted yet
+     */
+    public void save(Path path) throws IOException {
+        if (!this.isFitted) {
+            throw new EstimatorNotFittedException("Naive bayes classifier is not fitted yet.");
+        }
+        int nClasses = this.classCountMap.size();
+        double[] classes = new double[nClasses];
+        double[] classCounts = new double[nClasses];
+        int i = 0;
+        for (Map.Entry<Double, Double> entry: this.classCountMap.entrySet()) {
+            classes[i] = entry.getKey();
+            classCounts[i++] = entry.getValue();
+        }
+        int nFeatures = this.featureIndex_.length;
+        ModelSnapshot.Writer out = ModelSnapshot.writer(KIND)
+                .writeDouble(this.alpha)
+                .writeBoolean(this.priors != null);
+        if (this.priors != null) {
+            out.writeDoubles(this.priors);
+        }
+        out.writeDoubles(classes)
+                .writeDoubles(classCounts)
+                .writeDoubles(this.classPrior_)
+                .writeInt(nFeatures);
+        for (int j = 0; j < nFeatures; j++) {
+            double[] featureValues = new double[this.featureIndex_[j].size()];
+            this.featureIndex_[j].forEach((value, k) -> featureValues[k] = value);
+            out.writeDoubles(featureValues);
+            for (int c = 0; c < nClasses; c++) {
+                out.writeDoubles(this.featureLogProb_[c][j]);
+            }
+        }
+        out.save(path);
+    }
+
+    /**
+     * Loads a classifier saved by {@link #save(Path)}, which is fitted.
+     *
+     * @param path the snapshot file
+     * @return the classifier
+     * @throws IOException if an I/O error occurs or the file is not a snapshot of a MultinomialNB
+     */
+    public static MultinomialNB load(Path path) throws IOException {
+        try (ModelSnapshot.Reader in = ModelSnapshot.open(path, KIND)) {
+            double alpha = in.readDouble();
+            double[] priors = in.readBoolean() ? in.readDoubles() : null;
+            MultinomialNB res = new MultinomialNB(priors, alpha);
+            double[] classes = in.readDoubles();
+            double[] classCounts = in.readDoubles();
+            res.classPrior_ = in.readDoubles();
+            int nClasses = classes.length;
+            if (classCounts.length != nClasses || res.classPrior_.length != nClasses) {
+                throw new IOException("Inconsistent parameters: " + path);
+            }
+            res.classCountMap = new TreeMap<>();
+            for (int c = 0; c < nClasses; c++) {
+                res.classCountMap.put(classes[c], classCounts[c]);
+            }
+            int nFeatures = in.readInt();
+            res.featureIndex_ = new DoubleIntHashMap[nFeatures];
+            res.featureLogProb_ = new double[nClasses][nFeatures][];
+            for (int j = 0; j < nFeatures; j++) {
+                double[] featureValues = in.readDoubles();
+                DoubleIntHashMap featureIndex = new DoubleIntHashMap(featureValues.length);
+                for (int k = 0; k < featureValues.length; k++) {
+                    featureIndex.put(featureValues[k], k);
+                }
+                res.featureIndex_[j] = featureIndex;
+                for (int c = 0; c < nClasses; c++) {
+                    res.featureLogProb_[c][j] = in.readDoubles();
+                    if (res.featureLogProb_[c][j].length != featureValues.length) {
+                        throw new IOException("Inconsistent parameters: " + path);
+                    }
+                }
+            }
+            res.isFitted = true;
+            return res;
+        }
+    }
+
     @Override
     public Map<Double, Double> jointLogLikelihood(Instance instance) {
         Map<Double, Double> res = new TreeMap<>();
         int i = 0;
         for (Double clazz: this.classCountMap.keySet()) {
             double joint_i = Math.log(this.classPrior_[i]);
-            for (int j = 0; j < this.featureProb_[i].length; j++) {
-                Double p = featureProb_[i][j].get(instance.attribute(j));
-                if (p != null) {
-                    double n_ij = Math.log(p);
-                    joint_i += n_ij;
+            for (int j = 0; j < this.featureLogProb_[i].length; j++) {
+                int k = this.featureIndex_[j].getOrDefault(instance.attribute(j), -1);
+                if (k >= 0) { // 训练时未出现的取值不计入
+                    joint_i += this.featureLogProb_[i][j][k];
                 }
             }
             res.put(clazz, joint_i);
@@ -1,10 +1,14 @@
 package main.java.classify.bayes;
 
 import main.java.classify.Classifier;
+import main.java.core.DataSet;
+import main.java.core.DataSetView;
+import main.java.core.DataSource;
 import main.java.core.Instance;
 import main.java.core.WeightHandler;
 import main.java.core.exception.EstimatorNotFittedException;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -21,6 +25,27 @@ public abstract class NaiveBayesClassifier implements Classifier, WeightHandler
      */
     protected boolean isFitted;
 
+    /**
+     * Fits this classifier with given weight of each instance instead of the instances' own weights.
+     * The data set and its instances are not modified.
+     *
+     * @param dataset training set
+     * @param weights the weight of each instance
+     * @throws IllegalArgumentException if the length of weights != the size of dataset
+     */
+    public void fit(DataSet dataset, double[] weights) {
+        this.fit(DataSetView.weighted(dataset, weights));
+    }
+
+    /**
+     * Fits this classifier from the sufficient statistics gathered in one pass over a source,
+     * so that the training data needn't fit in memory.
+     *
+     * @param source training source
+     * @throws IOException if an I/O error occurs
+     */
+    public abstract void fit(DataSource source) throws IOException;
+
     @Override
     public double classify(Instance instance) {
         return this.predict(instance);
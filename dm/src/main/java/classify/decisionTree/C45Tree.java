@@ -130,37 +130,25 @@ public class C45Tree extends DecisionTree {
     private Map<Double, DataSet> split(DataSet dataset, GainRatio splitRecord) {
         TreeMap<Double, DataSet> subDataSets = new TreeMap<>();
         int attrIndex = splitRecord.feature; // Feature to split on.
-        List<AttributeInfo> oldAttributeInfoList = dataset.attributeInfoList();
-        List<AttributeInfo> attributeInfoList = new ArrayList<>();
-        for (int i = 0; i < attrIndex; i++) {
-            attributeInfoList.add(oldAttributeInfoList.get(i));
-        }
-        for (int i = attrIndex+1; i < oldAttributeInfoList.size(); i++) {
-            attributeInfoList.add(oldAttributeInfoList.get(i));
-        }
+        double[] attrValues = dataset.attrValues(attrIndex);
+        // 子数据集只是父数据集去掉分割属性后的行索引视图，不复制实例
         if (dataset.attributeInfo(attrIndex).continuous()) {
-            StandardDataSet ltDataSet = new StandardDataSet(attributeInfoList, dataset.classInfo());
-            StandardDataSet gtDataSet = new StandardDataSet(attributeInfoList, dataset.classInfo());
+            int[] ltRows = new int[attrValues.length];
+            int[] gtRows = new int[attrValues.length];
+            int nLt = 0, nGt = 0;
             double splitPoint = splitRecord.splitPoint;
-            for (Instance oldInstance: dataset) {
-                double threshold = oldInstance.attribute(attrIndex);
-                Instance newInstance = oldInstance.deleteAttribute(attrIndex);
-                if (threshold <= splitPoint) {
-                    ltDataSet.add(newInstance);
+            for (int i = 0; i < attrValues.length; i++) {
+                if (attrValues[i] <= splitPoint) {
+                    ltRows[nLt++] = i;
                 } else {
-                    gtDataSet.add(newInstance);
+                    gtRows[nGt++] = i;
                 }
             }
-            subDataSets.put(-1.0, ltDataSet);
-            subDataSets.put(1.0, gtDataSet);
+            subDataSets.put(-1.0, DataSetView.withoutAttribute(dataset, Arrays.copyOf(ltRows, nLt), attrIndex));
+            subDataSets.put(1.0, DataSetView.withoutAttribute(dataset, Arrays.copyOf(gtRows, nGt), attrIndex));
         } else {
-            for (double threshold: splitRecord.thresholds) {
-                subDataSets.put(threshold, new StandardDataSet(attributeInfoList, dataset.classInfo()));
-            }
-            for (Instance oldInstance: dataset) {
-                double threshold = oldInstance.attribute(attrIndex);
-                DataSet subDataSet = subDataSets.get(threshold);
-                subDataSet.add(oldInstance.deleteAttribute(attrIndex));
+            for (Map.Entry<Double, int[]> entry: groupRows(attrValues, splitRecord.thresholds).entrySet()) {
+                subDataSets.put(entry.getKey(), DataSetView.withoutAttribute(dataset, entry.getValue(), attrIndex));
             }
         }
         return subDataSets;
@@ -176,67 +164,58 @@ public class C45Tree extends DecisionTree {
     @Override
     protected GainRatio selectBestFeature(DataSet dataset) {
         GainRatio res = new GainRatio();
-        TreeMap<Double, Double> classDistMap = DataSets.columnDistMap(dataset, -1); // 类的分布
+        ContingencyTable[] tables = this.contingencyTables(dataset); // 每个属性与类的列联表
         double sumWeightedNumber = DataSets.sumWeight(dataset);
         double classEnt = this.computeImpurity(dataset);
         int dimension = dataset.dimensionality(); // 数据集中特征个数
+        double[] classDist = tables[0].columnSums(); // 类的分布
+        int nClasses = classDist.length;
 
         // 计算每个属性的信息增益，以此选择信息增益高于平均值的计算信息增益率
         // 保存每个特征下的分布，因为若是连续属性，会修改分布情况
-        List<TreeMap<Double, Double>> distMaps = new ArrayList<>(dimension);
+        double[][] dists = new double[dimension][];
         for (int i = 0; i < dimension; i++) {
-            distMaps.add(DataSets.columnDistMap(dataset, i));
+            dists[i] = tables[i].rowSums();
         }
         double[] infoGains = new double[dimension]; // 保存每个特征的信息增益
         Map<Integer, Double> splitPointMap = new HashMap<>(); // 保存连续特征的最优划分点，key: 特征索引, value: 划分点的值
         // 开始计算信息增益
         for (int i = 0; i < dimension; i++) {
             // class在对应属性下的条件分布
-            TreeMap<Double, TreeMap<Double, Double>> conDistMap = DataSets.colConDistMap(dataset, i, -1);
+            ContingencyTable table = tables[i];
             if (dataset.attributeInfo(i).continuous()) { // 当前属性为连续的
                 // 寻找最优划分点
                 double bestSplitPoint = 0; //  最优划分点
                 double maxGain = -1; // 最优先划分点对应的信息增益
-                if (conDistMap.size() == 1) { // 连续属性的取值却只有1个
-                    bestSplitPoint = conDistMap.keySet().iterator().next();
+                if (table.rows() == 1) { // 连续属性的取值却只有1个
+                    bestSplitPoint = table.rowValue(0);
                     maxGain = 0; // 此时无任何帮助
                     infoGains[i] = maxGain; // 保存最大信息增益
                     splitPointMap.put(i, bestSplitPoint); // 保存划分点
                 } else {
                     double[] splitDistArray = new double[2]; // 最优划分下，属性值的分布：小于和大于的数量
-                    double[] splitKeys = new double[2]; // 最优划分下，a_i 和 a_{i+1} 的值
-                    Map<Double, Double> ltConDistMap = new TreeMap<>(); // 属性值小于最优划分点的条件下class分布
-                    Map<Double, Double> gtConDistMap = new TreeMap<>(); // 属性值大于最优划分点的条件下class分布
-                    // 初始化 ltConDistMap, gtConDistMap
-                    for (Double clazz: classDistMap.keySet()) {
-                        ltConDistMap.put(clazz, 0.0);
-                        gtConDistMap.put(clazz, 0.0);
-                    }
+                    double[] ltConDist = new double[nClasses]; // 属性值小于最优划分点的条件下class分布
+                    double[] gtConDist = new double[nClasses]; // 属性值大于最优划分点的条件下class分布
                     // 遍历 N-1 个可能的划分点
-                    Iterator<Map.Entry<Double, TreeMap<Double, Double>>> iter1 = conDistMap.entrySet().iterator();
-                    Iterator<Map.Entry<Double, TreeMap<Double, Double>>> iter2 = conDistMap.entrySet().iterator();
-                    iter2.next();
-                    for (int j = 0; j < conDistMap.size()-1; j++) {
-                        Map.Entry<Double, TreeMap<Double, Double>> entry = iter1.next();
-                        double a1 = entry.getKey();
-                        double a2 = iter2.next().getKey();
+                    for (int j = 0; j < table.rows()-1; j++) {
+                        double a1 = table.rowValue(j);
+                        double a2 = table.rowValue(j+1);
                         double splitPoint = a1/2 + a2/2; // 划分点
-                        for (Map.Entry<Double, Double> classDist: entry.getValue().entrySet()) {
-                            Double classValue = classDist.getKey();
-                            Double weightedNumber = ltConDistMap.get(classValue) + classDist.getValue();
-                            ltConDistMap.put(classValue, weightedNumber);
-                            gtConDistMap.put(classValue, classDistMap.get(classValue) - weightedNumber);
+                        double[] row = table.row(j);
+                        for (int c = 0; c < nClasses; c++) {
+                            ltConDist[c] += row[c];
+                            gtConDist[c] = classDist[c] - ltConDist[c];
                         }
                         double ltWeightedNumber = 0;
                         double ltEnt = 0;
-                        for (double weightedNumber: ltConDistMap.values()) {
+                        for (double weightedNumber: ltConDist) {
                             if (weightedNumber == 0) continue;
                             ltWeightedNumber += weightedNumber;
                             ltEnt -= weightedNumber * MathUtil.log2(weightedNumber);
                         }
                         ltEnt = ltEnt / ltWeightedNumber + MathUtil.log2(ltWeightedNumber);
                         double gtEnt = 0;
-                        for (double weightedNumber: gtConDistMap.values()) {
+                        for (double weightedNumber: gtConDist) {
                             if (weightedNumber == 0) continue;
                             gtEnt -= weightedNumber * MathUtil.log2(weightedNumber);
                         }
@@ -248,23 +227,18 @@ public class C45Tree extends DecisionTree {
                             bestSplitPoint = splitPoint;
                             splitDistArray[0] = ltWeightedNumber;
                             splitDistArray[1] = gtWeightedNumber;
-                            splitKeys[0] = a1;
-                            splitKeys[1] = a2;
                         }
                     }
                     infoGains[i] = maxGain; // 保存最大信息增益
                     splitPointMap.put(i, bestSplitPoint); // 保存划分点
-                    TreeMap<Double, Double> newDistMap = new TreeMap<>(); // 新的分布
-                    newDistMap.put(splitKeys[0], splitDistArray[0]);
-                    newDistMap.put(splitKeys[1], splitDistArray[1]);
-                    distMaps.set(i, newDistMap); // 更新划分后的分布
+                    dists[i] = splitDistArray; // 更新划分后的分布
                 }
             } else { // 离散属性
                 double thisSplitEntropy = 0;
-                for (Map<Double, Double> distMap: conDistMap.values()) {
+                for (int r = 0; r < table.rows(); r++) {
                     double subWeightedNumber = 0; // 子集样本大小
                     double subEntropy = 0; // 子集的熵
-                    for (double weightedNumber: distMap.values()) {
+                    for (double weightedNumber: table.row(r)) {
                         if (weightedNumber == 0) continue;
                         subWeightedNumber += weightedNumber;
                         subEntropy -= (weightedNumber * MathUtil.log2(weightedNumber));
@@ -282,9 +256,8 @@ public class C45Tree extends DecisionTree {
         int attrIndex = -1;
         for (int i = 0; i < dimension; i++) {
             if (infoGains[i] >= avgInfoGain) {
-                TreeMap<Double, Double> distMap = distMaps.get(i);
                 double splitInfo = 0;
-                for (double eachWeightedNumber: distMap.values()) {
+                for (double eachWeightedNumber: dists[i]) {
                     double p_i = eachWeightedNumber / sumWeightedNumber;
                     splitInfo -= p_i * MathUtil.log2(p_i);
                 }
@@ -428,6 +401,16 @@ public class C45Tree extends DecisionTree {
             return "[ [<=" + splitPoint + "] [>" + splitPoint + "] ]";
         }
 
+        @Override
+        protected double splitPoint() {
+            return this.splitPoint;
+        }
+
+        @Override
+        protected double[][] edgeValues() {
+            return null;
+        }
+
         @Override
         public ContinuousC45Node copy() {
             ContinuousC45Node node = new ContinuousC45Node(this.splitPoint);
@@ -484,6 +467,20 @@ public class C45Tree extends DecisionTree {
             return sb.toString();
         }
 
+        @Override
+        protected double splitPoint() {
+            return Double.NaN;
+        }
+
+        @Override
+        protected double[][] edgeValues() {
+            double[][] res = new double[this.edgeValues.size()][];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = new double[] {this.edgeValues.get(i)};
+            }
+            return res;
+        }
+
         @Override
         public DiscreteC45Node copy() {
             DiscreteC45Node node = new DiscreteC45Node();
@@ -493,7 +490,9 @@ public class C45Tree extends DecisionTree {
             node.impurity = this.impurity;
             node.nNodeSamples = this.nNodeSamples;
             node.weightedNNodeSamples = this.weightedNNodeSamples;
-            node.edgeValues.addAll(this.edgeValues);
+            if (this.edgeValues != null) { // 剪枝后的叶节点没有边
+                node.edgeValues.addAll(this.edgeValues);
+            }
             return node;
         }
     }
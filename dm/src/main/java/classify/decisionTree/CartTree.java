@@ -1,9 +1,9 @@
 package main.java.classify.decisionTree;
 
+import main.java.core.ContingencyTable;
 import main.java.core.DataSet;
+import main.java.core.DataSetView;
 import main.java.core.DataSets;
-import main.java.core.Instance;
-import main.java.core.StandardDataSet;
 import main.java.utils.SetUtil;
 
 import java.util.*;
@@ -83,6 +83,17 @@ public class CartTree extends DecisionTree {
         }
         // 划分数据集
         Map<Double, DataSet> subDataSets = this.split(dataset, splitRecord);
+        if (subDataSets.get(-1.0).size() == 0 || subDataSets.get(1.0).size() == 0) { // 划分未分开任何样本时
+            // 置node为叶节点，否则会对同一数据集无限递归
+            node = new DiscreteCartNode(null, null);
+            node.feature = dataset.classInfo();
+            node.depth = depth;
+            node.impurity = splitRecord.impurity;
+            node.clazz = this.getDefaultClass(dataset); // 数据集中最多的类为默认类;
+            node.nNodeSamples = dataset.size();
+            node.weightedNNodeSamples = DataSets.sumWeight(dataset);
+            return node;
+        }
         {
             if (dataset.attributeInfo(splitRecord.feature).continuous()) {
                 node = new ContinuousCartNode(splitRecord.splitPoint);
@@ -129,30 +140,33 @@ public class CartTree extends DecisionTree {
 
     private Map<Double, DataSet> split(DataSet dataset, GiniIndex splitRecord) {
         int attrIndex = splitRecord.feature; // Feature to split on.
-        StandardDataSet leftDataSet = new StandardDataSet(dataset.attributeInfoList(), dataset.classInfo());
-        StandardDataSet rightDataSet = new StandardDataSet(dataset.attributeInfoList(), dataset.classInfo());
+        double[] attrValues = dataset.attrValues(attrIndex);
+        int[] leftRows = new int[attrValues.length];
+        int[] rightRows = new int[attrValues.length];
+        int nLeft = 0, nRight = 0;
         if (dataset.attributeInfo(attrIndex).continuous()) {
             double splitPoint = splitRecord.splitPoint;
-            for (Instance instance: dataset) {
-                if (instance.attribute(attrIndex) <= splitPoint) {
-                    leftDataSet.add(instance);
+            for (int i = 0; i < attrValues.length; i++) {
+                if (attrValues[i] <= splitPoint) {
+                    leftRows[nLeft++] = i;
                 } else {
-                    rightDataSet.add(instance);
+                    rightRows[nRight++] = i;
                 }
             }
         } else {
             Set<Double> leftSplitSet = splitRecord.leftSplitSet;
-            for (Instance instance: dataset) {
-                if (leftSplitSet.contains(instance.attribute(attrIndex))) {
-                    leftDataSet.add(instance);
+            for (int i = 0; i < attrValues.length; i++) {
+                if (leftSplitSet.contains(attrValues[i])) {
+                    leftRows[nLeft++] = i;
                 } else {
-                    rightDataSet.add(instance);
+                    rightRows[nRight++] = i;
                 }
             }
         }
+        // 子数据集只是父数据集的行索引视图，不复制实例
         TreeMap<Double, DataSet> subDataSets = new TreeMap<>();
-        subDataSets.put(-1.0, leftDataSet);
-        subDataSets.put(1.0, rightDataSet);
+        subDataSets.put(-1.0, new DataSetView(dataset, Arrays.copyOf(leftRows, nLeft)));
+        subDataSets.put(1.0, new DataSetView(dataset, Arrays.copyOf(rightRows, nRight)));
         return subDataSets;
     }
 
@@ -161,8 +175,9 @@ public class CartTree extends DecisionTree {
         GiniIndex res = new GiniIndex();
         double classGini = this.computeImpurity(dataset);
         double sumWeightedNumber = DataSets.sumWeight(dataset);
-
-        TreeMap<Double, Double> classDistMap = DataSets.columnDistMap(dataset, -1); // 类的分布
+        ContingencyTable[] tables = this.contingencyTables(dataset); // 每个属性与类的列联表
+        double[] classDist = tables[0].columnSums(); // 类的分布
+        int nClasses = classDist.length;
 
         double minGini = 2; // 最小基尼系数
         double leftImpurity = 2;
@@ -170,7 +185,7 @@ public class CartTree extends DecisionTree {
         int attrIndex = -1;
         for (int i = 0; i < dataset.dimensionality(); i++) {
             // 类相对于当前属性的条件分布
-            TreeMap<Double, TreeMap<Double, Double>> conDistMap = DataSets.colConDistMap(dataset, i, -1);
+            ContingencyTable table = tables[i];
             if (dataset.attributeInfo(i).continuous()) { // 当前属性为连续时
                 // 寻找最优划分点
                 double bestSplitPoint = 0;
@@ -178,45 +193,35 @@ public class CartTree extends DecisionTree {
                 double thisImprovement = 0;
                 double ltImpurity = 2; // 属性值小于最优划分点的子集不确定性
                 double gtImpurity = 2; // 属性值大于最优划分点的子集不确定性
-                if (conDistMap.size() == 1) { // 连续属性的取值却只有1个
-                    bestSplitPoint = conDistMap.keySet().iterator().next();
+                if (table.rows() == 1) { // 连续属性的取值却只有1个
+                    bestSplitPoint = table.rowValue(0);
                     // 此时基尼指数就是类的基尼指数
                     thisMinGini = classGini;
                     ltImpurity = classGini;
                     gtImpurity = 1;
                 } else {
-                    Map<Double, Double> ltConDistMap = new TreeMap<>(); // 属性值小于最优划分点的条件下class分布
-                    Map<Double, Double> gtConDistMap = new TreeMap<>(); // 属性值大于最优划分点的条件下class分布
-                    // 初始化 ltConDistMap, gtConDistMap
-                    for (Double clazz: classDistMap.keySet()) {
-                        ltConDistMap.put(clazz, 0.0);
-                        gtConDistMap.put(clazz, 0.0);
-                    }
+                    double[] ltConDist = new double[nClasses]; // 属性值小于最优划分点的条件下class分布
+                    double[] gtConDist = new double[nClasses]; // 属性值大于最优划分点的条件下class分布
                     // 遍历 N-1 个可能的划分点
-                    Iterator<Map.Entry<Double, TreeMap<Double,Double>>> iter1 = conDistMap.entrySet().iterator();
-                    Iterator<Map.Entry<Double, TreeMap<Double,Double>>> iter2 = conDistMap.entrySet().iterator();
-                    iter2.next();
-                    for (int j = 0; j < conDistMap.size()-1; j++) {
-                        Map.Entry<Double, TreeMap<Double, Double>> entry = iter1.next();
-                        double a1 = entry.getKey();
-                        double a2 = iter2.next().getKey();
+                    for (int j = 0; j < table.rows()-1; j++) {
+                        double a1 = table.rowValue(j);
+                        double a2 = table.rowValue(j+1);
                         double splitPoint = a1/2 + a2/2; // 划分点
-                        for (Map.Entry<Double, Double> classDist: entry.getValue().entrySet()) {
-                            Double classValue = classDist.getKey();
-                            Double weightedNumber = ltConDistMap.get(classValue) + classDist.getValue();
-                            ltConDistMap.put(classValue, weightedNumber);
-                            gtConDistMap.put(classValue, classDistMap.get(classValue) - weightedNumber);
+                        double[] row = table.row(j);
+                        for (int c = 0; c < nClasses; c++) {
+                            ltConDist[c] += row[c];
+                            gtConDist[c] = classDist[c] - ltConDist[c];
                         }
                         double ltWeightedNumber = 0;
                         double ltGini = 0;
-                        for (double weightedNumber: ltConDistMap.values()) {
+                        for (double weightedNumber: ltConDist) {
                             ltGini -= weightedNumber * weightedNumber;
                             ltWeightedNumber += weightedNumber;
                         }
                         ltGini = ltGini / (ltWeightedNumber*ltWeightedNumber) + 1;
                         double gtWeightedNumber = 0;
                         double gtGini = 0;
-                        for (double weightedNumber: gtConDistMap.values()) {
+                        for (double weightedNumber: gtConDist) {
                             gtGini -= weightedNumber * weightedNumber;
                             gtWeightedNumber += weightedNumber;
                         }
@@ -248,52 +253,43 @@ public class CartTree extends DecisionTree {
                 double thisImprovement = 0;
                 double inImpurity = 2;
                 double notInImpurity = 2;
-                if (conDistMap.size() == 1) { // 特征值只有一个
+                if (table.rows() == 1) { // 特征值只有一个
                     thisMinGini = classGini;
                     inImpurity = classGini;
                     notInImpurity = 1;
                     bestSplitSet = new HashSet<>();
-                    bestSplitSet.add(conDistMap.keySet().iterator().next());
+                    bestSplitSet.add(table.rowValue(0));
                 } else {
                     Set<Double> attrValueSet = dataset.attrValueSet(i); // 离散特征的值集合
                     Set<Double>[] subValueSets = SetUtil.subSets(attrValueSet); // 集合的子集
                     for (int j = 1; j < subValueSets.length / 2; j++) {
                         Set<Double> subValueSet = subValueSets[j];
-                        Map<Double, Double> inConDistMap = new TreeMap<>(); // 属性值在子集中的条件下class分布
-                        Map<Double, Double> notInConDistMap = new TreeMap<>(); // 属性值不在子集中的条件下class分布
-                        // 初始化 inConDistMap, notInContDisMap
-                        for (double classValue: classDistMap.keySet()) {
-                            inConDistMap.put(classValue, 0.0);
-                            notInConDistMap.put(classValue, 0.0);
-                        }
-                        // 更新 inConDistMap
-                        for (Map.Entry<Double, TreeMap<Double, Double>> entry: conDistMap.entrySet()) {
-                            double attrValue = entry.getKey();
-                            if (subValueSet.contains(attrValue)) {
-                                for (Map.Entry<Double, Double> dist: entry.getValue().entrySet()) {
-                                    double clazz = dist.getKey();
-                                    double weightedNumber = inConDistMap.get(clazz) + dist.getValue();
-                                    inConDistMap.put(clazz, weightedNumber);
+                        double[] inConDist = new double[nClasses]; // 属性值在子集中的条件下class分布
+                        double[] notInConDist = new double[nClasses]; // 属性值不在子集中的条件下class分布
+                        // 更新 inConDist
+                        for (int r = 0; r < table.rows(); r++) {
+                            if (subValueSet.contains(table.rowValue(r))) {
+                                double[] row = table.row(r);
+                                for (int c = 0; c < nClasses; c++) {
+                                    inConDist[c] += row[c];
                                 }
                             }
                         }
-                        // 更新 notInConDistMap
-                        for (Map.Entry<Double, Double> dist: classDistMap.entrySet()) {
-                            double clazz = dist.getKey();
-                            double weightedNumber = dist.getValue() - inConDistMap.get(clazz);
-                            notInConDistMap.put(clazz, weightedNumber);
+                        // 更新 notInConDist
+                        for (int c = 0; c < nClasses; c++) {
+                            notInConDist[c] = classDist[c] - inConDist[c];
                         }
                         // 计算新分布下的gini指数
                         double inWeightedNumber = 0;
                         double inGini = 0;
-                        for (double weightedNumber: inConDistMap.values()) {
+                        for (double weightedNumber: inConDist) {
                             inGini -= weightedNumber * weightedNumber;
                             inWeightedNumber += weightedNumber;
                         }
                         inGini = inGini / (inWeightedNumber*inWeightedNumber) + 1;
                         double notInWeightedNumber = 0;
                         double notInGini = 0;
-                        for (double weightedNumber: notInConDistMap.values()) {
+                        for (double weightedNumber: notInConDist) {
                             notInGini -= weightedNumber * weightedNumber;
                             notInWeightedNumber += weightedNumber;
                         }
@@ -451,6 +447,16 @@ public class CartTree extends DecisionTree {
             return "[ [<=" + splitPoint + "] [>" + splitPoint + "] ]";
         }
 
+        @Override
+        protected double splitPoint() {
+            return this.splitPoint;
+        }
+
+        @Override
+        protected double[][] edgeValues() {
+            return null;
+        }
+
         @Override
         public ContinuousCartNode copy() {
             ContinuousCartNode node = new ContinuousCartNode(this.splitPoint);
@@ -500,6 +506,25 @@ public class CartTree extends DecisionTree {
             return "[ " + leftSplitSet.toString() + " " + rightSplitSet.toString() + " ]";
         }
 
+        @Override
+        protected double splitPoint() {
+            return Double.NaN;
+        }
+
+        @Override
+        protected double[][] edgeValues() {
+            return new double[][] {toArray(this.leftSplitSet), toArray(this.rightSplitSet)};
+        }
+
+        private static double[] toArray(Set<Double> values) {
+            double[] res = new double[values.size()];
+            int i = 0;
+            for (double value: values) {
+                res[i++] = value;
+            }
+            return res;
+        }
+
         @Override
         public DiscreteCartNode copy() {
             DiscreteCartNode node = new DiscreteCartNode(this.leftSplitSet, this.rightSplitSet);
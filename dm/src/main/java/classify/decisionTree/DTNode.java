@@ -58,6 +58,22 @@ public abstract class DTNode implements Copyable<DTNode> {
 
     protected abstract String edgeString();
 
+    /**
+     * Returns the split point of an internal node on a continuous feature:
+     * its first child takes the values not greater than it, its second child the others.
+     *
+     * @return the split point, or NaN if the node splits on a discrete feature
+     */
+    protected abstract double splitPoint();
+
+    /**
+     * Returns the feature values leading to each child of an internal node on a discrete feature.
+     *
+     * @return an array whose element i holds the values matched by child i,
+     * or null if the node splits on a continuous feature
+     */
+    protected abstract double[][] edgeValues();
+
     public void print() {
         List<DTNode> line = new ArrayList<>();
         line.add(this);
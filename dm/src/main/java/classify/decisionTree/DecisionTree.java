@@ -3,10 +3,15 @@ package main.java.classify.decisionTree;
 import main.java.classify.evaluation.Evaluatable;
 import main.java.classify.evaluation.PerformanceMeasure;
 import main.java.core.*;
+import main.java.core.collection.DoubleIntHashMap;
 import main.java.core.exception.EstimatorNotFittedException;
+import main.java.core.sampling.Resampling;
 import main.java.preprocessing.weight.ClassWeightUtil;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * This is an abstract base class for implementing decision tree.
@@ -92,12 +97,17 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
      */
     protected double ccpAlpha;
 
+    /**
+     * Whether the contingency tables of a node are counted in parallel, false by default.
+     * It pays off only for nodes with many samples, see {@link ContingencyTable#ofAll(DataSet, double[], int, boolean)}.
+     */
+    protected boolean parallel;
 
 
     /**
      * The total weighted number of given dataset.
      * It is used to compute the improvement in impurity when a split occurs.
-     * It will be initialized only when preprocessing.
+     * It will be initialized only when fitting.
      */
     protected double weightedNSamples;
 
@@ -127,15 +137,33 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
         }
     }
 
+    /**
+     * Sets whether the contingency tables of a node are counted in parallel.
+     *
+     * @param parallel true to count blocks of samples in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns the contingency tables of every attribute against the class in a data set.
+     *
+     * @param dataset the data set of a node
+     * @return an array of tables whose element j is the table of attribute j
+     */
+    protected ContingencyTable[] contingencyTables(DataSet dataset) {
+        return ContingencyTable.ofAll(dataset, dataset.weightValues(), -1, this.parallel && dataset.size() >= ContingencyTable.BLOCK_SIZE * 2);
+    }
+
     /**
      * Builds a decision tree from the training set.
+     * Each instance is weighted 1, the weights of the instances are ignored.
      *
      * @param dataset training set
      */
     public void fit(DataSet dataset) {
-        this.preprocess(dataset, null, null); // 所有instance的权重将被设置为1
-        this.root = this.buildTree(dataset, 1);
-        this.prune();
+        this.fit(dataset, ClassWeightUtil.computeWeight(dataset, null, null)); // 所有instance的权重为1
     }
 
     /**
@@ -144,11 +172,36 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
      * @param dataset training set
      * @param classWeight class weights
      * @param sampleWeight sample weights
-     * @deprecated It is advised that set weights use {@link ClassWeightUtil#setWeight(DataSet, Map, double[])} before this.
+     * @deprecated It is advised that compute weights use {@link ClassWeightUtil#computeWeight(DataSet, Map, double[])}
+     * and call {@link #fit(DataSet, double[])}.
      */
     public void fit(DataSet dataset, Map<Double, Double> classWeight, double[] sampleWeight) {
-        this.preprocess(dataset, classWeight, sampleWeight); // instanceWeight = classWeight * sampleWeight
-        this.root = this.buildTree(dataset, 1);
+        // instanceWeight = classWeight * sampleWeight
+        this.fit(dataset, ClassWeightUtil.computeWeight(dataset, classWeight, sampleWeight));
+    }
+
+    /**
+     * Builds a decision tree from the training set with given weight of each instance.
+     * Neither the data set nor its instances are modified,
+     * so different trees can be fitted over one data set at the same time.
+     * Instances weighted 0, e.g. rows not drawn into a bootstrap sample, are left out,
+     * as a node without weight has no class distribution to split or to predict.
+     *
+     * @param dataset training set
+     * @param weights the weight of each instance
+     * @throws IllegalArgumentException if the length of weights != the size of dataset or all weights are 0
+     */
+    public void fit(DataSet dataset, double[] weights) {
+        DataSetView weighted = DataSetView.weighted(dataset, weights);
+        int[] rows = IntStream.range(0, weights.length).filter(i -> weights[i] != 0).toArray();
+        if (rows.length == 0) {
+            throw new IllegalArgumentException("The weights of all instances are 0.");
+        }
+        if (rows.length < weights.length) { // 子视图继承所选行的权重
+            weighted = new DataSetView(weighted, rows);
+        }
+        this.weightedNSamples = DataSets.sumWeight(weights);
+        this.root = this.buildTree(weighted, 1);
         this.prune();
     }
 
@@ -181,6 +234,31 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
         return node.clazz;
     }
 
+    /**
+     * Flattens this fitted decision tree into primitive arrays,
+     * which predict like this tree and can be saved by {@link FlatTree#save(Path)}.
+     *
+     * @return the flattened tree
+     * @throws EstimatorNotFittedException if this decision tree is not fitted yet
+     */
+    public FlatTree flatten() {
+        if (this.root == null) {
+            throw new EstimatorNotFittedException("This decision tree is not fitted yet.");
+        }
+        return FlatTree.of(this.root);
+    }
+
+    /**
+     * Saves this fitted decision tree flattened, to be loaded by {@link FlatTree#load(Path)}.
+     *
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     * @throws EstimatorNotFittedException if this decision tree is not fitted yet
+     */
+    public void save(Path path) throws IOException {
+        this.flatten().save(path);
+    }
+
     /**
      * Prints this fitted decision tree.
      *
@@ -212,19 +290,10 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
         for (double clazz: dataset.classSet()) {
             res.put(clazz, new PerformanceMeasure());
         }
-        DataSet[] folds = DataSets.folds(dataset, k);
-        List<AttributeInfo> attributeInfoList = dataset.attributeInfoList();
-        AttributeInfo classInfo = dataset.classInfo();
+        int[][] folds = Resampling.kFold(dataset.size(), k, new Random());
         for (int i = 0; i < k; i++) {
-            DataSet validation = folds[i]; // 测试集
-            DataSet training = new StandardDataSet(attributeInfoList, classInfo); // 训练集
-            for (int j = 0; j < k; j++) {
-                if (j != i) {
-                    for (Instance instance : folds[i]) {
-                        training.add(instance);
-                    }
-                }
-            }
+            DataSet validation = new DataSetView(dataset, folds[i]); // 测试集
+            DataSet training = new DataSetView(dataset, Resampling.complement(dataset.size(), folds[i])); // 训练集为其余各折
             this.fit(training);
             for (Instance instance: validation) {
                 double prediction = this.predict(instance);
@@ -288,24 +357,42 @@ public abstract class DecisionTree implements Evaluatable, WeightHandler {
     }
 
     /**
-     * Preprocess: set each instance's weight.
-     * <p>
-     *     instanceWeight = classWeight * sampleWeight
-     * </p>
-     * <p>
-     * If given classWeight is null, weight of each class will be set 1.
-     * If given sampleWeight is null, weight of each sample will be set 1.
-     * </p>
+     * Groups the row indices by attribute value for a discrete split.
+     * Each given value gets an entry, even if no row has it.
      *
-     * @param dataset the data set to fit
-     * @param classWeight a map contains weights associated with classes
-     * @param sampleWeight an array containing sample weights
-     * @throws IllegalArgumentException if the length of sampleWeight != the size of dataset
+     * @param attrValues the attribute's value of each row
+     * @param values the values to group by
+     * @return a sorted map, key is the value, value is the indices of rows having it
      */
-    private void preprocess(DataSet dataset, Map<Double, Double> classWeight, double[] sampleWeight) {
-        // 设置每个instance的权重
-        ClassWeightUtil.setWeight(dataset, classWeight, sampleWeight);
-        this.weightedNSamples = DataSets.sumWeight(dataset);
+    protected static TreeMap<Double, int[]> groupRows(double[] attrValues, Collection<Double> values) {
+        // 取值编码为整数后两遍计数排序：先数出每组的大小，再按行的顺序填入
+        DoubleIntHashMap codes = new DoubleIntHashMap(values.size());
+        for (double value: values) {
+            codes.putIfAbsent(value, codes.size());
+        }
+        int[] rowCodes = new int[attrValues.length];
+        int[] counts = new int[codes.size()];
+        for (int i = 0; i < attrValues.length; i++) {
+            int code = codes.getOrDefault(attrValues[i], -1);
+            rowCodes[i] = code;
+            if (code >= 0) {
+                counts[code]++;
+            }
+        }
+        int[][] groups = new int[counts.length][];
+        for (int c = 0; c < counts.length; c++) {
+            groups[c] = new int[counts[c]];
+        }
+        int[] cursors = new int[counts.length];
+        for (int i = 0; i < rowCodes.length; i++) {
+            int code = rowCodes[i];
+            if (code >= 0) {
+                groups[code][cursors[code]++] = i;
+            }
+        }
+        TreeMap<Double, int[]> res = new TreeMap<>();
+        codes.forEach((value, code) -> res.put(value, groups[code]));
+        return res;
     }
 
     private TreeMap<Double, DTNode> subTrees;
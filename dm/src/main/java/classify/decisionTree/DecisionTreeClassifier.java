@@ -112,6 +112,17 @@ public class DecisionTreeClassifier implements Classifier, WeightHandler {
         this.tree.fit(dataset);
     }
 
+    /**
+     * Builds the decision tree with given weight of each instance.
+     *
+     * @param dataset training set
+     * @param weights the weight of each instance
+     * @see DecisionTree#fit(DataSet, double[])
+     */
+    public void fit(DataSet dataset, double[] weights) {
+        this.tree.fit(dataset, weights);
+    }
+
     @Override
     public double classify(Instance instance) {
         return this.tree.predict(instance);
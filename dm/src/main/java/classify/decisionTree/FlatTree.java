@@ -0,0 +1,220 @@
+package main.java.classify.decisionTree;
+
+import main.java.core.Instance;
+import main.java.utils.io.ModelSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A fitted decision tree flattened into primitive arrays, which predicts like the tree
+ * and can be saved and reloaded without rebuilding any node.
+ * <p>
+ * Nodes are numbered in breadth-first order from the root 0. Node i splits on attribute {@code feature[i]},
+ * or is a leaf if it is -1, and predicts {@code clazz[i]} when it is a leaf or no child matches.
+ * Its edges are {@code [edgeStart[i], edgeStart[i+1])}: edge e leads to node {@code edgeChild[e]}.
+ * A node on a continuous feature has the two edges of the values {@code <= threshold[i]} and the others,
+ * a node on a discrete feature ({@code threshold[i]} is NaN) has an edge per value {@code edgeValue[e]}.
+ * A missing value (NaN) follows edge {@code missingEdge[i]}, or stops at the node if it is -1.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DecisionTree#flatten()
+ * @see ModelSnapshot
+ */
+public class FlatTree {
+
+    /**
+     * The kind of the model in its snapshot.
+     */
+    private static final String KIND = "FlatTree";
+
+    private final int[] feature;
+
+    private final double[] clazz;
+
+    private final double[] threshold;
+
+    private final int[] edgeStart;
+
+    private final double[] edgeValue;
+
+    private final int[] edgeChild;
+
+    private final int[] missingEdge;
+
+    private FlatTree(int[] feature, double[] clazz, double[] threshold,
+                     int[] edgeStart, double[] edgeValue, int[] edgeChild, int[] missingEdge) {
+        this.feature = feature;
+        this.clazz = clazz;
+        this.threshold = threshold;
+        this.edgeStart = edgeStart;
+        this.edgeValue = edgeValue;
+        this.edgeChild = edgeChild;
+        this.missingEdge = missingEdge;
+    }
+
+    /**
+     * Flattens the tree under given root.
+     */
+    static FlatTree of(DTNode root) {
+        List<DTNode> nodes = new ArrayList<>();
+        nodes.add(root);
+        int nEdges = 0;
+        for (int i = 0; i < nodes.size(); i++) { // 广度优先编号，子节点的编号连续
+            DTNode node = nodes.get(i);
+            if (node.isLeaf()) {
+                continue;
+            }
+            int nChildren = 0;
+            for (Iterator<? extends DTNode> it = node.children(); it.hasNext(); nChildren++) {
+                nodes.add(it.next());
+            }
+            double[][] values = node.edgeValues();
+            if (values == null) {
+                nEdges += nChildren;
+            } else {
+                for (double[] childValues: values) {
+                    nEdges += childValues.length;
+                }
+            }
+        }
+
+        int nNodes = nodes.size();
+        int[] feature = new int[nNodes];
+        double[] clazz = new double[nNodes];
+        double[] threshold = new double[nNodes];
+        int[] edgeStart = new int[nNodes + 1];
+        double[] edgeValue = new double[nEdges];
+        int[] edgeChild = new int[nEdges];
+        int[] missingEdge = new int[nNodes];
+        int e = 0;
+        int next = 1; // 下一个子节点的编号
+        for (int i = 0; i < nNodes; i++) {
+            DTNode node = nodes.get(i);
+            clazz[i] = node.clazz;
+            edgeStart[i] = e;
+            feature[i] = -1;
+            threshold[i] = Double.NaN;
+            missingEdge[i] = -1;
+            if (node.isLeaf()) {
+                continue;
+            }
+            feature[i] = node.feature.index;
+            threshold[i] = node.splitPoint();
+            double[][] values = node.edgeValues();
+            DTNode missingChild = node.matchChild(Double.NaN); // 缺失值所走的子节点
+            int c = 0;
+            for (Iterator<? extends DTNode> it = node.children(); it.hasNext(); c++) {
+                DTNode child = it.next();
+                int childIndex = next++;
+                if (child == missingChild && missingChild != null) {
+                    missingEdge[i] = e;
+                }
+                if (values == null) { // 连续特征：左右两条边
+                    edgeValue[e] = threshold[i];
+                    edgeChild[e++] = childIndex;
+                } else {
+                    for (double value: values[c]) {
+                        edgeValue[e] = value;
+                        edgeChild[e++] = childIndex;
+                    }
+                }
+            }
+        }
+        edgeStart[nNodes] = e;
+        return new FlatTree(feature, clazz, threshold, edgeStart, edgeValue, edgeChild, missingEdge);
+    }
+
+    /**
+     * Predicts the class value for given instance.
+     *
+     * @param instance the specified instance
+     * @return class value for given instance
+     */
+    public double predict(Instance instance) {
+        int node = 0;
+        while (this.feature[node] >= 0) {
+            double value = instance.attribute(this.feature[node]);
+            int start = this.edgeStart[node];
+            int edge = -1;
+            if (Double.isNaN(value)) {
+                edge = this.missingEdge[node];
+            } else if (!Double.isNaN(this.threshold[node])) { // 连续特征
+                edge = value <= this.threshold[node] ? start : start + 1;
+            } else {
+                for (int e = start; e < this.edgeStart[node + 1]; e++) {
+                    if (this.edgeValue[e] == value) {
+                        edge = e;
+                        break;
+                    }
+                }
+            }
+            if (edge < 0) { // instance中有未知的离散特征值时，返回该非叶节点的默认class
+                break;
+            }
+            node = this.edgeChild[edge];
+        }
+        return this.clazz[node];
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int nodeCount() {
+        return this.feature.length;
+    }
+
+    /**
+     * Saves this tree as a {@link ModelSnapshot}.
+     *
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(Path path) throws IOException {
+        ModelSnapshot.writer(KIND)
+                .writeInts(this.feature)
+                .writeDoubles(this.clazz)
+                .writeDoubles(this.threshold)
+                .writeInts(this.edgeStart)
+                .writeDoubles(this.edgeValue)
+                .writeInts(this.edgeChild)
+                .writeInts(this.missingEdge)
+                .save(path);
+    }
+
+    /**
+     * Loads a tree saved by {@link #save(Path)} or {@link DecisionTree#save(Path)}.
+     *
+     * @param path the snapshot file
+     * @return the tree
+     * @throws IOException if an I/O error occurs or the file is not a snapshot of a tree
+     */
+    public static FlatTree load(Path path) throws IOException {
+        try (ModelSnapshot.Reader in = ModelSnapshot.open(path, KIND)) {
+            int[] feature = in.readInts();
+            double[] clazz = in.readDoubles();
+            double[] threshold = in.readDoubles();
+            int[] edgeStart = in.readInts();
+            double[] edgeValue = in.readDoubles();
+            int[] edgeChild = in.readInts();
+            int[] missingEdge = in.readInts();
+            int nNodes = feature.length;
+            if (nNodes == 0 || clazz.length != nNodes || threshold.length != nNodes || edgeStart.length != nNodes + 1
+                    || missingEdge.length != nNodes || edgeValue.length != edgeStart[nNodes] || edgeChild.length != edgeStart[nNodes]) {
+                throw new IOException("Inconsistent tree arrays: " + path);
+            }
+            return new FlatTree(feature, clazz, threshold, edgeStart, edgeValue, edgeChild, missingEdge);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FlatTree{nodes=" + this.nodeCount() + ", edges=" + this.edgeChild.length + '}';
+    }
+}
@@ -82,21 +82,10 @@ public class ID3Tree extends DecisionTree {
         TreeMap<Double, DataSet> subDataSets = new TreeMap<>();
         int attrIndex = splitRecord.feature; // Feature to split on.
         Map<Double, Double> thresholdImpurityMap  = splitRecord.thresholdImpurityMap;
-        List<AttributeInfo> oldAttributeInfoList = dataset.attributeInfoList();
-        List<AttributeInfo> attributeInfoList = new ArrayList<>();
-        for (int i = 0; i < attrIndex; i++) {
-            attributeInfoList.add(oldAttributeInfoList.get(i));
-        }
-        for (int i = attrIndex+1; i < oldAttributeInfoList.size(); i++) {
-            attributeInfoList.add(oldAttributeInfoList.get(i));
-        }
-        for (Double threshold: thresholdImpurityMap.keySet()) {
-            subDataSets.put(threshold, new StandardDataSet(attributeInfoList, dataset.classInfo()));
-        }
-        for (Instance oldInstance: dataset) {
-            double threshold = oldInstance.attribute(attrIndex);
-            DataSet subDataSet = subDataSets.get(threshold);
-            subDataSet.add(oldInstance.deleteAttribute(attrIndex));
+        // 子数据集只是父数据集去掉分割属性后的行索引视图，不复制实例
+        double[] attrValues = dataset.attrValues(attrIndex);
+        for (Map.Entry<Double, int[]> entry: groupRows(attrValues, thresholdImpurityMap.keySet()).entrySet()) {
+            subDataSets.put(entry.getKey(), DataSetView.withoutAttribute(dataset, entry.getValue(), attrIndex));
         }
         return subDataSets;
     }
@@ -105,15 +94,16 @@ public class ID3Tree extends DecisionTree {
         int attrIndex = -1; // 选中属性的索引
         double originEntropy = this.computeImpurity(dataset); // 未分割前的熵
         double minSplitEntropy = originEntropy; // 最小分割后子集的熵之和，与最大信息增益相对应
+        ContingencyTable[] tables = this.contingencyTables(dataset); // 每个属性与类的列联表
         for (int i = 0; i < dataset.dimensionality(); i++) {
             // 类相对于当前属性的条件分布
-            TreeMap<Double, TreeMap<Double, Double>> conDistMap = DataSets.colConDistMap(dataset, i, -1);
+            ContingencyTable table = tables[i];
             double totalWeightedNumber = 0; // 总样本大小
             double thisSplitEntropy = 0; // 按当前属性分割后的熵和
-            for (TreeMap<Double, Double> distMap: conDistMap.values()) {
+            for (int r = 0; r < table.rows(); r++) {
                 double subWeightedNumber = 0; // 子集样本大小
                 double subEntropy = 0; // 子集的熵
-                for (double weightedNumber: distMap.values()) {
+                for (double weightedNumber: table.row(r)) {
                     if (weightedNumber == 0) continue;
                     subWeightedNumber += weightedNumber;
                     subEntropy -= (weightedNumber * MathUtil.log2(weightedNumber));
@@ -129,15 +119,14 @@ public class ID3Tree extends DecisionTree {
             }
         }
         TreeMap<Double, Double> thresholdImpurityMap = new TreeMap<>();
-        TreeMap<Double, TreeMap<Double, Double>> conDistMap = DataSets.colConDistMap(dataset, attrIndex, -1);
+        ContingencyTable table = tables[attrIndex];
         double improvement = 0;
         double totalWeightedNumber = 0;
-        for (Map.Entry<Double, TreeMap<Double, Double>> entry: conDistMap.entrySet()) {
-            double threshold = entry.getKey();
+        for (int r = 0; r < table.rows(); r++) {
+            double threshold = table.rowValue(r);
             double subEntropy = 0;
             double subWeightedNumber = 0;
-            TreeMap<Double, Double> distMap = entry.getValue();
-            for (double weightedNumber: distMap.values()) {
+            for (double weightedNumber: table.row(r)) {
                 if (weightedNumber == 0) continue;
                 subWeightedNumber += weightedNumber;
                 subEntropy -= (weightedNumber * MathUtil.log2(weightedNumber));
@@ -272,6 +261,20 @@ public class ID3Tree extends DecisionTree {
             return sb.toString();
         }
 
+        @Override
+        protected double splitPoint() {
+            return Double.NaN;
+        }
+
+        @Override
+        protected double[][] edgeValues() {
+            double[][] res = new double[this.edgeValues.size()][];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = new double[] {this.edgeValues.get(i)};
+            }
+            return res;
+        }
+
         @Override
         public ID3Node copy() {
             ID3Node node = new ID3Node();
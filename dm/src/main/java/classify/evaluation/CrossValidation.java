@@ -2,9 +2,10 @@ package main.java.classify.evaluation;
 
 import main.java.classify.Classifier;
 import main.java.core.*;
+import main.java.core.sampling.Resampling;
 
-import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
 
 /**
@@ -32,19 +33,10 @@ public class CrossValidation implements Evaluatable{
         for (double clazz: dataset.classSet()) {
             res.put(clazz, new PerformanceMeasure());
         }
-        DataSet[] folds = DataSets.folds(dataset, k);
-        List<AttributeInfo> attributeInfoList = dataset.attributeInfoList();
-        AttributeInfo classInfo = dataset.classInfo();
+        int[][] folds = Resampling.kFold(dataset.size(), k, new Random());
         for (int i = 0; i < k; i++) {
-            DataSet validation = folds[i]; // 测试集
-            DataSet training = new StandardDataSet(attributeInfoList, classInfo); // 训练集
-            for (int j = 0; j < k; j++) {
-                if (j != i) {
-                    for (Instance instance : folds[i]) {
-                        training.add(instance);
-                    }
-                }
-            }
+            DataSet validation = new DataSetView(dataset, folds[i]); // 测试集
+            DataSet training = new DataSetView(dataset, Resampling.complement(dataset.size(), folds[i])); // 训练集为其余各折
             classifier.fit(training);
             for (Instance instance: validation) {
                 double prediction = classifier.classify(instance);
@@ -1,14 +1,13 @@
 package main.java.classify.neighbors;
 
+import main.java.core.ColumnMoments;
 import main.java.core.DataSet;
-import main.java.core.DataSets;
 import main.java.core.Instance;
+import main.java.core.collection.TopK;
 import main.java.core.exception.EstimatorNotFittedException;
 import main.java.metrics.distance.DistanceMetric;
 import main.java.metrics.distance.SEuclideanDistance;
 
-import java.util.*;
-
 /**
  * KNN classifier using a brute-force search to compute the nearest neighbors.
  *
@@ -60,43 +59,27 @@ public class BruteKNNClassifier extends KNeighborsClassifier{
     @Override
     public void fit(DataSet dataset) {
         this.training = dataset;
-        this.classSet = dataset.classSet();
+        this.setClassSet(dataset.classSet());
         if (this.metric == null) {
-            double[] var= DataSets.var(this.training);
+            // 大数据集按行分块并行累加，结果与线程数无关
+            double[] var = ColumnMoments.of(this.training, null, this.training.size() >= 2 * ColumnMoments.BLOCK_SIZE).variance();
             this.metric = new SEuclideanDistance(var);
         }
     }
 
     @Override
-    public Map<Instance, Double> kNeighbors(Instance instance, int k) {
+    public void kNeighbors(Instance instance, TopK neighbors) {
         if (this.training == null) {
             throw new EstimatorNotFittedException("BruteKNNClassifier is not fitted yet.");
         }
-        PriorityQueue<InDistance> maxHeap = new PriorityQueue<>(k);
-        for (Instance neighbor: this.training) {
-            double distance = metric.measure(instance, neighbor);
-            if (maxHeap.size() < k) {
-                maxHeap.add(new InDistance(neighbor, distance));
-            } else {
-                double maxDistance = maxHeap.peek().distance;
-                if (maxDistance > distance) {
-                    maxHeap.poll();
-                    maxHeap.offer(new InDistance(neighbor, distance));
-                }
-            }
-        }
-        InDistance[] neighbors = new InDistance[maxHeap.size()];
-        maxHeap.toArray(neighbors);
-        Arrays.sort(neighbors, new Comparator<InDistance>() {
-            @Override
-            public int compare(InDistance o1, InDistance o2) {
-                return Double.compare(o1.distance, o2.distance);
-            }
-        });
-        LinkedHashMap<Instance, Double> kNeighbors = new LinkedHashMap<>(neighbors.length);
-        for (InDistance neighbor: neighbors) {
-            kNeighbors.put(neighbor.instance, neighbor.distance);
+        int n = this.training.size();
+        for (int i = 0; i < n; i++) {
+            neighbors.offer(i, this.metric.measure(instance, this.training.instance(i)));
         }
-        return kNeighbors;
+    }
+
+    @Override
+    protected Instance trainingInstance(int index) {
+        return this.training.instance(index);
     }
 }
@@ -1,7 +1,7 @@
 package main.java.classify.neighbors;
 
+import main.java.core.ColumnMoments;
 import main.java.core.DataSet;
-import main.java.core.DataSets;
 import main.java.core.Instance;
 import main.java.core.exception.EstimatorNotFittedException;
 import main.java.metrics.distance.DistanceMetric;
@@ -61,9 +61,9 @@ public class BruteRNNClassifier extends RadiusNeighborsClassifier{
     @Override
     public void fit(DataSet dataset) {
         this.training = dataset;
-        this.classSet = dataset.classSet();
+        this.setClassSet(dataset.classSet());
         if (this.metric == null) {
-            double[] var= DataSets.var(this.training);
+            double[] var = ColumnMoments.of(this.training, null, this.training.size() >= 2 * ColumnMoments.BLOCK_SIZE).variance();
             this.metric = new SEuclideanDistance(var);
         }
     }
@@ -3,9 +3,9 @@ package main.java.classify.neighbors;
 import main.java.core.Instance;
 
 /**
- * This is just a wrapper of instance and distance for querying the k nearest neighbors.
- * This is just used in {@code PriorityQueue<InDistance>},
- * where the greater the distance, the lower the priority.
+ * This is just a wrapper of instance and distance for querying the neighbors within a radius.
+ * The k nearest neighbors are selected by {@link main.java.core.collection.TopK} instead.
+ * The greater the distance, the lower the priority.
  *
  * @author Cloudy1225
  */
@@ -3,9 +3,12 @@ package main.java.classify.neighbors;
 import main.java.core.DataSet;
 import main.java.core.DenseInstance;
 import main.java.core.Instance;
+import main.java.core.collection.TopK;
 import main.java.core.exception.EstimatorNotFittedException;
 import main.java.metrics.distance.DistanceMetric;
+import main.java.utils.io.ModelSnapshot;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -20,33 +23,156 @@ public class KDTree {
 
     private KDNode root;
 
+    /**
+     * The stored instances, nodes refer to them by index.
+     */
+    private Instance[] instances;
+
+    /**
+     * The data set the tree was built with.
+     */
+    private DataSet dataset;
+
+    /**
+     * Buffers reused by queries in each thread.
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
     /**
      * Builds a k-d tree with given dataset.
      *
      * @param dataset dataset to store
      */
     public void buildTree(DataSet dataset) {
+        this.setDataSet(dataset);
+        int[] rows = new int[this.instances.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        this.root = this.build(rows);
+    }
+
+    private void setDataSet(DataSet dataset) {
+        this.dataset = dataset;
         this.dimensionality = dataset.dimensionality();
-        List<Instance> train = new ArrayList<>(dataset.size());
-        for (Instance instance: dataset) {
-            train.add(instance);
+        this.instances = new Instance[dataset.size()];
+        for (int i = 0; i < this.instances.length; i++) {
+            this.instances[i] = dataset.instance(i);
+        }
+    }
+
+    /**
+     * Returns the data set the tree was built with.
+     *
+     * @return the data set
+     */
+    DataSet dataset() {
+        return this.dataset;
+    }
+
+    /**
+     * Writes the nodes as arrays in preorder: the feature, pivot, left child and right child (-1 if none) of each node,
+     * and the rows of each node, which are {@code rows[rowStart[i], rowStart[i+1])} for node i.
+     *
+     * @param out the writer of a snapshot
+     */
+    void write(ModelSnapshot.Writer out) {
+        List<KDNode> nodes = new ArrayList<>();
+        if (this.root != null) {
+            NodeStack stack = new NodeStack();
+            stack.push(this.root);
+            while (!stack.isEmpty()) { // 先序遍历
+                KDNode node = stack.pop();
+                nodes.add(node);
+                if (node.right != null) {
+                    stack.push(node.right);
+                }
+                if (node.left != null) {
+                    stack.push(node.left);
+                }
+            }
+        }
+        int nNodes = nodes.size();
+        IdentityHashMap<KDNode, Integer> ids = new IdentityHashMap<>(nNodes);
+        for (int i = 0; i < nNodes; i++) {
+            ids.put(nodes.get(i), i);
+        }
+        int[] feature = new int[nNodes];
+        double[] pivot = new double[nNodes];
+        int[] left = new int[nNodes];
+        int[] right = new int[nNodes];
+        int[] rowStart = new int[nNodes + 1];
+        int[] rows = new int[this.instances.length];
+        for (int i = 0; i < nNodes; i++) {
+            KDNode node = nodes.get(i);
+            feature[i] = node.feature;
+            pivot[i] = node.pivot;
+            left[i] = node.left == null ? -1 : ids.get(node.left);
+            right[i] = node.right == null ? -1 : ids.get(node.right);
+            System.arraycopy(node.rows, 0, rows, rowStart[i], node.rows.length);
+            rowStart[i + 1] = rowStart[i] + node.rows.length;
+        }
+        out.writeInts(feature).writeDoubles(pivot).writeInts(left).writeInts(right).writeInts(rowStart).writeInts(rows);
+    }
+
+    /**
+     * Reads the nodes written by {@link #write(ModelSnapshot.Writer)}, without computing any split again.
+     *
+     * @param in the reader of a snapshot
+     * @param dataset the data set the tree was built with
+     * @return the tree
+     * @throws IOException if an I/O error occurs or the arrays are inconsistent
+     */
+    static KDTree read(ModelSnapshot.Reader in, DataSet dataset) throws IOException {
+        int[] feature = in.readInts();
+        double[] pivot = in.readDoubles();
+        int[] left = in.readInts();
+        int[] right = in.readInts();
+        int[] rowStart = in.readInts();
+        int[] rows = in.readInts();
+        int nNodes = feature.length;
+        if (pivot.length != nNodes || left.length != nNodes || right.length != nNodes
+                || rowStart.length != nNodes + 1 || rows.length != dataset.size() || rowStart[nNodes] != rows.length) {
+            throw new IOException("Inconsistent k-d tree arrays.");
+        }
+        KDNode[] nodes = new KDNode[nNodes];
+        for (int i = 0; i < nNodes; i++) {
+            nodes[i] = new KDNode();
+            nodes[i].feature = feature[i];
+            nodes[i].pivot = pivot[i];
+            nodes[i].rows = Arrays.copyOfRange(rows, rowStart[i], rowStart[i + 1]);
+        }
+        for (int i = 0; i < nNodes; i++) {
+            nodes[i].left = left[i] < 0 ? null : nodes[left[i]];
+            nodes[i].right = right[i] < 0 ? null : nodes[right[i]];
         }
-        this.root = this.build(train);
+        KDTree tree = new KDTree();
+        tree.setDataSet(dataset);
+        tree.root = nNodes == 0 ? null : nodes[0];
+        return tree;
+    }
+
+    /**
+     * Returns the stored instance at given index.
+     *
+     * @param index the index of the instance in the dataset the tree was built with
+     * @return the stored instance
+     */
+    public Instance instance(int index) {
+        return this.instances[index];
     }
 
     /**
      * 根据方差大小选择划分维度，方差越大，划分效果越好
      */
-    private KDNode build(List<Instance> dataset) {
-        int size = dataset.size();
+    private KDNode build(int[] rows) {
+        int size = rows.length;
         if (size == 0) {
             return null;
         }
         KDNode node = new KDNode();
-        List<Instance> thisDataSet = new ArrayList<>();
         if (size == 1) {
-            thisDataSet.add(dataset.get(0));
-            node.instances = thisDataSet;
+            node.rows = rows;
             return node;
         }
 
@@ -54,40 +180,42 @@ public class KDTree {
         double maxVar = -1;
         int feature  = -1;
         for (int i = 0; i < dimensionality; i++) {
-            double var = this.computeVariance(dataset, i);
+            double var = this.computeVariance(rows, i);
             if (var > maxVar) {
                 maxVar = var;
                 feature = i;
             }
         }
-        double pivot = this.getMedian(dataset, feature);
-        List<Instance> leftDataSet = new ArrayList<>(size / 2);
-        List<Instance> rightDataSet = new ArrayList<>(size / 2);
-        for (Instance instance: dataset) {
-            double attrValue = instance.attribute(feature);
+        double pivot = this.getMedian(rows, feature);
+        int[] thisRows = new int[size];
+        int[] leftRows = new int[size];
+        int[] rightRows = new int[size];
+        int nThis = 0, nLeft = 0, nRight = 0;
+        for (int row: rows) {
+            double attrValue = this.instances[row].attribute(feature);
             if (attrValue == pivot) {
-                thisDataSet.add(instance);
+                thisRows[nThis++] = row;
             } else if (attrValue < pivot) {
-                leftDataSet.add(instance);
+                leftRows[nLeft++] = row;
             } else {
-                rightDataSet.add(instance);
+                rightRows[nRight++] = row;
             }
         }
         node.feature = feature;
         node.pivot = pivot;
-        node.instances = thisDataSet;
-        node.left = this.build(leftDataSet);
-        node.right = this.build(rightDataSet);
+        node.rows = Arrays.copyOf(thisRows, nThis);
+        node.left = this.build(Arrays.copyOf(leftRows, nLeft));
+        node.right = this.build(Arrays.copyOf(rightRows, nRight));
         return node;
     }
 
     /**
      * 寻找中位数，偶数时返回右边的
      */
-    private double getMedian(List<Instance> dataset, int index) {
-        double[] values = new double[dataset.size()];
+    private double getMedian(int[] rows, int index) {
+        double[] values = new double[rows.length];
         for (int i = 0; i < values.length; i++) {
-            values[i] = dataset.get(i).attribute(index);
+            values[i] = this.instances[rows[i]].attribute(index);
         }
         Arrays.sort(values);
         return values[values.length / 2];
@@ -96,17 +224,18 @@ public class KDTree {
     /**
      * 计算方差
      */
-    private double computeVariance(List<Instance> dataset, int index) {
-        int n = dataset.size();
+    private double computeVariance(int[] rows, int index) {
+        int n = rows.length;
         double sumX_i2 = 0;
         double sumX_i = 0;
-        for (Instance instance: dataset) {
-            double attrValue = instance.attribute(index);
+        for (int row: rows) {
+            double attrValue = this.instances[row].attribute(index);
             sumX_i2 += attrValue * attrValue;
             sumX_i += attrValue;
         }
         return (sumX_i2 - sumX_i/n*sumX_i) / n;
     }
+
     /**
      * Searches the tree for the k nearest neighbors.
      *
@@ -116,110 +245,55 @@ public class KDTree {
      * @return the sorted K-neighbors: instance and distance
      */
     public Map<Instance, Double> query(Instance instance, int k, DistanceMetric metric) {
+        TopK neighbors = new TopK(k);
+        this.query(instance, neighbors, metric);
+        // 将保存邻居的堆转变为根据距离从小到大排列的Map
+        neighbors.sort();
+        // LinkedHashMap保证了插入顺序
+        LinkedHashMap<Instance, Double> kNeighbors = new LinkedHashMap<>(neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            kNeighbors.put(this.instances[neighbors.index(i)], neighbors.distance(i));
+        }
+        return kNeighbors;
+    }
+
+    /**
+     * Searches the tree for the {@code neighbors.k()} nearest neighbors.
+     * The index of a neighbor is its index in the dataset the tree was built with, see {@link #instance(int)}.
+     * Nothing is allocated after the first query of a thread, besides what the metric allocates.
+     *
+     * @param instance instance to query
+     * @param neighbors an empty selector receiving the neighbors
+     * @param metric metric to use for distance computation
+     */
+    public void query(Instance instance, TopK neighbors, DistanceMetric metric) {
         if (this.root == null) {
             throw new EstimatorNotFittedException("KDTree is not fitted yet.");
         }
-        PriorityQueue<InDistance> maxHeap = new PriorityQueue<>(k); // 保存最近K个邻居
-        ArrayDeque<KDNode> stack = new ArrayDeque<>();// 用于递归加回溯
-        KDNode curRoot = this.root;
+        Scratch scratch = this.scratch();
+        NodeStack stack = scratch.stack; // 用于递归加回溯
+        stack.clear();
         // 寻找初始时instance所属于的叶节点
-        while (true) {
-            // 只有倒数第二层节点可能只有一个子树
-            stack.push(curRoot);
-            if (curRoot.left != null) { // 有左子树
-                if (instance.attribute(curRoot.feature) < curRoot.pivot) {
-                    curRoot = curRoot.left; // 小于中位数，走左子树
-                } else {
-                    if (curRoot.right != null) { // 大于等于中位数且有右子树，走右子树
-                        curRoot = curRoot.right;
-                    } else { // 有左子树，但无右子树，即倒数第二层的内部节点，只能走左子树
-                        curRoot = curRoot.left;
-                    }
-                }
-            } else if (curRoot.right != null){ // 无左子树，但有右子树，即倒数第二层的内部节点，只能走右子树
-                curRoot = curRoot.right;
-            } else { // 叶子节点
-                break;
-            }
-        }
+        this.pushPath(this.root, instance, stack);
         while (!stack.isEmpty()) { // 栈空时，说明所有可能的k近邻的已经遍历完
-            KDNode node = stack.poll();
-            List<Instance> candidates = node.instances; // 候选邻居
-            for (Instance candidate: candidates) {
-                double distance = metric.measure(instance, candidate);
-                if (maxHeap.size() < k) {
-                    maxHeap.add(new InDistance(candidate, distance));
-                } else {
-                    double maxDistance = maxHeap.peek().distance;
-                    if (maxDistance > distance) {
-                        maxHeap.poll();
-                        maxHeap.offer(new InDistance(candidate, distance));
-                    }
-                }
+            KDNode node = stack.pop();
+            for (int row: node.rows) { // 候选邻居
+                neighbors.offer(row, metric.measure(instance, this.instances[row]));
             }
             // 对于有左右子树的内部节点，回溯时另一个子树可能有候选邻居，故需要判断另一个树是否过去
             // 对于叶子节点和只有一个子树的内部节点不需要回溯
             if (node.left != null && node.right != null) {
                 // 当已经有k个邻居，且instance到分割面的距离不小于当前邻居的最大距离，则另一个子树没有候选邻居
-                if (maxHeap.size() >= k) { // 已经有k个邻居
-                    double[] splitLineCoordinate = new double[this.dimensionality]; // 分割线的坐标
-                    for (int i = 0; i < node.feature; i++) {
-                        splitLineCoordinate[i] = instance.attribute(i);
-                    }
-                    splitLineCoordinate[node.feature] = node.pivot;
-                    for (int i = node.feature+1; i < this.dimensionality; i++) {
-                        splitLineCoordinate[i] = instance.attribute(i);
-                    }
-                    DenseInstance splitLine = new DenseInstance(splitLineCoordinate);
-                    double distToSplitLine = metric.measure(instance, splitLine);
-                    double maxDistance = maxHeap.peek().distance;
-                    if (distToSplitLine >= maxDistance) { // instance到分割面的距离不小于当前邻居的最大距离
+                if (neighbors.isFull()) { // 已经有k个邻居
+                    double distToSplitLine = metric.measure(instance, scratch.splitLine(instance, node));
+                    if (distToSplitLine >= neighbors.maxDistance()) { // instance到分割面的距离不小于当前邻居的最大距离
                         continue;
                     }
                 }
                 // 当还没有有k个邻居，或instance到分割面的距离小于当前邻居的最大距离，则另一个子树有候选邻居
-                // 由于是二叉树，要去另一个子树，只需要知道先去了哪个即可
-                if (instance.attribute(node.feature) < node.pivot) {  // 先去去左子树，则另一个子树为右子树
-                    curRoot = node.right;
-                } else {
-                    curRoot = node.left;
-                }
-                while (true) { // 寻找另一个子树中instance所属于的叶节点，同上
-                    // 只有倒数第二层节点可能只有一个子树
-                    stack.push(curRoot);
-                    if (curRoot.left != null) { // 有左子树
-                        if (instance.attribute(curRoot.feature) < curRoot.pivot) {
-                            curRoot = curRoot.left; // 小于中位数，走左子树
-                        } else {
-                            if (curRoot.right != null) { // 大于等于中位数且有右子树，走右子树
-                                curRoot = curRoot.right;
-                            } else { // 有左子树，但无右子树，即倒数第二层的内部节点，只能走左子树
-                                curRoot = curRoot.left;
-                            }
-                        }
-                    } else if (curRoot.right != null){ // 无左子树，但有右子树，即倒数第二层的内部节点，只能走右子树
-                        curRoot = curRoot.right;
-                    } else { // 叶子节点
-                        break;
-                    }
-                }
+                this.pushPath(this.otherChild(instance, node), instance, stack);
             }
         }
-        // 将保存邻居的堆转变为根据距离从小到大排列的Map
-        InDistance[] neighbors = new InDistance[maxHeap.size()];
-        maxHeap.toArray(neighbors);
-        Arrays.sort(neighbors, new Comparator<InDistance>() {
-            @Override
-            public int compare(InDistance o1, InDistance o2) {
-                return Double.compare(o1.distance, o2.distance);
-            }
-        });
-        // LinkedHashMap保证了插入顺序
-        LinkedHashMap<Instance, Double> kNeighbors = new LinkedHashMap<>(neighbors.length);
-        for (InDistance neighbor: neighbors) {
-            kNeighbors.put(neighbor.instance, neighbor.distance);
-        }
-        return kNeighbors;
     }
 
     /**
@@ -235,32 +309,15 @@ public class KDTree {
             throw new EstimatorNotFittedException("KDTree is not fitted yet.");
         }
         ArrayList<InDistance> neighborBall = new ArrayList<>(); // 保存球内的邻居
-        ArrayDeque<KDNode> stack = new ArrayDeque<>();// 用于递归加回溯
-        KDNode curRoot = this.root;
+        Scratch scratch = this.scratch();
+        NodeStack stack = scratch.stack; // 用于递归加回溯
+        stack.clear();
         // 寻找初始时instance所属于的叶节点
-        while (true) {
-            // 只有倒数第二层节点可能只有一个子树
-            stack.push(curRoot);
-            if (curRoot.left != null) { // 有左子树
-                if (instance.attribute(curRoot.feature) < curRoot.pivot) {
-                    curRoot = curRoot.left; // 小于中位数，走左子树
-                } else {
-                    if (curRoot.right != null) { // 大于等于中位数且有右子树，走右子树
-                        curRoot = curRoot.right;
-                    } else { // 有左子树，但无右子树，即倒数第二层的内部节点，只能走左子树
-                        curRoot = curRoot.left;
-                    }
-                }
-            } else if (curRoot.right != null){ // 无左子树，但有右子树，即倒数第二层的内部节点，只能走右子树
-                curRoot = curRoot.right;
-            } else { // 叶子节点
-                break;
-            }
-        }
+        this.pushPath(this.root, instance, stack);
         while (!stack.isEmpty()) { // 栈空时，说明所有可能的近邻的已经遍历完
-            KDNode node = stack.poll();
-            List<Instance> candidates = node.instances; // 候选邻居
-            for (Instance candidate: candidates) {
+            KDNode node = stack.pop();
+            for (int row: node.rows) { // 候选邻居
+                Instance candidate = this.instances[row];
                 double distance = metric.measure(instance, candidate);
                 if (distance <= r) {
                     neighborBall.add(new InDistance(candidate, distance));
@@ -270,44 +327,11 @@ public class KDTree {
             // 对于叶子节点和只有一个子树的内部节点不需要回溯
             if (node.left != null && node.right != null) {
                 // 且instance到分割面的距离不小于radius，则另一个子树没有候选邻居
-                double[] splitLineCoordinate = new double[this.dimensionality]; // 分割线的坐标
-                for (int i = 0; i < node.feature; i++) {
-                    splitLineCoordinate[i] = instance.attribute(i);
-                }
-                splitLineCoordinate[node.feature] = node.pivot;
-                for (int i = node.feature+1; i < this.dimensionality; i++) {
-                    splitLineCoordinate[i] = instance.attribute(i);
-                }
-                DenseInstance splitLine = new DenseInstance(splitLineCoordinate);
-                double distToSplitLine = metric.measure(instance, splitLine);
+                double distToSplitLine = metric.measure(instance, scratch.splitLine(instance, node));
                 if (distToSplitLine >= r) { // instance到分割面的距离不小于当前邻居的最大距离
                     continue; // 另一个子树无候选节点
                 }
-                // 由于是二叉树，要去另一个子树，只需要知道先去了哪个即可
-                if (instance.attribute(node.feature) < node.pivot) {  // 先去去左子树，则另一个子树为右子树
-                    curRoot = node.right;
-                } else {
-                    curRoot = node.left;
-                }
-                while (true) { // 寻找另一个子树中instance所属于的叶节点，同上
-                    // 只有倒数第二层节点可能只有一个子树
-                    stack.push(curRoot);
-                    if (curRoot.left != null) { // 有左子树
-                        if (instance.attribute(curRoot.feature) < curRoot.pivot) {
-                            curRoot = curRoot.left; // 小于中位数，走左子树
-                        } else {
-                            if (curRoot.right != null) { // 大于等于中位数且有右子树，走右子树
-                                curRoot = curRoot.right;
-                            } else { // 有左子树，但无右子树，即倒数第二层的内部节点，只能走左子树
-                                curRoot = curRoot.left;
-                            }
-                        }
-                    } else if (curRoot.right != null){ // 无左子树，但有右子树，即倒数第二层的内部节点，只能走右子树
-                        curRoot = curRoot.right;
-                    } else { // 叶子节点
-                        break;
-                    }
-                }
+                this.pushPath(this.otherChild(instance, node), instance, stack);
             }
         }
         // 将保存邻居的堆转变为根据距离从小到大排列的Map
@@ -325,13 +349,115 @@ public class KDTree {
         return neighbors;
     }
 
+    /**
+     * 从curRoot出发寻找instance所属于的叶节点，并将路径上的节点入栈
+     */
+    private void pushPath(KDNode curRoot, Instance instance, NodeStack stack) {
+        while (true) {
+            // 只有倒数第二层节点可能只有一个子树
+            stack.push(curRoot);
+            if (curRoot.left != null) { // 有左子树
+                if (instance.attribute(curRoot.feature) < curRoot.pivot) {
+                    curRoot = curRoot.left; // 小于中位数，走左子树
+                } else {
+                    if (curRoot.right != null) { // 大于等于中位数且有右子树，走右子树
+                        curRoot = curRoot.right;
+                    } else { // 有左子树，但无右子树，即倒数第二层的内部节点，只能走左子树
+                        curRoot = curRoot.left;
+                    }
+                }
+            } else if (curRoot.right != null){ // 无左子树，但有右子树，即倒数第二层的内部节点，只能走右子树
+                curRoot = curRoot.right;
+            } else { // 叶子节点
+                break;
+            }
+        }
+    }
+
+    /**
+     * 由于是二叉树，要去另一个子树，只需要知道先去了哪个即可
+     */
+    private KDNode otherChild(Instance instance, KDNode node) {
+        if (instance.attribute(node.feature) < node.pivot) {  // 先去去左子树，则另一个子树为右子树
+            return node.right;
+        } else {
+            return node.left;
+        }
+    }
+
+    private Scratch scratch() {
+        Scratch scratch = this.scratch.get();
+        if (scratch.splitLineCoordinate.length != this.dimensionality) { // 树被重新构建
+            scratch.splitLineCoordinate = new double[this.dimensionality];
+            scratch.splitLine = new DenseInstance(scratch.splitLineCoordinate);
+        }
+        return scratch;
+    }
+
     private static class KDNode {
         int feature;
         double pivot;
-        List<Instance> instances;
+        int[] rows;
         KDNode left;
         KDNode right;
     }
 
-}
+    /**
+     * A growable stack of nodes.
+     */
+    private static final class NodeStack {
+
+        private KDNode[] nodes = new KDNode[32];
+
+        private int size;
 
+        void push(KDNode node) {
+            if (this.size == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.size << 1);
+            }
+            this.nodes[this.size++] = node;
+        }
+
+        KDNode pop() {
+            KDNode node = this.nodes[--this.size];
+            this.nodes[this.size] = null;
+            return node;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void clear() {
+            Arrays.fill(this.nodes, 0, this.size, null);
+            this.size = 0;
+        }
+    }
+
+    /**
+     * Buffers of queries owned by one thread.
+     */
+    private static final class Scratch {
+
+        private final NodeStack stack = new NodeStack();
+
+        /**
+         * 分割线的坐标
+         */
+        private double[] splitLineCoordinate = new double[0];
+
+        private DenseInstance splitLine = new DenseInstance(this.splitLineCoordinate);
+
+        /**
+         * Returns the projection of instance on the split plane of node.
+         */
+        DenseInstance splitLine(Instance instance, KDNode node) {
+            int dimension = this.splitLineCoordinate.length;
+            for (int i = 0; i < dimension; i++) {
+                this.splitLineCoordinate[i] = instance.attribute(i);
+            }
+            this.splitLineCoordinate[node.feature] = node.pivot;
+            return this.splitLine;
+        }
+    }
+}
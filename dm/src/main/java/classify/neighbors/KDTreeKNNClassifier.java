@@ -1,13 +1,20 @@
 package main.java.classify.neighbors;
 
+import main.java.core.AttributeInfo;
+import main.java.core.ColumnMoments;
 import main.java.core.DataSet;
-import main.java.core.DataSets;
 import main.java.core.Instance;
+import main.java.core.MappedDataSet;
+import main.java.core.collection.TopK;
 import main.java.core.exception.EstimatorNotFittedException;
-import main.java.metrics.distance.DistanceMetric;
-import main.java.metrics.distance.SEuclideanDistance;
+import main.java.metrics.distance.*;
+import main.java.utils.io.ModelSnapshot;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * KNN classifier using k-d-tree-search to compute the nearest neighbors.
@@ -17,6 +24,11 @@ import java.util.Map;
  */
 public class KDTreeKNNClassifier extends KNeighborsClassifier {
 
+    /**
+     * The kind of the model in its snapshot.
+     */
+    private static final String KIND = "KDTreeKNNClassifier";
+
     private KDTree tree;
 
     /**
@@ -60,20 +72,128 @@ public class KDTreeKNNClassifier extends KNeighborsClassifier {
 
     @Override
     public void fit(DataSet dataset) {
-        this.classSet = dataset.classSet();
+        this.setClassSet(dataset.classSet());
         if (this.metric == null) {
-            double[] var= DataSets.var(dataset);
+            double[] var = ColumnMoments.of(dataset, null, dataset.size() >= 2 * ColumnMoments.BLOCK_SIZE).variance();
             this.metric = new SEuclideanDistance(var);
         }
         this.tree = new KDTree();
         tree.buildTree(dataset);
     }
 
+    /**
+     * Saves this fitted classifier as a {@link ModelSnapshot}:
+     * k, the weight function, the metric, the nodes of the k-d tree as arrays and the columns of the training set.
+     * The metric must be one of the metrics in {@link main.java.metrics.distance}.
+     *
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     * @throws EstimatorNotFittedException if this is not fitted yet
+     * @throws IllegalArgumentException if the metric can't be saved
+     */
+    public void save(Path path) throws IOException {
+        if (this.tree == null) {
+            throw new EstimatorNotFittedException("KDTreeKNNClassifier is not fitted yet.");
+        }
+        DataSet dataset = this.tree.dataset();
+        ModelSnapshot.Writer out = ModelSnapshot.writer(KIND)
+                .writeInt(this.k)
+                .writeString(this.weights);
+        writeMetric(out, this.metric);
+        double[] classes = new double[this.classSet.size()];
+        int i = 0;
+        for (double clazz: this.classSet) {
+            classes[i++] = clazz;
+        }
+        out.writeDoubles(classes);
+        out.writeInt(dataset.size()).writeInt(dataset.dimensionality());
+        out.writeBoolean(dataset.classInfo() != null);
+        if (dataset.classInfo() != null) {
+            out.writeAttributeInfo(dataset.classInfo());
+        }
+        for (AttributeInfo info: dataset.attributeInfoList()) {
+            out.writeAttributeInfo(info);
+        }
+        this.tree.write(out);
+        out.writeColumns(dataset).save(path);
+    }
+
+    /**
+     * Loads a classifier saved by {@link #save(Path)}, which is fitted.
+     * The k-d tree is linked from its node arrays without computing any split,
+     * and the training set is memory-mapped from the snapshot.
+     *
+     * @param path the snapshot file
+     * @return the classifier
+     * @throws IOException if an I/O error occurs or the file is not a snapshot of a KDTreeKNNClassifier
+     */
+    public static KDTreeKNNClassifier load(Path path) throws IOException {
+        try (ModelSnapshot.Reader in = ModelSnapshot.open(path, KIND)) {
+            int k = in.readInt();
+            String weights = in.readString();
+            KDTreeKNNClassifier res = new KDTreeKNNClassifier(k, weights, readMetric(in));
+            SortedSet<Double> classSet = new TreeSet<>();
+            for (double clazz: in.readDoubles()) {
+                classSet.add(clazz);
+            }
+            int size = in.readInt();
+            int dimension = in.readInt();
+            AttributeInfo classInfo = in.readBoolean() ? in.readAttributeInfo() : null;
+            AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
+            for (int j = 0; j < dimension; j++) {
+                attributeInfoArray[j] = in.readAttributeInfo();
+            }
+            MappedDataSet dataset = in.readColumns(size, Arrays.asList(attributeInfoArray), classInfo);
+            res.setClassSet(classSet);
+            res.tree = KDTree.read(in, dataset);
+            return res;
+        }
+    }
+
     @Override
-    public Map<Instance, Double> kNeighbors(Instance instance, int k) {
+    public void kNeighbors(Instance instance, TopK neighbors) {
         if (this.tree == null) {
             throw new EstimatorNotFittedException("KDTreeKNNClassifier is not fitted yet.");
         }
-        return this.tree.query(instance, k, this.metric);
+        this.tree.query(instance, neighbors, this.metric);
+    }
+
+    @Override
+    protected Instance trainingInstance(int index) {
+        return this.tree.instance(index);
+    }
+
+    private static void writeMetric(ModelSnapshot.Writer out, DistanceMetric metric) throws IOException {
+        if (metric instanceof SEuclideanDistance) {
+            out.writeString("seuclidean").writeDoubles(((SEuclideanDistance) metric).getVariance());
+        } else if (metric instanceof MinkowskiDistance) {
+            out.writeString("minkowski").writeDouble(((MinkowskiDistance) metric).getP());
+        } else if (metric instanceof EuclideanDistance) {
+            out.writeString("euclidean");
+        } else if (metric instanceof ManhattanDistance) {
+            out.writeString("manhattan");
+        } else if (metric instanceof ChebyshevDistance) {
+            out.writeString("chebyshev");
+        } else {
+            throw new IllegalArgumentException("Can't save the metric " + metric.getClass().getName());
+        }
+    }
+
+    private static DistanceMetric readMetric(ModelSnapshot.Reader in) throws IOException {
+        String name = in.readString();
+        switch (name) {
+            case "seuclidean":
+                return new SEuclideanDistance(in.readDoubles());
+            case "minkowski":
+                return new MinkowskiDistance(in.readDouble());
+            case "euclidean":
+                return new EuclideanDistance();
+            case "manhattan":
+                return new ManhattanDistance();
+            case "chebyshev":
+                return new ChebyshevDistance();
+            default:
+                throw new IOException("Unknown metric: " + name);
+        }
     }
 }
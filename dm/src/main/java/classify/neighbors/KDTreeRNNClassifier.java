@@ -1,7 +1,7 @@
 package main.java.classify.neighbors;
 
+import main.java.core.ColumnMoments;
 import main.java.core.DataSet;
-import main.java.core.DataSets;
 import main.java.core.Instance;
 import main.java.core.exception.EstimatorNotFittedException;
 import main.java.metrics.distance.DistanceMetric;
@@ -60,9 +60,9 @@ public class KDTreeRNNClassifier extends RadiusNeighborsClassifier {
 
     @Override
     public void fit(DataSet dataset) {
-        this.classSet = dataset.classSet();
+        this.setClassSet(dataset.classSet());
         if (this.metric == null) {
-            double[] var= DataSets.var(dataset);
+            double[] var = ColumnMoments.of(dataset, null, dataset.size() >= 2 * ColumnMoments.BLOCK_SIZE).variance();
             this.metric = new SEuclideanDistance(var);
         }
         this.tree = new KDTree();
@@ -3,6 +3,8 @@ package main.java.classify.neighbors;
 import main.java.classify.Classifier;
 import main.java.core.Instance;
 import main.java.core.WeightHandler;
+import main.java.core.collection.DoubleIntHashMap;
+import main.java.core.collection.TopK;
 import main.java.metrics.distance.DistanceMetric;
 import main.java.metrics.distance.SEuclideanDistance;
 
@@ -79,6 +81,21 @@ public abstract class KNeighborsClassifier implements Classifier, WeightHandler
      */
     protected SortedSet<Double> classSet;
 
+    /**
+     * Class labels in ascending order.
+     */
+    private double[] classes;
+
+    /**
+     * The index of each class label in {@link #classes}.
+     */
+    private DoubleIntHashMap classIndex;
+
+    /**
+     * Buffers reused by {@link #predict(Instance)} in each thread.
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
     /**
      * Constructs with default parameters:
      * {@code k = 5; weights = DISTANCE},
@@ -128,62 +145,68 @@ public abstract class KNeighborsClassifier implements Classifier, WeightHandler
         return this.predict(instance);
     }
 
+    /**
+     * Sets the class labels known to the classifier when fitting.
+     *
+     * @param classSet the sorted class labels
+     */
+    protected void setClassSet(SortedSet<Double> classSet) {
+        this.classSet = classSet;
+        this.classes = new double[classSet.size()];
+        this.classIndex = new DoubleIntHashMap(classSet.size());
+        int i = 0;
+        for (double clazz: classSet) {
+            this.classes[i] = clazz;
+            this.classIndex.put(clazz, i++);
+        }
+    }
+
     /**
      * Predicts the class value for given instance.
+     * The neighbors are selected in a {@link TopK} reused by the calling thread,
+     * so no object is created per query after the first one.
      *
      * @param instance the specified instance
      * @return class value for given instance
      */
     public double predict(Instance instance) {
-        Map<Instance, Double> neighbors = this.kNeighbors(instance, this.k);
-        Map<Double, Double> classDistribution = new HashMap<>();
-        for (Double clazz: this.classSet) {
-            classDistribution.put(clazz, 0.0);
+        Scratch scratch = this.scratch.get();
+        TopK neighbors = scratch.neighbors;
+        neighbors.reset(this.k);
+        this.kNeighbors(instance, neighbors);
+        neighbors.sort(); // 按距离从小到大累加，与kNeighbors返回的顺序相同
+        if (scratch.classDistribution.length != this.classes.length) {
+            scratch.classDistribution = new double[this.classes.length];
         }
-        switch (this.weights) {
-            case UNIFORM: {
-                for (Instance neighbor: neighbors.keySet()) {
-                    double clazz = neighbor.classValue();
-                    double count = classDistribution.get(clazz) + 1;
-                    classDistribution.put(clazz, count);
-                }
-                break;
-            }
-            case GAUSSIAN: {
-                double coefficient = 1 / Math.sqrt(Math.PI + Math.PI);
-                for (Map.Entry<Instance, Double> entry: neighbors.entrySet()) {
-                    double clazz = entry.getKey().classValue();
-                    double distance = entry.getValue();
-                    double count = classDistribution.get(clazz) +  coefficient * Math.pow(Math.E, -distance * distance / 2);
-                    classDistribution.put(clazz, count);
-                }
-                break;
-            }
-            case CUSTOM: {
-                for (Instance neighbor: neighbors.keySet()) {
-                    double clazz = neighbor.classValue();
-                    double count = classDistribution.get(clazz) + neighbor.getWeight();
-                    classDistribution.put(clazz, count);
-                }
-                break;
-            }
-            default: { // DISTANCE
-                for (Map.Entry<Instance, Double> entry: neighbors.entrySet()) {
-                    double clazz = entry.getKey().classValue();
-                    double distance = entry.getValue();
-                    double count = classDistribution.get(clazz) + 1 / distance;
-                    classDistribution.put(clazz, count);
-                }
-                break;
+        double[] classDistribution = scratch.classDistribution; // 按类的升序排列
+        Arrays.fill(classDistribution, 0);
+        double coefficient = 1 / Math.sqrt(Math.PI + Math.PI);
+        for (int i = 0; i < neighbors.size(); i++) {
+            Instance neighbor = this.trainingInstance(neighbors.index(i));
+            double distance = neighbors.distance(i);
+            double vote;
+            switch (this.weights) {
+                case UNIFORM:
+                    vote = 1;
+                    break;
+                case GAUSSIAN:
+                    vote = coefficient * Math.pow(Math.E, -distance * distance / 2);
+                    break;
+                case CUSTOM:
+                    vote = neighbor.getWeight();
+                    break;
+                default: // DISTANCE
+                    vote = 1 / distance;
+                    break;
             }
+            classDistribution[this.classIndex.getOrDefault(neighbor.classValue(), -1)] += vote;
         }
-        Double res = Double.NaN;
+        double res = Double.NaN;
         double maxCount = -1;
-        for (Map.Entry<Double, Double> distribution: classDistribution.entrySet()) {
-            double count = distribution.getValue();
-            if (count > maxCount) {
-                maxCount = count;
-                res = distribution.getKey();
+        for (int i = 0; i < classDistribution.length; i++) { // 相同时取较小的类
+            if (classDistribution[i] > maxCount) {
+                maxCount = classDistribution[i];
+                res = this.classes[i];
             }
         }
         return res;
@@ -194,9 +217,46 @@ public abstract class KNeighborsClassifier implements Classifier, WeightHandler
      *
      * @param instance given instance
      * @param k number of neighbors to find
-     * @return the K-neighbors: instance and distance
+     * @return the K-neighbors sorted by distance: instance and distance
      * @throws main.java.core.exception.EstimatorNotFittedException if this is not fitted yet
      */
-    public abstract Map<Instance, Double> kNeighbors(Instance instance, int k);
+    public Map<Instance, Double> kNeighbors(Instance instance, int k) {
+        TopK neighbors = new TopK(k);
+        this.kNeighbors(instance, neighbors);
+        neighbors.sort();
+        // LinkedHashMap保证了插入顺序
+        LinkedHashMap<Instance, Double> kNeighbors = new LinkedHashMap<>(neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            kNeighbors.put(this.trainingInstance(neighbors.index(i)), neighbors.distance(i));
+        }
+        return kNeighbors;
+    }
 
+    /**
+     * Finds the {@code neighbors.k()} nearest training instances of given instance.
+     * The index of a neighbor is its index in the training set, see {@link #trainingInstance(int)}.
+     *
+     * @param instance given instance
+     * @param neighbors an empty selector receiving the neighbors
+     * @throws main.java.core.exception.EstimatorNotFittedException if this is not fitted yet
+     */
+    public abstract void kNeighbors(Instance instance, TopK neighbors);
+
+    /**
+     * Returns the training instance at given index.
+     *
+     * @param index the index of a neighbor found by {@link #kNeighbors(Instance, TopK)}
+     * @return the training instance
+     */
+    protected abstract Instance trainingInstance(int index);
+
+    /**
+     * Buffers of {@link #predict(Instance)} owned by one thread.
+     */
+    private static final class Scratch {
+
+        private final TopK neighbors = new TopK(1);
+
+        private double[] classDistribution = new double[0];
+    }
 }
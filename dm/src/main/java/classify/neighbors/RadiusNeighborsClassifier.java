@@ -3,10 +3,10 @@ package main.java.classify.neighbors;
 import main.java.classify.Classifier;
 import main.java.core.Instance;
 import main.java.core.WeightHandler;
+import main.java.core.collection.DoubleIntHashMap;
 import main.java.metrics.distance.DistanceMetric;
 import main.java.metrics.distance.SEuclideanDistance;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
 
@@ -81,6 +81,16 @@ public abstract class RadiusNeighborsClassifier implements Classifier, WeightHan
      */
     protected SortedSet<Double> classSet;
 
+    /**
+     * Class labels in ascending order.
+     */
+    private double[] classes;
+
+    /**
+     * The index of each class label in {@link #classes}.
+     */
+    private DoubleIntHashMap classIndex;
+
     /**
      * Constructs with default parameters:
      * {@code radius = 1.0; weights = DISTANCE},
@@ -130,6 +140,22 @@ public abstract class RadiusNeighborsClassifier implements Classifier, WeightHan
         return this.predict(instance);
     }
 
+    /**
+     * Sets the class labels known to the classifier when fitting.
+     *
+     * @param classSet the sorted class labels
+     */
+    protected void setClassSet(SortedSet<Double> classSet) {
+        this.classSet = classSet;
+        this.classes = new double[classSet.size()];
+        this.classIndex = new DoubleIntHashMap(classSet.size());
+        int i = 0;
+        for (double clazz: classSet) {
+            this.classes[i] = clazz;
+            this.classIndex.put(clazz, i++);
+        }
+    }
+
     /**
      * Predicts the class value for given instance.
      *
@@ -138,16 +164,12 @@ public abstract class RadiusNeighborsClassifier implements Classifier, WeightHan
      */
     public double predict(Instance instance) {
         Map<Instance, Double> neighbors = this.radiusNeighbors(instance, this.radius);
-        Map<Double, Double> classDistribution = new HashMap<>();
-        for (Double clazz: this.classSet) {
-            classDistribution.put(clazz, 0.0);
-        }
+        double[] classDistribution = new double[this.classes.length]; // 按类的升序排列
         switch (this.weights) {
             case UNIFORM: {
                 for (Instance neighbor: neighbors.keySet()) {
                     double clazz = neighbor.classValue();
-                    double count = classDistribution.get(clazz) + 1;
-                    classDistribution.put(clazz, count);
+                    classDistribution[this.classIndex.getOrDefault(clazz, -1)] += 1;
                 }
                 break;
             }
@@ -156,16 +178,14 @@ public abstract class RadiusNeighborsClassifier implements Classifier, WeightHan
                 for (Map.Entry<Instance, Double> entry: neighbors.entrySet()) {
                     double clazz = entry.getKey().classValue();
                     double distance = entry.getValue();
-                    double count = classDistribution.get(clazz) +  coefficient * Math.pow(Math.E, -distance * distance / 2);
-                    classDistribution.put(clazz, count);
+                    classDistribution[this.classIndex.getOrDefault(clazz, -1)] += coefficient * Math.pow(Math.E, -distance * distance / 2);
                 }
                 break;
             }
             case CUSTOM: {
                 for (Instance neighbor: neighbors.keySet()) {
                     double clazz = neighbor.classValue();
-                    double count = classDistribution.get(clazz) + neighbor.getWeight();
-                    classDistribution.put(clazz, count);
+                    classDistribution[this.classIndex.getOrDefault(clazz, -1)] += neighbor.getWeight();
                 }
                 break;
             }
@@ -173,19 +193,17 @@ public abstract class RadiusNeighborsClassifier implements Classifier, WeightHan
                 for (Map.Entry<Instance, Double> entry: neighbors.entrySet()) {
                     double clazz = entry.getKey().classValue();
                     double distance = entry.getValue();
-                    double count = classDistribution.get(clazz) + 1 / distance;
-                    classDistribution.put(clazz, count);
+                    classDistribution[this.classIndex.getOrDefault(clazz, -1)] += 1 / distance;
                 }
                 break;
             }
         }
-        Double res = Double.NaN;
+        double res = Double.NaN;
         double maxCount = -1;
-        for (Map.Entry<Double, Double> distribution: classDistribution.entrySet()) {
-            double count = distribution.getValue();
-            if (count > maxCount) {
-                maxCount = count;
-                res = distribution.getKey();
+        for (int i = 0; i < classDistribution.length; i++) { // 相同时取较小的类
+            if (classDistribution[i] > maxCount) {
+                maxCount = classDistribution[i];
+                res = this.classes[i];
             }
         }
         return res;
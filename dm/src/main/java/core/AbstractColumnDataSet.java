@@ -0,0 +1,265 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.*;
+
+/**
+ * This abstract class is the base of data sets which store their values column by column
+ * instead of holding one {@link Instance} object per row.
+ * Subclasses only need to expose the values of each cell through {@link #value(int, int)},
+ * {@link #classValue(int)} and {@link #weight(int)}.
+ * Instances returned by {@link #instance(int)} are lightweight {@link RowInstance} views of a row.
+ *
+ * @author Cloudy1225
+ * @see RowInstance
+ * @see ColumnarDataSet
+ */
+public abstract class AbstractColumnDataSet implements DataSet {
+
+    /**
+     * Holds class information.
+     */
+    protected AttributeInfo classInfo;
+
+    /**
+     * Holds each attribute's information.
+     */
+    protected List<AttributeInfo> attributeInfoList;
+
+    /**
+     * The number of attributes.
+     */
+    protected int dimensionality;
+
+    /**
+     * A cache holding different class values.
+     */
+    protected SortedSet<Double> classSet;
+
+    /**
+     * A cache holding all different values of each attribute.
+     * Each column is computed lazily when it is needed.
+     */
+    protected SortedSet<Double>[] attrValueSets;
+
+    /**
+     * Creates an unsafe empty data set with nothing to do.
+     * This method is protected.
+     */
+    protected AbstractColumnDataSet() {}
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information, null if unlabeled
+     */
+    protected AbstractColumnDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) {
+        this.attributeInfoList = attributeInfoList;
+        this.dimensionality = attributeInfoList.size();
+        this.classInfo = classInfo;
+        this.attrValueSets = newAttrValueSets(this.dimensionality);
+    }
+
+    /**
+     * Returns the value of the attribute at given position of the specified row.
+     *
+     * @param row the instance's index
+     * @param attrIndex the attribute's index
+     * @return the attribute's value
+     */
+    public abstract double value(int row, int attrIndex);
+
+    /**
+     * Returns the class value of the specified row.
+     *
+     * @param row the instance's index
+     * @return the class value, or {@code Double.NaN} if the class is not set
+     */
+    public abstract double classValue(int row);
+
+    /**
+     * Sets the class value of the specified row.
+     *
+     * @param row the instance's index
+     * @param value the new class value
+     */
+    public abstract void setClassValue(int row, double value);
+
+    /**
+     * Returns the weight of the specified row.
+     *
+     * @param row the instance's index
+     * @return the instance's weight
+     */
+    public abstract double weight(int row);
+
+    /**
+     * Sets the weight of the specified row.
+     *
+     * @param row the instance's index
+     * @param weight the new weight
+     */
+    public abstract void setWeight(int row, double weight);
+
+    @Override
+    public int dimensionality() {
+        return this.dimensionality;
+    }
+
+    /**
+     * Returns a {@link RowInstance} view of the row at the given position.
+     * Changes of the view's class value and weight write through to this data set.
+     *
+     * @param index the instance's index (index starts with 0)
+     * @return a view of the row at the given position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public Instance instance(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return new RowInstance(this, index);
+    }
+
+    @Override
+    public AttributeInfo classInfo() {
+        return this.classInfo;
+    }
+
+    @Override
+    public AttributeInfo attributeInfo(int attrIndex) {
+        return this.attributeInfoList.get(attrIndex);
+    }
+
+    @Override
+    public List<AttributeInfo> attributeInfoList() {
+        return this.attributeInfoList;
+    }
+
+    @Override
+    public SortedSet<Double> classSet() {
+        if (this.classSet == null) {
+            TreeSet<Double> res = new TreeSet<>();
+            if (this.classInfo != null) { // If classInfo is null, no classes are available.
+                int size = this.size();
+                for (int i = 0; i < size; i++) {
+                    res.add(this.classValue(i));
+                }
+            }
+            this.classSet = res;
+        }
+        return this.classSet;
+    }
+
+    @Override
+    public SortedSet<Double> attrValueSet(int attrIndex) {
+        if (this.attrValueSets[attrIndex] == null) {
+            TreeSet<Double> res = new TreeSet<>();
+            int size = this.size();
+            for (int i = 0; i < size; i++) {
+                res.add(this.value(i, attrIndex));
+            }
+            this.attrValueSets[attrIndex] = res;
+        }
+        return this.attrValueSets[attrIndex];
+    }
+
+    @Override
+    public double[] classValues() {
+        double[] res = new double[this.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.classValue(i);
+        }
+        return res;
+    }
+
+    @Override
+    public double[] attrValues(int attrIndex) {
+        double[] res = new double[this.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.value(i, attrIndex);
+        }
+        return res;
+    }
+
+    @Override
+    public double[] weightValues() {
+        double[] res = new double[this.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.weight(i);
+        }
+        return res;
+    }
+
+    /**
+     * Checks if the given instance is compatible with this dataset before {@code add}.
+     * Only looks at the dimensionality of the instance.
+     *
+     * @param instance the instance to be appended to this data set
+     * @throws DimensionNotMatchedException if the instance's dimensionality is different from this data set's
+     */
+    protected void check(Instance instance) {
+        if (this.dimensionality != instance.dimensionality()) {
+            String msg = "The data set has " + this.dimensionality +
+                    " attributes, but the instance has " + instance.dimensionality() + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+    }
+
+    /**
+     * Resets classSet and attrValueSets to null after instances are modified.
+     */
+    protected void resetSortedSet() {
+        this.classSet = null;
+        this.attrValueSets = newAttrValueSets(this.dimensionality);
+    }
+
+    /**
+     * Creates an empty cache of attribute value sets.
+     */
+    @SuppressWarnings("unchecked")
+    static SortedSet<Double>[] newAttrValueSets(int dimensionality) {
+        return (SortedSet<Double>[]) new SortedSet<?>[dimensionality];
+    }
+
+    @Override
+    public Iterator<Instance> iterator() {
+        return new Iterator<Instance>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size();
+            }
+
+            @Override
+            public Instance next() {
+                if (cursor >= size()) {
+                    throw new NoSuchElementException();
+                }
+                return new RowInstance(AbstractColumnDataSet.this, cursor++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        int size = this.size();
+        String[] res = new String[size];
+        for (int i = 0; i < size; i++) {
+            res[i] = new RowInstance(this, i).toString();
+        }
+        String prefix = "{" + System.lineSeparator() +
+                String.join(System.lineSeparator(), res) +
+                System.lineSeparator() + "} " +
+                this.attributeInfoList.toString();
+        if (this.classInfo != null) {
+            return prefix + ";" + this.classInfo;
+        } else {
+            return prefix;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package main.java.core;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The weighted count, mean, variance, minimum and maximum of every attribute, accumulated in one pass over the rows.
+ * <p>
+ * Rows are added by West's weighted form of Welford's update,
+ * which keeps the sum of squared deviations from the running mean instead of {@code sum(x^2)},
+ * so no precision is lost on features of large magnitude.
+ * Two accumulators over disjoint rows are combined by Chan's formula in {@link #merge(ColumnMoments)},
+ * which lets {@link #of(DataSet, double[], boolean)} split the rows across fork-join tasks.
+ * </p>
+ * <p>
+ * Rows with weight 0 are ignored, negative weights are not supported.
+ * The zeros of a {@link SparseInstance} or of a row of a {@link SparseDataSet} are not visited one by one,
+ * they are merged as a group at the end.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSets#var(DataSet)
+ */
+public class ColumnMoments {
+
+    /**
+     * The number of rows handled by one task in parallel mode.
+     */
+    public static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * The maximum number of tasks in parallel mode, independent of the number of processors
+     * so that the merge order and the result are the same on any machine.
+     */
+    private static final int MAX_BLOCKS = 64;
+
+    /**
+     * The number of rows added.
+     */
+    private long rows;
+
+    /**
+     * The total weight of rows added.
+     */
+    private double rowWeight;
+
+    /**
+     * The number of values added to each column, less than rows if zeros of sparse rows are pending.
+     */
+    private final long[] counts;
+
+    /**
+     * The total weight of each column.
+     */
+    private final double[] weights;
+
+    private final double[] mean;
+
+    /**
+     * The weighted sum of squared deviations from the mean of each column.
+     */
+    private final double[] m2;
+
+    private final double[] min;
+
+    private final double[] max;
+
+    /**
+     * Creates an empty accumulator.
+     *
+     * @param dimensionality the number of columns
+     */
+    public ColumnMoments(int dimensionality) {
+        this.counts = new long[dimensionality];
+        this.weights = new double[dimensionality];
+        this.mean = new double[dimensionality];
+        this.m2 = new double[dimensionality];
+        this.min = new double[dimensionality];
+        this.max = new double[dimensionality];
+        Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Computes the unweighted moments of every attribute in a data set.
+     *
+     * @param dataset given dataset
+     * @return the moments
+     */
+    public static ColumnMoments of(DataSet dataset) {
+        return of(dataset, null, false);
+    }
+
+    /**
+     * Computes the weighted moments of every attribute in a data set.
+     * In parallel mode, the rows are divided into at most {@value #MAX_BLOCKS} blocks of at least {@value #BLOCK_SIZE} rows,
+     * each block is accumulated by a task of the common fork-join pool and the results are merged in block order.
+     *
+     * @param dataset given dataset
+     * @param weights the weight of each instance, null to weight each instance 1
+     * @param parallel whether to accumulate blocks of rows in parallel
+     * @return the moments
+     * @throws IllegalArgumentException if the length of weights != the size of dataset
+     */
+    public static ColumnMoments of(DataSet dataset, double[] weights, boolean parallel) {
+        int n = dataset.size();
+        if (weights != null && weights.length != n) {
+            throw new IllegalArgumentException("weights.length = " + weights.length + ", expected " + n);
+        }
+        int blocks = parallel ? Math.min(MAX_BLOCKS, (n + BLOCK_SIZE - 1) / BLOCK_SIZE) : 1;
+        if (blocks <= 1) {
+            return accumulate(dataset, weights, 0, n);
+        }
+        ColumnMoments[] partial = IntStream.range(0, blocks).parallel()
+                .mapToObj(b -> accumulate(dataset, weights, (int) ((long) n * b / blocks), (int) ((long) n * (b + 1) / blocks)))
+                .toArray(ColumnMoments[]::new);
+        ColumnMoments res = partial[0];
+        for (int b = 1; b < blocks; b++) {
+            res.merge(partial[b]);
+        }
+        return res;
+    }
+
+    /**
+     * Accumulates rows [from, to) of a data set into a new accumulator.
+     */
+    private static ColumnMoments accumulate(DataSet dataset, double[] weights, int from, int to) {
+        int dimension = dataset.dimensionality();
+        ColumnMoments res = new ColumnMoments(dimension);
+        if (dataset instanceof SparseDataSet) { // 只访问CSR中的非零值，零值最后一并合并
+            SparseDataSet sparse = (SparseDataSet) dataset;
+            for (int i = from; i < to; i++) {
+                double weight = weights == null ? 1.0 : weights[i];
+                if (weight == 0) {
+                    continue;
+                }
+                res.addRow(weight);
+                for (int k = sparse.indptr[i]; k < sparse.indptr[i+1]; k++) {
+                    res.update(sparse.indices[k], sparse.data[k], weight);
+                }
+            }
+        } else if (dataset instanceof AbstractColumnDataSet) { // 列式数据集直接读取值，无需创建实例
+            AbstractColumnDataSet columns = (AbstractColumnDataSet) dataset;
+            for (int i = from; i < to; i++) {
+                double weight = weights == null ? 1.0 : weights[i];
+                if (weight == 0) {
+                    continue;
+                }
+                res.addRow(weight);
+                for (int j = 0; j < dimension; j++) {
+                    res.update(j, columns.value(i, j), weight);
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                res.add(dataset.instance(i), weights == null ? 1.0 : weights[i]);
+            }
+        }
+        res.flushZeros();
+        return res;
+    }
+
+    /**
+     * Adds the attribute values of an instance with given weight.
+     * Only the non-zeros of a {@link SparseInstance} are visited.
+     *
+     * @param instance the instance to add
+     * @param weight the weight of the instance
+     */
+    public void add(Instance instance, double weight) {
+        if (weight == 0) {
+            return;
+        }
+        this.addRow(weight);
+        if (instance instanceof SparseInstance) {
+            SparseInstance sparse = (SparseInstance) instance;
+            int nnz = sparse.nnz();
+            for (int k = 0; k < nnz; k++) {
+                this.update(sparse.index(k), sparse.value(k), weight);
+            }
+        } else {
+            for (int j = 0; j < this.mean.length; j++) {
+                this.update(j, instance.attribute(j), weight);
+            }
+        }
+    }
+
+    /**
+     * Adds the attribute values of a row in a chunk with given weight.
+     *
+     * @param chunk a chunk read from a {@link DataSource}
+     * @param row the row's index in the chunk
+     * @param weight the weight of the row
+     */
+    public void add(DataChunk chunk, int row, double weight) {
+        if (weight == 0) {
+            return;
+        }
+        this.addRow(weight);
+        int base = row * chunk.dimensionality;
+        for (int j = 0; j < this.mean.length; j++) {
+            this.update(j, chunk.values[base + j], weight);
+        }
+    }
+
+    private void addRow(double weight) {
+        this.rows++;
+        this.rowWeight += weight;
+    }
+
+    /**
+     * Adds one value of a column by the weighted Welford update.
+     */
+    private void update(int j, double value, double weight) {
+        this.counts[j]++;
+        double totalWeight = this.weights[j] + weight;
+        double delta = value - this.mean[j];
+        this.mean[j] += delta * weight / totalWeight;
+        this.m2[j] += weight * delta * (value - this.mean[j]);
+        this.weights[j] = totalWeight;
+        if (value < this.min[j]) {
+            this.min[j] = value;
+        }
+        if (value > this.max[j]) {
+            this.max[j] = value;
+        }
+    }
+
+    /**
+     * Merges the zeros not visited in sparse rows into each column as one group.
+     */
+    private void flushZeros() {
+        for (int j = 0; j < this.mean.length; j++) {
+            if (this.counts[j] < this.rows) {
+                this.combine(j, this.rows - this.counts[j], this.rowWeight - this.weights[j], 0, 0, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Merges the moments of another accumulator over disjoint rows into this one by Chan's formula.
+     *
+     * @param other another accumulator with the same number of columns
+     * @throws IllegalArgumentException if the numbers of columns are different
+     */
+    public void merge(ColumnMoments other) {
+        if (other.mean.length != this.mean.length) {
+            throw new IllegalArgumentException("The moments have different numbers of columns.");
+        }
+        this.flushZeros();
+        other.flushZeros();
+        for (int j = 0; j < this.mean.length; j++) {
+            this.combine(j, other.counts[j], other.weights[j], other.mean[j], other.m2[j], other.min[j], other.max[j]);
+        }
+        this.rows += other.rows;
+        this.rowWeight += other.rowWeight;
+    }
+
+    /**
+     * Combines a group of values into column j.
+     */
+    private void combine(int j, long count, double weight, double mean, double m2, double min, double max) {
+        if (count == 0) {
+            return;
+        }
+        double totalWeight = this.weights[j] + weight;
+        if (totalWeight > 0) {
+            double delta = mean - this.mean[j];
+            this.mean[j] += delta * weight / totalWeight;
+            this.m2[j] += m2 + delta * delta * this.weights[j] * weight / totalWeight;
+        }
+        this.counts[j] += count;
+        this.weights[j] = totalWeight;
+        this.min[j] = Math.min(this.min[j], min);
+        this.max[j] = Math.max(this.max[j], max);
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int dimensionality() {
+        return this.mean.length;
+    }
+
+    /**
+     * Returns the number of rows added, rows with weight 0 are not counted.
+     *
+     * @return the number of rows
+     */
+    public long count() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the total weight of rows added.
+     *
+     * @return the weighted count
+     */
+    public double weight() {
+        return this.rowWeight;
+    }
+
+    /**
+     * Returns the weighted mean of each column, NaN if no row was added.
+     *
+     * @return a new array containing the mean
+     */
+    public double[] mean() {
+        this.flushZeros();
+        double[] res = new double[this.mean.length];
+        for (int j = 0; j < res.length; j++) {
+            res[j] = this.rows == 0 ? Double.NaN : this.mean[j];
+        }
+        return res;
+    }
+
+    /**
+     * Returns the weighted population variance of each column, i.e. the weighted mean of squared deviations.
+     * NaN if no row was added.
+     *
+     * @return a new array containing the variance
+     */
+    public double[] variance() {
+        this.flushZeros();
+        double[] res = new double[this.mean.length];
+        for (int j = 0; j < res.length; j++) {
+            res[j] = this.m2[j] / this.weights[j];
+        }
+        return res;
+    }
+
+    /**
+     * Returns the minimum of each column, {@code Double.POSITIVE_INFINITY} if no row was added.
+     *
+     * @return a new array containing the minimum
+     */
+    public double[] min() {
+        this.flushZeros();
+        return this.min.clone();
+    }
+
+    /**
+     * Returns the maximum of each column, {@code Double.NEGATIVE_INFINITY} if no row was added.
+     *
+     * @return a new array containing the maximum
+     */
+    public double[] max() {
+        this.flushZeros();
+        return this.max.clone();
+    }
+}
@@ -0,0 +1,328 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.*;
+
+/**
+ * The class is a column-oriented implementation of {@link DataSet}.
+ * Each attribute is stored as one contiguous {@code double[]} column,
+ * class values and weights are stored as primitive arrays too.
+ * Compared with {@link StandardDataSet}, no object is allocated per instance,
+ * and {@link #attrValues(int)} and {@link #classValues()} return the columns without copying.
+ * <p>
+ * Instances returned by {@link #instance(int)} and by the iterator are {@link RowInstance} views,
+ * instances added to this data set are copied into the columns.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see StandardDataSet
+ */
+public class ColumnarDataSet extends AbstractColumnDataSet {
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The attribute columns: columns[attrIndex][row].
+     */
+    protected double[][] columns;
+
+    /**
+     * The class value of each row.
+     */
+    protected double[] classValues;
+
+    /**
+     * The weight of each row.
+     */
+    protected double[] weights;
+
+    /**
+     * The number of rows.
+     */
+    protected int size;
+
+    /**
+     * Creates an unsafe empty data set with nothing to do.
+     * This method is protected.
+     */
+    protected ColumnarDataSet() {}
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     */
+    public ColumnarDataSet(AttributeInfo[] attributeInfoArray) {
+        this(Arrays.asList(attributeInfoArray), null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public ColumnarDataSet(AttributeInfo[] attributeInfoArray, AttributeInfo classInfo) {
+        this(Arrays.asList(attributeInfoArray), classInfo, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public ColumnarDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) {
+        this(attributeInfoList, classInfo, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list, the {@link AttributeInfo} of class
+     * and the initial capacity of each column.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information
+     * @param initialCapacity the initial capacity of each column
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public ColumnarDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo, int initialCapacity) {
+        super(attributeInfoList, classInfo);
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.columns = new double[this.dimensionality][initialCapacity];
+        this.classValues = new double[initialCapacity];
+        this.weights = new double[initialCapacity];
+    }
+
+    /**
+     * Creates a new data set holding a copy of the values of given data set.
+     *
+     * @param src the source data set
+     */
+    public ColumnarDataSet(DataSet src) {
+        this(src.attributeInfoList(), src.classInfo(), src.size());
+        for (Instance instance: src) {
+            this.append(instance);
+        }
+    }
+
+    /**
+     * Creates a new data set directly over the given columns.
+     * The arrays are not copied, so they must not be modified by the caller afterwards.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information, null if unlabeled
+     * @param columns the attribute columns: columns[attrIndex][row]
+     * @param classValues the class value of each row, null if unlabeled
+     * @param weights the weight of each row, null if all weights are 1.0
+     * @throws DimensionNotMatchedException if the number of columns doesn't equal the number of attributes
+     * @throws IllegalArgumentException if the columns have different lengths
+     */
+    public ColumnarDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo,
+                           double[][] columns, double[] classValues, double[] weights) {
+        super(attributeInfoList, classInfo);
+        if (columns.length != this.dimensionality) {
+            throw new DimensionNotMatchedException("The number of columns should equal the number of attributes.");
+        }
+        int size = columns.length > 0 ? columns[0].length : (classValues != null ? classValues.length : 0);
+        for (double[] column: columns) {
+            if (column.length != size) {
+                throw new IllegalArgumentException("All columns should have the same length.");
+            }
+        }
+        if (classValues == null) {
+            classValues = new double[size];
+            Arrays.fill(classValues, DenseInstance.NO_LABEL);
+        } else if (classValues.length != size) {
+            throw new IllegalArgumentException("classValues.length = " + classValues.length + ", expected " + size);
+        }
+        if (weights == null) {
+            weights = new double[size];
+            Arrays.fill(weights, DenseInstance.DEFAULT_WEIGHT);
+        } else if (weights.length != size) {
+            throw new IllegalArgumentException("weights.length = " + weights.length + ", expected " + size);
+        }
+        this.columns = columns;
+        this.classValues = classValues;
+        this.weights = weights;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public final double value(int row, int attrIndex) {
+        return this.columns[attrIndex][row];
+    }
+
+    @Override
+    public final double classValue(int row) {
+        return this.classValues[row];
+    }
+
+    @Override
+    public void setClassValue(int row, double value) {
+        this.classValues[row] = value;
+        this.classSet = null;
+    }
+
+    @Override
+    public final double weight(int row) {
+        return this.weights[row];
+    }
+
+    @Override
+    public void setWeight(int row, double weight) {
+        this.weights[row] = weight;
+    }
+
+    /**
+     * Returns the class column without copying.
+     * The returned array is the storage of this data set and must not be modified.
+     *
+     * @return an array contains the class value of each instance
+     */
+    @Override
+    public double[] classValues() {
+        this.trimToSize();
+        return this.classValues;
+    }
+
+    /**
+     * Returns the attribute column without copying.
+     * The returned array is the storage of this data set and must not be modified.
+     *
+     * @param attrIndex the attribute's index
+     * @return an array the attribute's value of each instance
+     */
+    @Override
+    public double[] attrValues(int attrIndex) {
+        this.trimToSize();
+        return this.columns[attrIndex];
+    }
+
+    /**
+     * Returns the weight column without copying.
+     * The returned array is the storage of this data set and must not be modified.
+     *
+     * @return an array contains the weight of each instance
+     */
+    @Override
+    public double[] weightValues() {
+        this.trimToSize();
+        return this.weights;
+    }
+
+    @Override
+    public void add(Instance instance) {
+        this.check(instance);
+        this.append(instance);
+        this.resetSortedSet();
+    }
+
+    @Override
+    public void addAll(Collection<? extends Instance> instances) {
+        for (Instance instance: instances) {
+            this.check(instance);
+        }
+        this.ensureCapacity(this.size + instances.size());
+        for (Instance instance: instances) {
+            this.append(instance);
+        }
+        this.resetSortedSet();
+    }
+
+    /**
+     * Copies the values of given instance into the end of each column.
+     *
+     * @param instance the instance to be appended
+     */
+    private void append(Instance instance) {
+        this.ensureCapacity(this.size + 1);
+        int row = this.size;
+        for (int j = 0; j < this.dimensionality; j++) {
+            this.columns[j][row] = instance.attribute(j);
+        }
+        this.classValues[row] = instance.classValue();
+        this.weights[row] = instance.getWeight();
+        this.size++;
+    }
+
+    /**
+     * Increases the capacity of each column, if necessary,
+     * to ensure that it can hold at least the number of rows specified by the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        int oldCapacity = this.weights.length;
+        if (minCapacity - oldCapacity <= 0) {
+            return;
+        }
+        // overflow-conscious code
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            if (minCapacity < 0) // overflow
+                throw new OutOfMemoryError();
+            newCapacity = minCapacity > MAX_ARRAY_SIZE ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        this.resize(newCapacity);
+    }
+
+    /**
+     * Trims the capacity of each column to be the data set's current size.
+     */
+    public void trimToSize() {
+        if (this.weights.length != this.size) {
+            this.resize(this.size);
+        }
+    }
+
+    private void resize(int capacity) {
+        for (int j = 0; j < this.dimensionality; j++) {
+            this.columns[j] = Arrays.copyOf(this.columns[j], capacity);
+        }
+        this.classValues = Arrays.copyOf(this.classValues, capacity);
+        this.weights = Arrays.copyOf(this.weights, capacity);
+    }
+
+    /**
+     * Returns a deep copy of this data set.
+     * The columns are copied, but the {@link AttributeInfo}s are just shallowly copied.
+     *
+     * @return a deep copy of this data set
+     */
+    @Override
+    public ColumnarDataSet copy() {
+        ColumnarDataSet res = new ColumnarDataSet();
+        res.classInfo = this.classInfo;
+        res.attributeInfoList = this.attributeInfoList;
+        res.dimensionality = this.dimensionality;
+        res.classSet = this.classSet;
+        res.attrValueSets = this.attrValueSets.clone();
+        res.columns = new double[this.dimensionality][];
+        for (int j = 0; j < this.dimensionality; j++) {
+            res.columns[j] = Arrays.copyOf(this.columns[j], this.size);
+        }
+        res.classValues = Arrays.copyOf(this.classValues, this.size);
+        res.weights = Arrays.copyOf(this.weights, this.size);
+        res.size = this.size;
+        return res;
+    }
+}
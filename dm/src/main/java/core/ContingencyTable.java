@@ -0,0 +1,478 @@
+package main.java.core;
+
+import main.java.core.collection.DoubleIntHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * A weighted contingency table of two columns of a data set, stored as a dense {@code double[][]}.
+ * Rows are the distinct values of the conditional column, columns are the distinct values of the target column
+ * (usually the class), both in ascending order, so that {@code count(r, c)} is the weighted number
+ * of instances whose conditional value is {@code rowValue(r)} and target value is {@code columnValue(c)}.
+ * <p>
+ * This replaces the {@code TreeMap<Double, TreeMap<Double, Double>>} of {@link DataSets#colConDistMap(DataSet, int, int)}:
+ * the values are coded to integers once per column, then each increment is an array access.
+ * {@link #ofAll(DataSet, double[], int, boolean)} fills the tables attribute by attribute,
+ * so besides the tables only one column of values is held at a time.
+ * The marginals are accumulated in row order,
+ * so they equal {@link DataSets#columnDistMap(DataSet, int)} exactly.
+ * A {@link Builder} accumulates a table from values seen one at a time, as in one pass over a {@link DataSource}.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSets#colConDistMap(DataSet, int, int)
+ */
+public class ContingencyTable {
+
+    /**
+     * The number of rows handled by one task in parallel mode.
+     */
+    public static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * The maximum number of tasks in parallel mode.
+     * It doesn't depend on the number of processors, so the order of additions and the result are the same on any machine.
+     */
+    private static final int MAX_BLOCKS = 64;
+
+    /**
+     * The distinct values of the conditional column in ascending order.
+     */
+    private final double[] rowValues;
+
+    /**
+     * The distinct values of the target column in ascending order.
+     */
+    private final double[] columnValues;
+
+    /**
+     * The weighted counts.
+     */
+    private final double[][] counts;
+
+    /**
+     * The weighted number of each row value.
+     */
+    private final double[] rowSums;
+
+    /**
+     * The weighted number of each column value.
+     */
+    private final double[] columnSums;
+
+    /**
+     * Creates an empty table with given row values and column values.
+     * The arrays are not copied, so they must not be modified by the caller afterwards.
+     *
+     * @param rowValues the distinct values of the conditional column in ascending order
+     * @param columnValues the distinct values of the target column in ascending order
+     */
+    public ContingencyTable(double[] rowValues, double[] columnValues) {
+        this.rowValues = rowValues;
+        this.columnValues = columnValues;
+        this.counts = new double[rowValues.length][columnValues.length];
+        this.rowSums = new double[rowValues.length];
+        this.columnSums = new double[columnValues.length];
+    }
+
+    /**
+     * Builds the table of two columns of a data set.
+     *
+     * @param dataset given dataset
+     * @param weights the weight of each instance
+     * @param rowIndex the index of conditional attribute: [-1, dimensionality-1], -1 for class
+     * @param columnIndex the index of target attribute: [-1, dimensionality-1], -1 for class
+     * @return a new table
+     * @throws IllegalArgumentException if an index is less than -1, the indices are equal
+     *         or the length of weights != the size of dataset
+     */
+    public static ContingencyTable of(DataSet dataset, double[] weights, int rowIndex, int columnIndex) {
+        check(dataset, weights, columnIndex);
+        if (rowIndex < -1) {
+            throw new IllegalArgumentException("Given index must be greater than -1.");
+        }
+        if (rowIndex == columnIndex) {
+            throw new IllegalArgumentException("conIndex can't equal distIndex");
+        }
+        double[] rowValues = distinct(dataset, rowIndex);
+        double[] columnValues = distinct(dataset, columnIndex);
+        int[] rowCodes = encode(values(dataset, rowIndex), rowValues);
+        int[] columnCodes = encode(values(dataset, columnIndex), columnValues);
+        ContingencyTable res = new ContingencyTable(rowValues, columnValues);
+        for (int i = 0; i < weights.length; i++) {
+            res.add(rowCodes[i], columnCodes[i], weights[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Builds the tables of every attribute against the target column.
+     * The attributes are counted one by one, so besides the tables only the target codes and one attribute column
+     * are held at a time, not a code per cell.
+     * In parallel mode, the rows are divided into at most {@value #MAX_BLOCKS} blocks of at least {@value #BLOCK_SIZE} rows,
+     * each block is counted into its own table by a task of the common fork-join pool,
+     * and the tables are merged in block order. The sums may then differ from sequential mode in the last bits,
+     * but not between runs or machines.
+     *
+     * @param dataset given dataset
+     * @param weights the weight of each instance
+     * @param columnIndex the index of target attribute: [-1, dimensionality-1], -1 for class
+     * @param parallel whether to count blocks of rows in parallel
+     * @return an array of tables whose element j is the table of attribute j, null if j == columnIndex
+     * @throws IllegalArgumentException if columnIndex is less than -1 or the length of weights != the size of dataset
+     */
+    public static ContingencyTable[] ofAll(DataSet dataset, double[] weights, int columnIndex, boolean parallel) {
+        check(dataset, weights, columnIndex);
+        int dimension = dataset.dimensionality();
+        double[] columnValues = distinct(dataset, columnIndex);
+        int[] columnCodes = encode(values(dataset, columnIndex), columnValues);
+        int n = weights.length;
+        int blocks = parallel ? Math.min(MAX_BLOCKS, (n + BLOCK_SIZE - 1) / BLOCK_SIZE) : 1;
+        ContingencyTable[] res = new ContingencyTable[dimension];
+        for (int j = 0; j < dimension; j++) {
+            if (j == columnIndex) {
+                continue;
+            }
+            double[] rowValues = distinct(dataset, j);
+            double[] column = dataset.attrValues(j);
+            if (blocks <= 1) {
+                res[j] = count(rowValues, columnValues, column, columnCodes, weights, 0, n);
+                continue;
+            }
+            // 每个块使用各自的表，再按块的顺序合并
+            ContingencyTable[] partial = IntStream.range(0, blocks).parallel()
+                    .mapToObj(b -> count(rowValues, columnValues, column, columnCodes, weights,
+                            (int) ((long) n * b / blocks), (int) ((long) n * (b + 1) / blocks)))
+                    .toArray(ContingencyTable[]::new);
+            for (int b = 1; b < blocks; b++) {
+                partial[0].merge(partial[b]);
+            }
+            res[j] = partial[0];
+        }
+        return res;
+    }
+
+    /**
+     * Builds a table from a conditional distribution, e.g. one accumulated from a {@link DataSource}.
+     * Target values missing in a conditional distribution are counted 0.
+     * The marginals are summed from the cells.
+     *
+     * @param distribution key is the conditional value, value is the weighted distribution of the target
+     * @return a new table
+     */
+    public static ContingencyTable of(Map<Double, ? extends Map<Double, Double>> distribution) {
+        TreeSet<Double> rowSet = new TreeSet<>(distribution.keySet());
+        TreeSet<Double> columnSet = new TreeSet<>();
+        for (Map<Double, Double> subDistribution: distribution.values()) {
+            columnSet.addAll(subDistribution.keySet());
+        }
+        double[] rowValues = toArray(rowSet);
+        double[] columnValues = toArray(columnSet);
+        ContingencyTable res = new ContingencyTable(rowValues, columnValues);
+        for (int r = 0; r < rowValues.length; r++) {
+            for (Map.Entry<Double, Double> entry: distribution.get(rowValues[r]).entrySet()) {
+                res.add(r, Arrays.binarySearch(columnValues, entry.getKey()), entry.getValue());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Accumulates a table from pairs of values seen one at a time, e.g. rows of a {@link DataSource},
+     * when the distinct values are not known in advance.
+     * The values are coded by {@link DoubleIntHashMap}s in order of first appearance and the weights are added
+     * to growing primitive arrays, so no cell is boxed. {@link #build()} then sorts the values.
+     * Each cell and marginal is summed in the order of the pairs, so a table built from the rows of a data set
+     * equals {@link #of(DataSet, double[], int, int)} exactly.
+     */
+    public static class Builder {
+
+        /**
+         * The code of each row value.
+         */
+        private final DoubleIntHashMap rowCodes = new DoubleIntHashMap();
+
+        /**
+         * The code of each column value.
+         */
+        private final DoubleIntHashMap columnCodes = new DoubleIntHashMap();
+
+        /**
+         * The weighted counts indexed by row code and column code, a row grows with the column codes.
+         */
+        private double[][] counts = new double[16][];
+
+        /**
+         * The weighted number of each row code.
+         */
+        private double[] rowSums = new double[16];
+
+        /**
+         * The weighted number of each column code.
+         */
+        private double[] columnSums = new double[4];
+
+        /**
+         * Creates an empty builder.
+         */
+        public Builder() {}
+
+        /**
+         * Adds a weight to the cell (rowValue, columnValue) and to the marginals.
+         *
+         * @param rowValue the value of the conditional column
+         * @param columnValue the value of the target column
+         * @param weight the weight to add
+         */
+        public void add(double rowValue, double columnValue, double weight) {
+            int r = this.rowCodes.putIfAbsent(rowValue, this.rowCodes.size());
+            int c = this.columnCodes.putIfAbsent(columnValue, this.columnCodes.size());
+            if (r == this.counts.length) {
+                this.counts = Arrays.copyOf(this.counts, r * 2);
+                this.rowSums = Arrays.copyOf(this.rowSums, r * 2);
+            }
+            if (c == this.columnSums.length) {
+                this.columnSums = Arrays.copyOf(this.columnSums, c * 2);
+            }
+            double[] row = this.counts[r];
+            if (row == null) {
+                row = this.counts[r] = new double[this.columnSums.length];
+            } else if (c >= row.length) {
+                row = this.counts[r] = Arrays.copyOf(row, this.columnSums.length);
+            }
+            row[c] += weight;
+            this.rowSums[r] += weight;
+            this.columnSums[c] += weight;
+        }
+
+        /**
+         * Builds the table with the row values and the column values in ascending order.
+         * Pairs never seen together are counted 0.
+         *
+         * @return a new table
+         */
+        public ContingencyTable build() {
+            double[] rowValues = sortedKeys(this.rowCodes);
+            double[] columnValues = sortedKeys(this.columnCodes);
+            int[] columnOrder = new int[columnValues.length]; // 第c列对应的编码
+            for (int c = 0; c < columnValues.length; c++) {
+                columnOrder[c] = this.columnCodes.getOrDefault(columnValues[c], -1);
+            }
+            ContingencyTable res = new ContingencyTable(rowValues, columnValues);
+            for (int r = 0; r < rowValues.length; r++) {
+                int code = this.rowCodes.getOrDefault(rowValues[r], -1);
+                double[] row = this.counts[code];
+                for (int c = 0; c < columnValues.length; c++) {
+                    if (columnOrder[c] < row.length) {
+                        res.counts[r][c] = row[columnOrder[c]];
+                    }
+                }
+                res.rowSums[r] = this.rowSums[code];
+            }
+            for (int c = 0; c < columnValues.length; c++) {
+                res.columnSums[c] = this.columnSums[columnOrder[c]];
+            }
+            return res;
+        }
+
+        private static double[] sortedKeys(DoubleIntHashMap codes) {
+            double[] keys = codes.keys();
+            Arrays.sort(keys);
+            return keys;
+        }
+    }
+
+    /**
+     * Counts rows [from, to) of an attribute column into a new table.
+     */
+    private static ContingencyTable count(double[] rowValues, double[] columnValues, double[] column,
+                                          int[] columnCodes, double[] weights, int from, int to) {
+        ContingencyTable res = new ContingencyTable(rowValues, columnValues);
+        for (int i = from; i < to; i++) {
+            res.add(Arrays.binarySearch(rowValues, column[i]), columnCodes[i], weights[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Adds a weight to the cell (r, c) and to the marginals.
+     *
+     * @param r the row's index
+     * @param c the column's index
+     * @param weight the weight to add
+     */
+    public void add(int r, int c, double weight) {
+        this.counts[r][c] += weight;
+        this.rowSums[r] += weight;
+        this.columnSums[c] += weight;
+    }
+
+    /**
+     * Adds the counts of another table with the same row values and column values to this table.
+     *
+     * @param other another table
+     * @throws IllegalArgumentException if the tables have different row values or column values
+     */
+    public void merge(ContingencyTable other) {
+        if (!Arrays.equals(this.rowValues, other.rowValues) || !Arrays.equals(this.columnValues, other.columnValues)) {
+            throw new IllegalArgumentException("The tables have different row values or column values.");
+        }
+        for (int r = 0; r < this.rowValues.length; r++) {
+            double[] row = this.counts[r];
+            double[] otherRow = other.counts[r];
+            for (int c = 0; c < row.length; c++) {
+                row[c] += otherRow[c];
+            }
+            this.rowSums[r] += other.rowSums[r];
+        }
+        for (int c = 0; c < this.columnValues.length; c++) {
+            this.columnSums[c] += other.columnSums[c];
+        }
+    }
+
+    /**
+     * Returns the number of distinct values of the conditional column.
+     *
+     * @return the number of rows
+     */
+    public int rows() {
+        return this.rowValues.length;
+    }
+
+    /**
+     * Returns the number of distinct values of the target column.
+     *
+     * @return the number of columns
+     */
+    public int columns() {
+        return this.columnValues.length;
+    }
+
+    /**
+     * Returns the conditional value of a row.
+     *
+     * @param r the row's index
+     * @return the value
+     */
+    public double rowValue(int r) {
+        return this.rowValues[r];
+    }
+
+    /**
+     * Returns the target value of a column.
+     *
+     * @param c the column's index
+     * @return the value
+     */
+    public double columnValue(int c) {
+        return this.columnValues[c];
+    }
+
+    /**
+     * Returns the weighted number of instances in the cell (r, c).
+     *
+     * @param r the row's index
+     * @param c the column's index
+     * @return the weighted number
+     */
+    public double count(int r, int c) {
+        return this.counts[r][c];
+    }
+
+    /**
+     * Returns the distribution of the target under the conditional value of a row.
+     * The returned array is backed by this table and must not be modified.
+     *
+     * @param r the row's index
+     * @return the weighted number of each column value
+     */
+    public double[] row(int r) {
+        return this.counts[r];
+    }
+
+    /**
+     * Returns the weighted number of each row value, i.e. the distribution of the conditional column.
+     * The returned array is backed by this table and must not be modified.
+     *
+     * @return the row sums
+     */
+    public double[] rowSums() {
+        return this.rowSums;
+    }
+
+    /**
+     * Returns the weighted number of each column value, i.e. the distribution of the target column.
+     * The returned array is backed by this table and must not be modified.
+     *
+     * @return the column sums
+     */
+    public double[] columnSums() {
+        return this.columnSums;
+    }
+
+    /**
+     * Converts this table to the nested maps of {@link DataSets#colConDistMap(DataSet, int, int)}.
+     *
+     * @return {@code TreeMap<Double, TreeMap<Double, Double>}
+     */
+    public TreeMap<Double, TreeMap<Double, Double>> toMap() {
+        TreeMap<Double, TreeMap<Double, Double>> res = new TreeMap<>();
+        for (int r = 0; r < this.rowValues.length; r++) {
+            TreeMap<Double, Double> subDistribution = new TreeMap<>();
+            for (int c = 0; c < this.columnValues.length; c++) {
+                subDistribution.put(this.columnValues[c], this.counts[r][c]);
+            }
+            res.put(this.rowValues[r], subDistribution);
+        }
+        return res;
+    }
+
+    private static void check(DataSet dataset, double[] weights, int columnIndex) {
+        if (columnIndex < -1) {
+            throw new IllegalArgumentException("Given index must be greater than -1.");
+        }
+        if (weights.length != dataset.size()) {
+            throw new IllegalArgumentException("weights.length = " + weights.length + ", expected " + dataset.size());
+        }
+    }
+
+    /**
+     * Returns the values of the class (index -1) or of an attribute.
+     */
+    static double[] values(DataSet dataset, int index) {
+        return index == -1 ? dataset.classValues() : dataset.attrValues(index);
+    }
+
+    /**
+     * Returns the sorted distinct values of the class (index -1) or of an attribute.
+     */
+    static double[] distinct(DataSet dataset, int index) {
+        return index == -1 ? dataset.classCounts().values() : dataset.attrCounts(index).values();
+    }
+
+    /**
+     * Returns the position of each value in the sorted distinct values.
+     * {@link Arrays#binarySearch(double[], double)} compares as {@link Double#compare(double, double)},
+     * the same order as the keys of a {@code TreeMap<Double, ?>}.
+     */
+    static int[] encode(double[] values, double[] distinct) {
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = Arrays.binarySearch(distinct, values[i]);
+        }
+        return codes;
+    }
+
+    private static double[] toArray(TreeSet<Double> set) {
+        double[] res = new double[set.size()];
+        int i = 0;
+        for (double value: set) {
+            res[i++] = value;
+        }
+        return res;
+    }
+}
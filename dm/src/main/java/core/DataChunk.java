@@ -0,0 +1,181 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+/**
+ * A fixed-capacity block of rows read from a {@link DataSource}.
+ * The attribute values are stored row-major in one {@code double} array,
+ * class values and weights in their own arrays.
+ * <p>
+ * A chunk is meant to be reused: a {@link DataSource.ChunkReader} clears it and refills it on each call,
+ * so the memory of a pass over a source is bounded by the capacity of one chunk.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSource
+ */
+public class DataChunk {
+
+    /**
+     * The number of attributes of each row.
+     */
+    protected final int dimensionality;
+
+    /**
+     * The attribute values: the value of attribute j in row i is {@code values[i * dimensionality + j]}.
+     */
+    protected final double[] values;
+
+    /**
+     * The class value of each row.
+     */
+    protected final double[] classValues;
+
+    /**
+     * The weight of each row.
+     */
+    protected final double[] weights;
+
+    /**
+     * The number of rows held now.
+     */
+    protected int size;
+
+    /**
+     * Creates an empty chunk.
+     *
+     * @param dimensionality the number of attributes of each row
+     * @param capacity the maximum number of rows
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public DataChunk(int dimensionality, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        this.dimensionality = dimensionality;
+        this.values = new double[Math.multiplyExact(dimensionality, capacity)];
+        this.classValues = new double[capacity];
+        this.weights = new double[capacity];
+    }
+
+    /**
+     * Returns the number of attributes of each row.
+     *
+     * @return the number of attributes
+     */
+    public int dimensionality() {
+        return this.dimensionality;
+    }
+
+    /**
+     * Returns the number of rows held now.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the maximum number of rows.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.weights.length;
+    }
+
+    /**
+     * Returns whether no more row can be added.
+     *
+     * @return true if size == capacity
+     */
+    public boolean isFull() {
+        return this.size == this.weights.length;
+    }
+
+    /**
+     * Removes all rows, the arrays are kept for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Appends a row, copying the attribute values.
+     *
+     * @param attributes the attribute values
+     * @param classValue the class value, {@code Double.NaN} if unlabeled
+     * @param weight the weight
+     * @throws DimensionNotMatchedException if the number of attribute values != dimensionality
+     * @throws IllegalStateException if this chunk is full
+     */
+    public void add(double[] attributes, double classValue, double weight) {
+        if (attributes.length != this.dimensionality) {
+            String msg = "The chunk has " + this.dimensionality + " attributes, but the row has " + attributes.length + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+        if (this.isFull()) {
+            throw new IllegalStateException("The chunk is full.");
+        }
+        System.arraycopy(attributes, 0, this.values, this.size * this.dimensionality, this.dimensionality);
+        this.classValues[this.size] = classValue;
+        this.weights[this.size] = weight;
+        this.size++;
+    }
+
+    /**
+     * Appends the values, class value and weight of given instance.
+     *
+     * @param instance the instance to be appended
+     * @throws DimensionNotMatchedException if the dimensionality of instance doesn't match
+     * @throws IllegalStateException if this chunk is full
+     */
+    public void add(Instance instance) {
+        if (instance.dimensionality() != this.dimensionality) {
+            String msg = "The chunk has " + this.dimensionality + " attributes, but the instance has " + instance.dimensionality() + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+        if (this.isFull()) {
+            throw new IllegalStateException("The chunk is full.");
+        }
+        int base = this.size * this.dimensionality;
+        for (int j = 0; j < this.dimensionality; j++) {
+            this.values[base + j] = instance.attribute(j);
+        }
+        this.classValues[this.size] = instance.classValue();
+        this.weights[this.size] = instance.getWeight();
+        this.size++;
+    }
+
+    /**
+     * Returns the value of an attribute in a row.
+     *
+     * @param row the row's index in this chunk
+     * @param attrIndex the attribute's index
+     * @return the attribute value
+     */
+    public final double value(int row, int attrIndex) {
+        return this.values[row * this.dimensionality + attrIndex];
+    }
+
+    /**
+     * Returns the class value of a row.
+     *
+     * @param row the row's index in this chunk
+     * @return the class value
+     */
+    public final double classValue(int row) {
+        return this.classValues[row];
+    }
+
+    /**
+     * Returns the weight of a row.
+     *
+     * @param row the row's index in this chunk
+     * @return the weight
+     */
+    public final double weight(int row) {
+        return this.weights[row];
+    }
+}
@@ -1,5 +1,6 @@
 package main.java.core;
 
+import main.java.core.collection.ValueCounts;
 import main.java.core.exception.DimensionNotMatchedException;
 
 import java.util.Collection;
@@ -91,6 +92,51 @@ public interface DataSet extends Iterable<Instance>, Copyable<DataSet> {
      */
     double[] attrValues(int attrIndex);
 
+    /**
+     * Returns an array contains the weight of each instance in the data set.
+     * Fitting algorithms read weights through this method (e.g. {@link DataSets#sumWeight(DataSet)}),
+     * so a data set can carry a weight vector of its own without modifying its instances,
+     * see {@link DataSetView#weighted(DataSet, double[])}.
+     * The default implementation reads {@link Instance#getWeight()} of each instance.
+     *
+     * @return an array contains the weight of each instance
+     */
+    default double[] weightValues() {
+        double[] res = new double[this.size()];
+        int i = 0;
+        for (Instance instance: this) {
+            res[i++] = instance.getWeight();
+        }
+        return res;
+    }
+
+    /**
+     * Returns the count of each class value in this data set,
+     * whose sorted distinct values and counts are primitive arrays.
+     * If no classes are available, this will return empty counts.
+     * The default implementation counts {@link #classValues()} on each call.
+     *
+     * @return the class value counts, must not be modified
+     */
+    default ValueCounts classCounts() {
+        if (this.classInfo() == null) {
+            return new ValueCounts();
+        }
+        return new ValueCounts(this.classValues());
+    }
+
+    /**
+     * Returns the count of each value of the attribute at the given position,
+     * whose sorted distinct values and counts are primitive arrays.
+     * The default implementation counts {@link #attrValues(int)} on each call.
+     *
+     * @param attrIndex the attribute's index
+     * @return the attribute value counts, must not be modified
+     */
+    default ValueCounts attrCounts(int attrIndex) {
+        return new ValueCounts(this.attrValues(attrIndex));
+    }
+
     /**
      * Appends an instance to the end of this data set.
      * The new instance's dimensionality must equal the data set's dimensionality.
@@ -0,0 +1,528 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.*;
+
+/**
+ * A read-only view of a subset of another data set, defined by an array of row indices
+ * and optionally an array of column indices.
+ * Creating a view costs one int per selected row: instances are neither copied nor re-added,
+ * {@link #instance(int)} returns the parent's instance itself when all columns are selected and the view is not weighted.
+ * <p>
+ * A view of a view is flattened on creation, so the instances are always read from the root data set
+ * no matter how deeply views are nested (e.g. the nodes of a decision tree).
+ * Changes of the instances' class values and weights write through to the root data set.
+ * </p>
+ * <p>
+ * A view can also carry a weight vector of its own, see {@link #weighted(DataSet, double[])}.
+ * Then {@link #weightValues()} and the weights of the instances returned by {@link #instance(int)} are read from the vector,
+ * and setting such an instance's weight writes into the vector instead of the root data set,
+ * so several models can be fitted with different weights over one shared data set at the same time.
+ * Views of a weighted view inherit a copy of the weights of their rows.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see DataSets#folds(DataSet, int)
+ */
+public class DataSetView implements DataSet {
+
+    /**
+     * The root data set holding the instances.
+     */
+    protected final DataSet parent;
+
+    /**
+     * The selected rows of the parent.
+     */
+    protected final int[] rows;
+
+    /**
+     * The selected columns of the parent, null if all columns are selected.
+     */
+    protected final int[] columns;
+
+    /**
+     * The weight of each selected row, null if weights are read from the instances.
+     */
+    protected final double[] weights;
+
+    /**
+     * Holds each selected attribute's information.
+     */
+    protected final List<AttributeInfo> attributeInfoList;
+
+    /**
+     * A cache holding different class values.
+     */
+    protected SortedSet<Double> classSet;
+
+    /**
+     * A cache holding all different values of each attribute.
+     */
+    protected SortedSet<Double>[] attrValueSets;
+
+    /**
+     * Creates a view of the given rows with all columns.
+     * The array is not copied, so it must not be modified by the caller afterwards.
+     *
+     * @param parent the data set to view
+     * @param rows the indices of the selected rows in the parent
+     * @throws IndexOutOfBoundsException if a row index is out of range
+     */
+    public DataSetView(DataSet parent, int[] rows) {
+        this(parent, rows, null);
+    }
+
+    /**
+     * Creates a view of the given rows and columns.
+     * The arrays are not copied, so they must not be modified by the caller afterwards.
+     *
+     * @param parent the data set to view
+     * @param rows the indices of the selected rows in the parent
+     * @param columns the indices of the selected attributes in the parent, null to select all
+     * @throws IndexOutOfBoundsException if a row or column index is out of range
+     */
+    public DataSetView(DataSet parent, int[] rows, int[] columns) {
+        this(parent, rows, columns, null);
+    }
+
+    /**
+     * Creates a view of the given rows and columns with the given weights.
+     * If weights is null and the parent is a weighted view, the weights of the selected rows are inherited.
+     */
+    private DataSetView(DataSet parent, int[] rows, int[] columns, double[] weights) {
+        int parentSize = parent.size();
+        for (int row: rows) {
+            if (row < 0 || row >= parentSize) {
+                throw new IndexOutOfBoundsException("Index: " + row + ", Size: " + parentSize);
+            }
+        }
+        if (columns != null) {
+            for (int column: columns) {
+                if (column < 0 || column >= parent.dimensionality()) {
+                    throw new IndexOutOfBoundsException("Attribute index: " + column +
+                            ", Dimensionality: " + parent.dimensionality());
+                }
+            }
+        }
+        if (parent instanceof DataSetView) { // 展开嵌套的视图，始终直接访问根数据集
+            DataSetView view = (DataSetView) parent;
+            if (weights == null && view.weights != null) { // 继承所选行的权重
+                weights = new double[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    weights[i] = view.weights[rows[i]];
+                }
+            }
+            int[] rootRows = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                rootRows[i] = view.rows[rows[i]];
+            }
+            rows = rootRows;
+            if (view.columns != null) {
+                if (columns == null) {
+                    columns = view.columns;
+                } else {
+                    int[] rootColumns = new int[columns.length];
+                    for (int j = 0; j < columns.length; j++) {
+                        rootColumns[j] = view.columns[columns[j]];
+                    }
+                    columns = rootColumns;
+                }
+            }
+            parent = view.parent;
+        }
+        this.parent = parent;
+        this.rows = rows;
+        this.columns = columns;
+        this.weights = weights;
+        if (columns == null) {
+            this.attributeInfoList = parent.attributeInfoList();
+        } else {
+            List<AttributeInfo> attributeInfoList = new ArrayList<>(columns.length);
+            for (int column: columns) {
+                attributeInfoList.add(parent.attributeInfo(column));
+            }
+            this.attributeInfoList = attributeInfoList;
+        }
+        this.attrValueSets = AbstractColumnDataSet.newAttrValueSets(this.attributeInfoList.size());
+    }
+
+    /**
+     * Creates a view of the given rows without the attribute at the given position,
+     * as {@link Instance#deleteAttribute(int)} does for each instance but without copying any value.
+     *
+     * @param parent the data set to view
+     * @param rows the indices of the selected rows in the parent
+     * @param attrIndex the index of attribute to be removed
+     * @return a new view
+     * @throws IndexOutOfBoundsException if a row index or the attribute index is out of range
+     */
+    public static DataSetView withoutAttribute(DataSet parent, int[] rows, int attrIndex) {
+        int dimension = parent.dimensionality();
+        if (attrIndex < 0 || attrIndex >= dimension) {
+            throw new IndexOutOfBoundsException("Attribute index: " + attrIndex + ", Dimensionality: " + dimension);
+        }
+        int[] columns = new int[dimension - 1];
+        for (int j = 0; j < columns.length; j++) {
+            columns[j] = j < attrIndex ? j : j + 1;
+        }
+        return new DataSetView(parent, rows, columns);
+    }
+
+    /**
+     * Creates a view of all rows of the given data set, weighted by the given vector instead of the instances' weights.
+     * Neither the data set nor its instances are modified.
+     * The array is not copied, so it must not be modified by the caller afterwards.
+     *
+     * @param dataset the data set to view
+     * @param weights the weight of each instance in the data set
+     * @return a new weighted view
+     * @throws IllegalArgumentException if the length of weights != the size of dataset
+     */
+    public static DataSetView weighted(DataSet dataset, double[] weights) {
+        if (weights.length != dataset.size()) {
+            String msg = "weights.length = " + weights.length + ", expected " + dataset.size();
+            throw new IllegalArgumentException(msg);
+        }
+        int[] rows = new int[weights.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        return new DataSetView(dataset, rows, null, weights);
+    }
+
+    /**
+     * Returns the root data set holding the instances.
+     *
+     * @return the root data set
+     */
+    public DataSet parent() {
+        return this.parent;
+    }
+
+    /**
+     * Returns the indices of the selected rows in the root data set.
+     * The returned array is the storage of this view and must not be modified.
+     *
+     * @return the row indices
+     */
+    public int[] rows() {
+        return this.rows;
+    }
+
+    @Override
+    public int dimensionality() {
+        return this.attributeInfoList.size();
+    }
+
+    @Override
+    public int size() {
+        return this.rows.length;
+    }
+
+    /**
+     * Returns the instance at the given position.
+     * It is the parent's instance itself if all columns are selected and this view is not weighted,
+     * otherwise a view of the selected columns weighted by this view's weight vector.
+     *
+     * @param index the instance's index (index starts with 0)
+     * @return the instance at the given position
+     */
+    @Override
+    public Instance instance(int index) {
+        Instance instance = this.parent.instance(this.rows[index]);
+        if (this.columns == null && this.weights == null) {
+            return instance;
+        }
+        return new ViewInstance(instance, this.columns, this.weights, index);
+    }
+
+    @Override
+    public AttributeInfo classInfo() {
+        return this.parent.classInfo();
+    }
+
+    @Override
+    public AttributeInfo attributeInfo(int attrIndex) {
+        return this.attributeInfoList.get(attrIndex);
+    }
+
+    @Override
+    public List<AttributeInfo> attributeInfoList() {
+        return this.attributeInfoList;
+    }
+
+    @Override
+    public SortedSet<Double> classSet() {
+        if (this.classSet == null) {
+            TreeSet<Double> res = new TreeSet<>();
+            if (this.classInfo() != null) { // If classInfo is null, no classes are available.
+                for (double classValue: this.classValues()) {
+                    res.add(classValue);
+                }
+            }
+            this.classSet = res;
+        }
+        return this.classSet;
+    }
+
+    @Override
+    public SortedSet<Double> attrValueSet(int attrIndex) {
+        if (this.attrValueSets[attrIndex] == null) {
+            TreeSet<Double> res = new TreeSet<>();
+            for (double attrValue: this.attrValues(attrIndex)) {
+                res.add(attrValue);
+            }
+            this.attrValueSets[attrIndex] = res;
+        }
+        return this.attrValueSets[attrIndex];
+    }
+
+    @Override
+    public double[] classValues() {
+        double[] res = new double[this.rows.length];
+        if (this.parent instanceof AbstractColumnDataSet) { // 列式数据集直接读取列，无需创建实例
+            AbstractColumnDataSet columns = (AbstractColumnDataSet) this.parent;
+            for (int i = 0; i < res.length; i++) {
+                res[i] = columns.classValue(this.rows[i]);
+            }
+        } else {
+            for (int i = 0; i < res.length; i++) {
+                res[i] = this.parent.instance(this.rows[i]).classValue();
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public double[] attrValues(int attrIndex) {
+        int column = this.columns == null ? attrIndex : this.columns[attrIndex];
+        double[] res = new double[this.rows.length];
+        if (this.parent instanceof AbstractColumnDataSet) { // 列式数据集直接读取列，无需创建实例
+            AbstractColumnDataSet columns = (AbstractColumnDataSet) this.parent;
+            for (int i = 0; i < res.length; i++) {
+                res[i] = columns.value(this.rows[i], column);
+            }
+        } else {
+            for (int i = 0; i < res.length; i++) {
+                res[i] = this.parent.instance(this.rows[i]).attribute(column);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns a copy of the weight vector of a weighted view, otherwise the weights of the selected instances.
+     *
+     * @return an array contains the weight of each instance
+     */
+    @Override
+    public double[] weightValues() {
+        if (this.weights != null) {
+            return this.weights.clone();
+        }
+        double[] res = new double[this.rows.length];
+        if (this.parent instanceof AbstractColumnDataSet) { // 列式数据集直接读取列，无需创建实例
+            AbstractColumnDataSet columns = (AbstractColumnDataSet) this.parent;
+            for (int i = 0; i < res.length; i++) {
+                res[i] = columns.weight(this.rows[i]);
+            }
+        } else {
+            for (int i = 0; i < res.length; i++) {
+                res[i] = this.parent.instance(this.rows[i]).getWeight();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * A view is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(Instance instance) {
+        throw new UnsupportedOperationException("DataSetView is read-only.");
+    }
+
+    /**
+     * A view is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addAll(Collection<? extends Instance> instances) {
+        throw new UnsupportedOperationException("DataSetView is read-only.");
+    }
+
+    /**
+     * Returns a {@link StandardDataSet} holding copies of the instances in this view,
+     * so that changes of the copy don't affect the parent.
+     * The copies of a weighted view take their weights from the weight vector.
+     *
+     * @return a new data set
+     */
+    @Override
+    public StandardDataSet copy() {
+        StandardDataSet res = new StandardDataSet(this.attributeInfoList, this.classInfo());
+        ArrayList<Instance> instances = new ArrayList<>(this.rows.length);
+        for (Instance instance: this) {
+            instances.add(instance.copy());
+        }
+        res.addAll(instances);
+        return res;
+    }
+
+    @Override
+    public Iterator<Instance> iterator() {
+        return new Iterator<Instance>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < rows.length;
+            }
+
+            @Override
+            public Instance next() {
+                if (cursor >= rows.length) {
+                    throw new NoSuchElementException();
+                }
+                return instance(cursor++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        String[] res = new String[this.rows.length];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.instance(i).toString();
+        }
+        String prefix = "{" + System.lineSeparator() +
+                String.join(System.lineSeparator(), res) +
+                System.lineSeparator() + "} " +
+                this.attributeInfoList.toString();
+        if (this.classInfo() != null) {
+            return prefix + ";" + this.classInfo();
+        } else {
+            return prefix;
+        }
+    }
+
+    /**
+     * A view of the selected columns of an instance, weighted by the weight vector of a weighted view.
+     * The class value is read from (and written to) the viewed instance,
+     * and so is the weight unless the view is weighted.
+     */
+    private static final class ViewInstance implements Instance {
+
+        private final Instance instance;
+
+        /**
+         * The selected columns, null if all columns are selected.
+         */
+        private final int[] columns;
+
+        /**
+         * The weight vector of the view, null if the weight is the viewed instance's.
+         */
+        private final double[] weights;
+
+        /**
+         * The index of this instance in the view.
+         */
+        private final int index;
+
+        ViewInstance(Instance instance, int[] columns, double[] weights, int index) {
+            this.instance = instance;
+            this.columns = columns;
+            this.weights = weights;
+            this.index = index;
+        }
+
+        @Override
+        public double getWeight() {
+            return this.weights == null ? this.instance.getWeight() : this.weights[this.index];
+        }
+
+        @Override
+        public void setWeight(double weight) {
+            if (this.weights == null) {
+                this.instance.setWeight(weight);
+            } else {
+                this.weights[this.index] = weight;
+            }
+        }
+
+        @Override
+        public boolean isLabeled() {
+            return this.instance.isLabeled();
+        }
+
+        @Override
+        public double classValue() {
+            return this.instance.classValue();
+        }
+
+        @Override
+        public void setClassValue(double value) {
+            this.instance.setClassValue(value);
+        }
+
+        /**
+         * A view is always bound to the instance holding its values,
+         * so this method only checks the dimensionality of the given data set.
+         */
+        @Override
+        public void setDataSet(DataSet dataset) {
+            if (dataset.dimensionality() != this.dimensionality()) {
+                String msg = "The data set has " + dataset.dimensionality() +
+                        " attributes, but the instance has " + this.dimensionality() + " attributes.";
+                throw new DimensionNotMatchedException(msg);
+            }
+        }
+
+        @Override
+        public int dimensionality() {
+            return this.columns == null ? this.instance.dimensionality() : this.columns.length;
+        }
+
+        @Override
+        public double attribute(int index) {
+            return this.instance.attribute(this.columns == null ? index : this.columns[index]);
+        }
+
+        @Override
+        public Instance deleteAttribute(int index) {
+            return this.copy().deleteAttribute(index);
+        }
+
+        /**
+         * Returns a copy of the viewed instance with this weight if all columns are selected,
+         * otherwise a {@link DenseInstance} holding the selected values.
+         *
+         * @return a new instance
+         */
+        @Override
+        public Instance copy() {
+            if (this.columns == null) {
+                Instance res = this.instance.copy();
+                res.setWeight(this.getWeight());
+                return res;
+            }
+            double[] attributes = new double[this.columns.length];
+            for (int j = 0; j < attributes.length; j++) {
+                attributes[j] = this.instance.attribute(this.columns[j]);
+            }
+            return new DenseInstance(attributes, this.classValue(), this.getWeight());
+        }
+
+        @Override
+        public String toString() {
+            return this.copy().toString();
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package main.java.core;
 
+import main.java.core.collection.DoubleDoubleHashMap;
+import main.java.core.sampling.Resampling;
+
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -25,78 +29,89 @@ public class DataSets implements WeightHandler {
     /**
      * Returns a number of folds from the source data set.
      * Instances of the data set will be randomly and averagely allocated.
+     * Each fold is a {@link DataSetView} of the source data set, no instance is copied.
      *
      * @param src the source data set
-     * @param k the number of folds, >= 1
+     * @param k the number of folds, [1, size]
      * @return an array containing each fold data set
+     * @throws IllegalArgumentException if k is out of [1, size]
      */
     public static DataSet[] folds(DataSet src, int k) {
-        StandardDataSet[] res = new StandardDataSet[k];
-        int srcSize = src.size(); // 源数据集中实例数量
-        List<Integer> indices = new ArrayList<>(srcSize);
-        for (int i = 0; i < srcSize; i++) {
-            indices.add(i);
-        }
-        int subSize = (srcSize / k) + 1; // 子数据集中实例数量
-        int[][] subIndices = new int[k][subSize]; // 每个子数据集中实例所对应在源数据中的索引
-        Random random = new Random();
-        for (int i = 0; i < subSize; i++) {
-            for (int j = 0; j < k; j++) {
-                if (indices.size() > 0)
-                    subIndices[j][i] = indices.remove(random.nextInt(indices.size()));
-                else
-                    subIndices[j][i] = -1;
-            }
-        }
-        for (int i = 0; i < k; i++) {
-            int[] subIndex;
-            if (subIndices[i][subSize - 1] == -1) { // 处理源数据集中实例数量不能整除k的情况
-                subIndex = new int[subSize - 1];
-                System.arraycopy(subIndices[i], 0, subIndex, 0, subSize - 1);
-            } else {
-                subIndex = new int[subSize];
-                System.arraycopy(subIndices[i], 0, subIndex, 0, subSize);
-            }
-            StandardDataSet subDataSet = new StandardDataSet(src.attributeInfoList(), src.classInfo());
-            for (int index: subIndex) {
-                subDataSet.add(src.instance(index));
-            }
-            res[i] = subDataSet;
-        }
-        return res;
+        return Resampling.views(src, Resampling.kFold(src.size(), k, new Random()));
+    }
+
+    /**
+     * Returns a number of folds from the source data set, reproducible by the seed.
+     *
+     * @param src the source data set
+     * @param k the number of folds, [1, size]
+     * @param seed the seed of randomness
+     * @return an array containing each fold data set
+     * @throws IllegalArgumentException if k is out of [1, size]
+     * @see Resampling#kFold(int, int, long)
+     */
+    public static DataSet[] folds(DataSet src, int k, long seed) {
+        return Resampling.views(src, Resampling.kFold(src.size(), k, seed));
+    }
+
+    /**
+     * Returns a number of folds from the source data set, preserving the percentage of each class in every fold.
+     * Each fold is a {@link DataSetView} of the source data set, no instance is copied.
+     *
+     * @param src the source data set
+     * @param k the number of folds, [1, size]
+     * @param seed the seed of randomness
+     * @return an array containing each fold data set
+     * @throws IllegalArgumentException if k is out of [1, size]
+     * @see Resampling#stratifiedKFold(double[], int, long)
+     */
+    public static DataSet[] stratifiedFolds(DataSet src, int k, long seed) {
+        return Resampling.views(src, Resampling.stratifiedKFold(src.classValues(), k, seed));
     }
 
     /**
      * Splits the source dataset into random train and test sub-dataset.
+     * Both are {@link DataSetView}s of the source data set, no instance is copied.
      *
      * @param src the source dataset
-     * @param testRate the proportion of the instances to include in the test split
+     * @param testRate the proportion of the instances to include in the test split, [0, 1]
      * @return an array containing train-test split of inputs,
      * array[0] is the train set when array[1] is the test set
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
      */
     public static DataSet[] trainTestSplit(DataSet src, double testRate) {
-        List<AttributeInfo> attributeInfoList = src.attributeInfoList();
-        AttributeInfo classInfo = src.classInfo();
-        StandardDataSet train = new StandardDataSet(attributeInfoList, classInfo);
-        StandardDataSet test = new StandardDataSet(attributeInfoList, classInfo);
-        int srcSize = src.size();
-        int testSize = (int) (srcSize * testRate);
-        List<Integer> trainIndices = new ArrayList<>(srcSize);
-        for (int i = 0; i < srcSize; i++) {
-            trainIndices.add(i);
-        }
-        int[] testIndices = new int[testSize];
-        Random random = new Random();
-        for (int i = 0; i < testSize; i++) {
-            testIndices[i] = trainIndices.remove(random.nextInt(trainIndices.size()));
-        }
-        for (int i: testIndices) {
-            test.add(src.instance(i));
-        }
-        for (int i: trainIndices)  {
-            train.add(src.instance(i));
-        }
-        return new StandardDataSet[] {train, test};
+        return Resampling.views(src, Resampling.trainTestSplit(src.size(), testRate, new Random()));
+    }
+
+    /**
+     * Splits the source dataset into random train and test sub-dataset, reproducible by the seed.
+     *
+     * @param src the source dataset
+     * @param testRate the proportion of the instances to include in the test split, [0, 1]
+     * @param seed the seed of randomness
+     * @return an array containing train-test split of inputs,
+     * array[0] is the train set when array[1] is the test set
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     * @see Resampling#trainTestSplit(int, double, long)
+     */
+    public static DataSet[] trainTestSplit(DataSet src, double testRate, long seed) {
+        return Resampling.views(src, Resampling.trainTestSplit(src.size(), testRate, seed));
+    }
+
+    /**
+     * Splits the source dataset into random train and test sub-dataset,
+     * preserving the percentage of each class in both.
+     *
+     * @param src the source dataset
+     * @param testRate the proportion of the instances to include in the test split, [0, 1]
+     * @param seed the seed of randomness
+     * @return an array containing train-test split of inputs,
+     * array[0] is the train set when array[1] is the test set
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     * @see Resampling#stratifiedTrainTestSplit(double[], double, long)
+     */
+    public static DataSet[] stratifiedTrainTestSplit(DataSet src, double testRate, long seed) {
+        return Resampling.views(src, Resampling.stratifiedTrainTestSplit(src.classValues(), testRate, seed));
     }
 
 
@@ -112,34 +127,34 @@ public class DataSets implements WeightHandler {
      * @throws IllegalArgumentException if given index is less than -1
      */
     public static TreeMap<Double, Double> columnDistMap(DataSet dataset, int index) {
+        return columnDistMap(dataset, dataset.weightValues(), index);
+    }
+
+    /**
+     * Returns the weighted distribution of a specified attribute in a dataset,
+     * where the weight of each instance is given by a separate vector instead of {@link Instance#getWeight()}.
+     *
+     * @param dataset given dataset
+     * @param weights the weight of each instance in the dataset
+     * @param index [0, dimensionality-1]: the index of the specified attribute or -1: the index of class
+     * @return a sorted <tt>TreeMap</tt>, key is the unique value of the attribute, value is the weighted number
+     * @throws IllegalArgumentException if given index is less than -1 or the length of weights != the size of dataset
+     */
+    public static TreeMap<Double, Double> columnDistMap(DataSet dataset, double[] weights, int index) {
         if (index < -1) {
             throw new IllegalArgumentException("Given index must be greater than -1.");
         }
+        checkWeights(dataset, weights);
+        // 取值编码为有序的整数后累加，避免每次累加都查找和更新TreeMap
+        double[] distinct = ContingencyTable.distinct(dataset, index);
+        int[] codes = ContingencyTable.encode(ContingencyTable.values(dataset, index), distinct);
+        double[] sums = new double[distinct.length];
+        for (int i = 0; i < codes.length; i++) {
+            sums[codes[i]] += weights[i];
+        }
         TreeMap<Double, Double> distribution = new TreeMap<>();
-        if (index == -1) { // 计算类的加权分布
-            for (Instance instance: dataset) {
-                double clazz = instance.classValue();
-                double weight = instance.getWeight();
-                Double sumWeight = distribution.get(clazz);
-                if (sumWeight == null) { // 说明Map之前没有这个clazz作为键
-                    sumWeight = weight;
-                } else {
-                    sumWeight += weight;
-                }
-                distribution.put(clazz, sumWeight);
-            }
-        } else { // 计算指定属性的加权分布
-            for (Instance instance: dataset) {
-                double attrValue = instance.attribute(index);
-                double weight = instance.getWeight();
-                Double sumWeight = distribution.get(attrValue);
-                if (sumWeight == null) { // 说明Map之前没有这个attrValue作为键
-                    sumWeight = weight;
-                } else {
-                    sumWeight += weight;
-                }
-                distribution.put(attrValue, sumWeight);
-            }
+        for (int k = 0; k < distinct.length; k++) {
+            distribution.put(distinct[k], sums[k]);
         }
         return distribution;
     }
@@ -152,66 +167,21 @@ public class DataSets implements WeightHandler {
      * @return {@code TreeMap<Double, TreeMap<Double, Double>}
      */
     public static TreeMap<Double, TreeMap<Double, Double>> colConDistMap(DataSet dataset, int conIndex, int distIndex) {
-        if (conIndex < -1 || distIndex < -1) {
-            throw new IllegalArgumentException("Given index must be greater than -1.");
-        }
-        if (conIndex == distIndex) {
-            throw new IllegalArgumentException("conIndex can't equal distIndex");
-        }
-        TreeMap<Double, TreeMap<Double, Double>> distribution = new TreeMap<>();
-        if (conIndex != -1) {
-            if (distIndex == -1) { // 类相对属性的条件分布
-                SortedSet<Double> classSet = dataset.classSet(); // 类的所有取值
-                for (Instance instance: dataset) {
-                    double conAttrValue = instance.attribute(conIndex); // 条件属性的值
-                    if (!distribution.containsKey(conAttrValue)) {
-                        TreeMap<Double, Double> subDistribution = new TreeMap<>();
-                        for (Double classValue: classSet) {
-                            subDistribution.put(classValue, 0.0);
-                        }
-                        distribution.put(conAttrValue, subDistribution);
-                    }
-                    TreeMap<Double, Double> subDistribution = distribution.get(conAttrValue);
-                    double classValue = instance.classValue();
-                    double weight = subDistribution.get(classValue) + instance.getWeight();
-                    subDistribution.put(classValue, weight);
-                }
-            }
-            else { // 属性相对其他属性的条件分布
-                SortedSet<Double> attrValueSet = dataset.attrValueSet(distIndex);
-                for (Instance instance: dataset) {
-                    double conAttrValue = instance.attribute(conIndex);
-                    if (!distribution.containsKey(conAttrValue)) {
-                        TreeMap<Double, Double> subDistribution = new TreeMap<>();
-                        for (Double attrValue: attrValueSet) {
-                            subDistribution.put(attrValue, 0.0);
-                        }
-                        distribution.put(conAttrValue, subDistribution);
-                    }
-                    TreeMap<Double, Double> subDistribution = distribution.get(conAttrValue);
-                    double distAttrValue = instance.attribute(distIndex);
-                    double weight = subDistribution.get(distAttrValue) + instance.getWeight();
-                    subDistribution.put(distAttrValue, weight);
-                }
-            }
-        } else { // 类作为条件
-            SortedSet<Double> attrValueSet = dataset.attrValueSet(distIndex);
-            for (Instance instance: dataset) {
-                double conClassValue = instance.classValue();
-                if (!distribution.containsKey(conClassValue)) {
-                    TreeMap<Double, Double> subDistribution = new TreeMap<>();
-                    for (Double attrValue: attrValueSet) {
-                        subDistribution.put(attrValue, 0.0);
-                    }
-                    distribution.put(conClassValue, subDistribution);
-                }
-                TreeMap<Double, Double> subDistribution = distribution.get(conClassValue);
-                double distAttrValue = instance.attribute(distIndex);
-                double weight = subDistribution.get(distAttrValue) + instance.getWeight();
-                subDistribution.put(distAttrValue, weight);
-            }
-        }
-        return distribution;
+        return colConDistMap(dataset, dataset.weightValues(), conIndex, distIndex);
+    }
+
+    /**
+     * Returns the weighted conditional distribution of a specified attribute in a dataset,
+     * where the weight of each instance is given by a separate vector.
+     * Code that reads the cells by position should use {@link ContingencyTable} directly.
+     * @param dataset given dataset
+     * @param weights the weight of each instance in the dataset
+     * @param conIndex the index of conditional attribute: [-1, dimensionality-1]
+     * @param distIndex the index of target attribute: [-1, dimensionality-1]
+     * @return {@code TreeMap<Double, TreeMap<Double, Double>}
+     */
+    public static TreeMap<Double, TreeMap<Double, Double>> colConDistMap(DataSet dataset, double[] weights, int conIndex, int distIndex) {
+        return ContingencyTable.of(dataset, weights, conIndex, distIndex).toMap();
     }
 
     /**
@@ -223,15 +193,32 @@ public class DataSets implements WeightHandler {
      * @return the sum of each instance's weight in the given dataset
      */
     public static double sumWeight(DataSet dataset) {
+        return sumWeight(dataset.weightValues());
+    }
+
+    /**
+     * Computes the sum of a weight vector.
+     *
+     * @param weights the weight of each instance
+     * @return the sum of weights
+     */
+    public static double sumWeight(double[] weights) {
         double sum = 0;
-        for (Instance instance: dataset) {
-            sum += instance.getWeight();
+        for (double weight: weights) {
+            sum += weight;
         }
         return sum;
     }
 
+    private static void checkWeights(DataSet dataset, double[] weights) {
+        if (weights.length != dataset.size()) {
+            throw new IllegalArgumentException("weights.length = " + weights.length + ", expected " + dataset.size());
+        }
+    }
+
     /**
      * Computes the variance of the specified attribute values in a dataset.
+     * The running mean and sum of squared deviations are updated by Welford's method.
      *
      * @param dataset given dataset
      * @param index [0, dimensionality-1]: the index of the specified attribute or -1: the index of class
@@ -239,36 +226,128 @@ public class DataSets implements WeightHandler {
      */
     public static double var(DataSet dataset, int index) {
         int n = dataset.size();
-        double sumX_i2 = 0;
-        double sumX_i = 0;
-        if (index == -1) {
-            for (Instance instance: dataset) {
-                double classValue = instance.classValue();
-                sumX_i2 += classValue * classValue;
-                sumX_i += classValue;
-            }
-        } else {
-            for (Instance instance: dataset) {
-                double attrValue = instance.attribute(index);
-                sumX_i2 += attrValue * attrValue;
-                sumX_i += attrValue;
+        double mean = 0;
+        double m2 = 0; // 离差平方和
+        AbstractColumnDataSet columns = dataset instanceof AbstractColumnDataSet ? (AbstractColumnDataSet) dataset : null;
+        for (int i = 0; i < n; i++) {
+            double value;
+            if (columns != null) { // 列式数据集直接读取列，无需创建实例，也不复制映射在堆外的列
+                value = index == -1 ? columns.classValue(i) : columns.value(i, index);
+            } else {
+                Instance instance = dataset.instance(i);
+                value = index == -1 ? instance.classValue() : instance.attribute(index);
             }
+            double delta = value - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (value - mean);
         }
-        return (sumX_i2 - sumX_i/n*sumX_i) / n;
+        return m2 / n;
     }
 
     /**
-     * Computes the variance of each attribute in a dataset.
+     * Computes the variance of each attribute in a dataset in one pass.
      *
      * @param dataset given dataset
      * @return a new array containing the variance
+     * @see ColumnMoments
      */
     public static double[] var(DataSet dataset) {
-        int dimension = dataset.dimensionality();
-        double[] variance = new double[dimension];
-        for (int i = 0; i < dimension; i++) {
-            variance[i] = var(dataset, i);
+        return ColumnMoments.of(dataset).variance();
+    }
+
+    /**
+     * Computes the weighted variance of each attribute in a dataset in one pass.
+     *
+     * @param dataset given dataset
+     * @param weights the weight of each instance
+     * @return a new array containing the weighted variance
+     * @throws IllegalArgumentException if the length of weights != the size of dataset
+     * @see ColumnMoments
+     */
+    public static double[] var(DataSet dataset, double[] weights) {
+        checkWeights(dataset, weights);
+        return ColumnMoments.of(dataset, weights, false).variance();
+    }
+
+    /**
+     * Computes the variance of each attribute in one pass over a source, with memory bounded by one chunk.
+     *
+     * @param source given source
+     * @return a new array containing the variance, NaN if the source is empty
+     * @throws IOException if an I/O error occurs
+     */
+    public static double[] var(DataSource source) throws IOException {
+        ColumnMoments moments = new ColumnMoments(source.dimensionality());
+        DataChunk chunk = source.newChunk();
+        try (DataSource.ChunkReader reader = source.open()) {
+            while (reader.next(chunk)) {
+                for (int r = 0; r < chunk.size(); r++) {
+                    moments.add(chunk, r, 1.0);
+                }
+            }
+        }
+        return moments.variance();
+    }
+
+    /**
+     * Returns the weighted distribution of a specified attribute in one pass over a source.
+     * Only the distribution itself is held in memory besides one chunk.
+     *
+     * @param source given source
+     * @param index [0, dimensionality-1]: the index of the specified attribute or -1: the index of class
+     * @return a sorted <tt>TreeMap</tt>, key is the unique value of the attribute, value is the weighted number
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if given index is less than -1
+     * @see #columnDistMap(DataSet, int)
+     */
+    public static TreeMap<Double, Double> columnDistMap(DataSource source, int index) throws IOException {
+        if (index < -1) {
+            throw new IllegalArgumentException("Given index must be greater than -1.");
+        }
+        DoubleDoubleHashMap sums = new DoubleDoubleHashMap();
+        DataChunk chunk = source.newChunk();
+        try (DataSource.ChunkReader reader = source.open()) {
+            while (reader.next(chunk)) {
+                for (int r = 0; r < chunk.size(); r++) {
+                    double value = index == -1 ? chunk.classValue(r) : chunk.value(r, index);
+                    sums.addTo(value, chunk.weight(r));
+                }
+            }
+        }
+        TreeMap<Double, Double> distribution = new TreeMap<>();
+        sums.forEach(distribution::put);
+        return distribution;
+    }
+
+    /**
+     * Returns the weighted conditional distribution of a specified attribute in one pass over a source.
+     * As {@link #colConDistMap(DataSet, int, int)}, each conditional distribution contains all values of the target,
+     * values never seen together with a condition have weight 0.
+     *
+     * @param source given source
+     * @param conIndex the index of conditional attribute: [-1, dimensionality-1]
+     * @param distIndex the index of target attribute: [-1, dimensionality-1]
+     * @return {@code TreeMap<Double, TreeMap<Double, Double>}
+     * @throws IOException if an I/O error occurs
+     */
+    public static TreeMap<Double, TreeMap<Double, Double>> colConDistMap(DataSource source, int conIndex, int distIndex) throws IOException {
+        if (conIndex < -1 || distIndex < -1) {
+            throw new IllegalArgumentException("Given index must be greater than -1.");
+        }
+        if (conIndex == distIndex) {
+            throw new IllegalArgumentException("conIndex can't equal distIndex");
+        }
+        ContingencyTable.Builder builder = new ContingencyTable.Builder();
+        DataChunk chunk = source.newChunk();
+        try (DataSource.ChunkReader reader = source.open()) {
+            while (reader.next(chunk)) {
+                for (int r = 0; r < chunk.size(); r++) {
+                    double conValue = conIndex == -1 ? chunk.classValue(r) : chunk.value(r, conIndex);
+                    double distValue = distIndex == -1 ? chunk.classValue(r) : chunk.value(r, distIndex);
+                    builder.add(conValue, distValue, chunk.weight(r));
+                }
+            }
         }
-        return variance;
+        return builder.build().toMap();
     }
-}
\ No newline at end of file
+}
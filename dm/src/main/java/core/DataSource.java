@@ -0,0 +1,121 @@
+package main.java.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A source of rows that is read in chunks instead of being held in memory like a {@link DataSet}.
+ * A source can be opened any number of times, each {@link ChunkReader} makes one pass over all rows in the same order.
+ * <p>
+ * Estimators which only need sufficient statistics (counts, sums, moments) can be fitted from a source
+ * with memory bounded by one {@link DataChunk}, e.g. {@link DataSets#var(DataSource)}.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see DataChunk
+ * @see main.java.utils.io.CsvDataSource
+ */
+public interface DataSource {
+
+    /**
+     * The default number of rows of a chunk.
+     */
+    int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * Returns all attributes' information.
+     * The encoding maps of categorical attributes must be complete before any pass.
+     *
+     * @return the {@link AttributeInfo} List of all attributes
+     */
+    List<AttributeInfo> attributeInfoList();
+
+    /**
+     * Returns the class information.
+     *
+     * @return the {@link AttributeInfo} of class, null if the rows are unlabeled
+     */
+    AttributeInfo classInfo();
+
+    /**
+     * Returns the number of attributes of each row.
+     *
+     * @return the number of attributes
+     */
+    default int dimensionality() {
+        return this.attributeInfoList().size();
+    }
+
+    /**
+     * Starts a new pass over all rows.
+     *
+     * @return a new reader positioned before the first row
+     * @throws IOException if an I/O error occurs
+     */
+    ChunkReader open() throws IOException;
+
+    /**
+     * Returns a chunk of {@link #DEFAULT_CHUNK_SIZE} rows fitting this source.
+     *
+     * @return a new empty chunk
+     */
+    default DataChunk newChunk() {
+        return new DataChunk(this.dimensionality(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns a source over the instances of a data set, mainly to fit a data set in memory by the same code.
+     *
+     * @param dataset the data set to read
+     * @return a new source
+     */
+    static DataSource of(DataSet dataset) {
+        return new DataSource() {
+            @Override
+            public List<AttributeInfo> attributeInfoList() {
+                return dataset.attributeInfoList();
+            }
+
+            @Override
+            public AttributeInfo classInfo() {
+                return dataset.classInfo();
+            }
+
+            @Override
+            public ChunkReader open() {
+                return new ChunkReader() {
+                    private int cursor = 0;
+
+                    @Override
+                    public boolean next(DataChunk chunk) {
+                        chunk.clear();
+                        while (cursor < dataset.size() && !chunk.isFull()) {
+                            chunk.add(dataset.instance(cursor++));
+                        }
+                        return chunk.size() > 0;
+                    }
+
+                    @Override
+                    public void close() {}
+                };
+            }
+        };
+    }
+
+    /**
+     * One pass over the rows of a {@link DataSource}.
+     */
+    interface ChunkReader extends Closeable {
+
+        /**
+         * Clears given chunk and fills it with the next rows, as many as its capacity or the remaining rows.
+         *
+         * @param chunk the chunk to be filled
+         * @return true if at least one row is read, false if the pass is over
+         * @throws IOException if an I/O error occurs
+         */
+        boolean next(DataChunk chunk) throws IOException;
+    }
+}
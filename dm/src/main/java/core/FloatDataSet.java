@@ -0,0 +1,340 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.*;
+
+/**
+ * The class is a single-precision implementation of {@link DataSet}.
+ * All attribute values are stored as {@code float} in one row-major array,
+ * so each row is contiguous and a distance computation streams half the bytes of a {@link DenseInstance}.
+ * Class values and weights are still stored as {@code double}.
+ * <p>
+ * Instances returned by {@link #instance(int)} and by the iterator are {@link FloatInstance} views
+ * sharing the array, changes of their class value and weight write through to this data set.
+ * Instances added to this data set are narrowed to {@code float} and copied.
+ * Views created before an {@code add} may not see later changes of class values and weights.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see FloatInstance
+ */
+public class FloatDataSet extends AbstractColumnDataSet {
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The attribute values: the value of attribute j in row i is {@code data[i * dimensionality + j]}.
+     */
+    protected float[] data;
+
+    /**
+     * The class value of each row.
+     */
+    protected double[] classValues;
+
+    /**
+     * The weight of each row.
+     */
+    protected double[] weights;
+
+    /**
+     * The number of rows.
+     */
+    protected int size;
+
+    /**
+     * Creates an unsafe empty data set with nothing to do.
+     * This method is protected.
+     */
+    protected FloatDataSet() {}
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     */
+    public FloatDataSet(AttributeInfo[] attributeInfoArray) {
+        this(Arrays.asList(attributeInfoArray), null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public FloatDataSet(AttributeInfo[] attributeInfoArray, AttributeInfo classInfo) {
+        this(Arrays.asList(attributeInfoArray), classInfo, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public FloatDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) {
+        this(attributeInfoList, classInfo, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list, the {@link AttributeInfo} of class
+     * and the initial number of rows it can hold.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information
+     * @param initialCapacity the initial number of rows
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public FloatDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo, int initialCapacity) {
+        super(attributeInfoList, classInfo);
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.data = new float[Math.multiplyExact(initialCapacity, this.dimensionality)];
+        this.classValues = new double[initialCapacity];
+        this.weights = new double[initialCapacity];
+    }
+
+    /**
+     * Creates a new data set holding the values of given data set narrowed to {@code float}.
+     *
+     * @param src the source data set
+     */
+    public FloatDataSet(DataSet src) {
+        this(src.attributeInfoList(), src.classInfo(), src.size());
+        for (Instance instance: src) {
+            this.append(instance);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public final double value(int row, int attrIndex) {
+        return this.data[row * this.dimensionality + attrIndex];
+    }
+
+    @Override
+    public final double classValue(int row) {
+        return this.classValues[row];
+    }
+
+    @Override
+    public void setClassValue(int row, double value) {
+        this.classValues[row] = value;
+        this.classSet = null;
+    }
+
+    @Override
+    public final double weight(int row) {
+        return this.weights[row];
+    }
+
+    @Override
+    public void setWeight(int row, double weight) {
+        this.weights[row] = weight;
+    }
+
+    /**
+     * Returns a {@link FloatInstance} view of the row at the given position.
+     * Changes of the view's class value and weight write through to this data set.
+     *
+     * @param index the instance's index (index starts with 0)
+     * @return a view of the row at the given position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public FloatInstance instance(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return new FloatRow(this, index);
+    }
+
+    @Override
+    public void add(Instance instance) {
+        this.check(instance);
+        this.append(instance);
+        this.resetSortedSet();
+    }
+
+    @Override
+    public void addAll(Collection<? extends Instance> instances) {
+        for (Instance instance: instances) {
+            this.check(instance);
+        }
+        this.ensureCapacity(this.size + instances.size());
+        for (Instance instance: instances) {
+            this.append(instance);
+        }
+        this.resetSortedSet();
+    }
+
+    /**
+     * Copies the values of given instance into the end of the array.
+     *
+     * @param instance the instance to be appended
+     */
+    private void append(Instance instance) {
+        this.ensureCapacity(this.size + 1);
+        int base = this.size * this.dimensionality;
+        if (instance instanceof FloatInstance) {
+            FloatInstance floats = (FloatInstance) instance;
+            for (int j = 0; j < this.dimensionality; j++) {
+                this.data[base + j] = floats.floatAttribute(j);
+            }
+        } else {
+            for (int j = 0; j < this.dimensionality; j++) {
+                this.data[base + j] = (float) instance.attribute(j);
+            }
+        }
+        this.classValues[this.size] = instance.classValue();
+        this.weights[this.size] = instance.getWeight();
+        this.size++;
+    }
+
+    /**
+     * Increases the capacity, if necessary,
+     * to ensure that it can hold at least the number of rows specified by the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        int oldCapacity = this.weights.length;
+        if (minCapacity - oldCapacity <= 0) {
+            return;
+        }
+        // overflow-conscious code
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        int maxRows = this.dimensionality == 0 ? MAX_ARRAY_SIZE : MAX_ARRAY_SIZE / this.dimensionality;
+        if (newCapacity - maxRows > 0) {
+            if (minCapacity < 0 || minCapacity > maxRows) // overflow
+                throw new OutOfMemoryError();
+            newCapacity = maxRows;
+        }
+        this.resize(newCapacity);
+    }
+
+    /**
+     * Trims the capacity to be the data set's current size.
+     */
+    public void trimToSize() {
+        if (this.weights.length != this.size) {
+            this.resize(this.size);
+        }
+    }
+
+    private void resize(int capacity) {
+        this.data = Arrays.copyOf(this.data, capacity * this.dimensionality);
+        this.classValues = Arrays.copyOf(this.classValues, capacity);
+        this.weights = Arrays.copyOf(this.weights, capacity);
+    }
+
+    /**
+     * Returns a deep copy of this data set.
+     * The arrays are copied, but the {@link AttributeInfo}s are just shallowly copied.
+     *
+     * @return a deep copy of this data set
+     */
+    @Override
+    public FloatDataSet copy() {
+        FloatDataSet res = new FloatDataSet();
+        res.classInfo = this.classInfo;
+        res.attributeInfoList = this.attributeInfoList;
+        res.dimensionality = this.dimensionality;
+        res.classSet = this.classSet;
+        res.attrValueSets = this.attrValueSets.clone();
+        res.data = Arrays.copyOf(this.data, this.size * this.dimensionality);
+        res.classValues = Arrays.copyOf(this.classValues, this.size);
+        res.weights = Arrays.copyOf(this.weights, this.size);
+        res.size = this.size;
+        return res;
+    }
+
+    @Override
+    public Iterator<Instance> iterator() {
+        return new Iterator<Instance>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public Instance next() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                return new FloatRow(FloatDataSet.this, cursor++);
+            }
+        };
+    }
+
+    /**
+     * A view of one row sharing the array,
+     * whose class value and weight are read from (and written to) the data set.
+     */
+    private static final class FloatRow extends FloatInstance {
+
+        private final FloatDataSet owner;
+
+        private final int row;
+
+        FloatRow(FloatDataSet owner, int row) {
+            super(owner.data, row * owner.dimensionality, owner.dimensionality);
+            this.owner = owner;
+            this.row = row;
+            this.dataset = owner;
+        }
+
+        @Override
+        public double getWeight() {
+            return this.owner.weights[this.row];
+        }
+
+        @Override
+        public void setWeight(double weight) {
+            this.owner.setWeight(this.row, weight);
+        }
+
+        @Override
+        public double classValue() {
+            return this.owner.classValues[this.row];
+        }
+
+        @Override
+        public void setClassValue(double value) {
+            this.owner.setClassValue(this.row, value);
+        }
+
+        /**
+         * A view is always bound to the data set holding its values,
+         * so this method only checks the dimensionality of the given data set.
+         */
+        @Override
+        public void setDataSet(DataSet dataset) {
+            if (dataset.dimensionality() != this.dimensionality) {
+                String msg = "The data set has " + dataset.dimensionality() +
+                        " attributes, but the instance has " + this.dimensionality + " attributes.";
+                throw new DimensionNotMatchedException(msg);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of a single-precision instance. The attribute values are stored as {@code float}
+ * and widened to {@code double} by {@link #attribute(int)}, which halves the memory of {@link DenseInstance}.
+ * It suits features with at most 7 significant digits.
+ * <p>
+ * The values can be a slice [offset, offset+dimensionality) of a larger array,
+ * so that the rows of a {@link FloatDataSet} share its storage without copying.
+ * Distance metrics read the backing array directly when either instance is a float instance.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see Instance
+ * @see FloatDataSet
+ */
+public class FloatInstance implements Instance {
+
+    /**
+     * The array holding the attribute values.
+     */
+    protected float[] attributes;
+
+    /**
+     * The position of the first attribute value in the array.
+     */
+    protected int offset;
+
+    /**
+     * The number of attributes.
+     */
+    protected int dimensionality;
+
+    /**
+     * The instance's class. Double.NaN if the class is not set.
+     */
+    protected double classValue = DenseInstance.NO_LABEL;
+
+    /**
+     * The instance's weight whose default value is 1.0.
+     */
+    protected double weight = DenseInstance.DEFAULT_WEIGHT;
+
+    /**
+     * The dataset that the instance has access to.
+     * Null if the instance doesn't have access to any dataset.
+     */
+    protected DataSet dataset;
+
+    /**
+     * Creates an instance over the slice [offset, offset+dimensionality) of the given array without any check.
+     * This method is protected.
+     *
+     * @param attributes the array holding the attribute values
+     * @param offset the position of the first attribute value
+     * @param dimensionality the number of attributes
+     */
+    protected FloatInstance(float[] attributes, int offset, int dimensionality) {
+        this.attributes = attributes;
+        this.offset = offset;
+        this.dimensionality = dimensionality;
+    }
+
+    /**
+     * Creates a new labeled and weighted instance with the provided attribute values, class label and weight.
+     *
+     * @param attributeValues the provided attribute values
+     * @param classValue the provided class label
+     * @param weight the instance's weight
+     */
+    public FloatInstance(float[] attributeValues, double classValue, double weight) {
+        this(attributeValues, 0, attributeValues.length);
+        this.classValue = classValue;
+        this.weight = weight;
+    }
+
+    /**
+     * Creates a new labeled instance with the provided attribute values and class label.
+     *
+     * @param attributeValues the provided attribute values
+     * @param classValue the provided class label
+     */
+    public FloatInstance(float[] attributeValues, double classValue) {
+        this(attributeValues, classValue, DenseInstance.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Creates a new unlabeled instance with the provided attribute values.
+     * The new instance's class value is {@code Double.NaN}, weight is 1.0.
+     *
+     * @param attributeValues the provided attribute values
+     */
+    public FloatInstance(float[] attributeValues) {
+        this(attributeValues, DenseInstance.NO_LABEL, DenseInstance.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Creates a float instance holding the values of the given instance narrowed to {@code float},
+     * with the same class value and weight.
+     *
+     * @param instance the source instance
+     * @return a new float instance
+     */
+    public static FloatInstance valueOf(Instance instance) {
+        float[] attributes = new float[instance.dimensionality()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = (float) instance.attribute(i);
+        }
+        return new FloatInstance(attributes, instance.classValue(), instance.getWeight());
+    }
+
+    @Override
+    public double getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean isLabeled() {
+        return !Double.isNaN(this.classValue());
+    }
+
+    @Override
+    public double classValue() {
+        return this.classValue;
+    }
+
+    @Override
+    public void setClassValue(double value) {
+        this.classValue = value;
+    }
+
+    @Override
+    public void setDataSet(DataSet dataset) {
+        if (dataset.dimensionality() != this.dimensionality) {
+            String msg = "The data set has " + dataset.dimensionality() +
+                    " attributes, but the instance has " + this.dimensionality + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+        this.dataset = dataset;
+    }
+
+    @Override
+    public final int dimensionality() {
+        return this.dimensionality;
+    }
+
+    @Override
+    public final double attribute(int index) {
+        return this.attributes[this.offset + index];
+    }
+
+    /**
+     * Returns the value of this instance's attribute with given index without widening.
+     *
+     * @param index the attribute's index
+     * @return the attribute's value
+     */
+    public final float floatAttribute(int index) {
+        return this.attributes[this.offset + index];
+    }
+
+    /**
+     * Returns the array holding the attribute values, not a copy.
+     * The attribute at index i is at position {@link #offset()} + i of the array.
+     *
+     * @return the array holding the attribute values
+     */
+    public final float[] floatArray() {
+        return this.attributes;
+    }
+
+    /**
+     * Returns the position of the first attribute value in {@link #floatArray()}.
+     *
+     * @return the position of the first attribute value
+     */
+    public final int offset() {
+        return this.offset;
+    }
+
+    /**
+     * Returns a new float instance without the attribute at given position.
+     * The class value and weight are kept.
+     *
+     * @param index the index of attribute to be removed
+     * @return a new float instance
+     */
+    @Override
+    public FloatInstance deleteAttribute(int index) {
+        float[] current = new float[this.dimensionality - 1];
+        System.arraycopy(this.attributes, this.offset, current, 0, index);
+        System.arraycopy(this.attributes, this.offset + index + 1, current, index, this.dimensionality - index - 1);
+        return new FloatInstance(current, this.classValue(), this.getWeight());
+    }
+
+    /**
+     * Returns a shallow copy of this instance sharing the attribute array.
+     * But the data set it has access to is null.
+     *
+     * @return a shallow copy of this instance
+     */
+    @Override
+    public FloatInstance copy() {
+        FloatInstance res = new FloatInstance(this.attributes, this.offset, this.dimensionality);
+        res.classValue = this.classValue();
+        res.weight = this.getWeight();
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        String attributes = Arrays.toString(Arrays.copyOfRange(this.attributes, this.offset, this.offset + this.dimensionality));
+        if (this.isLabeled()) {
+            return attributes + ";" + this.classValue();
+        } else {
+            return attributes;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package main.java.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * The class is a read-only implementation of {@link DataSet} whose columns live off-heap in a memory-mapped file.
+ * Only the mapping information is held on heap, so a data set larger than the heap can be fitted,
+ * and several processes mapping the same file share its pages through the page cache.
+ * <p>
+ * The column block starts at a given position of the file and is laid out as follows (little-endian):
+ * the class column, the weight column, then each attribute column,
+ * every column holding {@code size} doubles.
+ * Columns are mapped in segments of at most {@value #SEGMENT_SIZE} doubles,
+ * because a single mapping can't exceed 2 GB.
+ * </p>
+ * <p>
+ * Weights can still be set (as {@link main.java.preprocessing.weight.ClassWeightUtil} does before fitting):
+ * the first {@link #setWeight(int, double)} copies the weight column to heap,
+ * so the mapped file itself is never modified.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see ColumnarDataSet
+ */
+public class MappedDataSet extends AbstractColumnDataSet {
+
+    /**
+     * The magic number at the start of a column file: "JDMC".
+     */
+    public static final int MAGIC = 0x4A444D43;
+
+    /**
+     * The version of the column file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The length of the header of a column file in bytes.
+     */
+    public static final int HEADER_LENGTH = 16;
+
+    /**
+     * The maximum number of doubles in one mapped segment: 2^27 doubles (1 GB).
+     */
+    public static final int SEGMENT_SIZE = 1 << 27;
+
+    private static final int SEGMENT_SHIFT = 27;
+
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * The number of rows.
+     */
+    protected int size;
+
+    /**
+     * The mapped attribute columns: columns[attrIndex][segment].
+     */
+    protected DoubleBuffer[][] columns;
+
+    /**
+     * The mapped class column.
+     */
+    protected DoubleBuffer[] classColumn;
+
+    /**
+     * The mapped weight column.
+     */
+    protected DoubleBuffer[] weightColumn;
+
+    /**
+     * The weights on heap, null until a weight is set.
+     */
+    protected double[] weights;
+
+    /**
+     * Creates an unsafe empty data set with nothing to do.
+     * This method is protected.
+     */
+    protected MappedDataSet() {}
+
+    /**
+     * Maps the column block starting at the given position of the channel.
+     * The channel can be closed once this constructor returns, the mapping stays valid.
+     *
+     * @param channel a channel opened for reading
+     * @param position the position of the column block in the file
+     * @param size the number of rows
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information, null if unlabeled
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedDataSet(FileChannel channel, long position, int size,
+                         List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) throws IOException {
+        super(attributeInfoList, classInfo);
+        this.size = size;
+        long columnLength = (long) size * Double.BYTES;
+        if (position + columnLength * (this.dimensionality + 2) > channel.size()) {
+            throw new IOException("The file is too short: expected " + size + " rows of "
+                    + (this.dimensionality + 2) + " columns.");
+        }
+        this.classColumn = map(channel, position, size);
+        this.weightColumn = map(channel, position + columnLength, size);
+        this.columns = new DoubleBuffer[this.dimensionality][];
+        for (int j = 0; j < this.dimensionality; j++) {
+            this.columns[j] = map(channel, position + columnLength * (j + 2), size);
+        }
+    }
+
+    /**
+     * Maps a column of the given length in segments.
+     */
+    private static DoubleBuffer[] map(FileChannel channel, long position, int length) throws IOException {
+        int nSegments = (int) (((long) length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        DoubleBuffer[] segments = new DoubleBuffer[nSegments];
+        for (int s = 0; s < nSegments; s++) {
+            int segmentLength = Math.min(SEGMENT_SIZE, length - (s << SEGMENT_SHIFT));
+            long segmentPosition = position + ((long) s << SEGMENT_SHIFT) * Double.BYTES;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, segmentPosition, (long) segmentLength * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+        }
+        return segments;
+    }
+
+    /**
+     * Opens a column file written by {@link #write(DataSet, File)}.
+     *
+     * @param file the column file
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information, null if unlabeled
+     * @return a data set mapping the file
+     * @throws IOException if an I/O error occurs or the file is not a column file
+     */
+    public static MappedDataSet open(File file, List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Unexpected end of file: " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a column file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported column file version: " + version);
+            }
+            int size = header.getInt();
+            int dimension = header.getInt();
+            if (dimension != attributeInfoList.size()) {
+                throw new IOException("The file has " + dimension +
+                        " attributes, but " + attributeInfoList.size() + " attributes are given.");
+            }
+            return new MappedDataSet(channel, HEADER_LENGTH, size, attributeInfoList, classInfo);
+        }
+    }
+
+    /**
+     * Writes the columns of given data set to a column file which can be opened by
+     * {@link #open(File, List, AttributeInfo)}.
+     *
+     * @param dataset the data set to write
+     * @param file the target file
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(DataSet dataset, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dataset.size()).putInt(dataset.dimensionality());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            writeColumns(dataset, channel);
+        }
+    }
+
+    /**
+     * Writes the column block of given data set to the channel:
+     * the class column, the weight column, then each attribute column.
+     *
+     * @param dataset the data set to write
+     * @param channel the target channel
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeColumns(DataSet dataset, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int j = -2; j < dataset.dimensionality(); j++) {
+            for (Instance instance: dataset) {
+                if (!buffer.hasRemaining()) {
+                    flush(buffer, channel);
+                }
+                if (j == -2) {
+                    buffer.putDouble(instance.classValue());
+                } else if (j == -1) {
+                    buffer.putDouble(instance.getWeight());
+                } else {
+                    buffer.putDouble(instance.attribute(j));
+                }
+            }
+        }
+        flush(buffer, channel);
+    }
+
+    private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public final double value(int row, int attrIndex) {
+        return this.columns[attrIndex][row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+    }
+
+    @Override
+    public final double classValue(int row) {
+        return this.classColumn[row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+    }
+
+    /**
+     * The mapped file is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setClassValue(int row, double value) {
+        throw new UnsupportedOperationException("MappedDataSet is read-only.");
+    }
+
+    @Override
+    public final double weight(int row) {
+        if (this.weights != null) {
+            return this.weights[row];
+        }
+        return this.weightColumn[row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+    }
+
+    /**
+     * Sets the weight of the specified row.
+     * The first call copies the weight column to heap, the mapped file is not modified.
+     *
+     * @param row the instance's index
+     * @param weight the new weight
+     */
+    @Override
+    public void setWeight(int row, double weight) {
+        if (this.weights == null) {
+            double[] weights = new double[this.size];
+            for (int i = 0; i < this.size; i++) {
+                weights[i] = this.weightColumn[i >>> SEGMENT_SHIFT].get(i & SEGMENT_MASK);
+            }
+            this.weights = weights;
+        }
+        this.weights[row] = weight;
+    }
+
+    /**
+     * The mapped file is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(Instance instance) {
+        throw new UnsupportedOperationException("MappedDataSet is read-only.");
+    }
+
+    /**
+     * The mapped file is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addAll(Collection<? extends Instance> instances) {
+        throw new UnsupportedOperationException("MappedDataSet is read-only.");
+    }
+
+    /**
+     * Returns a copy of this data set sharing the same mapping.
+     * Only the weights set on heap are copied.
+     *
+     * @return a copy of this data set
+     */
+    @Override
+    public MappedDataSet copy() {
+        MappedDataSet res = new MappedDataSet();
+        res.classInfo = this.classInfo;
+        res.attributeInfoList = this.attributeInfoList;
+        res.dimensionality = this.dimensionality;
+        res.classSet = this.classSet;
+        res.attrValueSets = this.attrValueSets.clone();
+        res.size = this.size;
+        res.columns = this.columns;
+        res.classColumn = this.classColumn;
+        res.weightColumn = this.weightColumn;
+        res.weights = this.weights == null ? null : this.weights.clone();
+        return res;
+    }
+}
@@ -1,7 +1,7 @@
 package main.java.core;
 
 import main.java.core.exception.DimensionNotMatchedException;
-import main.java.preprocessing.encoding.LabelEncoder;
+import main.java.preprocessing.encoding.DictionaryEncoder;
 
 import java.util.List;
 
@@ -66,6 +66,7 @@ public class RawDataSet {
 
     /**
      * Converts this raw data set to {@link StandardDataSet}.
+     * The data is only read sequentially, and the value array of each row becomes the array of its instance.
      *
      * @return a standard data set
      * @throws NumberFormatException if the string of a numeric attribute value does not have the appropriate format
@@ -74,57 +75,54 @@ public class RawDataSet {
         StandardDataSet res = new StandardDataSet(this.attributeInfoArray, this.classInfo);
         int dimension = this.attributeInfoArray.length;
         int instanceNum = this.data.size();
-        double[][] attributes = new double[instanceNum][dimension];
+        double[][] attributes = new double[instanceNum][dimension]; // 每行直接作为实例的属性数组，无需再复制
         for (int j = 0; j < dimension; j++) {
-            if (attributeInfoArray[j].type == AttributeInfo.NUMERIC) {
-                for (int i = 0; i < instanceNum; i++) {
-                    attributes[i][j] = Double.parseDouble(data.get(i)[j]);
-                }
-            } else { // categorical
-                LabelEncoder<String> encoder = new LabelEncoder<>();
-                String[] values = new String[instanceNum];
-                for (int i = 0; i < instanceNum; i++) {
-                    values[i] = data.get(i)[j];
-                }
-                double[] encodings = encoder.fitTransform(values);
-                for (int i = 0; i < instanceNum; i++) {
-                    attributes[i][j] = encodings[i];
-                }
-                // categorical属性需要存储映射
-                this.attributeInfoArray[j].encodingMap = encoder.getEncodingMap();
+            double[] column = this.encodeColumn(j, this.attributeInfoArray[j]);
+            for (int i = 0; i < instanceNum; i++) {
+                attributes[i][j] = column[i];
             }
         }
         if (this.classInfo != null) { // labeled
-            double[] classValues;
-            if (this.classInfo.type == AttributeInfo.NUMERIC) {
-                classValues = new double[instanceNum];
-                for (int i = 0; i < instanceNum; i++) {
-                    classValues[i] = Double.parseDouble(data.get(i)[dimension]);
-                }
-            } else { // categorical
-                LabelEncoder<String> encoder = new LabelEncoder<>();
-                String[] classes = new String[instanceNum];
-                for (int i = 0; i < instanceNum; i++) {
-                   classes[i] = data.get(i)[dimension];
-                }
-                classValues = encoder.fitTransform(classes);
-                // categorical属性需要存储映射
-                classInfo.encodingMap = encoder.getEncodingMap();
-            }
+            double[] classValues = this.encodeColumn(dimension, this.classInfo);
             for (int i = 0; i < instanceNum; i++) {
-                double[] attributeValues = new double[dimension];
-                System.arraycopy(attributes[i], 0, attributeValues, 0, dimension);
-                DenseInstance instance = new DenseInstance(attributeValues, classValues[i]);
-                res.add(instance);
+                res.add(new DenseInstance(attributes[i], classValues[i]));
             }
         } else { // unlabeled
             for (int i = 0; i < instanceNum; i++) {
-                double[] attributeValues = new double[dimension];
-                System.arraycopy(attributes[i], 0, attributeValues, 0, dimension);
-                DenseInstance instance = new DenseInstance(attributeValues);
-                res.add(instance);
+                res.add(new DenseInstance(attributes[i]));
             }
         }
         return res;
     }
+
+    /**
+     * Parses or encodes one column of the data, storing the encoding map if it is categorical.
+     * The data is iterated rather than indexed, as it is often a {@link java.util.LinkedList}.
+     *
+     * @param index the index of the column in each row
+     * @param info the information of the column
+     * @return the value of each row
+     */
+    private double[] encodeColumn(int index, AttributeInfo info) {
+        int instanceNum = this.data.size();
+        if (info.type == AttributeInfo.NUMERIC) {
+            double[] res = new double[instanceNum];
+            int i = 0;
+            for (String[] row: this.data) {
+                res[i++] = Double.parseDouble(row[index]);
+            }
+            return res;
+        } else { // categorical
+            String[] values = new String[instanceNum];
+            int i = 0;
+            for (String[] row: this.data) {
+                values[i++] = row[index];
+            }
+            double[] res = new double[instanceNum];
+            DictionaryEncoder encoder = new DictionaryEncoder();
+            encoder.fitTransform(values, res, instanceNum >= 2 * DictionaryEncoder.BLOCK_SIZE);
+            info.encodingMap = encoder.getEncodingMap(); // categorical属性需要存储映射
+            return res;
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+/**
+ * A lightweight view of one row of an {@link AbstractColumnDataSet}.
+ * The view holds nothing but the data set and the row index,
+ * all values are read from (and written to) the columns of the data set.
+ *
+ * @author Cloudy1225
+ * @see AbstractColumnDataSet
+ * @see Instance
+ */
+public final class RowInstance implements Instance {
+
+    /**
+     * The data set holding the values of this row.
+     */
+    private final AbstractColumnDataSet dataset;
+
+    /**
+     * The index of this row in the data set.
+     */
+    private final int row;
+
+    /**
+     * Creates a view of the row at the given position of the given data set.
+     *
+     * @param dataset the data set holding the values
+     * @param row the row's index
+     */
+    RowInstance(AbstractColumnDataSet dataset, int row) {
+        this.dataset = dataset;
+        this.row = row;
+    }
+
+    /**
+     * Returns the index of this row in its data set.
+     *
+     * @return the row's index
+     */
+    public int row() {
+        return this.row;
+    }
+
+    @Override
+    public double getWeight() {
+        return this.dataset.weight(this.row);
+    }
+
+    @Override
+    public void setWeight(double weight) {
+        this.dataset.setWeight(this.row, weight);
+    }
+
+    @Override
+    public boolean isLabeled() {
+        return !Double.isNaN(this.dataset.classValue(this.row));
+    }
+
+    @Override
+    public double classValue() {
+        return this.dataset.classValue(this.row);
+    }
+
+    @Override
+    public void setClassValue(double value) {
+        this.dataset.setClassValue(this.row, value);
+    }
+
+    /**
+     * A view is always bound to the data set holding its values,
+     * so this method only checks the dimensionality of the given data set.
+     *
+     * @param dataset the reference to the dataset
+     * @throws DimensionNotMatchedException if the dataset's dimensionality is different from this instance's
+     */
+    @Override
+    public void setDataSet(DataSet dataset) {
+        if (dataset.dimensionality() != this.dimensionality()) {
+            String msg = "The data set has " + dataset.dimensionality() +
+                    " attributes, but the instance has " + this.dimensionality() + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+    }
+
+    @Override
+    public int dimensionality() {
+        return this.dataset.dimensionality;
+    }
+
+    @Override
+    public double attribute(int index) {
+        return this.dataset.value(this.row, index);
+    }
+
+    @Override
+    public DenseInstance deleteAttribute(int index) {
+        int dimension = this.dimensionality();
+        double[] current = new double[dimension - 1];
+        for (int i = 0; i < index; i++) {
+            current[i] = this.attribute(i);
+        }
+        for (int i = index + 1; i < dimension; i++) {
+            current[i - 1] = this.attribute(i);
+        }
+        return new DenseInstance(current, this.classValue(), this.getWeight());
+    }
+
+    /**
+     * Returns a detached {@link DenseInstance} holding a copy of this row's values.
+     *
+     * @return a copy of this row
+     */
+    @Override
+    public DenseInstance copy() {
+        double[] attributes = new double[this.dimensionality()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = this.attribute(i);
+        }
+        return new DenseInstance(attributes, this.classValue(), this.getWeight());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof RowInstance)) {
+            return false;
+        }
+        RowInstance another = (RowInstance) o;
+        return this.dataset == another.dataset && this.row == another.row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(this.dataset) + this.row;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        int dimension = this.dimensionality();
+        for (int i = 0; i < dimension; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(this.attribute(i));
+        }
+        sb.append(']');
+        if (this.isLabeled()) {
+            sb.append(';').append(this.classValue());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,453 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.*;
+
+/**
+ * The class is a sparse implementation of {@link DataSet} in CSR (compressed sparse row) format.
+ * Only non-zero values are stored: the non-zeros of row i are
+ * {@code indices[indptr[i] .. indptr[i+1]-1]} and {@code data[indptr[i] .. indptr[i+1]-1]},
+ * class values and weights are stored as primitive arrays.
+ * <p>
+ * Instances returned by {@link #instance(int)} and by the iterator are {@link SparseInstance} views
+ * sharing the CSR arrays, changes of their class value and weight write through to this data set.
+ * Instances added to this data set are copied, zeros are dropped.
+ * Views created before an {@code add} may not see later changes of class values and weights.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSet
+ * @see SparseInstance
+ */
+public class SparseDataSet extends AbstractColumnDataSet {
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The start of each row's non-zeros, indptr[size] is the number of non-zeros.
+     */
+    protected int[] indptr;
+
+    /**
+     * The attribute index of each non-zero value.
+     */
+    protected int[] indices;
+
+    /**
+     * The non-zero values.
+     */
+    protected double[] data;
+
+    /**
+     * The class value of each row.
+     */
+    protected double[] classValues;
+
+    /**
+     * The weight of each row.
+     */
+    protected double[] weights;
+
+    /**
+     * The number of rows.
+     */
+    protected int size;
+
+    /**
+     * Creates an unsafe empty data set with nothing to do.
+     * This method is protected.
+     */
+    protected SparseDataSet() {}
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     */
+    public SparseDataSet(AttributeInfo[] attributeInfoArray) {
+        this(Arrays.asList(attributeInfoArray), null);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} array and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoArray an array contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public SparseDataSet(AttributeInfo[] attributeInfoArray, AttributeInfo classInfo) {
+        this(Arrays.asList(attributeInfoArray), classInfo);
+    }
+
+    /**
+     * Creates a new data set with given {@link AttributeInfo} list and the {@link AttributeInfo} of class.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information
+     */
+    public SparseDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) {
+        super(attributeInfoList, classInfo);
+        this.indptr = new int[DEFAULT_CAPACITY + 1];
+        this.indices = new int[DEFAULT_CAPACITY];
+        this.data = new double[DEFAULT_CAPACITY];
+        this.classValues = new double[DEFAULT_CAPACITY];
+        this.weights = new double[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a new data set holding the non-zero values of given data set.
+     *
+     * @param src the source data set
+     */
+    public SparseDataSet(DataSet src) {
+        this(src.attributeInfoList(), src.classInfo());
+        this.ensureCapacity(src.size());
+        for (Instance instance: src) {
+            this.append(instance);
+        }
+    }
+
+    /**
+     * Creates a new data set directly over the given CSR arrays.
+     * The arrays are not copied, so they must not be modified by the caller afterwards.
+     *
+     * @param attributeInfoList a list contains each attribute's information.
+     * @param classInfo the class information, null if unlabeled
+     * @param indptr the start of each row's non-zeros, its length is the number of rows plus 1
+     * @param indices the attribute index of each non-zero value, ascending within each row
+     * @param data the non-zero values
+     * @param classValues the class value of each row, null if unlabeled
+     * @param weights the weight of each row, null if all weights are 1.0
+     * @throws IllegalArgumentException if the arrays don't describe a valid CSR matrix
+     */
+    public SparseDataSet(List<AttributeInfo> attributeInfoList, AttributeInfo classInfo,
+                         int[] indptr, int[] indices, double[] data, double[] classValues, double[] weights) {
+        super(attributeInfoList, classInfo);
+        if (indptr.length == 0 || indptr[0] != 0 || indptr[indptr.length-1] > Math.min(indices.length, data.length)) {
+            throw new IllegalArgumentException("Illegal indptr.");
+        }
+        int size = indptr.length - 1;
+        for (int i = 0; i < size; i++) {
+            if (indptr[i] > indptr[i+1]) {
+                throw new IllegalArgumentException("indptr should be non-decreasing.");
+            }
+            for (int k = indptr[i]; k < indptr[i+1]; k++) {
+                if (indices[k] < 0 || indices[k] >= this.dimensionality || (k > indptr[i] && indices[k] <= indices[k-1])) {
+                    throw new IllegalArgumentException("Indices of row " + i +
+                            " should be strictly ascending in [0, " + this.dimensionality + ").");
+                }
+            }
+        }
+        if (classValues == null) {
+            classValues = new double[size];
+            Arrays.fill(classValues, DenseInstance.NO_LABEL);
+        } else if (classValues.length != size) {
+            throw new IllegalArgumentException("classValues.length = " + classValues.length + ", expected " + size);
+        }
+        if (weights == null) {
+            weights = new double[size];
+            Arrays.fill(weights, DenseInstance.DEFAULT_WEIGHT);
+        } else if (weights.length != size) {
+            throw new IllegalArgumentException("weights.length = " + weights.length + ", expected " + size);
+        }
+        this.indptr = indptr;
+        this.indices = indices;
+        this.data = data;
+        this.classValues = classValues;
+        this.weights = weights;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of stored non-zero values.
+     *
+     * @return the number of non-zeros
+     */
+    public int nnz() {
+        return this.indptr[this.size];
+    }
+
+    /**
+     * Returns the value of the attribute at given position of the specified row by binary search.
+     *
+     * @param row the instance's index
+     * @param attrIndex the attribute's index
+     * @return the attribute's value, 0 if it isn't stored
+     */
+    @Override
+    public final double value(int row, int attrIndex) {
+        int k = Arrays.binarySearch(this.indices, this.indptr[row], this.indptr[row+1], attrIndex);
+        return k >= 0 ? this.data[k] : 0;
+    }
+
+    @Override
+    public final double classValue(int row) {
+        return this.classValues[row];
+    }
+
+    @Override
+    public void setClassValue(int row, double value) {
+        this.classValues[row] = value;
+        this.classSet = null;
+    }
+
+    @Override
+    public final double weight(int row) {
+        return this.weights[row];
+    }
+
+    @Override
+    public void setWeight(int row, double weight) {
+        this.weights[row] = weight;
+    }
+
+    /**
+     * Returns a {@link SparseInstance} view of the row at the given position.
+     * Changes of the view's class value and weight write through to this data set.
+     *
+     * @param index the instance's index (index starts with 0)
+     * @return a view of the row at the given position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public SparseInstance instance(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return new SparseRow(this, index);
+    }
+
+    @Override
+    public void add(Instance instance) {
+        this.check(instance);
+        this.append(instance);
+        this.resetSortedSet();
+    }
+
+    @Override
+    public void addAll(Collection<? extends Instance> instances) {
+        for (Instance instance: instances) {
+            this.check(instance);
+        }
+        this.ensureCapacity(this.size + instances.size());
+        for (Instance instance: instances) {
+            this.append(instance);
+        }
+        this.resetSortedSet();
+    }
+
+    /**
+     * Copies the non-zero values of given instance into the end of the CSR arrays.
+     * Only the non-zeros of a {@link SparseInstance} are visited.
+     *
+     * @param instance the instance to be appended
+     */
+    private void append(Instance instance) {
+        this.ensureCapacity(this.size + 1);
+        int nnz = this.indptr[this.size];
+        if (instance instanceof SparseInstance) {
+            SparseInstance sparse = (SparseInstance) instance;
+            int n = sparse.nnz();
+            this.ensureNnzCapacity(nnz + n);
+            for (int k = 0; k < n; k++) {
+                double value = sparse.value(k);
+                if (value != 0) {
+                    this.indices[nnz] = sparse.index(k);
+                    this.data[nnz++] = value;
+                }
+            }
+        } else {
+            for (int j = 0; j < this.dimensionality; j++) {
+                double value = instance.attribute(j);
+                if (value != 0) {
+                    this.ensureNnzCapacity(nnz + 1);
+                    this.indices[nnz] = j;
+                    this.data[nnz++] = value;
+                }
+            }
+        }
+        this.classValues[this.size] = instance.classValue();
+        this.weights[this.size] = instance.getWeight();
+        this.indptr[++this.size] = nnz;
+    }
+
+    /**
+     * Increases the row capacity, if necessary,
+     * to ensure that it can hold at least the number of rows specified by the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        int oldCapacity = this.weights.length;
+        if (minCapacity - oldCapacity > 0) {
+            int newCapacity = newCapacity(oldCapacity, minCapacity);
+            this.indptr = Arrays.copyOf(this.indptr, newCapacity + 1);
+            this.classValues = Arrays.copyOf(this.classValues, newCapacity);
+            this.weights = Arrays.copyOf(this.weights, newCapacity);
+        }
+    }
+
+    /**
+     * Increases the capacity of the non-zero arrays, if necessary.
+     *
+     * @param minCapacity the desired minimum number of non-zeros
+     */
+    private void ensureNnzCapacity(int minCapacity) {
+        int oldCapacity = this.data.length;
+        if (minCapacity - oldCapacity > 0) {
+            int newCapacity = newCapacity(oldCapacity, minCapacity);
+            this.indices = Arrays.copyOf(this.indices, newCapacity);
+            this.data = Arrays.copyOf(this.data, newCapacity);
+        }
+    }
+
+    private static int newCapacity(int oldCapacity, int minCapacity) {
+        // overflow-conscious code
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            if (minCapacity < 0) // overflow
+                throw new OutOfMemoryError();
+            newCapacity = minCapacity > MAX_ARRAY_SIZE ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        return newCapacity;
+    }
+
+    /**
+     * Trims the capacity of all arrays to the data set's current size and number of non-zeros.
+     */
+    public void trimToSize() {
+        int nnz = this.nnz();
+        this.indptr = Arrays.copyOf(this.indptr, this.size + 1);
+        this.indices = Arrays.copyOf(this.indices, nnz);
+        this.data = Arrays.copyOf(this.data, nnz);
+        this.classValues = Arrays.copyOf(this.classValues, this.size);
+        this.weights = Arrays.copyOf(this.weights, this.size);
+    }
+
+    /**
+     * Returns a deep copy of this data set.
+     * The arrays are copied, but the {@link AttributeInfo}s are just shallowly copied.
+     *
+     * @return a deep copy of this data set
+     */
+    @Override
+    public SparseDataSet copy() {
+        int nnz = this.nnz();
+        SparseDataSet res = new SparseDataSet();
+        res.classInfo = this.classInfo;
+        res.attributeInfoList = this.attributeInfoList;
+        res.dimensionality = this.dimensionality;
+        res.classSet = this.classSet;
+        res.attrValueSets = this.attrValueSets.clone();
+        res.indptr = Arrays.copyOf(this.indptr, this.size + 1);
+        res.indices = Arrays.copyOf(this.indices, nnz);
+        res.data = Arrays.copyOf(this.data, nnz);
+        res.classValues = Arrays.copyOf(this.classValues, this.size);
+        res.weights = Arrays.copyOf(this.weights, this.size);
+        res.size = this.size;
+        return res;
+    }
+
+    @Override
+    public Iterator<Instance> iterator() {
+        return new Iterator<Instance>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public Instance next() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                return new SparseRow(SparseDataSet.this, cursor++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        String[] res = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            res[i] = new SparseRow(this, i).toString();
+        }
+        String prefix = "{" + System.lineSeparator() +
+                String.join(System.lineSeparator(), res) +
+                System.lineSeparator() + "} " +
+                this.attributeInfoList.toString();
+        if (this.classInfo != null) {
+            return prefix + ";" + this.classInfo;
+        } else {
+            return prefix;
+        }
+    }
+
+    /**
+     * A view of one row sharing the CSR arrays,
+     * whose class value and weight are read from (and written to) the data set.
+     */
+    private static final class SparseRow extends SparseInstance {
+
+        private final SparseDataSet owner;
+
+        private final int row;
+
+        SparseRow(SparseDataSet owner, int row) {
+            super(owner.dimensionality, owner.indices, owner.data, owner.indptr[row], owner.indptr[row+1]);
+            this.owner = owner;
+            this.row = row;
+            this.dataset = owner;
+        }
+
+        @Override
+        public double getWeight() {
+            return this.owner.weights[this.row];
+        }
+
+        @Override
+        public void setWeight(double weight) {
+            this.owner.setWeight(this.row, weight);
+        }
+
+        @Override
+        public double classValue() {
+            return this.owner.classValues[this.row];
+        }
+
+        @Override
+        public void setClassValue(double value) {
+            this.owner.setClassValue(this.row, value);
+        }
+
+        /**
+         * A view is always bound to the data set holding its values,
+         * so this method only checks the dimensionality of the given data set.
+         */
+        @Override
+        public void setDataSet(DataSet dataset) {
+            if (dataset.dimensionality() != this.dimensionality) {
+                String msg = "The data set has " + dataset.dimensionality() +
+                        " attributes, but the instance has " + this.dimensionality + " attributes.";
+                throw new DimensionNotMatchedException(msg);
+            }
+        }
+    }
+}
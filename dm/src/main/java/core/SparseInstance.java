@@ -0,0 +1,312 @@
+package main.java.core;
+
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of a sparse instance. A sparse instance only stores its non-zero attribute values
+ * as an array of ascending attribute indices and an array of the corresponding values,
+ * every other attribute's value is 0.
+ * <p>
+ * The non-zeros can be a slice [from, to) of larger arrays,
+ * so that the rows of a {@link SparseDataSet} share its CSR arrays without copying.
+ * Use {@link #nnz()}, {@link #index(int)} and {@link #value(int)} to iterate only the non-zeros.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see Instance
+ * @see SparseDataSet
+ */
+public class SparseInstance implements Instance {
+
+    /**
+     * The number of attributes.
+     */
+    protected int dimensionality;
+
+    /**
+     * The ascending indices of the non-zero attributes.
+     */
+    protected int[] indices;
+
+    /**
+     * The values of the non-zero attributes.
+     */
+    protected double[] values;
+
+    /**
+     * The first position of this instance's non-zeros in the arrays, inclusive.
+     */
+    protected int from;
+
+    /**
+     * The last position of this instance's non-zeros in the arrays, exclusive.
+     */
+    protected int to;
+
+    /**
+     * The instance's class. Double.NaN if the class is not set.
+     */
+    protected double classValue = DenseInstance.NO_LABEL;
+
+    /**
+     * The instance's weight whose default value is 1.0.
+     */
+    protected double weight = DenseInstance.DEFAULT_WEIGHT;
+
+    /**
+     * The dataset that the instance has access to.
+     * Null if the instance doesn't have access to any dataset.
+     */
+    protected DataSet dataset;
+
+    /**
+     * Creates a sparse instance over the slice [from, to) of the given arrays without any check.
+     * This method is protected.
+     *
+     * @param dimensionality the number of attributes
+     * @param indices the ascending indices of the non-zero attributes
+     * @param values the values of the non-zero attributes
+     * @param from the first position of the non-zeros, inclusive
+     * @param to the last position of the non-zeros, exclusive
+     */
+    protected SparseInstance(int dimensionality, int[] indices, double[] values, int from, int to) {
+        this.dimensionality = dimensionality;
+        this.indices = indices;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a new labeled and weighted sparse instance.
+     *
+     * @param dimensionality the number of attributes
+     * @param indices the strictly ascending indices of the non-zero attributes
+     * @param values the values of the non-zero attributes
+     * @param classValue the provided class label
+     * @param weight the instance's weight
+     * @throws IllegalArgumentException if the indices are not strictly ascending or out of range,
+     * or the two arrays have different lengths
+     */
+    public SparseInstance(int dimensionality, int[] indices, double[] values, double classValue, double weight) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("indices and values should have the same length.");
+        }
+        for (int k = 0; k < indices.length; k++) {
+            if (indices[k] < 0 || indices[k] >= dimensionality || (k > 0 && indices[k] <= indices[k-1])) {
+                throw new IllegalArgumentException("Indices should be strictly ascending in [0, " + dimensionality + ").");
+            }
+        }
+        this.dimensionality = dimensionality;
+        this.indices = indices;
+        this.values = values;
+        this.from = 0;
+        this.to = indices.length;
+        this.classValue = classValue;
+        this.weight = weight;
+    }
+
+    /**
+     * Creates a new labeled sparse instance.
+     *
+     * @param dimensionality the number of attributes
+     * @param indices the strictly ascending indices of the non-zero attributes
+     * @param values the values of the non-zero attributes
+     * @param classValue the provided class label
+     * @throws IllegalArgumentException if the indices are not strictly ascending or out of range,
+     * or the two arrays have different lengths
+     */
+    public SparseInstance(int dimensionality, int[] indices, double[] values, double classValue) {
+        this(dimensionality, indices, values, classValue, DenseInstance.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Creates a new unlabeled sparse instance.
+     *
+     * @param dimensionality the number of attributes
+     * @param indices the strictly ascending indices of the non-zero attributes
+     * @param values the values of the non-zero attributes
+     * @throws IllegalArgumentException if the indices are not strictly ascending or out of range,
+     * or the two arrays have different lengths
+     */
+    public SparseInstance(int dimensionality, int[] indices, double[] values) {
+        this(dimensionality, indices, values, DenseInstance.NO_LABEL, DenseInstance.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Creates a sparse instance holding the non-zero values of the given instance,
+     * with the same class value and weight.
+     *
+     * @param instance the source instance
+     * @return a new sparse instance
+     */
+    public static SparseInstance valueOf(Instance instance) {
+        int dimension = instance.dimensionality();
+        int nnz = 0;
+        for (int j = 0; j < dimension; j++) {
+            if (instance.attribute(j) != 0) {
+                nnz++;
+            }
+        }
+        int[] indices = new int[nnz];
+        double[] values = new double[nnz];
+        int k = 0;
+        for (int j = 0; j < dimension; j++) {
+            double value = instance.attribute(j);
+            if (value != 0) {
+                indices[k] = j;
+                values[k++] = value;
+            }
+        }
+        SparseInstance res = new SparseInstance(dimension, indices, values, 0, nnz);
+        res.classValue = instance.classValue();
+        res.weight = instance.getWeight();
+        return res;
+    }
+
+    /**
+     * Returns the number of stored non-zero values.
+     *
+     * @return the number of non-zeros
+     */
+    public final int nnz() {
+        return this.to - this.from;
+    }
+
+    /**
+     * Returns the attribute index of the k-th non-zero value.
+     *
+     * @param k [0, nnz-1]
+     * @return the attribute's index
+     */
+    public final int index(int k) {
+        return this.indices[this.from + k];
+    }
+
+    /**
+     * Returns the k-th non-zero value.
+     *
+     * @param k [0, nnz-1]
+     * @return the attribute's value
+     */
+    public final double value(int k) {
+        return this.values[this.from + k];
+    }
+
+    @Override
+    public double getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean isLabeled() {
+        return !Double.isNaN(this.classValue());
+    }
+
+    @Override
+    public double classValue() {
+        return this.classValue;
+    }
+
+    @Override
+    public void setClassValue(double value) {
+        this.classValue = value;
+    }
+
+    @Override
+    public void setDataSet(DataSet dataset) {
+        if (dataset.dimensionality() != this.dimensionality) {
+            String msg = "The data set has " + dataset.dimensionality() +
+                    " attributes, but the instance has " + this.dimensionality + " attributes.";
+            throw new DimensionNotMatchedException(msg);
+        }
+        this.dataset = dataset;
+    }
+
+    @Override
+    public final int dimensionality() {
+        return this.dimensionality;
+    }
+
+    /**
+     * Returns the value of the attribute with given index by binary search, 0 if it isn't stored.
+     *
+     * @param index the attribute's index
+     * @return the attribute's value
+     */
+    @Override
+    public final double attribute(int index) {
+        int k = Arrays.binarySearch(this.indices, this.from, this.to, index);
+        return k >= 0 ? this.values[k] : 0;
+    }
+
+    /**
+     * Returns a new sparse instance without the attribute at given position.
+     * The indices after the removed attribute are shifted by one, the class value and weight are kept.
+     *
+     * @param index the index of attribute to be removed
+     * @return a new sparse instance
+     */
+    @Override
+    public SparseInstance deleteAttribute(int index) {
+        int nnz = this.nnz();
+        int k = Arrays.binarySearch(this.indices, this.from, this.to, index);
+        int newNnz = k >= 0 ? nnz - 1 : nnz;
+        int[] newIndices = new int[newNnz];
+        double[] newValues = new double[newNnz];
+        int p = 0;
+        for (int q = this.from; q < this.to; q++) {
+            int j = this.indices[q];
+            if (j != index) {
+                newIndices[p] = j > index ? j - 1 : j;
+                newValues[p++] = this.values[q];
+            }
+        }
+        SparseInstance res = new SparseInstance(this.dimensionality - 1, newIndices, newValues, 0, newNnz);
+        res.classValue = this.classValue();
+        res.weight = this.getWeight();
+        return res;
+    }
+
+    /**
+     * Returns a shallow copy of this instance sharing the non-zero arrays.
+     * But the data set it has access to is null.
+     *
+     * @return a shallow copy of this instance
+     */
+    @Override
+    public SparseInstance copy() {
+        SparseInstance res = new SparseInstance(this.dimensionality, this.indices, this.values, this.from, this.to);
+        res.classValue = this.classValue();
+        res.weight = this.getWeight();
+        return res;
+    }
+
+    /**
+     * Returns the non-zeros as "{index:value, ...}", followed by ";classValue" if labeled.
+     *
+     * @return a string representation of this instance
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int q = this.from; q < this.to; q++) {
+            if (q > this.from) {
+                sb.append(", ");
+            }
+            sb.append(this.indices[q]).append(':').append(this.values[q]);
+        }
+        sb.append('}');
+        if (this.isLabeled()) {
+            sb.append(';').append(this.classValue());
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package main.java.core;
 
+import main.java.core.collection.ValueCounts;
 import main.java.core.exception.DimensionNotMatchedException;
 
 import java.util.*;
@@ -36,14 +37,16 @@ public class StandardDataSet implements DataSet{
     protected int dimensionality;
 
     /**
-     * A cache holding different class values.
+     * The count of each class value, null until it is needed.
+     * Once created, it is updated incrementally by {@code add} and {@code addAll}.
      */
-    protected SortedSet<Double> classSet;
+    protected ValueCounts classCounts;
 
     /**
-     * A cache holding all different values of each attribute.
+     * The count of each attribute's values, each column is null until it is needed.
+     * Once created, a column is updated incrementally by {@code add} and {@code addAll}.
      */
-    protected List<SortedSet<Double>> attrValueSetList;
+    protected ValueCounts[] attrCounts;
 
     /**
      * Creates an unsafe empty data set with nothing to do.
@@ -61,6 +64,7 @@ public class StandardDataSet implements DataSet{
         this.attributeInfoList = Arrays.asList(attributeInfoArray);
         this.dimensionality = attributeInfoArray.length;
         this.instances = new ArrayList<>();
+        this.attrCounts = new ValueCounts[this.dimensionality];
     }
 
 
@@ -76,6 +80,7 @@ public class StandardDataSet implements DataSet{
         this.dimensionality = attributeInfoArray.length;
         this.classInfo = classInfo;
         this.instances = new ArrayList<>();
+        this.attrCounts = new ValueCounts[this.dimensionality];
     }
 
     /**
@@ -90,6 +95,7 @@ public class StandardDataSet implements DataSet{
         this.dimensionality = attributeInfoList.size();
         this.classInfo = classInfo;
         this.instances = new ArrayList<>();
+        this.attrCounts = new ValueCounts[this.dimensionality];
     }
 
     @Override
@@ -122,35 +128,68 @@ public class StandardDataSet implements DataSet{
         return this.attributeInfoList;
     }
 
+    /**
+     * Returns an unmodifiable set containing all unique classes in this data set.
+     * The set is a snapshot, it is rebuilt only after a new class value is added.
+     *
+     * @return a sorted set
+     */
     @Override
     public SortedSet<Double> classSet() {
-        if (this.classSet == null) {
-            TreeSet<Double> res = new TreeSet<>();
+        return this.classCounts().toSortedSet();
+    }
+
+    /**
+     * Returns an unmodifiable set containing all different values of the attribute at the given position.
+     * The set is a snapshot, it is rebuilt only after a new value of the attribute is added.
+     *
+     * @param attrIndex the attribute's index
+     * @return a sorted set
+     */
+    @Override
+    public SortedSet<Double> attrValueSet(int attrIndex) {
+        return this.attrCounts(attrIndex).toSortedSet();
+    }
+
+    /**
+     * Returns the count of each class value, which is computed on the first call
+     * and then updated incrementally by {@code add} and {@code addAll}.
+     * If classInfo is null, no classes are counted.
+     *
+     * @return the live class counts, must not be modified
+     */
+    @Override
+    public ValueCounts classCounts() {
+        if (this.classCounts == null) {
+            ValueCounts res = new ValueCounts();
             if (this.classInfo != null) { // If classInfo is null, no classes are available.
                 for (Instance instance: this.instances) {
                     res.add(instance.classValue());
                 }
             }
-            this.classSet = res;
+            this.classCounts = res;
         }
-        return this.classSet;
+        return this.classCounts;
     }
 
+    /**
+     * Returns the count of each value of the attribute at the given position,
+     * which is computed on the first call for this attribute only
+     * and then updated incrementally by {@code add} and {@code addAll}.
+     *
+     * @param attrIndex the attribute's index
+     * @return the live value counts, must not be modified
+     */
     @Override
-    public SortedSet<Double> attrValueSet(int attrIndex) {
-        if (this.attrValueSetList == null) {
-            List<SortedSet<Double>> res = new ArrayList<>(this.dimensionality);
-            for (int i = 0; i < this.dimensionality; i++) {
-                res.add(new TreeSet<>());
-            }
+    public ValueCounts attrCounts(int attrIndex) {
+        if (this.attrCounts[attrIndex] == null) {
+            ValueCounts res = new ValueCounts();
             for (Instance instance: this.instances) {
-                for (int i = 0; i < this.dimensionality; i++) {
-                    res.get(i).add(instance.attribute(i));
-                }
+                res.add(instance.attribute(attrIndex));
             }
-            this.attrValueSetList = res;
+            this.attrCounts[attrIndex] = res;
         }
-        return this.attrValueSetList.get(attrIndex);
+        return this.attrCounts[attrIndex];
     }
 
     @Override
@@ -176,7 +215,7 @@ public class StandardDataSet implements DataSet{
         this.check(instance);
         this.instances.add(instance);
         instance.setDataSet(this);
-        this.resetSortedSet();
+        this.count(instance);
     }
 
     /**
@@ -202,17 +241,25 @@ public class StandardDataSet implements DataSet{
         this.instances.addAll(instances);
         for (Instance instance: instances) {
             instance.setDataSet(this);
+            this.count(instance);
         }
-        this.resetSortedSet();
     }
 
     /**
-     * Resets classSet and attrValueSetList to null after instances are modified.
-     * Why reset? The getters of classSet and attrValueSetList are like "snapshot".
+     * Updates the counts which have been computed with a newly added instance.
+     * Counts which are still null stay null, they will be computed when needed.
+     *
+     * @param instance the added instance
      */
-    private void resetSortedSet() {
-        this.classSet = null;
-        this.attrValueSetList = null;
+    private void count(Instance instance) {
+        if (this.classCounts != null && this.classInfo != null) {
+            this.classCounts.add(instance.classValue());
+        }
+        for (int i = 0; i < this.dimensionality; i++) {
+            if (this.attrCounts[i] != null) {
+                this.attrCounts[i].add(instance.attribute(i));
+            }
+        }
     }
 
     @Override
@@ -233,8 +280,11 @@ public class StandardDataSet implements DataSet{
         res.classInfo = this.classInfo;
         res.attributeInfoList = this.attributeInfoList;
         res.dimensionality = this.dimensionality;
-        res.classSet = this.classSet;
-        res.attrValueSetList = this.attrValueSetList;
+        res.classCounts = this.classCounts == null ? null : this.classCounts.copy();
+        res.attrCounts = new ValueCounts[this.dimensionality];
+        for (int i = 0; i < this.dimensionality; i++) {
+            res.attrCounts[i] = this.attrCounts[i] == null ? null : this.attrCounts[i].copy();
+        }
         ArrayList<Instance> copyInstances = new ArrayList<>();
         for (Instance instance: this.instances) {
             Instance copyInstance = instance.copy();
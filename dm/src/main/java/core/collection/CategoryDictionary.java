@@ -0,0 +1,272 @@
+package main.java.core.collection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A dictionary of the values of a categorical column, looked up by their UTF-8 bytes.
+ * Values are coded 0, 1, 2, ... in order of first appearance, as {@link main.java.preprocessing.encoding.LabelEncoder} does,
+ * and a {@code String} is only created once for each distinct value.
+ * <p>
+ * The bytes of the distinct values are appended to one pool, and an open-addressing table of codes
+ * is probed by a hash of the bytes, so no object is allocated per lookup.
+ * Values parsed from a file are coded from the bytes of the parser's buffer,
+ * strings such as labels in memory by {@link #encode(String)}.
+ * Dictionaries of consecutive chunks of a column can be built in parallel and merged by {@link #addAll(CategoryDictionary)}.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see main.java.utils.io.CsvParser#encode(int, CategoryDictionary)
+ * @see main.java.preprocessing.encoding.DictionaryEncoder
+ */
+public class CategoryDictionary {
+
+    /**
+     * The bytes of all distinct values, one after another.
+     */
+    private byte[] pool = new byte[256];
+
+    private int poolSize;
+
+    /**
+     * The start of each distinct value in the pool, the value of code c is [offsets[c], offsets[c+1]).
+     */
+    private int[] offsets = new int[17];
+
+    /**
+     * The hash of each distinct value.
+     */
+    private int[] hashes = new int[16];
+
+    /**
+     * The open-addressing table holding code+1, 0 for an empty slot.
+     */
+    private int[] table = new int[32];
+
+    /**
+     * The number of distinct values.
+     */
+    private int size;
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return the number of distinct values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the code of the value [from, to) of the bytes, coding it with the next code if it is new.
+     *
+     * @param bytes the bytes holding the value
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @return the code of the value
+     */
+    public int encode(byte[] bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        int mask = this.table.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            int entry = this.table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int code = entry - 1;
+            if (this.hashes[code] == hash && this.equals(code, bytes, from, to)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int code = this.append(bytes, from, to, hash);
+        this.table[slot] = code + 1;
+        if (2 * this.size > this.table.length) { // 装载因子不超过0.5
+            this.rehash();
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of the value [from, to) of the bytes without coding new values.
+     *
+     * @param bytes the bytes holding the value
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @return the code of the value, -1 if it is not in this dictionary
+     */
+    public int code(byte[] bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        int mask = this.table.length - 1;
+        for (int slot = hash & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+            int code = this.table[slot] - 1;
+            if (this.hashes[code] == hash && this.equals(code, bytes, from, to)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the code of a value, coding it with the next code if it is new.
+     *
+     * @param value the value
+     * @return the code of the value
+     */
+    public int encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return this.encode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the code of a value without coding new values.
+     *
+     * @param value the value
+     * @return the code of the value, -1 if it is not in this dictionary
+     */
+    public int code(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return this.code(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Codes the values of another dictionary in order of their codes there,
+     * so merging the dictionaries of consecutive chunks of a column in order of the chunks
+     * gives the same codes as one dictionary over the whole column.
+     *
+     * @param other the dictionary to merge
+     * @return an array whose element c is the code in this dictionary of the value coded c in the other
+     */
+    public int[] addAll(CategoryDictionary other) {
+        int[] res = new int[other.size];
+        for (int c = 0; c < other.size; c++) {
+            res[c] = this.encode(other.pool, other.offsets[c], other.offsets[c + 1]);
+        }
+        return res;
+    }
+
+    /**
+     * Recodes the values in their natural (lexicographic) order, so code c is the c-th smallest value.
+     *
+     * @return an array whose element c is the new code of the value coded c before
+     */
+    public int[] sort() {
+        String[] values = this.values();
+        Integer[] order = new Integer[this.size];
+        for (int c = 0; c < this.size; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, (c1, c2) -> values[c1].compareTo(values[c2]));
+        CategoryDictionary sorted = new CategoryDictionary();
+        int[] res = new int[this.size];
+        for (int code: order) {
+            res[code] = sorted.encode(this.pool, this.offsets[code], this.offsets[code + 1]);
+        }
+        this.pool = sorted.pool;
+        this.poolSize = sorted.poolSize;
+        this.offsets = sorted.offsets;
+        this.hashes = sorted.hashes;
+        this.table = sorted.table;
+        return res;
+    }
+
+    /**
+     * Returns the value of a code.
+     *
+     * @param code [0, size-1]
+     * @return the value
+     */
+    public String value(int code) {
+        if (code < 0 || code >= this.size) {
+            throw new IndexOutOfBoundsException("Code: " + code + ", Size: " + this.size);
+        }
+        int start = this.offsets[code];
+        return new String(this.pool, start, this.offsets[code + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the distinct values in order of their codes.
+     *
+     * @return an array whose element c is the value of code c
+     */
+    public String[] values() {
+        String[] res = new String[this.size];
+        for (int c = 0; c < this.size; c++) {
+            res[c] = this.value(c);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the encoding map of the values, sorted by value as {@link main.java.core.AttributeInfo#encodingMap} is.
+     *
+     * @return a <tt>TreeMap</tt>, key is the value, value is its code
+     */
+    public Map<String, Double> encodingMap() {
+        TreeMap<String, Double> res = new TreeMap<>();
+        for (int c = 0; c < this.size; c++) {
+            res.put(this.value(c), (double) c);
+        }
+        return res;
+    }
+
+    private int append(byte[] bytes, int from, int to, int hash) {
+        int length = to - from;
+        if (this.poolSize + length > this.pool.length) {
+            this.pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, this.poolSize + length));
+        }
+        System.arraycopy(bytes, from, this.pool, this.poolSize, length);
+        this.poolSize += length;
+        if (this.size == this.hashes.length) {
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2 + 1);
+        }
+        int code = this.size++;
+        this.hashes[code] = hash;
+        this.offsets[code + 1] = this.poolSize;
+        return code;
+    }
+
+    private boolean equals(int code, byte[] bytes, int from, int to) {
+        int start = this.offsets[code];
+        if (this.offsets[code + 1] - start != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (this.pool[start++] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] larger = new int[this.table.length * 2];
+        int mask = larger.length - 1;
+        for (int code = 0; code < this.size; code++) {
+            int slot = this.hashes[code] & mask;
+            while (larger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            larger[slot] = code + 1;
+        }
+        this.table = larger;
+    }
+
+    /**
+     * Returns the hash of [from, to) of the bytes, well mixed in the low bits (FNV-1a followed by a murmur finalizer).
+     */
+    static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,292 @@
+package main.java.core.collection;
+
+import main.java.core.Copyable;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from double keys to double values without boxing.
+ * Entries are kept in an open-addressing hash table with linear probing,
+ * so {@link #getOrDefault(double, double)}, {@link #put(double, double)} and {@link #addTo(double, double)}
+ * do not allocate unless the table grows.
+ * <p>
+ * Two keys are the same if {@link Double#equals(Object)} says so, i.e. the same as a {@code HashMap<Double, Double>}:
+ * NaN equals NaN, while 0.0 and -0.0 are different keys.
+ * The iteration order is the order of slots, it is neither sorted nor insertion order.
+ * </p>
+ *
+ * @author Cloudy1225
+ */
+public class DoubleDoubleHashMap implements Copyable<DoubleDoubleHashMap> {
+
+    /**
+     * An operation accepting a key and its value.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(double key, double value);
+    }
+
+    /**
+     * The hash table of keys.
+     */
+    private double[] keys;
+
+    /**
+     * The value of each key in the hash table.
+     */
+    private double[] values;
+
+    /**
+     * Whether each slot holds a key.
+     */
+    private boolean[] used;
+
+    /**
+     * The number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public DoubleDoubleHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map holding the expected number of keys without growing.
+     *
+     * @param expectedSize the expected number of keys
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public DoubleDoubleHashMap(int expectedSize) {
+        int capacity = HashCommon.capacity(expectedSize);
+        this.keys = new double[capacity];
+        this.values = new double[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether this map holds no key.
+     *
+     * @return true if this map is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns whether this map holds the given key.
+     *
+     * @param key the key
+     * @return true if the key is in this map
+     */
+    public boolean containsKey(double key) {
+        return this.used[this.slot(key)];
+    }
+
+    /**
+     * Returns the value of the given key, or defaultValue if the key is not in this map.
+     *
+     * @param key the key
+     * @param defaultValue the value returned for an absent key
+     * @return the value of the key
+     */
+    public double getOrDefault(double key, double defaultValue) {
+        int slot = this.slot(key);
+        return this.used[slot] ? this.values[slot] : defaultValue;
+    }
+
+    /**
+     * Associates the value with the key, replacing the old value if any.
+     *
+     * @param key the key
+     * @param value the new value
+     */
+    public void put(double key, double value) {
+        int slot = this.insert(key);
+        this.values[slot] = value;
+    }
+
+    /**
+     * Adds the increment to the value of the key, an absent key is put with the increment.
+     *
+     * @param key the key
+     * @param increment the increment
+     * @return the new value of the key
+     */
+    public double addTo(double key, double increment) {
+        int slot = this.insert(key);
+        return this.values[slot] += increment;
+    }
+
+    /**
+     * Removes the key from this map.
+     *
+     * @param key the key
+     * @return true if the key was in this map
+     */
+    public boolean remove(double key) {
+        int slot = this.slot(key);
+        if (!this.used[slot]) {
+            return false;
+        }
+        // 线性探测的删除：把后续同一探测链上的键前移，不使用墓碑
+        int mask = this.keys.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (this.used[next]) {
+            int home = HashCommon.mix(Double.doubleToLongBits(this.keys[next])) & mask;
+            if (!HashCommon.between(hole, home, next)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.used[hole] = false;
+        this.values[hole] = 0;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes all keys, the capacity is kept.
+     */
+    public void clear() {
+        Arrays.fill(this.used, false);
+        Arrays.fill(this.values, 0);
+        this.size = 0;
+    }
+
+    /**
+     * Performs the given action for each entry in slot order.
+     *
+     * @param action the action for each entry
+     */
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.used[slot]) {
+                action.accept(this.keys[slot], this.values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys in slot order.
+     *
+     * @return a new array containing the keys
+     */
+    public double[] keys() {
+        double[] res = new double[this.size];
+        int k = 0;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.used[slot]) {
+                res[k++] = this.keys[slot];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the values in slot order, aligned with {@link #keys()}.
+     *
+     * @return a new array containing the values
+     */
+    public double[] values() {
+        double[] res = new double[this.size];
+        int k = 0;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.used[slot]) {
+                res[k++] = this.values[slot];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds the slot of the given key, or the empty slot where it should be put.
+     */
+    private int slot(double key) {
+        long bits = Double.doubleToLongBits(key);
+        int mask = this.keys.length - 1;
+        int slot = HashCommon.mix(bits) & mask;
+        while (this.used[slot] && Double.doubleToLongBits(this.keys[slot]) != bits) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the given key, putting the key with value 0 if it is absent.
+     */
+    private int insert(double key) {
+        int slot = this.slot(key);
+        if (this.used[slot]) {
+            return slot;
+        }
+        if (HashCommon.needsGrow(this.size + 1, this.keys.length)) {
+            this.rehash(this.keys.length << 1);
+            slot = this.slot(key);
+        }
+        this.keys[slot] = key;
+        this.used[slot] = true;
+        this.size++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        double[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+        this.keys = new double[capacity];
+        this.values = new double[capacity];
+        this.used = new boolean[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int newSlot = this.slot(oldKeys[slot]);
+                this.keys[newSlot] = oldKeys[slot];
+                this.values[newSlot] = oldValues[slot];
+                this.used[newSlot] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of this map.
+     *
+     * @return a deep copy of this map
+     */
+    @Override
+    public DoubleDoubleHashMap copy() {
+        DoubleDoubleHashMap res = new DoubleDoubleHashMap();
+        res.keys = this.keys.clone();
+        res.values = this.values.clone();
+        res.used = this.used.clone();
+        res.size = this.size;
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        this.forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,220 @@
+package main.java.core.collection;
+
+import main.java.core.Copyable;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A hash set of double values without boxing.
+ * Values are kept in an open-addressing hash table with linear probing,
+ * so {@link #add(double)} and {@link #contains(double)} do not allocate unless the table grows.
+ * <p>
+ * Two values are the same if {@link Double#equals(Object)} says so, i.e. the same as a {@code HashSet<Double>}.
+ * Use {@link ValueCounts} if the occurrences or the sorted values are needed.
+ * </p>
+ *
+ * @author Cloudy1225
+ */
+public class DoubleHashSet implements Copyable<DoubleHashSet> {
+
+    /**
+     * The hash table of values.
+     */
+    private double[] keys;
+
+    /**
+     * Whether each slot holds a value.
+     */
+    private boolean[] used;
+
+    /**
+     * The number of values.
+     */
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public DoubleHashSet() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty set holding the expected number of values without growing.
+     *
+     * @param expectedSize the expected number of values
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public DoubleHashSet(int expectedSize) {
+        int capacity = HashCommon.capacity(expectedSize);
+        this.keys = new double[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether this set holds no value.
+     *
+     * @return true if this set is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns whether this set holds the given value.
+     *
+     * @param value the value
+     * @return true if the value is in this set
+     */
+    public boolean contains(double value) {
+        return this.used[this.slot(value)];
+    }
+
+    /**
+     * Adds the value to this set.
+     *
+     * @param value the value
+     * @return true if the value was not in this set
+     */
+    public boolean add(double value) {
+        int slot = this.slot(value);
+        if (this.used[slot]) {
+            return false;
+        }
+        if (HashCommon.needsGrow(this.size + 1, this.keys.length)) {
+            this.rehash(this.keys.length << 1);
+            slot = this.slot(value);
+        }
+        this.keys[slot] = value;
+        this.used[slot] = true;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Removes the value from this set.
+     *
+     * @param value the value
+     * @return true if the value was in this set
+     */
+    public boolean remove(double value) {
+        int slot = this.slot(value);
+        if (!this.used[slot]) {
+            return false;
+        }
+        int mask = this.keys.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (this.used[next]) {
+            int home = HashCommon.mix(Double.doubleToLongBits(this.keys[next])) & mask;
+            if (!HashCommon.between(hole, home, next)) {
+                this.keys[hole] = this.keys[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.used[hole] = false;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes all values, the capacity is kept.
+     */
+    public void clear() {
+        Arrays.fill(this.used, false);
+        this.size = 0;
+    }
+
+    /**
+     * Performs the given action for each value in slot order.
+     *
+     * @param action the action for each value
+     */
+    public void forEach(DoubleConsumer action) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.used[slot]) {
+                action.accept(this.keys[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns the values in slot order.
+     *
+     * @return a new array containing the values
+     */
+    public double[] toArray() {
+        double[] res = new double[this.size];
+        int k = 0;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.used[slot]) {
+                res[k++] = this.keys[slot];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds the slot of the given value, or the empty slot where it should be put.
+     */
+    private int slot(double value) {
+        long bits = Double.doubleToLongBits(value);
+        int mask = this.keys.length - 1;
+        int slot = HashCommon.mix(bits) & mask;
+        while (this.used[slot] && Double.doubleToLongBits(this.keys[slot]) != bits) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        double[] oldKeys = this.keys;
+        boolean[] oldUsed = this.used;
+        this.keys = new double[capacity];
+        this.used = new boolean[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int newSlot = this.slot(oldKeys[slot]);
+                this.keys[newSlot] = oldKeys[slot];
+                this.used[newSlot] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of this set.
+     *
+     * @return a deep copy of this set
+     */
+    @Override
+    public DoubleHashSet copy() {
+        DoubleHashSet res = new DoubleHashSet();
+        res.keys = this.keys.clone();
+        res.used = this.used.clone();
+        res.size = this.size;
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        this.forEach(value -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(value);
+        });
+        return sb.append(']').toString();
+    }
+}
@@ -4,13 +4,19 @@ import main.java.core.Copyable;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class provides considerable memory efficiency improvements over using an <tt>ArrayList</tt> to store doubles.
  * This is a copy of {@code ArrayList<Double>} ,but null is not allowed into the list.
+ * <p>
+ * Prefer {@link #forEachDouble(DoubleConsumer)}, {@link #stream()} and the bulk reductions over the boxing {@link #iterator()},
+ * they work directly on the backing array.
+ * </p>
  *
  * @author Cloudy1225
- * @deprecated {@code ArrayList<Double>} is OK.
  */
 public class DoubleList implements RandomAccess, Copyable<DoubleList>, Iterable<Double> {
 
@@ -794,6 +800,224 @@ public class DoubleList implements RandomAccess, Copyable<DoubleList>, Iterable<
         modCount++;
     }
 
+    /**
+     * Sorts this list according to the natural order by {@link Arrays#parallelSort(double[], int, int)},
+     * which sorts sub-arrays in the common fork-join pool when the list is large enough.
+     */
+    public void parallelSort() {
+        final int expectedModCount = modCount;
+        Arrays.parallelSort(elementData, 0, size);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    /**
+     * Searches the specified element in this list using the binary search algorithm.
+     * The list must be sorted (e.g. by {@link #sort()}) prior to making this call.
+     *
+     * @param element the value to be searched for
+     * @return index of the search key, if it is contained in the list;
+     *         otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>
+     * @see Arrays#binarySearch(double[], int, int, double)
+     */
+    public int binarySearch(double element) {
+        return Arrays.binarySearch(elementData, 0, size, element);
+    }
+
+    /**
+     * Performs the given action for each element in proper sequence without boxing.
+     *
+     * @param action the action to be performed for each element
+     * @throws ConcurrentModificationException if this list is structurally modified by the action
+     */
+    public void forEachDouble(DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final double[] elementData = this.elementData;
+        final int size = this.size;
+        for (int i = 0; modCount == expectedModCount && i < size; i++) {
+            action.accept(elementData[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Performs the given action for each element in proper sequence.
+     * If the action is also a {@link DoubleConsumer}, the elements are not boxed.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super Double> action) {
+        if (action instanceof DoubleConsumer) {
+            this.forEachDouble((DoubleConsumer) action);
+        } else {
+            Objects.requireNonNull(action);
+            this.forEachDouble(action::accept);
+        }
+    }
+
+    /**
+     * Returns the sum of the elements, 0 if this list is empty.
+     *
+     * @return the sum
+     */
+    public double sum() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += elementData[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the arithmetic mean of the elements, NaN if this list is empty.
+     *
+     * @return the mean
+     */
+    public double mean() {
+        return size == 0 ? Double.NaN : this.sum() / size;
+    }
+
+    /**
+     * Returns the minimum element as {@link Math#min(double, double)} does,
+     * i.e. NaN if any element is NaN. NaN if this list is empty.
+     *
+     * @return the minimum element
+     */
+    public double min() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double min = elementData[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, elementData[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the maximum element as {@link Math#max(double, double)} does,
+     * i.e. NaN if any element is NaN. NaN if this list is empty.
+     *
+     * @return the maximum element
+     */
+    public double max() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double max = elementData[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, elementData[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns a sequential {@code DoubleStream} with this list as its source.
+     *
+     * @return a sequential stream over the elements in this list
+     */
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(this.spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@code DoubleStream} with this list as its source.
+     * The list is split by halving index ranges of the backing array.
+     *
+     * @return a possibly parallel stream over the elements in this list
+     */
+    public DoubleStream parallelStream() {
+        return StreamSupport.doubleStream(this.spliterator(), true);
+    }
+
+    /**
+     * Creates a <em>late-binding</em> and <em>fail-fast</em> {@link Spliterator.OfDouble} over the elements in this list.
+     * It reports {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED} and {@link Spliterator#ORDERED}.
+     *
+     * @return a spliterator over the elements in this list
+     */
+    @Override
+    public Spliterator.OfDouble spliterator() {
+        return new DoubleListSpliterator(0, -1, 0);
+    }
+
+    /**
+     * Index-based split-by-two, lazily initialized spliterator, a copy of {@code ArrayList.ArrayListSpliterator}.
+     */
+    private final class DoubleListSpliterator implements Spliterator.OfDouble {
+
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        private DoubleListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        @Override
+        public DoubleListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : // divide range in half unless too small
+                    new DoubleListSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(elementData[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            double[] a = elementData;
+            int hi = getFence(), i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept(a[i]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
     /**
      * Returns a string representation of the DoubleList.
      *
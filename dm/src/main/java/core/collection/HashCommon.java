@@ -0,0 +1,76 @@
+package main.java.core.collection;
+
+/**
+ * Common code of the open-addressing hash tables in this package.
+ * Tables have a power-of-2 capacity, use linear probing and are rehashed at load factor 0.75.
+ *
+ * @author Cloudy1225
+ */
+final class HashCommon {
+
+    /**
+     * Default initial capacity of a hash table.
+     */
+    static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The maximum capacity of a hash table.
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private HashCommon() {}
+
+    /**
+     * Spreads the bits of a double key ({@link Double#doubleToLongBits(double)}) over the low bits
+     * by the finalizer of MurmurHash3, since integer-valued doubles differ only in their high bits.
+     */
+    static int mix(long bits) {
+        long h = bits;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Spreads the bits of a hash code over the low bits.
+     */
+    static int mix(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the capacity holding the expected number of keys below the load factor.
+     *
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    static int capacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        long min = (long) expectedSize * 4 / 3 + 1;
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < min && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns whether a table of given capacity must grow after holding size keys.
+     */
+    static boolean needsGrow(int size, int capacity) {
+        return size * 4L > capacity * 3L && capacity < MAX_CAPACITY;
+    }
+
+    /**
+     * Returns whether the slot lies cyclically in (from, to], i.e. whether an entry with home slot {@code slot}
+     * found at {@code to} may not be moved back to {@code from} after the entry at {@code from} is removed.
+     */
+    static boolean between(int from, int slot, int to) {
+        return from <= to ? from < slot && slot <= to : from < slot || slot <= to;
+    }
+}
@@ -0,0 +1,262 @@
+package main.java.core.collection;
+
+import main.java.core.Copyable;
+
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * A hash map from object keys to double values without boxing the values.
+ * Entries are kept in an open-addressing hash table with linear probing,
+ * so {@link #getOrDefault(Object, double)}, {@link #put(Object, double)} and {@link #addTo(Object, double)}
+ * do not allocate unless the table grows.
+ * <p>
+ * Keys are compared by {@link Object#equals(Object)} and {@link Object#hashCode()}, null is not allowed as a key.
+ * The iteration order is the order of slots, it is neither sorted nor insertion order.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @author Cloudy1225
+ */
+public class ObjectDoubleHashMap<K> implements Copyable<ObjectDoubleHashMap<K>> {
+
+    /**
+     * The hash table of keys, null means an empty slot.
+     */
+    private Object[] keys;
+
+    /**
+     * The value of each key in the hash table.
+     */
+    private double[] values;
+
+    /**
+     * The number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public ObjectDoubleHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map holding the expected number of keys without growing.
+     *
+     * @param expectedSize the expected number of keys
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public ObjectDoubleHashMap(int expectedSize) {
+        int capacity = HashCommon.capacity(expectedSize);
+        this.keys = new Object[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether this map holds no key.
+     *
+     * @return true if this map is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns whether this map holds the given key.
+     *
+     * @param key the key
+     * @return true if the key is in this map
+     * @throws NullPointerException if the key is null
+     */
+    public boolean containsKey(Object key) {
+        return this.keys[this.slot(key)] != null;
+    }
+
+    /**
+     * Returns the value of the given key, or defaultValue if the key is not in this map.
+     *
+     * @param key the key
+     * @param defaultValue the value returned for an absent key
+     * @return the value of the key
+     * @throws NullPointerException if the key is null
+     */
+    public double getOrDefault(Object key, double defaultValue) {
+        int slot = this.slot(key);
+        return this.keys[slot] != null ? this.values[slot] : defaultValue;
+    }
+
+    /**
+     * Associates the value with the key, replacing the old value if any.
+     *
+     * @param key the key
+     * @param value the new value
+     * @throws NullPointerException if the key is null
+     */
+    public void put(K key, double value) {
+        int slot = this.insert(key);
+        this.values[slot] = value;
+    }
+
+    /**
+     * Puts the key with the value if the key is absent.
+     *
+     * @param key the key
+     * @param value the value of an absent key
+     * @return the existing value of the key, or the given value if the key was absent
+     * @throws NullPointerException if the key is null
+     */
+    public double putIfAbsent(K key, double value) {
+        int size = this.size;
+        int slot = this.insert(key);
+        if (this.size > size) {
+            this.values[slot] = value;
+        }
+        return this.values[slot];
+    }
+
+    /**
+     * Adds the increment to the value of the key, an absent key is put with the increment.
+     *
+     * @param key the key
+     * @param increment the increment
+     * @return the new value of the key
+     * @throws NullPointerException if the key is null
+     */
+    public double addTo(K key, double increment) {
+        int slot = this.insert(key);
+        return this.values[slot] += increment;
+    }
+
+    /**
+     * Removes the key from this map.
+     *
+     * @param key the key
+     * @return true if the key was in this map
+     * @throws NullPointerException if the key is null
+     */
+    public boolean remove(Object key) {
+        int slot = this.slot(key);
+        if (this.keys[slot] == null) {
+            return false;
+        }
+        int mask = this.keys.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (this.keys[next] != null) {
+            int home = HashCommon.mix(this.keys[next].hashCode()) & mask;
+            if (!HashCommon.between(hole, home, next)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.keys[hole] = null;
+        this.values[hole] = 0;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes all keys, the capacity is kept.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        Arrays.fill(this.values, 0);
+        this.size = 0;
+    }
+
+    /**
+     * Performs the given action for each entry in slot order.
+     *
+     * @param action the action for each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjDoubleConsumer<? super K> action) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != null) {
+                action.accept((K) this.keys[slot], this.values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of the given key, or the empty slot where it should be put.
+     */
+    private int slot(Object key) {
+        int mask = this.keys.length - 1;
+        int slot = HashCommon.mix(key.hashCode()) & mask;
+        while (this.keys[slot] != null && !this.keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the given key, putting the key with value 0 if it is absent.
+     */
+    private int insert(K key) {
+        int slot = this.slot(key);
+        if (this.keys[slot] != null) {
+            return slot;
+        }
+        if (HashCommon.needsGrow(this.size + 1, this.keys.length)) {
+            this.rehash(this.keys.length << 1);
+            slot = this.slot(key);
+        }
+        this.keys[slot] = key;
+        this.size++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        this.keys = new Object[capacity];
+        this.values = new double[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != null) {
+                int newSlot = this.slot(oldKeys[slot]);
+                this.keys[newSlot] = oldKeys[slot];
+                this.values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of this map, the keys themselves are not copied.
+     *
+     * @return a copy of this map
+     */
+    @Override
+    public ObjectDoubleHashMap<K> copy() {
+        ObjectDoubleHashMap<K> res = new ObjectDoubleHashMap<>();
+        res.keys = this.keys.clone();
+        res.values = this.values.clone();
+        res.size = this.size;
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        this.forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
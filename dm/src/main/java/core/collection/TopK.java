@@ -0,0 +1,233 @@
+package main.java.core.collection;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Selects the k nearest candidates, each given by an int index (e.g. a row of the training set) and a double distance.
+ * Candidates are kept in a bounded max-heap over two parallel arrays, so no object is created per candidate:
+ * {@link #offer(int, double)} costs O(log k) and replaces the farthest candidate in place once k are held,
+ * and {@link #sort()} heap-sorts the held candidates in place.
+ * <p>
+ * Candidates are ordered by distance, then by index, so equal distances are resolved towards the smaller index
+ * whatever the order of offers. Call {@link #reset(int)} to reuse the arrays for another query.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see PriorityQueue
+ */
+public class TopK {
+
+    /**
+     * The number of candidates to keep.
+     */
+    private int k;
+
+    /**
+     * The index of each held candidate, a max-heap until sorted.
+     */
+    private int[] indices;
+
+    /**
+     * The distance of each held candidate, aligned with indices.
+     */
+    private double[] distances;
+
+    /**
+     * The number of held candidates.
+     */
+    private int size;
+
+    /**
+     * Whether the held candidates have been sorted, no more offers are accepted then.
+     */
+    private boolean sorted;
+
+    /**
+     * Creates a selector of the k nearest candidates.
+     *
+     * @param k the number of candidates to keep
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public TopK(int k) {
+        this.reset(k);
+    }
+
+    /**
+     * Removes all candidates and sets the number of candidates to keep.
+     * The arrays are only reallocated if k is greater than any k before.
+     *
+     * @param k the number of candidates to keep
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public void reset(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive, got " + k + ".");
+        }
+        if (this.indices == null || this.indices.length < k) {
+            this.indices = new int[k];
+            this.distances = new double[k];
+        }
+        this.k = k;
+        this.size = 0;
+        this.sorted = false;
+    }
+
+    /**
+     * Returns the number of candidates to keep.
+     *
+     * @return k
+     */
+    public int k() {
+        return this.k;
+    }
+
+    /**
+     * Returns the number of held candidates, at most k.
+     *
+     * @return the number of held candidates
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether k candidates are held.
+     *
+     * @return true if k candidates are held
+     */
+    public boolean isFull() {
+        return this.size == this.k;
+    }
+
+    /**
+     * Returns the distance a candidate must not exceed to be accepted,
+     * i.e. the greatest held distance if k candidates are held, otherwise positive infinity.
+     *
+     * @return the greatest held distance, or positive infinity
+     */
+    public double maxDistance() {
+        if (this.size < this.k) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return this.sorted ? this.distances[this.size - 1] : this.distances[0];
+    }
+
+    /**
+     * Offers a candidate. It is accepted if less than k candidates are held,
+     * or if it is nearer than the farthest held candidate, which is then dropped.
+     *
+     * @param index the index of the candidate
+     * @param distance the distance of the candidate
+     * @return true if the candidate is accepted
+     * @throws IllegalStateException if the candidates have been sorted since the last reset
+     */
+    public boolean offer(int index, double distance) {
+        if (this.sorted) {
+            throw new IllegalStateException("TopK is sorted, reset it before offering.");
+        }
+        if (this.size < this.k) {
+            this.siftUp(this.size++, index, distance);
+            return true;
+        }
+        if (!less(distance, index, this.distances[0], this.indices[0])) {
+            return false;
+        }
+        this.siftDown(0, index, distance, this.size); // 替换堆顶即最远的候选
+        return true;
+    }
+
+    /**
+     * Sorts the held candidates in place by ascending distance (then index).
+     * After sorting, {@link #index(int)} and {@link #distance(int)} give the i-th nearest candidate.
+     */
+    public void sort() {
+        if (this.sorted) {
+            return;
+        }
+        for (int end = this.size - 1; end > 0; end--) { // 堆排序：依次把最远的候选移到末尾
+            int index = this.indices[end];
+            double distance = this.distances[end];
+            this.indices[end] = this.indices[0];
+            this.distances[end] = this.distances[0];
+            this.siftDown(0, index, distance, end);
+        }
+        this.sorted = true;
+    }
+
+    /**
+     * Returns the index of the i-th held candidate, the i-th nearest one after {@link #sort()}.
+     *
+     * @param i [0, size-1]
+     * @return the index of the candidate
+     * @throws NoSuchElementException if i is out of range
+     */
+    public int index(int i) {
+        this.checkRange(i);
+        return this.indices[i];
+    }
+
+    /**
+     * Returns the distance of the i-th held candidate, the i-th nearest one after {@link #sort()}.
+     *
+     * @param i [0, size-1]
+     * @return the distance of the candidate
+     * @throws NoSuchElementException if i is out of range
+     */
+    public double distance(int i) {
+        this.checkRange(i);
+        return this.distances[i];
+    }
+
+    private void checkRange(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new NoSuchElementException("Index: " + i + ", Size: " + this.size);
+        }
+    }
+
+    /**
+     * Returns whether candidate (d1, i1) is nearer than candidate (d2, i2).
+     */
+    private static boolean less(double d1, int i1, double d2, int i2) {
+        int cmp = Double.compare(d1, d2);
+        return cmp < 0 || (cmp == 0 && i1 < i2);
+    }
+
+    /**
+     * Puts the candidate at slot and moves it up until its parent is not nearer.
+     */
+    private void siftUp(int slot, int index, double distance) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!less(this.distances[parent], this.indices[parent], distance, index)) {
+                break;
+            }
+            this.indices[slot] = this.indices[parent];
+            this.distances[slot] = this.distances[parent];
+            slot = parent;
+        }
+        this.indices[slot] = index;
+        this.distances[slot] = distance;
+    }
+
+    /**
+     * Puts the candidate at slot and moves it down within [0, end) until no child is farther.
+     */
+    private void siftDown(int slot, int index, double distance, int end) {
+        int half = end >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < end && less(this.distances[child], this.indices[child], this.distances[right], this.indices[right])) {
+                child = right;
+            }
+            if (!less(distance, index, this.distances[child], this.indices[child])) {
+                break;
+            }
+            this.indices[slot] = this.indices[child];
+            this.distances[slot] = this.distances[child];
+            slot = child;
+        }
+        this.indices[slot] = index;
+        this.distances[slot] = distance;
+    }
+}
@@ -0,0 +1,257 @@
+package main.java.core.collection;
+
+import main.java.core.Copyable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Counts the occurrences of each distinct double value without boxing.
+ * Values are kept in an open-addressing hash table, so {@link #add(double)} is O(1) on average,
+ * and the sorted distinct values are only built when {@link #values()} is called after a change.
+ * <p>
+ * Two values are the same if {@link Double#equals(Object)} says so, and values are sorted
+ * by {@link Double#compare(double, double)}, i.e. the same as a {@code TreeSet<Double>}.
+ * </p>
+ *
+ * @author Cloudy1225
+ */
+public class ValueCounts implements Copyable<ValueCounts> {
+
+    /**
+     * The hash table of values.
+     */
+    private double[] keys;
+
+    /**
+     * The count of each value in the hash table, 0 means an empty slot.
+     */
+    private int[] counts;
+
+    /**
+     * The number of distinct values.
+     */
+    private int distinct;
+
+    /**
+     * The number of added values.
+     */
+    private int total;
+
+    /**
+     * Cache of the sorted distinct values, null after a new value is added.
+     */
+    private double[] sortedValues;
+
+    /**
+     * Cache of the counts aligned with {@link #sortedValues}.
+     */
+    private int[] sortedCounts;
+
+    /**
+     * Cache of the sorted set view.
+     */
+    private SortedSet<Double> sortedSet;
+
+    /**
+     * Creates an empty counter.
+     */
+    public ValueCounts() {
+        this.keys = new double[HashCommon.DEFAULT_CAPACITY];
+        this.counts = new int[HashCommon.DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a counter of the given values.
+     *
+     * @param values the values to count
+     */
+    public ValueCounts(double[] values) {
+        this();
+        for (double value: values) {
+            this.add(value);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the given value.
+     *
+     * @param value the value to count
+     * @return true if the value was not counted before
+     */
+    public boolean add(double value) {
+        int slot = this.slot(value);
+        if (this.counts[slot] > 0) {
+            this.counts[slot]++;
+            this.total++;
+            this.sortedCounts = null;
+            return false;
+        }
+        this.keys[slot] = value;
+        this.counts[slot] = 1;
+        this.total++;
+        this.distinct++;
+        this.sortedValues = null;
+        this.sortedCounts = null;
+        this.sortedSet = null;
+        if (HashCommon.needsGrow(this.distinct, this.keys.length)) {
+            this.rehash(this.keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of occurrences of the given value.
+     *
+     * @param value the value
+     * @return the count, 0 if the value was never counted
+     */
+    public int count(double value) {
+        return this.counts[this.slot(value)];
+    }
+
+    /**
+     * Returns whether the given value was counted.
+     *
+     * @param value the value
+     * @return true if the count is positive
+     */
+    public boolean contains(double value) {
+        return this.count(value) > 0;
+    }
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return the number of distinct values
+     */
+    public int distinct() {
+        return this.distinct;
+    }
+
+    /**
+     * Returns the number of counted values, including repeated ones.
+     *
+     * @return the total count
+     */
+    public int total() {
+        return this.total;
+    }
+
+    /**
+     * Returns the distinct values in ascending order.
+     * The returned array is cached and must not be modified.
+     *
+     * @return the sorted distinct values
+     */
+    public double[] values() {
+        if (this.sortedValues == null) {
+            double[] res = new double[this.distinct];
+            int k = 0;
+            for (int slot = 0; slot < this.keys.length; slot++) {
+                if (this.counts[slot] > 0) {
+                    res[k++] = this.keys[slot];
+                }
+            }
+            Arrays.sort(res);
+            this.sortedValues = res;
+        }
+        return this.sortedValues;
+    }
+
+    /**
+     * Returns the count of each distinct value, aligned with {@link #values()}.
+     * The returned array is cached and must not be modified.
+     *
+     * @return the counts
+     */
+    public int[] counts() {
+        if (this.sortedCounts == null) {
+            double[] values = this.values();
+            int[] res = new int[values.length];
+            for (int k = 0; k < values.length; k++) {
+                res[k] = this.count(values[k]);
+            }
+            this.sortedCounts = res;
+        }
+        return this.sortedCounts;
+    }
+
+    /**
+     * Returns an unmodifiable sorted set of the distinct values.
+     * The set is a snapshot, it is rebuilt after a new value is added.
+     *
+     * @return a sorted set
+     */
+    public SortedSet<Double> toSortedSet() {
+        if (this.sortedSet == null) {
+            TreeSet<Double> res = new TreeSet<>();
+            for (double value: this.values()) {
+                res.add(value);
+            }
+            this.sortedSet = Collections.unmodifiableSortedSet(res);
+        }
+        return this.sortedSet;
+    }
+
+    /**
+     * Finds the slot of the given value, or the empty slot where it should be put.
+     */
+    private int slot(double value) {
+        long bits = Double.doubleToLongBits(value);
+        int mask = this.keys.length - 1;
+        int slot = HashCommon.mix(bits) & mask;
+        while (this.counts[slot] > 0 && Double.doubleToLongBits(this.keys[slot]) != bits) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        double[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        this.keys = new double[capacity];
+        this.counts = new int[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldCounts[slot] > 0) {
+                int newSlot = this.slot(oldKeys[slot]);
+                this.keys[newSlot] = oldKeys[slot];
+                this.counts[newSlot] = oldCounts[slot];
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of this counter.
+     *
+     * @return a deep copy of this counter
+     */
+    @Override
+    public ValueCounts copy() {
+        ValueCounts res = new ValueCounts();
+        res.keys = this.keys.clone();
+        res.counts = this.counts.clone();
+        res.distinct = this.distinct;
+        res.total = this.total;
+        res.sortedValues = this.sortedValues;
+        res.sortedCounts = this.sortedCounts;
+        res.sortedSet = this.sortedSet;
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        double[] values = this.values();
+        int[] counts = this.counts();
+        StringBuilder sb = new StringBuilder("{");
+        for (int k = 0; k < values.length; k++) {
+            if (k > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[k]).append('=').append(counts[k]);
+        }
+        return sb.append('}').toString();
+    }
+}
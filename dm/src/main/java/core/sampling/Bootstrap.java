@@ -0,0 +1,236 @@
+package main.java.core.sampling;
+
+import java.util.Random;
+
+/**
+ * This class contains static methods drawing bootstrap samples of the rows of a data set.
+ * <p>
+ * A sample is returned as a multiplicity vector: element i is the number of times row i is drawn.
+ * Nothing is copied, the vector can be turned into instance weights by {@link #weights(int[], double[])}
+ * and passed to a fitting method taking a weight vector, e.g. to fit each member of a bagging ensemble.
+ * </p>
+ * <p>
+ * Multinomial counts are the classic bootstrap: exactly {@code size} draws with replacement.
+ * Poisson counts draw each row independently, so the sample size is only expected to be n,
+ * but rows can be processed in any order or in parallel, e.g. while streaming.
+ * </p>
+ *
+ * @author Cloudy1225
+ */
+public class Bootstrap {
+
+    private Bootstrap() {
+    }
+
+    /**
+     * Draws size rows out of n with replacement, each row with equal probability.
+     *
+     * @param n the number of rows
+     * @param size the number of draws
+     * @param random the source of randomness
+     * @return the number of times each row is drawn, summing to size
+     * @throws IllegalArgumentException if n is not positive or size is negative
+     */
+    public static int[] multinomial(int n, int size, Random random) {
+        if (n <= 0 || size < 0) {
+            throw new IllegalArgumentException("Cannot draw " + size + " out of " + n + " rows.");
+        }
+        int[] counts = new int[n];
+        for (int i = 0; i < size; i++) {
+            counts[random.nextInt(n)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Draws size rows with replacement, each row with probability proportional to its weight.
+     * Draws cost O(1) each by Vose's alias method, after O(n) preparation.
+     *
+     * @param weights the weight of each row, non-negative with a positive sum
+     * @param size the number of draws
+     * @param random the source of randomness
+     * @return the number of times each row is drawn, summing to size
+     * @throws IllegalArgumentException if a weight is negative or infinite, the weights sum to 0, or size is negative
+     */
+    public static int[] multinomial(double[] weights, int size, Random random) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The number of draws must be non-negative, got " + size + ".");
+        }
+        int n = weights.length;
+        double sum = checkWeights(weights);
+        double[] prob = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n]; // 概率不足1/n的行
+        int[] large = new int[n];
+        int nSmall = 0;
+        int nLarge = 0;
+        for (int i = 0; i < n; i++) {
+            prob[i] = weights[i] * n / sum;
+            if (prob[i] < 1) {
+                small[nSmall++] = i;
+            } else {
+                large[nLarge++] = i;
+            }
+        }
+        while (nSmall > 0 && nLarge > 0) { // 用大概率的行填满小概率行的剩余部分
+            int s = small[--nSmall];
+            int l = large[--nLarge];
+            alias[s] = l;
+            prob[l] -= 1 - prob[s];
+            if (prob[l] < 1) {
+                small[nSmall++] = l;
+            } else {
+                large[nLarge++] = l;
+            }
+        }
+        while (nLarge > 0) {
+            prob[large[--nLarge]] = 1;
+        }
+        while (nSmall > 0) { // 仅因舍入误差剩余
+            prob[small[--nSmall]] = 1;
+        }
+        int[] counts = new int[n];
+        for (int d = 0; d < size; d++) {
+            int i = random.nextInt(n);
+            counts[random.nextDouble() < prob[i] ? i : alias[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Draws each of n rows a Poisson(1) number of times, independently.
+     *
+     * @param n the number of rows
+     * @param random the source of randomness
+     * @return the number of times each row is drawn
+     */
+    public static int[] poisson(int n, Random random) {
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            counts[i] = nextPoisson(1, random);
+        }
+        return counts;
+    }
+
+    /**
+     * Draws each row a Poisson number of times, independently, with mean {@code n * weight / sum(weights)},
+     * so the expected sample size is n and rows are drawn in proportion to their weights.
+     *
+     * @param weights the weight of each row, non-negative with a positive sum
+     * @param random the source of randomness
+     * @return the number of times each row is drawn
+     * @throws IllegalArgumentException if a weight is negative or infinite or the weights sum to 0
+     */
+    public static int[] poisson(double[] weights, Random random) {
+        int n = weights.length;
+        double sum = checkWeights(weights);
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            counts[i] = nextPoisson(weights[i] * n / sum, random);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns a Poisson distributed random number.
+     * Uses multiplication of uniforms for small means and the transformed rejection PTRS of Hörmann (1993) otherwise,
+     * so the cost is bounded whatever the mean.
+     *
+     * @param mean the mean, non-negative
+     * @param random the source of randomness
+     * @return a random number following Poisson(mean)
+     * @throws IllegalArgumentException if mean is negative or not finite
+     */
+    public static int nextPoisson(double mean, Random random) {
+        if (!(mean >= 0) || Double.isInfinite(mean)) {
+            throw new IllegalArgumentException("The mean must be non-negative and finite, got " + mean + ".");
+        }
+        if (mean < 10) {
+            double limit = Math.exp(-mean);
+            int k = 0;
+            double product = random.nextDouble();
+            while (product > limit) {
+                k++;
+                product *= random.nextDouble();
+            }
+            return k;
+        }
+        double sqrtMean = Math.sqrt(mean);
+        double logMean = Math.log(mean);
+        double b = 0.931 + 2.53 * sqrtMean;
+        double a = -0.059 + 0.02483 * b;
+        double invAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return (int) k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v) + Math.log(invAlpha) - Math.log(a / (us * us) + b) <= -mean + k * logMean - logFactorial(k)) {
+                return (int) k;
+            }
+        }
+    }
+
+    /**
+     * Turns a multiplicity vector into instance weights: {@code counts[i] * weights[i]}.
+     * If given weights is null, each row is weighted 1.
+     *
+     * @param counts the number of times each row is drawn
+     * @param weights the weight of each row, or null
+     * @return a new array containing the weight of each row in the sample
+     * @throws IllegalArgumentException if the length of weights != the length of counts
+     */
+    public static double[] weights(int[] counts, double[] weights) {
+        if (weights != null && weights.length != counts.length) {
+            String msg = "weights.length = " + weights.length + ", expected " + counts.length;
+            throw new IllegalArgumentException(msg);
+        }
+        double[] res = new double[counts.length];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = weights == null ? counts[i] : counts[i] * weights[i];
+        }
+        return res;
+    }
+
+    /**
+     * Returns the sum of the weights after checking that they are non-negative and finite with a positive sum.
+     */
+    private static double checkWeights(double[] weights) {
+        double sum = 0;
+        for (double weight: weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be non-negative and finite, got " + weight + ".");
+            }
+            sum += weight;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Weights must have a positive sum.");
+        }
+        return sum;
+    }
+
+    /**
+     * Returns ln(k!), exact for small k and by the Stirling series otherwise.
+     */
+    private static double logFactorial(long k) {
+        if (k < 16) {
+            double res = 0;
+            for (int i = 2; i <= k; i++) {
+                res += Math.log(i);
+            }
+            return res;
+        }
+        double x = k + 1.0; // ln(k!) = lnΓ(k+1)
+        double inv = 1 / x;
+        double inv2 = inv * inv;
+        return (x - 0.5) * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI)
+                + inv * (1.0 / 12 - inv2 * (1.0 / 360 - inv2 * (1.0 / 1260 - inv2 / 1680)));
+    }
+}
@@ -0,0 +1,450 @@
+package main.java.core.sampling;
+
+import main.java.core.DataSet;
+import main.java.core.DataSetView;
+import main.java.core.collection.DoubleIntHashMap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class contains static methods for resampling the rows of a data set:
+ * shuffles, (stratified, grouped and repeated) k-fold splits and (stratified) train-test splits.
+ * <p>
+ * All methods work on row indices in O(n) time: rows are permuted by Fisher-Yates shuffles over an {@code int[]},
+ * and the results are index arrays, which {@link #views(DataSet, int[][])} turns into {@link DataSetView}s
+ * without copying any instance. Randomized methods take an explicit seed or {@link Random},
+ * so a split can be reproduced.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see main.java.core.DataSets#folds(DataSet, int, long)
+ */
+public class Resampling {
+
+    private Resampling() {
+    }
+
+    /**
+     * Shuffles the given array in place by the Fisher-Yates algorithm.
+     *
+     * @param array the array to shuffle
+     * @param random the source of randomness
+     */
+    public static void shuffle(int[] array, Random random) {
+        shuffle(array, 0, array.length, random);
+    }
+
+    /**
+     * Shuffles the range [from, to) of the given array in place by the Fisher-Yates algorithm.
+     *
+     * @param array the array to shuffle
+     * @param from the index of the first element, inclusive
+     * @param to the index of the last element, exclusive
+     * @param random the source of randomness
+     */
+    public static void shuffle(int[] array, int from, int to, Random random) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Returns a random permutation of 0, 1, ..., n-1.
+     *
+     * @param n the number of rows
+     * @param random the source of randomness
+     * @return a random permutation of [0, n)
+     */
+    public static int[] permutation(int n, Random random) {
+        int[] res = range(n);
+        shuffle(res, random);
+        return res;
+    }
+
+    /**
+     * Returns a random permutation of 0, 1, ..., n-1.
+     *
+     * @param n the number of rows
+     * @param seed the seed of randomness
+     * @return a random permutation of [0, n)
+     */
+    public static int[] permutation(int n, long seed) {
+        return permutation(n, new Random(seed));
+    }
+
+    /**
+     * Returns the rows of [0, n) not contained in the given rows, in ascending order.
+     * E.g. the training rows of a fold.
+     *
+     * @param n the number of rows
+     * @param rows distinct rows in [0, n)
+     * @return the other rows in ascending order
+     * @throws IllegalArgumentException if given rows are not distinct
+     * @throws IndexOutOfBoundsException if a row is out of [0, n)
+     */
+    public static int[] complement(int n, int[] rows) {
+        boolean[] selected = new boolean[n];
+        for (int row: rows) {
+            if (selected[row]) {
+                throw new IllegalArgumentException("Row " + row + " is selected twice.");
+            }
+            selected[row] = true;
+        }
+        int[] res = new int[n - rows.length];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (!selected[i]) {
+                res[size++] = i;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Splits n rows into k folds at random. Every row is in exactly one fold,
+     * the first n%k folds hold n/k+1 rows and the others hold n/k rows.
+     *
+     * @param n the number of rows
+     * @param k the number of folds, [1, n]
+     * @param random the source of randomness
+     * @return the rows of each fold
+     * @throws IllegalArgumentException if k is out of [1, n]
+     */
+    public static int[][] kFold(int n, int k, Random random) {
+        checkFolds(n, k);
+        return deal(permutation(n, random), k);
+    }
+
+    /**
+     * Splits n rows into k folds at random.
+     *
+     * @param n the number of rows
+     * @param k the number of folds, [1, n]
+     * @param seed the seed of randomness
+     * @return the rows of each fold
+     * @throws IllegalArgumentException if k is out of [1, n]
+     * @see #kFold(int, int, Random)
+     */
+    public static int[][] kFold(int n, int k, long seed) {
+        return kFold(n, k, new Random(seed));
+    }
+
+    /**
+     * Repeats k-fold splitting with different randomization in each repetition.
+     * The folds of the r-th repetition are at [r*k, (r+1)*k) of the result.
+     *
+     * @param n the number of rows
+     * @param k the number of folds, [1, n]
+     * @param repeats the number of repetitions, >= 1
+     * @param seed the seed of randomness
+     * @return the rows of each fold of each repetition
+     * @throws IllegalArgumentException if k is out of [1, n] or repeats is less than 1
+     */
+    public static int[][] repeatedKFold(int n, int k, int repeats, long seed) {
+        if (repeats < 1) {
+            throw new IllegalArgumentException("The number of repetitions must be positive, got " + repeats + ".");
+        }
+        checkFolds(n, k);
+        Random random = new Random(seed);
+        int[][] res = new int[repeats * k][];
+        int[] rows = range(n);
+        for (int r = 0; r < repeats; r++) {
+            shuffle(rows, random); // 在上一次的排列上继续洗牌，结果同样是均匀随机的排列
+            System.arraycopy(deal(rows, k), 0, res, r * k, k);
+        }
+        return res;
+    }
+
+    /**
+     * Splits rows into k folds at random, preserving the percentage of each class in every fold.
+     * The rows of each class are shuffled and dealt to the folds in turn, continuing from the fold the previous class
+     * stopped at, so the number of rows of a class differs by at most one between folds,
+     * and so does the size of the folds.
+     *
+     * @param classValues the class value of each row
+     * @param k the number of folds, [1, n]
+     * @param random the source of randomness
+     * @return the rows of each fold
+     * @throws IllegalArgumentException if k is out of [1, n]
+     */
+    public static int[][] stratifiedKFold(double[] classValues, int k, Random random) {
+        int n = classValues.length;
+        checkFolds(n, k);
+        return deal(groupByClass(classValues, random), k);
+    }
+
+    /**
+     * Splits rows into k folds at random, preserving the percentage of each class in every fold.
+     *
+     * @param classValues the class value of each row
+     * @param k the number of folds, [1, n]
+     * @param seed the seed of randomness
+     * @return the rows of each fold
+     * @throws IllegalArgumentException if k is out of [1, n]
+     * @see #stratifiedKFold(double[], int, Random)
+     */
+    public static int[][] stratifiedKFold(double[] classValues, int k, long seed) {
+        return stratifiedKFold(classValues, k, new Random(seed));
+    }
+
+    /**
+     * Splits rows into k folds such that rows of the same group never fall into different folds,
+     * e.g. several records of one patient.
+     * Groups are taken in descending order of size (ties in order of first appearance)
+     * and each is assigned to the fold holding the fewest rows (ties to the first such fold),
+     * which balances the size of the folds. The split is deterministic.
+     *
+     * @param groups the group label of each row
+     * @param k the number of folds, [1, number of distinct groups]
+     * @return the rows of each fold in ascending order
+     * @throws IllegalArgumentException if k is out of [1, number of distinct groups]
+     */
+    public static int[][] groupKFold(double[] groups, int k) {
+        int n = groups.length;
+        DoubleIntHashMap groupIndex = new DoubleIntHashMap();
+        int[] codes = new int[n];
+        int[] groupSizes = new int[Math.min(n, 16)];
+        for (int i = 0; i < n; i++) {
+            int code = groupIndex.putIfAbsent(groups[i], groupIndex.size());
+            if (code == groupSizes.length) {
+                groupSizes = Arrays.copyOf(groupSizes, 2 * code);
+            }
+            groupSizes[code]++;
+            codes[i] = code;
+        }
+        int groupCount = groupIndex.size();
+        if (k < 1 || k > groupCount) {
+            throw new IllegalArgumentException("The number of folds must be in [1, " + groupCount + "], got " + k + ".");
+        }
+        Integer[] order = new Integer[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            order[g] = g;
+        }
+        final int[] sizes = groupSizes;
+        Arrays.sort(order, (g1, g2) -> sizes[g1] != sizes[g2] ? Integer.compare(sizes[g2], sizes[g1]) : Integer.compare(g1, g2)); // 稳定排序，大组优先
+        int[] foldOfGroup = new int[groupCount];
+        int[] foldSizes = new int[k];
+        for (int g: order) {
+            int fold = 0;
+            for (int f = 1; f < k; f++) {
+                if (foldSizes[f] < foldSizes[fold]) {
+                    fold = f;
+                }
+            }
+            foldOfGroup[g] = fold;
+            foldSizes[fold] += sizes[g];
+        }
+        int[][] res = new int[k][];
+        for (int f = 0; f < k; f++) {
+            res[f] = new int[foldSizes[f]];
+        }
+        int[] filled = new int[k];
+        for (int i = 0; i < n; i++) {
+            int fold = foldOfGroup[codes[i]];
+            res[fold][filled[fold]++] = i;
+        }
+        return res;
+    }
+
+    /**
+     * Splits n rows into random train and test rows.
+     * The test split holds {@code (int) (n * testRate)} rows.
+     *
+     * @param n the number of rows
+     * @param testRate the proportion of the rows to include in the test split, [0, 1]
+     * @param random the source of randomness
+     * @return an array containing train-test split of rows, array[0] is the train rows when array[1] is the test rows
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     */
+    public static int[][] trainTestSplit(int n, double testRate, Random random) {
+        int testSize = testSize(n, testRate);
+        int[] rows = range(n);
+        // 只需洗出末尾testSize个位置，其余保持升序
+        for (int i = n - 1; i >= n - testSize; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rows[i];
+            rows[i] = rows[j];
+            rows[j] = tmp;
+        }
+        int[] test = Arrays.copyOfRange(rows, n - testSize, n);
+        return new int[][] {complement(n, test), test};
+    }
+
+    /**
+     * Splits n rows into random train and test rows.
+     *
+     * @param n the number of rows
+     * @param testRate the proportion of the rows to include in the test split, [0, 1]
+     * @param seed the seed of randomness
+     * @return an array containing train-test split of rows, array[0] is the train rows when array[1] is the test rows
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     * @see #trainTestSplit(int, double, Random)
+     */
+    public static int[][] trainTestSplit(int n, double testRate, long seed) {
+        return trainTestSplit(n, testRate, new Random(seed));
+    }
+
+    /**
+     * Splits rows into random train and test rows, preserving the percentage of each class in both splits.
+     * The test split holds {@code (int) (n * testRate)} rows in total, which are apportioned to the classes
+     * by the largest remainder method, so each class contributes {@code floor} or {@code ceil} of its share.
+     *
+     * @param classValues the class value of each row
+     * @param testRate the proportion of the rows to include in the test split, [0, 1]
+     * @param random the source of randomness
+     * @return an array containing train-test split of rows, array[0] is the train rows when array[1] is the test rows
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     */
+    public static int[][] stratifiedTrainTestSplit(double[] classValues, double testRate, Random random) {
+        int n = classValues.length;
+        int testSize = testSize(n, testRate);
+        int[] grouped = groupByClass(classValues, random);
+        int[] classSizes = runLengths(classValues, grouped);
+        int classCount = classSizes.length;
+        // 最大余数法分配各类的测试行数
+        int[] quotas = new int[classCount];
+        double[] remainders = new double[classCount];
+        int assigned = 0;
+        for (int c = 0; c < classCount; c++) {
+            double share = (double) classSizes[c] * testSize / n;
+            quotas[c] = (int) share;
+            remainders[c] = share - quotas[c];
+            assigned += quotas[c];
+        }
+        Integer[] order = new Integer[classCount];
+        for (int c = 0; c < classCount; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, (c1, c2) -> Double.compare(remainders[c2], remainders[c1]));
+        for (int i = 0; assigned < testSize; i++, assigned++) {
+            quotas[order[i]]++;
+        }
+        int[] test = new int[testSize];
+        int size = 0;
+        int start = 0;
+        for (int c = 0; c < classCount; c++) { // 每类已洗牌，取前quota个作为测试行
+            System.arraycopy(grouped, start, test, size, quotas[c]);
+            size += quotas[c];
+            start += classSizes[c];
+        }
+        return new int[][] {complement(n, test), test};
+    }
+
+    /**
+     * Splits rows into random train and test rows, preserving the percentage of each class in both splits.
+     *
+     * @param classValues the class value of each row
+     * @param testRate the proportion of the rows to include in the test split, [0, 1]
+     * @param seed the seed of randomness
+     * @return an array containing train-test split of rows, array[0] is the train rows when array[1] is the test rows
+     * @throws IllegalArgumentException if testRate is out of [0, 1]
+     * @see #stratifiedTrainTestSplit(double[], double, Random)
+     */
+    public static int[][] stratifiedTrainTestSplit(double[] classValues, double testRate, long seed) {
+        return stratifiedTrainTestSplit(classValues, testRate, new Random(seed));
+    }
+
+    /**
+     * Creates a {@link DataSetView} of the source data set for each array of rows, no instance is copied.
+     *
+     * @param src the source data set
+     * @param rows the rows of each view, e.g. the folds or the train-test split
+     * @return a view for each array of rows
+     */
+    public static DataSet[] views(DataSet src, int[][] rows) {
+        DataSet[] res = new DataSet[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            res[i] = new DataSetView(src, rows[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Returns 0, 1, ..., n-1.
+     */
+    private static int[] range(int n) {
+        int[] res = new int[n];
+        for (int i = 0; i < n; i++) {
+            res[i] = i;
+        }
+        return res;
+    }
+
+    private static void checkFolds(int n, int k) {
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("The number of folds must be in [1, " + n + "], got " + k + ".");
+        }
+    }
+
+    private static int testSize(int n, double testRate) {
+        if (!(testRate >= 0 && testRate <= 1)) {
+            throw new IllegalArgumentException("The test rate must be in [0, 1], got " + testRate + ".");
+        }
+        return (int) (n * testRate);
+    }
+
+    /**
+     * Deals the rows to k folds in turn: the i-th row goes to fold i%k.
+     */
+    private static int[][] deal(int[] rows, int k) {
+        int n = rows.length;
+        int[][] res = new int[k][];
+        for (int f = 0; f < k; f++) {
+            res[f] = new int[n / k + (f < n % k ? 1 : 0)];
+        }
+        for (int i = 0; i < n; i++) {
+            res[i % k][i / k] = rows[i];
+        }
+        return res;
+    }
+
+    /**
+     * Returns the rows grouped by class by a counting sort, the classes in ascending order
+     * and the rows of each class shuffled.
+     */
+    private static int[] groupByClass(double[] classValues, Random random) {
+        int n = classValues.length;
+        double[] classes = Arrays.stream(classValues).distinct().sorted().toArray();
+        DoubleIntHashMap classIndex = new DoubleIntHashMap(classes.length);
+        for (int c = 0; c < classes.length; c++) {
+            classIndex.put(classes[c], c);
+        }
+        int[] codes = new int[n];
+        int[] starts = new int[classes.length + 1];
+        for (int i = 0; i < n; i++) {
+            codes[i] = classIndex.getOrDefault(classValues[i], -1);
+            starts[codes[i] + 1]++;
+        }
+        for (int c = 0; c < classes.length; c++) {
+            starts[c + 1] += starts[c];
+        }
+        int[] res = new int[n];
+        int[] next = Arrays.copyOf(starts, classes.length);
+        for (int i = 0; i < n; i++) {
+            res[next[codes[i]]++] = i;
+        }
+        for (int c = 0; c < classes.length; c++) {
+            shuffle(res, starts[c], starts[c + 1], random);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of rows of each class, given the rows grouped by class.
+     */
+    private static int[] runLengths(double[] classValues, int[] grouped) {
+        int[] res = new int[grouped.length];
+        int count = 0;
+        for (int i = 0; i < grouped.length; i++) {
+            if (i == 0 || Double.compare(classValues[grouped[i]], classValues[grouped[i - 1]]) != 0) {
+                count++;
+            }
+            res[count - 1]++;
+        }
+        return Arrays.copyOf(res, count);
+    }
+}
@@ -0,0 +1,204 @@
+package main.java.core.sampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class contains static methods drawing a sample of k items without replacement
+ * in a single pass over a stream of unknown length, holding no more than k items at any time.
+ * <p>
+ * Any {@link Iterable} can be sampled, e.g. the lines of a huge file through a {@link main.java.utils.io.LineIterator}
+ * (only the sampled lines need to be parsed afterwards), or the instances of a data set.
+ * The items are kept as returned by the iterator, so an iterator reusing one object for every item must not be sampled.
+ * </p>
+ *
+ * @author Cloudy1225
+ */
+public class Reservoir {
+
+    private Reservoir() {
+    }
+
+    /**
+     * Draws k items uniformly without replacement by Algorithm L (Li, 1994).
+     * Instead of drawing a random number for each item, it draws how many items to skip before the next replacement,
+     * so the number of random numbers drawn is O(k log(n/k)).
+     * If the stream holds no more than k items, all of them are returned.
+     *
+     * @param items the stream to sample
+     * @param k the size of the sample, positive
+     * @param random the source of randomness
+     * @param <T> the type of the items
+     * @return a list holding min(k, n) sampled items, not in stream order
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public static <T> List<T> sample(Iterable<T> items, int k, Random random) {
+        checkSize(k);
+        Iterator<T> it = items.iterator();
+        List<T> reservoir = new ArrayList<>(k);
+        while (reservoir.size() < k && it.hasNext()) {
+            reservoir.add(it.next());
+        }
+        if (!it.hasNext()) {
+            return reservoir;
+        }
+        double w = Math.exp(Math.log(uniform(random)) / k);
+        long skip = skip(w, random);
+        while (it.hasNext()) {
+            T item = it.next();
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            reservoir.set(random.nextInt(k), item);
+            w *= Math.exp(Math.log(uniform(random)) / k);
+            skip = skip(w, random);
+        }
+        return reservoir;
+    }
+
+    /**
+     * Draws k items without replacement with probabilities proportional to their weights,
+     * by Algorithm A-ES (Efraimidis and Spirakis, 2006): each item gets the key {@code u^(1/weight)}
+     * of a uniform random u, and the k items with the largest keys are kept in a min-heap.
+     * Items of weight 0 are never drawn. If the stream holds no more than k items of positive weight,
+     * all of them are returned.
+     *
+     * @param items the stream to sample
+     * @param weight the weight of an item, non-negative
+     * @param k the size of the sample, positive
+     * @param random the source of randomness
+     * @param <T> the type of the items
+     * @return a list holding the sampled items in descending order of their keys
+     * @throws IllegalArgumentException if k is not positive or a weight is negative or NaN
+     */
+    public static <T> List<T> weightedSample(Iterable<T> items, ToDoubleFunction<? super T> weight, int k, Random random) {
+        checkSize(k);
+        Object[] heapItems = new Object[k];
+        double[] keys = new double[k]; // 取对数后的键 ln(u)/weight，避免u^(1/weight)下溢为0
+        int size = 0;
+        for (T item: items) {
+            double w = weight.applyAsDouble(item);
+            if (!(w >= 0)) {
+                throw new IllegalArgumentException("Weights must be non-negative, got " + w + ".");
+            }
+            if (w == 0) {
+                continue;
+            }
+            double key = Math.log(uniform(random)) / w;
+            if (size < k) {
+                siftUp(heapItems, keys, size++, item, key);
+            } else if (key > keys[0]) {
+                siftDown(heapItems, keys, item, key, k);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) { // 堆排序，键降序
+            Object item = heapItems[end];
+            double key = keys[end];
+            heapItems[end] = heapItems[0];
+            keys[end] = keys[0];
+            siftDown(heapItems, keys, item, key, end);
+        }
+        List<T> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) heapItems[i];
+            res.add(item);
+        }
+        return res;
+    }
+
+    /**
+     * Draws k rows out of n uniformly without replacement by Algorithm L.
+     *
+     * @param n the number of rows
+     * @param k the size of the sample, positive
+     * @param random the source of randomness
+     * @return min(k, n) sampled rows in ascending order
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public static int[] sampleRows(int n, int k, Random random) {
+        checkSize(k);
+        if (n <= k) {
+            int[] res = new int[n];
+            for (int i = 0; i < n; i++) {
+                res[i] = i;
+            }
+            return res;
+        }
+        int[] reservoir = new int[k];
+        for (int i = 0; i < k; i++) {
+            reservoir[i] = i;
+        }
+        double w = Math.exp(Math.log(uniform(random)) / k);
+        long next = k + skip(w, random); // 行号已知，直接跳到下一个被替换的行
+        while (next < n) {
+            reservoir[random.nextInt(k)] = (int) next;
+            w *= Math.exp(Math.log(uniform(random)) / k);
+            next += skip(w, random) + 1;
+        }
+        Arrays.sort(reservoir);
+        return reservoir;
+    }
+
+    private static void checkSize(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("The size of the sample must be positive, got " + k + ".");
+        }
+    }
+
+    /**
+     * Returns a uniform random number in (0, 1], whose logarithm is finite.
+     */
+    private static double uniform(Random random) {
+        return 1 - random.nextDouble();
+    }
+
+    /**
+     * Returns the number of items to skip before the next replacement, geometric with success probability w.
+     */
+    private static long skip(double w, Random random) {
+        double s = Math.floor(Math.log(uniform(random)) / Math.log1p(-w));
+        return s >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) s;
+    }
+
+    private static void siftUp(Object[] items, double[] keys, int slot, Object item, double key) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            items[slot] = items[parent];
+            keys[slot] = keys[parent];
+            slot = parent;
+        }
+        items[slot] = item;
+        keys[slot] = key;
+    }
+
+    /**
+     * Replaces the root by the item and moves it down within [0, end) until no child has a smaller key.
+     */
+    private static void siftDown(Object[] items, double[] keys, Object item, double key, int end) {
+        int slot = 0;
+        int half = end >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < end && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            items[slot] = items[child];
+            keys[slot] = keys[child];
+            slot = child;
+        }
+        items[slot] = item;
+        keys[slot] = key;
+    }
+}
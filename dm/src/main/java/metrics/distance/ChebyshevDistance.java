@@ -1,5 +1,6 @@
 package main.java.metrics.distance;
 
+import main.java.core.FloatInstance;
 import main.java.core.Instance;
 import main.java.core.exception.DimensionNotMatchedException;
 
@@ -15,6 +16,12 @@ public class ChebyshevDistance implements DistanceMetric{
         if (nAttributes != y.dimensionality()) {
             throw new DimensionNotMatchedException("Both instances should contain the same number of attributes.");
         }
+        if (x instanceof FloatInstance) {
+            return floatMeasure((FloatInstance) x, y, nAttributes);
+        }
+        if (y instanceof FloatInstance) { // 距离对称，交换后结果不变
+            return floatMeasure((FloatInstance) y, x, nAttributes);
+        }
         double distance = 0;
         for (int i = 0; i < nAttributes; i++) {
             double d_i = x.attribute(i) - y.attribute(i);
@@ -27,4 +34,38 @@ public class ChebyshevDistance implements DistanceMetric{
         }
         return distance;
     }
+
+    /**
+     * Float kernel: the largest absolute difference of a float instance and any instance.
+     * The backing array of x is read directly, and so is that of y if it is a float instance too.
+     */
+    private static double floatMeasure(FloatInstance x, Instance y, int nAttributes) {
+        float[] a = x.floatArray();
+        int from = x.offset();
+        double distance = 0;
+        if (y instanceof FloatInstance) {
+            float[] b = ((FloatInstance) y).floatArray();
+            int offset = ((FloatInstance) y).offset();
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = (double) a[from + i] - b[offset + i];
+                if (d_i < 0) {
+                    d_i = -d_i;
+                }
+                if (d_i > distance) {
+                    distance = d_i;
+                }
+            }
+        } else {
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = a[from + i] - y.attribute(i);
+                if (d_i < 0) {
+                    d_i = -d_i;
+                }
+                if (d_i > distance) {
+                    distance = d_i;
+                }
+            }
+        }
+        return distance;
+    }
 }
@@ -1,6 +1,8 @@
 package main.java.metrics.distance;
 
+import main.java.core.FloatInstance;
 import main.java.core.Instance;
+import main.java.core.SparseInstance;
 import main.java.core.exception.DimensionNotMatchedException;
 
 /**
@@ -15,6 +17,15 @@ public class EuclideanDistance implements DistanceMetric{
         if (nAttributes != y.dimensionality()) {
             throw new DimensionNotMatchedException("Both instances should contain the same number of attributes.");
         }
+        if (x instanceof FloatInstance) {
+            return Math.sqrt(floatSquared((FloatInstance) x, y, nAttributes));
+        }
+        if (y instanceof FloatInstance) { // 距离对称，交换后结果不变
+            return Math.sqrt(floatSquared((FloatInstance) y, x, nAttributes));
+        }
+        if (x instanceof SparseInstance && y instanceof SparseInstance) {
+            return Math.sqrt(sparseSquared((SparseInstance) x, (SparseInstance) y));
+        }
         double sum = 0;
         for (int i = 0; i < nAttributes; i++) {
             double d_i = x.attribute(i) - y.attribute(i);
@@ -22,4 +33,56 @@ public class EuclideanDistance implements DistanceMetric{
         }
         return Math.sqrt(sum);
     }
+
+    /**
+     * Merges the non-zeros of two sparse instances, attributes both zero contribute nothing.
+     */
+    private static double sparseSquared(SparseInstance x, SparseInstance y) {
+        int nx = x.nnz(), ny = y.nnz();
+        int p = 0, q = 0;
+        double sum = 0;
+        while (p < nx && q < ny) {
+            int i = x.index(p), j = y.index(q);
+            double d;
+            if (i == j) {
+                d = x.value(p++) - y.value(q++);
+            } else if (i < j) {
+                d = x.value(p++);
+            } else {
+                d = y.value(q++);
+            }
+            sum += d * d;
+        }
+        for (; p < nx; p++) {
+            sum += x.value(p) * x.value(p);
+        }
+        for (; q < ny; q++) {
+            sum += y.value(q) * y.value(q);
+        }
+        return sum;
+    }
+
+    /**
+     * Squared distance of a float instance and any instance, the floats are widened before subtracting.
+     * The backing array of x is read directly, and so is that of y if it is a float instance too.
+     */
+    private static double floatSquared(FloatInstance x, Instance y, int nAttributes) {
+        float[] a = x.floatArray();
+        int from = x.offset();
+        double sum = 0;
+        if (y instanceof FloatInstance) {
+            float[] b = ((FloatInstance) y).floatArray();
+            int offset = ((FloatInstance) y).offset();
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = (double) a[from + i] - b[offset + i];
+                sum += d_i * d_i;
+            }
+        } else {
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = a[from + i] - y.attribute(i);
+                sum += d_i * d_i;
+            }
+        }
+        return sum;
+    }
 }
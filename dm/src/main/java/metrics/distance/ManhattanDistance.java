@@ -1,6 +1,8 @@
 package main.java.metrics.distance;
 
+import main.java.core.FloatInstance;
 import main.java.core.Instance;
+import main.java.core.SparseInstance;
 import main.java.core.exception.DimensionNotMatchedException;
 
 /**
@@ -15,6 +17,15 @@ public class ManhattanDistance implements DistanceMetric{
         if (nAttributes != y.dimensionality()) {
             throw new DimensionNotMatchedException("Both instances should contain the same number of attributes.");
         }
+        if (x instanceof FloatInstance) {
+            return floatMeasure((FloatInstance) x, y, nAttributes);
+        }
+        if (y instanceof FloatInstance) { // 距离对称，交换后结果不变
+            return floatMeasure((FloatInstance) y, x, nAttributes);
+        }
+        if (x instanceof SparseInstance && y instanceof SparseInstance) {
+            return sparseMeasure((SparseInstance) x, (SparseInstance) y);
+        }
         double distance = 0;
         for (int i = 0; i < nAttributes; i++) {
             double d_i = x.attribute(i) - y.attribute(i);
@@ -22,4 +33,54 @@ public class ManhattanDistance implements DistanceMetric{
         }
         return distance;
     }
+
+    /**
+     * Merges the non-zeros of two sparse instances, attributes both zero contribute nothing.
+     */
+    private static double sparseMeasure(SparseInstance x, SparseInstance y) {
+        int nx = x.nnz(), ny = y.nnz();
+        int p = 0, q = 0;
+        double distance = 0;
+        while (p < nx && q < ny) {
+            int i = x.index(p), j = y.index(q);
+            if (i == j) {
+                distance += Math.abs(x.value(p++) - y.value(q++));
+            } else if (i < j) {
+                distance += Math.abs(x.value(p++));
+            } else {
+                distance += Math.abs(y.value(q++));
+            }
+        }
+        for (; p < nx; p++) {
+            distance += Math.abs(x.value(p));
+        }
+        for (; q < ny; q++) {
+            distance += Math.abs(y.value(q));
+        }
+        return distance;
+    }
+
+    /**
+     * Float kernel of the same sum for a float instance and any instance, each difference is taken in double.
+     * The backing array of x is read directly, and so is that of y if it is a float instance too.
+     */
+    private static double floatMeasure(FloatInstance x, Instance y, int nAttributes) {
+        float[] a = x.floatArray();
+        int from = x.offset();
+        double distance = 0;
+        if (y instanceof FloatInstance) {
+            float[] b = ((FloatInstance) y).floatArray();
+            int offset = ((FloatInstance) y).offset();
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = (double) a[from + i] - b[offset + i];
+                distance += (d_i < 0 ? -d_i : d_i);
+            }
+        } else {
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = a[from + i] - y.attribute(i);
+                distance += (d_i < 0 ? -d_i : d_i);
+            }
+        }
+        return distance;
+    }
 }
@@ -1,5 +1,6 @@
 package main.java.metrics.distance;
 
+import main.java.core.FloatInstance;
 import main.java.core.Instance;
 import main.java.core.exception.DimensionNotMatchedException;
 
@@ -31,16 +32,53 @@ public class MinkowskiDistance implements DistanceMetric{
         this.p = p;
     }
 
+    /**
+     * Returns the order of the p-norm of the difference.
+     *
+     * @return p
+     */
+    public double getP() {
+        return this.p;
+    }
+
     @Override
     public double measure(Instance x, Instance y) {
         int nAttributes = x.dimensionality();
         if (nAttributes != y.dimensionality()) {
             throw new DimensionNotMatchedException("Both instances should contain the same number of attributes.");
         }
+        if (x instanceof FloatInstance) {
+            return this.floatMeasure((FloatInstance) x, y, nAttributes);
+        }
+        if (y instanceof FloatInstance) { // 距离对称，交换后结果不变
+            return this.floatMeasure((FloatInstance) y, x, nAttributes);
+        }
         double sum = 0;
         for (int i = 0; i < nAttributes; i++) {
             sum += Math.pow(Math.abs(x.attribute(i) - y.attribute(i)), p);
         }
         return Math.pow(sum, 1 / p);
     }
+
+    /**
+     * Float kernel for a float instance and any instance, the result equals the generic loop over widened values.
+     * The backing array of x is read directly, and so is that of y if it is a float instance too.
+     */
+    private double floatMeasure(FloatInstance x, Instance y, int nAttributes) {
+        float[] a = x.floatArray();
+        int from = x.offset();
+        double sum = 0;
+        if (y instanceof FloatInstance) {
+            float[] b = ((FloatInstance) y).floatArray();
+            int offset = ((FloatInstance) y).offset();
+            for (int i = 0; i < nAttributes; i++) {
+                sum += Math.pow(Math.abs((double) a[from + i] - b[offset + i]), p);
+            }
+        } else {
+            for (int i = 0; i < nAttributes; i++) {
+                sum += Math.pow(Math.abs(a[from + i] - y.attribute(i)), p);
+            }
+        }
+        return Math.pow(sum, 1 / p);
+    }
 }
@@ -1,6 +1,8 @@
 package main.java.metrics.distance;
 
+import main.java.core.FloatInstance;
 import main.java.core.Instance;
+import main.java.core.SparseInstance;
 import main.java.core.exception.DimensionNotMatchedException;
 
 /**
@@ -24,6 +26,15 @@ public class SEuclideanDistance implements DistanceMetric{
         this.variance = V;
     }
 
+    /**
+     * Returns the variance of each feature.
+     *
+     * @return variance of each feature, not a copy
+     */
+    public double[] getVariance() {
+        return this.variance;
+    }
+
     @Override
     public double measure(Instance x, Instance y) {
         int nAttributes = x.dimensionality();
@@ -33,6 +44,15 @@ public class SEuclideanDistance implements DistanceMetric{
         if (nAttributes != this.variance.length) {
             throw new DimensionNotMatchedException("Size of V does not match.");
         }
+        if (x instanceof FloatInstance) {
+            return Math.sqrt(this.floatSquared((FloatInstance) x, y, nAttributes));
+        }
+        if (y instanceof FloatInstance) { // 距离对称，交换后结果不变
+            return Math.sqrt(this.floatSquared((FloatInstance) y, x, nAttributes));
+        }
+        if (x instanceof SparseInstance && y instanceof SparseInstance) {
+            return Math.sqrt(this.sparseSquared((SparseInstance) x, (SparseInstance) y));
+        }
         double sum = 0;
         for (int i = 0; i < nAttributes; i++) {
             double d_i = x.attribute(i) - y.attribute(i);
@@ -40,4 +60,57 @@ public class SEuclideanDistance implements DistanceMetric{
         }
         return Math.sqrt(sum);
     }
+
+    /**
+     * Merges the non-zeros of two sparse instances, attributes both zero contribute nothing.
+     */
+    private double sparseSquared(SparseInstance x, SparseInstance y) {
+        int nx = x.nnz(), ny = y.nnz();
+        int p = 0, q = 0;
+        double sum = 0;
+        while (p < nx && q < ny) {
+            int i = x.index(p), j = y.index(q);
+            double d;
+            if (i == j) {
+                d = x.value(p++) - y.value(q++);
+            } else if (i < j) {
+                d = x.value(p++);
+            } else {
+                d = y.value(q++);
+                i = j;
+            }
+            sum += d * d / variance[i];
+        }
+        for (; p < nx; p++) {
+            sum += x.value(p) * x.value(p) / variance[x.index(p)];
+        }
+        for (; q < ny; q++) {
+            sum += y.value(q) * y.value(q) / variance[y.index(q)];
+        }
+        return sum;
+    }
+
+    /**
+     * Float kernel of the weighted squared sum for a float instance and any instance.
+     * The backing array of x is read directly, and so is that of y if it is a float instance too.
+     */
+    private double floatSquared(FloatInstance x, Instance y, int nAttributes) {
+        float[] a = x.floatArray();
+        int from = x.offset();
+        double sum = 0;
+        if (y instanceof FloatInstance) {
+            float[] b = ((FloatInstance) y).floatArray();
+            int offset = ((FloatInstance) y).offset();
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = (double) a[from + i] - b[offset + i];
+                sum += d_i * d_i / this.variance[i];
+            }
+        } else {
+            for (int i = 0; i < nAttributes; i++) {
+                double d_i = a[from + i] - y.attribute(i);
+                sum += d_i * d_i / this.variance[i];
+            }
+        }
+        return sum;
+    }
 }
@@ -0,0 +1,285 @@
+package main.java.preprocessing.encoding;
+
+import main.java.core.collection.CategoryDictionary;
+import main.java.core.exception.EstimatorNotFittedException;
+import main.java.preprocessing.encoding.exception.EncodingNotFoundException;
+import main.java.preprocessing.encoding.exception.LabelUnseenException;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Encodes string labels with int codes between 0 and n_classes-1, in order of first appearance
+ * as {@link LabelEncoder} does, or in natural order after {@link #sort()}.
+ * <p>
+ * Labels are coded by a {@link CategoryDictionary}, the open-addressing dictionary the file loaders code categorical
+ * values with, so no code is boxed and no tree is walked per label, and codes are written into primitive arrays
+ * supplied by the caller.
+ * In parallel mode, the labels are divided into at most {@value #MAX_BLOCKS} blocks of at least {@value #BLOCK_SIZE} labels,
+ * each block is coded by its own dictionary in a task of the common fork-join pool,
+ * and the dictionaries are merged in block order, so the codes are the same as in sequential mode.
+ * </p>
+ * Attention: labels must not be <tt>null</tt>.
+ *
+ * @author Cloudy1225
+ * @see LabelEncoder
+ */
+public class DictionaryEncoder extends Encoder<String> {
+
+    /**
+     * The number of labels handled by one task in parallel mode.
+     */
+    public static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * The maximum number of tasks in parallel mode.
+     */
+    private static final int MAX_BLOCKS = 64;
+
+    /**
+     * Holds the code of each label, null until fitted.
+     */
+    private CategoryDictionary dictionary;
+
+    /**
+     * Creates a DictionaryEncoder.
+     */
+    public DictionaryEncoder() {}
+
+    /**
+     * Fits the encoder, coding labels in order of first appearance.
+     *
+     * @param labels an array of target values
+     */
+    public void fit(String[] labels) {
+        this.fit(labels, false);
+    }
+
+    /**
+     * Fits the encoder, coding labels in order of first appearance.
+     *
+     * @param labels an array of target values
+     * @param parallel whether to code blocks of labels in parallel
+     */
+    public void fit(String[] labels, boolean parallel) {
+        this.fit(labels, parallel, null, null);
+    }
+
+    /**
+     * Fits the encoder and returns encoded labels.
+     *
+     * @param labels an array of target values
+     * @param parallel whether to code blocks of labels in parallel
+     * @return an int array of encoded labels
+     */
+    public int[] fitTransform(String[] labels, boolean parallel) {
+        int[] res = new int[labels.length];
+        this.fit(labels, parallel, res, null);
+        return res;
+    }
+
+    /**
+     * Fits the encoder and writes the code of each label into the given array.
+     *
+     * @param labels an array of target values
+     * @param res an array receiving the code of labels[i] at index i
+     * @param parallel whether to code blocks of labels in parallel
+     * @throws IllegalArgumentException if res is shorter than labels
+     */
+    public void fitTransform(String[] labels, int[] res, boolean parallel) {
+        checkLength(labels, res.length);
+        this.fit(labels, parallel, res, null);
+    }
+
+    /**
+     * Fits the encoder and writes the code of each label into the given array,
+     * e.g. a column of a data set.
+     *
+     * @param labels an array of target values
+     * @param res an array receiving the code of labels[i] at index i
+     * @param parallel whether to code blocks of labels in parallel
+     * @throws IllegalArgumentException if res is shorter than labels
+     */
+    public void fitTransform(String[] labels, double[] res, boolean parallel) {
+        checkLength(labels, res.length);
+        this.fit(labels, parallel, null, res);
+    }
+
+    /**
+     * Codes the labels into intRes or doubleRes, one of which may be non-null.
+     */
+    private void fit(String[] labels, boolean parallel, int[] intRes, double[] doubleRes) {
+        int n = labels.length;
+        int blocks = parallel ? Math.min(MAX_BLOCKS, (n + BLOCK_SIZE - 1) / BLOCK_SIZE) : 1;
+        if (blocks <= 1) {
+            CategoryDictionary dictionary = new CategoryDictionary();
+            encode(labels, 0, n, dictionary, intRes, doubleRes);
+            this.dictionary = dictionary;
+            return;
+        }
+        // 每个块使用各自的字典，再按块的顺序合并
+        CategoryDictionary[] partial = IntStream.range(0, blocks).parallel()
+                .mapToObj(b -> {
+                    CategoryDictionary dictionary = new CategoryDictionary();
+                    encode(labels, from(n, blocks, b), from(n, blocks, b + 1), dictionary, intRes, doubleRes);
+                    return dictionary;
+                })
+                .toArray(CategoryDictionary[]::new);
+        CategoryDictionary dictionary = partial[0];
+        int[][] remaps = new int[blocks][];
+        for (int b = 1; b < blocks; b++) {
+            remaps[b] = dictionary.addAll(partial[b]);
+        }
+        if (intRes != null || doubleRes != null) { // 第0块的编码已经是最终编码
+            IntStream.range(1, blocks).parallel().forEach(b -> {
+                int[] remap = remaps[b];
+                for (int i = from(n, blocks, b); i < from(n, blocks, b + 1); i++) {
+                    if (intRes != null) {
+                        intRes[i] = remap[intRes[i]];
+                    } else {
+                        doubleRes[i] = remap[(int) doubleRes[i]];
+                    }
+                }
+            });
+        }
+        this.dictionary = dictionary;
+    }
+
+    private static int from(int n, int blocks, int b) {
+        return (int) ((long) n * b / blocks);
+    }
+
+    private static void encode(String[] labels, int from, int to, CategoryDictionary dictionary, int[] intRes, double[] doubleRes) {
+        for (int i = from; i < to; i++) {
+            int code = dictionary.encode(labels[i]);
+            if (intRes != null) {
+                intRes[i] = code;
+            } else if (doubleRes != null) {
+                doubleRes[i] = code;
+            }
+        }
+    }
+
+    /**
+     * Recodes the labels in natural order, so code c is the c-th smallest label.
+     *
+     * @return an array whose element c is the new code of the label coded c before,
+     * to recode arrays transformed before
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     */
+    public int[] sort() {
+        this.checkFitted();
+        return this.dictionary.sort();
+    }
+
+    /**
+     * Transforms labels to codes.
+     *
+     * @param labels an array of target values
+     * @return an int array containing labels as codes
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     * @throws LabelUnseenException if trying to transform a label that wasn't fitted
+     */
+    public int[] transform(String[] labels) {
+        int[] res = new int[labels.length];
+        this.transform(labels, res);
+        return res;
+    }
+
+    /**
+     * Transforms labels to codes written into the given array.
+     *
+     * @param labels an array of target values
+     * @param res an array receiving the code of labels[i] at index i
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     * @throws LabelUnseenException if trying to transform a label that wasn't fitted
+     * @throws IllegalArgumentException if res is shorter than labels
+     */
+    public void transform(String[] labels, int[] res) {
+        this.checkFitted();
+        checkLength(labels, res.length);
+        for (int i = 0; i < labels.length; i++) {
+            res[i] = this.code(labels[i]);
+        }
+    }
+
+    /**
+     * Transforms labels to codes written into the given array, e.g. a column of a data set.
+     *
+     * @param labels an array of target values
+     * @param res an array receiving the code of labels[i] at index i
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     * @throws LabelUnseenException if trying to transform a label that wasn't fitted
+     * @throws IllegalArgumentException if res is shorter than labels
+     */
+    public void transform(String[] labels, double[] res) {
+        this.checkFitted();
+        checkLength(labels, res.length);
+        for (int i = 0; i < labels.length; i++) {
+            res[i] = this.code(labels[i]);
+        }
+    }
+
+    private int code(String label) {
+        int code = this.dictionary.code(label);
+        if (code < 0) {
+            throw new LabelUnseenException("Given parameter contains previously unseen label: " + label + ".");
+        }
+        return code;
+    }
+
+    /**
+     * Transforms codes back to original labels.
+     *
+     * @param codes an int array of codes
+     * @return an array of original labels
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     * @throws EncodingNotFoundException if trying to transform a code out of [0, size-1]
+     */
+    public String[] inverseTransform(int[] codes) {
+        this.checkFitted();
+        String[] res = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] < 0 || codes[i] >= this.dictionary.size()) {
+                throw new EncodingNotFoundException("Given parameter contains previously untransformed encoding: " + codes[i]);
+            }
+            res[i] = this.dictionary.value(codes[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of distinct labels.
+     *
+     * @return the number of distinct labels
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     */
+    public int size() {
+        this.checkFitted();
+        return this.dictionary.size();
+    }
+
+    /**
+     * Gets the mapping between labels and encodings,
+     * sorted by label as {@link main.java.core.AttributeInfo#encodingMap} is.
+     *
+     * @return a <tt>TreeMap</tt>, key is the label, value is its code
+     * @throws EstimatorNotFittedException if this encoder is not fitted yet
+     */
+    public Map<String, Double> getEncodingMap() {
+        this.checkFitted();
+        return this.dictionary.encodingMap();
+    }
+
+    private void checkFitted() {
+        if (this.dictionary == null) {
+            throw new EstimatorNotFittedException("This encoder is not fitted yet.");
+        }
+    }
+
+    private static void checkLength(String[] labels, int length) {
+        if (length < labels.length) {
+            throw new IllegalArgumentException("The array of codes is shorter than the labels.");
+        }
+    }
+}
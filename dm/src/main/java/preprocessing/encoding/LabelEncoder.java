@@ -1,5 +1,7 @@
 package main.java.preprocessing.encoding;
 
+import main.java.core.collection.DoubleDoubleHashMap;
+import main.java.core.collection.ObjectDoubleHashMap;
 import main.java.core.exception.EstimatorNotFittedException;
 import main.java.preprocessing.encoding.exception.EncodingNotFoundException;
 import main.java.preprocessing.encoding.exception.LabelUnseenException;
@@ -14,9 +16,11 @@ import java.util.TreeMap;
  * If T is comparable, this class supports encoding by "natural-order" or by "index-order".
  * Otherwise, this class only supports encoding by "index-order".
  * Attention: there is no check for label <tt>null</tt>.
+ * String labels of high cardinality are coded faster, and optionally in parallel, by {@link DictionaryEncoder}.
  *
  * @param <T> the Java Class of labels
  * @author Cloudy1225
+ * @see DictionaryEncoder
  */
 public class LabelEncoder<T> extends Encoder<T>{
 
@@ -25,6 +29,16 @@ public class LabelEncoder<T> extends Encoder<T>{
      */
     private Map<T, Double> encodingMap;
 
+    /**
+     * Holds the same mapping as {@link #encodingMap} in a hash table, for encoding without boxing the encodings.
+     */
+    private ObjectDoubleHashMap<T> encodings;
+
+    /**
+     * Holds the same mapping as {@link #encodingMap} if labels are Double, null otherwise.
+     */
+    private DoubleDoubleHashMap doubleEncodings;
+
     /**
      * Whether this encoder has already been fitted.
      */
@@ -55,15 +69,33 @@ public class LabelEncoder<T> extends Encoder<T>{
      * @param natural true: encode by "natural-order"; false: encode by "index-order"
      */
     public void fit(T[] labels, boolean natural) {
+        this.fit(labels, natural, null);
+    }
+
+    /**
+     * Fits the label encoder and writes the encoding of each label into res if res is not null.
+     */
+    private void fit(T[] labels, boolean natural, double[] res) {
         if (!(labels instanceof Comparable[])) {
             natural = false;
         }
         this.reset(natural);
-        Double encoding = 0.0;
-        for (T label: labels) {
-            if (!this.encodingMap.containsKey(label)) {
+        this.encodings = new ObjectDoubleHashMap<>();
+        if (labels instanceof Double[]) {
+            this.doubleEncodings = new DoubleDoubleHashMap();
+        }
+        for (int i = 0; i < labels.length; i++) {
+            T label = labels[i];
+            int distinct = this.encodings.size();
+            double encoding = this.encodings.putIfAbsent(label, distinct);
+            if (this.encodings.size() > distinct) { // 首次出现的标签才装箱放入encodingMap
                 this.encodingMap.put(label, encoding);
-                encoding++;
+                if (this.doubleEncodings != null) {
+                    this.doubleEncodings.put((Double) label, encoding);
+                }
+            }
+            if (res != null) {
+                res[i] = encoding;
             }
         }
         this.fitted = true;
@@ -90,12 +122,15 @@ public class LabelEncoder<T> extends Encoder<T>{
      */
     public void fit(double[] labels, boolean natural) {
         this.reset(natural);
-        Double encoding = 0.0;
-        for (Double label: labels) {
-            T l = (T) label;
-            if (!this.encodingMap.containsKey(l)) {
+        this.encodings = new ObjectDoubleHashMap<>();
+        this.doubleEncodings = new DoubleDoubleHashMap();
+        for (double label: labels) {
+            if (!this.doubleEncodings.containsKey(label)) {
+                double encoding = this.doubleEncodings.size();
+                T l = (T) Double.valueOf(label);
+                this.doubleEncodings.put(label, encoding);
+                this.encodings.put(l, encoding);
                 this.encodingMap.put(l, encoding);
-                encoding++;
             }
         }
         this.fitted = true;
@@ -114,6 +149,8 @@ public class LabelEncoder<T> extends Encoder<T>{
         } else {
             this.encodingMap = new LinkedHashMap<>();
         }
+        this.encodings = null;
+        this.doubleEncodings = null;
         this.fitted = false;
     }
 
@@ -126,11 +163,8 @@ public class LabelEncoder<T> extends Encoder<T>{
      * @return a double array of encoded labels
      */
     public double[] fitTransform(T[] labels, boolean natural) {
-        this.fit(labels, natural);
         double[] res = new double[labels.length];
-        for (int i = 0; i < labels.length; i++) {
-            res[i] = this.encodingMap.get(labels[i]);
-        }
+        this.fit(labels, natural, res);
         return res;
     }
 
@@ -143,12 +177,7 @@ public class LabelEncoder<T> extends Encoder<T>{
      * @return a double array of encoded labels
      */
     public double[] fitTransform(T[] labels) {
-        this.fit(labels);
-        double[] res = new double[labels.length];
-        for (int i = 0; i < labels.length; i++) {
-            res[i] = this.encodingMap.get(labels[i]);
-        }
-        return res;
+        return this.fitTransform(labels, labels instanceof Comparable[]);
     }
 
     /**
@@ -165,8 +194,8 @@ public class LabelEncoder<T> extends Encoder<T>{
         }
         double[] res = new double[labels.length];
         for (int i = 0; i < labels.length; i++) {
-            Double encoding = this.encodingMap.get(labels[i]);
-            if (encoding == null) {
+            double encoding = this.encodings.getOrDefault(labels[i], -1);
+            if (encoding < 0) {
                 String msg = "Given parameter contains previously unseen label: " + labels[i] + ".";
                 throw new LabelUnseenException(msg);
             }
@@ -190,9 +219,9 @@ public class LabelEncoder<T> extends Encoder<T>{
         }
         double[] res = new double[labels.length];
         for (int i = 0; i < labels.length; i++) {
-            T l = (T) Double.valueOf(labels[i]);
-            Double encoding = this.encodingMap.get(l);
-            if (encoding == null) {
+            // 标签不是Double时，任何double标签都未出现过
+            double encoding = this.doubleEncodings == null ? -1 : this.doubleEncodings.getOrDefault(labels[i], -1);
+            if (encoding < 0) {
                 String msg = "Given parameter contains previously unseen label: " + labels[i] + ".";
                 throw new LabelUnseenException(msg);
             }
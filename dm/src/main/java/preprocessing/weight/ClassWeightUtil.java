@@ -3,8 +3,10 @@ package main.java.preprocessing.weight;
 import main.java.core.DataSet;
 import main.java.core.Instance;
 import main.java.core.WeightHandler;
-import main.java.utils.ArrayUtil;
+import main.java.core.collection.DoubleDoubleHashMap;
+import main.java.core.collection.DoubleIntHashMap;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -35,51 +37,56 @@ public class ClassWeightUtil implements WeightHandler {
      * @param classWeight a map contains weights associated with classes
      * @param sampleWeight an array containing sample weights
      * @throws IllegalArgumentException if the length of sampleWeight != the size of dataset
+     * @see #computeWeight(DataSet, Map, double[])
      */
     public static void setWeight(DataSet dataset, Map<Double, Double> classWeight, double[] sampleWeight) {
-        // 设置每个instance的权重
-        // instanceWeight = classWeight * sampleWeight
-        if (classWeight == null) { // 每个class权重为1
-            if (sampleWeight == null) { // 每个sample权重为1
-                // 1 * 1
-                for (Instance instance : dataset) {
-                    instance.setWeight(1.0);
-                }
-            } else {
-                // 1 * sampleWeight
-                if (dataset.size() != sampleWeight.length) {
-                    String msg = "sampleWeight.length = " + sampleWeight.length + ", expected " + dataset.size();
-                    throw new IllegalArgumentException(msg);
-                }
-                for (int i = 0; i < sampleWeight.length; i++) {
-                    Instance instance = dataset.instance(i);
-                    instance.setWeight(sampleWeight[i]);
-                }
-            }
+        double[] weights = computeWeight(dataset, classWeight, sampleWeight);
+        int i = 0;
+        for (Instance instance: dataset) {
+            instance.setWeight(weights[i++]);
+        }
+    }
+
+    /**
+     * Computes each instance's weight without modifying the data set.
+     * <p>
+     *     instanceWeight = classWeight * sampleWeight
+     * </p>
+     * <p>
+     * If given classWeight is null, weight of each class will be 1.
+     * If given sampleWeight is null, weight of each sample will be 1.
+     * </p>
+     * The result can be passed to fitting methods taking a weight vector,
+     * e.g. {@link main.java.core.DataSetView#weighted(DataSet, double[])}.
+     *
+     * @param dataset the data set to fit
+     * @param classWeight a map contains weights associated with classes
+     * @param sampleWeight an array containing sample weights
+     * @return a new array contains the weight of each instance
+     * @throws IllegalArgumentException if the length of sampleWeight != the size of dataset
+     */
+    public static double[] computeWeight(DataSet dataset, Map<Double, Double> classWeight, double[] sampleWeight) {
+        if (sampleWeight != null && dataset.size() != sampleWeight.length) {
+            String msg = "sampleWeight.length = " + sampleWeight.length + ", expected " + dataset.size();
+            throw new IllegalArgumentException(msg);
+        }
+        double[] res = new double[dataset.size()];
+        if (sampleWeight == null) { // 每个sample权重为1
+            Arrays.fill(res, 1.0);
         } else {
-            if (sampleWeight == null) {
-                // classWeight * 1
-                for (Instance instance: dataset) {
-                    double clazz = instance.classValue();
-                    Double clazzWeight = classWeight.get(clazz);
-                    if (clazzWeight == null) { // 若给定权重未出现该类，默认为1.0
-                        clazzWeight = 1.0;
-                    }
-                    instance.setWeight(clazzWeight);
-                }
-            } else {
-                // classWeight * sampleWeight
-                for (int i = 0; i < sampleWeight.length; i++) {
-                    Instance instance = dataset.instance(i);
-                    double clazz = instance.classValue();
-                    Double clazzWeight = classWeight.get(clazz);
-                    if (clazzWeight == null) { // 若给定权重未出现该类，默认为1.0
-                        clazzWeight = 1.0;
-                    }
-                    instance.setWeight(clazzWeight * sampleWeight[i]);
-                }
+            System.arraycopy(sampleWeight, 0, res, 0, res.length);
+        }
+        if (classWeight != null) {
+            DoubleDoubleHashMap weightMap = new DoubleDoubleHashMap(classWeight.size());
+            for (Map.Entry<Double, Double> entry: classWeight.entrySet()) {
+                weightMap.put(entry.getKey(), entry.getValue());
+            }
+            double[] classValues = dataset.classValues();
+            for (int i = 0; i < res.length; i++) {
+                res[i] *= weightMap.getOrDefault(classValues[i], 1.0); // 若给定权重未出现该类，默认为1.0
             }
         }
+        return res;
     }
 
     /**
@@ -113,13 +120,16 @@ public class ClassWeightUtil implements WeightHandler {
      */
     public static TreeMap<Double, Double> computeBalancedClassWeight(double[] classList) {
         TreeMap<Double, Double> res = new TreeMap<>(); // 键是类标签，值是对应的权重
-        TreeMap<Double, Integer> classDistMap = ArrayUtil.countDistMap(classList); // 类分布Map，记录每个类的数量
-        int nSamples = classList.length; // 样本总数
-        int nClasses = classDistMap.size(); // 类标记种数
-        for (Map.Entry<Double, Integer> entry: classDistMap.entrySet()) {
-            double weight = ((double) nSamples) / (nClasses * entry.getValue()); // 样本数 / (类种数 * 取值为该类的样本数量)
-            res.put(entry.getKey(), weight);
+        DoubleIntHashMap classDist = new DoubleIntHashMap(); // 类分布，记录每个类的数量
+        for (double clazz: classList) {
+            classDist.addTo(clazz, 1);
         }
+        int nSamples = classList.length; // 样本总数
+        int nClasses = classDist.size(); // 类标记种数
+        classDist.forEach((clazz, count) -> {
+            double weight = ((double) nSamples) / (nClasses * count); // 样本数 / (类种数 * 取值为该类的样本数量)
+            res.put(clazz, weight);
+        });
         return res;
     }
 
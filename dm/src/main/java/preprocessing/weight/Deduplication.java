@@ -0,0 +1,238 @@
+package main.java.preprocessing.weight;
+
+import main.java.core.DataSet;
+import main.java.core.DataSetView;
+
+import java.util.Arrays;
+
+/**
+ * Merges identical rows of a data set into one weighted row.
+ * <p>
+ * Two rows are identical if all their attribute values and their class values are equal,
+ * compared as by {@link Double#equals(Object)}, so missing values (NaN) are equal to each other.
+ * Each distinct row is represented by its first occurrence and weighted by the summed weight of its duplicates.
+ * Since estimators only see a row through its weight, fitting on {@link #dataset()} gives the same model
+ * as fitting on the source data set, except for criteria counting rows instead of weights,
+ * like {@code minSamplesSplit} and {@code minSamplesLeaf} of a decision tree.
+ * </p>
+ * <p>
+ * E.g.
+ * <pre>{@code
+ *     Deduplication dedup = Deduplication.of(dataset, ArrayUtil.ones(dataset.size()));
+ *     tree.fit(dedup.dataset(), dedup.weights()); // DecisionTree#fit(DataSet) weights each row 1
+ *     nb.fit(dedup.dataset()); // NaiveBayesClassifier reads the weights of the view
+ * }</pre>
+ * Results on the distinct rows are mapped back to the source rows by {@link #expand(double[])}.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSetView#weighted(DataSet, double[])
+ */
+public class Deduplication {
+
+    /**
+     * The source data set.
+     */
+    private final DataSet src;
+
+    /**
+     * The first row of each distinct row in the source data set, ascending.
+     */
+    private final int[] representatives;
+
+    /**
+     * The index of the distinct row of each source row.
+     */
+    private final int[] inverse;
+
+    /**
+     * The number of source rows merged into each distinct row.
+     */
+    private final int[] counts;
+
+    /**
+     * The summed weight of each distinct row.
+     */
+    private final double[] weights;
+
+    private Deduplication(DataSet src, int[] representatives, int[] inverse, int[] counts, double[] weights) {
+        this.src = src;
+        this.representatives = representatives;
+        this.inverse = inverse;
+        this.counts = counts;
+        this.weights = weights;
+    }
+
+    /**
+     * Merges identical rows of the data set, summing the weights of the instances.
+     *
+     * @param dataset the source data set
+     * @return the deduplication of the data set
+     */
+    public static Deduplication of(DataSet dataset) {
+        return of(dataset, dataset.weightValues());
+    }
+
+    /**
+     * Merges identical rows of the data set, summing the given weights.
+     *
+     * @param dataset the source data set
+     * @param weights the weight of each row
+     * @return the deduplication of the data set
+     * @throws IllegalArgumentException if the length of weights != the size of dataset
+     */
+    public static Deduplication of(DataSet dataset, double[] weights) {
+        int n = dataset.size();
+        if (weights.length != n) {
+            String msg = "weights.length = " + weights.length + ", expected " + n;
+            throw new IllegalArgumentException(msg);
+        }
+        int d = dataset.dimensionality();
+        double[][] columns = new double[d + 1][];
+        for (int j = 0; j < d; j++) {
+            columns[j] = dataset.attrValues(j);
+        }
+        columns[d] = dataset.classValues();
+
+        long[] hashes = new long[n];
+        for (double[] column: columns) { // 按列累加每行的哈希，顺序读取列数组
+            for (int i = 0; i < n; i++) {
+                hashes[i] = hashes[i] * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(column[i]);
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2 * n - 1, 1)) << 1;
+        int mask = capacity - 1;
+        int[] table = new int[capacity]; // 开放寻址，存放不同行的编号+1，0为空
+        int[] representatives = new int[n];
+        int[] inverse = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            long h = mix(hashes[i]);
+            int slot = (int) h & mask;
+            int code;
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    code = size;
+                    representatives[size++] = i;
+                    table[slot] = size;
+                    break;
+                }
+                int row = representatives[entry - 1];
+                if (hashes[row] == hashes[i] && sameRow(columns, row, i)) {
+                    code = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            inverse[i] = code;
+        }
+
+        int[] counts = new int[size];
+        double[] summed = new double[size];
+        for (int i = 0; i < n; i++) {
+            counts[inverse[i]]++;
+            summed[inverse[i]] += weights[i];
+        }
+        return new Deduplication(dataset, Arrays.copyOf(representatives, size), inverse, counts, summed);
+    }
+
+    private static boolean sameRow(double[][] columns, int row1, int row2) {
+        for (double[] column: columns) {
+            if (Double.doubleToLongBits(column[row1]) != Double.doubleToLongBits(column[row2])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scrambles the bits of a row hash (the finalizer of MurmurHash3).
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Returns the number of distinct rows.
+     *
+     * @return the number of distinct rows
+     */
+    public int size() {
+        return this.representatives.length;
+    }
+
+    /**
+     * Returns a view of the distinct rows of the source data set, each weighted by the summed weight of its duplicates.
+     * No instance is copied.
+     *
+     * @return a weighted view of the distinct rows
+     */
+    public DataSet dataset() {
+        return DataSetView.weighted(new DataSetView(this.src, this.representatives), this.weights);
+    }
+
+    /**
+     * Returns the summed weight of each distinct row.
+     * The returned array is the storage of this deduplication and must not be modified.
+     *
+     * @return the weight of each distinct row
+     */
+    public double[] weights() {
+        return this.weights;
+    }
+
+    /**
+     * Returns the number of source rows merged into each distinct row.
+     * The returned array is the storage of this deduplication and must not be modified.
+     *
+     * @return the multiplicity of each distinct row
+     */
+    public int[] counts() {
+        return this.counts;
+    }
+
+    /**
+     * Returns the first row of each distinct row in the source data set, in ascending order.
+     * The returned array is the storage of this deduplication and must not be modified.
+     *
+     * @return the representative source row of each distinct row
+     */
+    public int[] representatives() {
+        return this.representatives;
+    }
+
+    /**
+     * Returns the index of the distinct row of each source row.
+     * The returned array is the storage of this deduplication and must not be modified.
+     *
+     * @return the distinct row of each source row
+     */
+    public int[] inverse() {
+        return this.inverse;
+    }
+
+    /**
+     * Maps values of the distinct rows back to the source rows, e.g. predictions.
+     *
+     * @param values a value for each distinct row
+     * @return a new array containing the value of each source row
+     * @throws IllegalArgumentException if the length of values != the number of distinct rows
+     */
+    public double[] expand(double[] values) {
+        if (values.length != this.size()) {
+            String msg = "values.length = " + values.length + ", expected " + this.size();
+            throw new IllegalArgumentException(msg);
+        }
+        double[] res = new double[this.inverse.length];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = values[this.inverse[i]];
+        }
+        return res;
+    }
+}
@@ -1,6 +1,7 @@
 package main.java.utils;
 
 
+import main.java.core.collection.DoubleIntHashMap;
 import main.java.core.collection.DoubleList;
 
 import java.util.*;
@@ -48,15 +49,12 @@ public class ArrayUtil {
      * @return a sorted {@code TreeMap<Double, Integer>}
      */
     public static TreeMap<Double, Integer> countDistMap(double[] values) {
-        TreeMap<Double, Integer> res = new TreeMap<>();
+        DoubleIntHashMap counts = new DoubleIntHashMap();
         for (double value: values) {
-            if (res.containsKey(value)) {
-                int count = res.get(value);
-                res.put(value, count+1);
-            } else {
-                res.put(value, 1);
-            }
+            counts.addTo(value, 1);
         }
+        TreeMap<Double, Integer> res = new TreeMap<>(); // 只对不同的取值装箱
+        counts.forEach(res::put);
         return res;
     }
 
@@ -0,0 +1,363 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.ColumnarDataSet;
+import main.java.core.collection.CategoryDictionary;
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A reader of files in ARFF (Attribute-Relation File Format), as written by Weka:
+ * <pre>
+ * &#64;relation weather
+ * &#64;attribute outlook {sunny, overcast, rainy}
+ * &#64;attribute temperature numeric
+ * &#64;attribute play {yes, no}
+ * &#64;data
+ * sunny,85,no
+ * {1 70, 2 yes}
+ * </pre>
+ * <p>
+ * Numeric, real and integer attributes are numeric. Nominal attributes are categorical,
+ * their declared values are coded 0, 1, 2, ... in order of declaration and stored
+ * into {@link AttributeInfo#encodingMap} when the header is read, so the data is coded
+ * by one dictionary lookup per value and no second encoding pass is needed.
+ * String attributes are categorical, coded in order of first appearance. Date and relational attributes are not supported.
+ * </p>
+ * <p>
+ * The data is scanned as bytes by a {@link CsvParser} and appended to primitive columns
+ * that become the columns of a {@link ColumnarDataSet}, as {@link FileTool#loadColumnarDataSet(File, String, boolean, boolean)} does.
+ * Values may be quoted by single or double quotes, in dense rows a quoted value may contain commas.
+ * Missing values "?" are read as {@code NaN},
+ * and in sparse rows such as "{1 70, 2 yes}" the values not listed are 0, i.e. the first declared value of a nominal attribute.
+ * As in Weka, the class is the last attribute if the data set is labeled.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see FileTool#loadArffDataSet(File, boolean)
+ */
+public class ArffReader {
+
+    private static final byte QUOTE = '\'';
+
+    private static final byte DOUBLE_QUOTE = '"';
+
+    private static final byte MISSING = '?';
+
+    /**
+     * The columns being filled, the class is the last column.
+     */
+    private final CsvColumns columns;
+
+    /**
+     * Whether the values of each column are declared, so new values are errors.
+     */
+    private final boolean[] declared;
+
+    private ArffReader(CsvColumns columns, boolean[] declared) {
+        this.columns = columns;
+        this.declared = declared;
+    }
+
+    /**
+     * Reads an ARFF file into a {@link ColumnarDataSet}.
+     * A gzip-compressed file is inflated on the fly.
+     *
+     * @param file the source file
+     * @param labeled whether the last attribute is the class or not
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws IllegalArgumentException if the header is malformed, or a nominal value is not declared
+     * @throws DimensionNotMatchedException if a row does not have one value per attribute
+     */
+    public static ColumnarDataSet read(File file, boolean labeled) throws IOException {
+        return read(FileTool.openInputStream(file), labeled);
+    }
+
+    /**
+     * Reads ARFF text from a stream into a {@link ColumnarDataSet}.
+     *
+     * @param in the stream to read, closed when the data is read
+     * @param labeled whether the last attribute is the class or not
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws IllegalArgumentException if the header is malformed, or a nominal value is not declared
+     * @throws DimensionNotMatchedException if a row does not have one value per attribute
+     */
+    public static ColumnarDataSet read(InputStream in, boolean labeled) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        try (CsvParser parser = new CsvParser(buffered, ",", true)) {
+            ArffReader reader = readHeader(buffered, labeled); // 头部逐字节读取，之后的字节由parser接着读
+            while (parser.next()) {
+                reader.append(parser);
+            }
+            return reader.columns.toColumnarDataSet();
+        }
+    }
+
+    /**
+     * Reads the lines up to "@data" and creates empty columns for the declared attributes.
+     */
+    private static ArffReader readHeader(InputStream in, boolean labeled) throws IOException {
+        List<AttributeInfo> infos = new ArrayList<>();
+        List<List<String>> nominalValues = new ArrayList<>();
+        String line;
+        while ((line = readLine(in)) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '%') {
+                continue;
+            }
+            String keyword = line.split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+            if (keyword.equals("@data")) {
+                return newReader(infos, nominalValues, labeled);
+            } else if (keyword.equals("@attribute")) {
+                parseAttribute(line.substring(keyword.length()).trim(), infos, nominalValues);
+            } else if (!keyword.equals("@relation")) {
+                throw new IllegalArgumentException("Unexpected line in the ARFF header: " + line);
+            }
+        }
+        throw new EOFException("The file ends before @data.");
+    }
+
+    /**
+     * Parses the name and type following "@attribute".
+     */
+    private static void parseAttribute(String declaration, List<AttributeInfo> infos, List<List<String>> nominalValues) {
+        int nameEnd;
+        String name;
+        char first = declaration.isEmpty() ? ' ' : declaration.charAt(0);
+        if (first == '\'' || first == '"') {
+            nameEnd = declaration.indexOf(first, 1);
+            if (nameEnd < 0) {
+                throw new IllegalArgumentException("Unclosed quote in attribute declaration: " + declaration);
+            }
+            name = declaration.substring(1, nameEnd++);
+        } else {
+            nameEnd = 0;
+            while (nameEnd < declaration.length() && !Character.isWhitespace(declaration.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            name = declaration.substring(0, nameEnd);
+        }
+        String type = declaration.substring(nameEnd).trim();
+        int index = infos.size();
+        if (type.startsWith("{")) {
+            if (!type.endsWith("}")) {
+                throw new IllegalArgumentException("Unclosed nominal values of attribute " + name + ": " + type);
+            }
+            infos.add(new AttributeInfo(name, AttributeInfo.CATEGORICAL, index));
+            nominalValues.add(splitNominal(type.substring(1, type.length() - 1)));
+            return;
+        }
+        String lower = type.toLowerCase(Locale.ROOT);
+        if (lower.equals("numeric") || lower.equals("real") || lower.equals("integer")) {
+            infos.add(new AttributeInfo(name, AttributeInfo.NUMERIC, index));
+        } else if (lower.equals("string")) {
+            infos.add(new AttributeInfo(name, AttributeInfo.CATEGORICAL, index));
+        } else {
+            throw new IllegalArgumentException("Unsupported type of attribute " + name + ": " + type);
+        }
+        nominalValues.add(null);
+    }
+
+    /**
+     * Creates the columns, coding the declared nominal values in order of declaration.
+     */
+    private static ArffReader newReader(List<AttributeInfo> infos, List<List<String>> nominalValues, boolean labeled) {
+        if (infos.isEmpty()) {
+            throw new IllegalArgumentException("No attribute is declared.");
+        }
+        int dimension = labeled ? infos.size() - 1 : infos.size();
+        AttributeInfo[] attributeInfos = infos.subList(0, dimension).toArray(new AttributeInfo[0]);
+        AttributeInfo classInfo = null;
+        if (labeled) {
+            classInfo = infos.get(dimension);
+            classInfo.index = -1;
+        }
+        CsvColumns columns = new CsvColumns(attributeInfos, classInfo);
+        boolean[] declared = new boolean[infos.size()];
+        for (int j = 0; j < declared.length; j++) {
+            List<String> values = nominalValues.get(j);
+            if (values != null) {
+                CategoryDictionary dictionary = columns.dictionaries[j];
+                for (String value : values) {
+                    dictionary.encode(value);
+                }
+                infos.get(j).encodingMap = dictionary.encodingMap();
+                declared[j] = true;
+            }
+        }
+        return new ArffReader(columns, declared);
+    }
+
+    /**
+     * Appends the row held by the parser, dense or sparse.
+     */
+    private void append(CsvParser parser) {
+        byte[] buf = parser.buffer();
+        int width = this.declared.length;
+        int row = this.columns.newRow();
+        int first = skipBlanks(buf, parser.start(0), parser.end(0));
+        if (first < parser.end(0) && buf[first] == '{') {
+            this.appendSparse(parser, row);
+            return;
+        }
+        int count = parser.fieldCount();
+        if (count != width) {
+            String msg = "Record " + parser.recordCount() + " has " + count + " values, expected " + width + ".";
+            throw new DimensionNotMatchedException(msg);
+        }
+        for (int j = 0; j < width; j++) {
+            this.columns.columns[j][row] = this.parse(parser, j, parser.start(j), parser.end(j));
+        }
+    }
+
+    /**
+     * Appends a sparse row "{index value, index value, ...}", values not listed are 0.
+     */
+    private void appendSparse(CsvParser parser, int row) {
+        byte[] buf = parser.buffer();
+        for (int f = 0; f < parser.fieldCount(); f++) {
+            int from = skipBlanks(buf, parser.start(f), parser.end(f));
+            int to = parser.end(f);
+            if (f == 0) {
+                from = skipBlanks(buf, from + 1, to); // 跳过'{'
+            }
+            if (f == parser.fieldCount() - 1) {
+                while (to > from && CsvParser.isBlank(buf[to - 1])) {
+                    to--;
+                }
+                if (to == from || buf[to - 1] != '}') {
+                    throw new IllegalArgumentException("Record " + parser.recordCount() + ": the sparse row is not closed by '}'.");
+                }
+                to--;
+            }
+            if (skipBlanks(buf, from, to) == to) {
+                continue; // 空的稀疏行"{}"
+            }
+            int space = from;
+            int index = 0;
+            for (; space < to && !CsvParser.isBlank(buf[space]); space++) {
+                int digit = buf[space] - '0';
+                if (digit < 0 || digit > 9 || index > this.declared.length) {
+                    throw new NumberFormatException("Record " + parser.recordCount() + ": '" +
+                            new String(buf, from, to - from, StandardCharsets.UTF_8) + "' is not an index-value pair.");
+                }
+                index = index * 10 + digit;
+            }
+            if (space == from || index >= this.declared.length) {
+                throw new IllegalArgumentException("Record " + parser.recordCount() + ": index " +
+                        new String(buf, from, space - from, StandardCharsets.UTF_8) + " is not in [0, " + this.declared.length + ").");
+            }
+            int value = skipBlanks(buf, space, to);
+            while (to > value && CsvParser.isBlank(buf[to - 1])) {
+                to--;
+            }
+            if (to - value >= 2 && (buf[value] == QUOTE || buf[value] == DOUBLE_QUOTE) && buf[to - 1] == buf[value]) {
+                value++; // 稀疏行的值不是parser划分的字段，在此去掉引号
+                to--;
+            }
+            this.columns.columns[index][row] = this.parse(parser, index, value, to);
+        }
+    }
+
+    /**
+     * Parses the value of column j at [from, to) of the buffer of the parser.
+     */
+    private double parse(CsvParser parser, int j, int from, int to) {
+        byte[] buf = parser.buffer();
+        from = skipBlanks(buf, from, to);
+        while (to > from && CsvParser.isBlank(buf[to - 1])) {
+            to--;
+        }
+        if (to - from == 1 && buf[from] == MISSING) {
+            return Double.NaN;
+        }
+        CategoryDictionary dictionary = this.columns.dictionaries[j];
+        if (dictionary == null) {
+            try {
+                return CsvParser.parseDouble(buf, from, to);
+            } catch (NumberFormatException e) {
+                throw new NumberFormatException("Record " + parser.recordCount() + ", attribute " + j + ": " + e.getMessage());
+            }
+        }
+        if (!this.declared[j]) {
+            return dictionary.encode(buf, from, to);
+        }
+        int code = dictionary.code(buf, from, to);
+        if (code < 0) {
+            throw new IllegalArgumentException("Record " + parser.recordCount() + ": '" +
+                    new String(buf, from, to - from, StandardCharsets.UTF_8) + "' is not a declared value of attribute " + j + ".");
+        }
+        return code;
+    }
+
+    /**
+     * Splits the declared values of a nominal attribute, separated by commas and possibly quoted.
+     */
+    private static List<String> splitNominal(String values) {
+        List<String> res = new ArrayList<>();
+        int i = 0;
+        int n = values.length();
+        while (i < n) {
+            while (i < n && Character.isWhitespace(values.charAt(i))) {
+                i++;
+            }
+            if (i == n) {
+                break;
+            }
+            char c = values.charAt(i);
+            String value;
+            if (c == '\'' || c == '"') {
+                int close = values.indexOf(c, i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed quote in nominal values: " + values);
+                }
+                value = values.substring(i + 1, close);
+                i = close + 1;
+                while (i < n && values.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int comma = values.indexOf(',', i);
+                int end = comma < 0 ? n : comma;
+                value = values.substring(i, end).trim();
+                i = end;
+            }
+            res.add(value);
+            i++; // 跳过','
+        }
+        return res;
+    }
+
+    /**
+     * Reads a line of UTF-8 text byte by byte, so the stream is left at the start of the next line.
+     *
+     * @return the line without its line break, null at the end of the stream
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            line.write(b);
+        }
+        if (b < 0 && line.size() == 0) {
+            return null;
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static int skipBlanks(byte[] buf, int from, int to) {
+        while (from < to && CsvParser.isBlank(buf[from])) {
+            from++;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,362 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.ColumnarDataSet;
+import main.java.core.DataSet;
+import main.java.core.DenseInstance;
+import main.java.core.StandardDataSet;
+import main.java.core.collection.CategoryDictionary;
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Primitive column buffers filled record by record from a {@link CsvParser}.
+ * Numeric fields are parsed from the bytes and categorical fields are coded by a {@link CategoryDictionary} per column,
+ * so no {@code String} is kept per row. Columns of a {@link CsvSchema} are parsed by the parser of their kind.
+ * The class column, if any, is the last column.
+ *
+ * @author Cloudy1225
+ * @see FileTool
+ */
+class CsvColumns {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Holds each attribute's information.
+     */
+    final AttributeInfo[] attributeInfos;
+
+    /**
+     * Holds class information, null if unlabeled.
+     */
+    final AttributeInfo classInfo;
+
+    /**
+     * The kind of each column, see {@link CsvSchema}, which selects its parser.
+     */
+    final byte[] kinds;
+
+    /**
+     * The dictionary of each {@link CsvSchema#CATEGORICAL} column, null for other columns.
+     */
+    final CategoryDictionary[] dictionaries;
+
+    /**
+     * The columns: columns[column][row], with spare capacity at the end.
+     */
+    double[][] columns;
+
+    /**
+     * The number of rows.
+     */
+    int size;
+
+    /**
+     * The length of each column array.
+     */
+    private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * Creates empty columns for the given attributes and class.
+     *
+     * @param attributeInfos attributes' information
+     * @param classInfo class information, null if unlabeled
+     */
+    CsvColumns(AttributeInfo[] attributeInfos, AttributeInfo classInfo) {
+        this(attributeInfos, classInfo, defaultKinds(attributeInfos, classInfo));
+    }
+
+    /**
+     * Creates empty columns for the given attributes and class, each parsed by the parser of its kind.
+     *
+     * @param attributeInfos attributes' information
+     * @param classInfo class information, null if unlabeled
+     * @param kinds the kind of each column, the class is the last one
+     */
+    CsvColumns(AttributeInfo[] attributeInfos, AttributeInfo classInfo, byte[] kinds) {
+        this.attributeInfos = attributeInfos;
+        this.classInfo = classInfo;
+        this.kinds = kinds;
+        int width = this.width();
+        this.dictionaries = new CategoryDictionary[width];
+        this.columns = new double[width][DEFAULT_CAPACITY];
+        for (int j = 0; j < width; j++) {
+            if (kinds[j] == CsvSchema.CATEGORICAL) {
+                this.dictionaries[j] = new CategoryDictionary();
+            }
+        }
+    }
+
+    /**
+     * Returns the kinds of columns of the given types: categorical or double.
+     */
+    private static byte[] defaultKinds(AttributeInfo[] attributeInfos, AttributeInfo classInfo) {
+        byte[] res = new byte[attributeInfos.length + (classInfo == null ? 0 : 1)];
+        for (int j = 0; j < res.length; j++) {
+            AttributeInfo info = j < attributeInfos.length ? attributeInfos[j] : classInfo;
+            res[j] = info.type == AttributeInfo.CATEGORICAL ? CsvSchema.CATEGORICAL : CsvSchema.DOUBLE;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of columns including the class column.
+     */
+    int width() {
+        return this.attributeInfos.length + (this.classInfo == null ? 0 : 1);
+    }
+
+    private AttributeInfo info(int column) {
+        return column < this.attributeInfos.length ? this.attributeInfos[column] : this.classInfo;
+    }
+
+    /**
+     * Appends every remaining record of the parser.
+     *
+     * @param parser the parser positioned before the first data record
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws DimensionNotMatchedException if a record does not have one value per column
+     */
+    void readAll(CsvParser parser) throws IOException {
+        while (parser.next()) {
+            this.append(parser);
+        }
+    }
+
+    /**
+     * Appends the current record of the parser.
+     * Extra empty fields at the end of a record are ignored, as {@link String#split(String)} does.
+     *
+     * @param parser the parser holding a record
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws DimensionNotMatchedException if the record does not have one value per column
+     */
+    void append(CsvParser parser) {
+        int width = this.width();
+        this.checkWidth(parser, width);
+        int row = this.newRow();
+        for (int j = 0; j < width; j++) {
+            this.columns[j][row] = this.parse(parser, j);
+        }
+    }
+
+    /**
+     * Codes the categorical fields of the current record of the parser without appending the record,
+     * so that a pass over a file fills the dictionaries.
+     *
+     * @param parser the parser holding a record
+     * @throws DimensionNotMatchedException if the record does not have one value per column
+     */
+    void collectCategories(CsvParser parser) {
+        this.checkWidth(parser, this.width());
+        for (int j = 0; j < this.dictionaries.length; j++) {
+            if (this.dictionaries[j] != null) {
+                parser.encode(j, this.dictionaries[j]);
+            }
+        }
+    }
+
+    /**
+     * Parses the current record of the parser into the given row without appending it.
+     * Categorical values are looked up in the dictionaries, which are not changed,
+     * so rows can be parsed by several threads once the dictionaries are complete.
+     *
+     * @param parser the parser holding a record
+     * @param row an array receiving the value of column j at index j
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws DimensionNotMatchedException if the record does not have one value per column
+     * @throws IllegalStateException if a categorical value is not in the dictionary of its column
+     */
+    void parse(CsvParser parser, double[] row) {
+        int width = this.width();
+        this.checkWidth(parser, width);
+        for (int j = 0; j < width; j++) {
+            if (this.dictionaries[j] == null) {
+                row[j] = this.parse(parser, j);
+                continue;
+            }
+            int code = this.dictionaries[j].code(parser.buffer(), parser.start(j), parser.end(j));
+            if (code < 0) {
+                throw new IllegalStateException("Record " + parser.recordCount() + ": unseen category '" +
+                        parser.field(j) + "' of attribute " + this.info(j).name + ".");
+            }
+            row[j] = code;
+        }
+    }
+
+    /**
+     * Parses field j of the current record of the parser by the parser of its kind.
+     */
+    private double parse(CsvParser parser, int j) {
+        switch (this.kinds[j]) {
+            case CsvSchema.INTEGER:
+                return parser.parseInteger(j);
+            case CsvSchema.BOOLEAN:
+                int value = CsvSchema.parseBoolean(parser.buffer(), parser.start(j), parser.end(j));
+                if (value < 0) {
+                    throw new IllegalArgumentException("Record " + parser.recordCount() + ", field " + j +
+                            ": '" + parser.field(j) + "' is neither true nor false.");
+                }
+                return value;
+            case CsvSchema.CATEGORICAL:
+                return parser.encode(j, this.dictionaries[j]);
+            default:
+                return parser.parseDouble(j);
+        }
+    }
+
+    /**
+     * Appends a row of zeros, to be filled by the caller.
+     *
+     * @return the index of the row
+     */
+    int newRow() {
+        if (this.size == this.capacity) {
+            this.grow();
+        }
+        return this.size++;
+    }
+
+    private void checkWidth(CsvParser parser, int width) {
+        int count = parser.fieldCount();
+        while (count > width && parser.field(count - 1).isEmpty()) {
+            count--;
+        }
+        if (count != width) {
+            String msg = "Record " + parser.recordCount() + " has " + count + " values, expected " + width + ".";
+            throw new DimensionNotMatchedException(msg);
+        }
+    }
+
+    private void grow() {
+        this.capacity += this.capacity >> 1;
+        for (int j = 0; j < this.columns.length; j++) {
+            this.columns[j] = Arrays.copyOf(this.columns[j], this.capacity);
+        }
+    }
+
+    /**
+     * Stores the encoding map of each categorical column into its {@link AttributeInfo}.
+     */
+    void storeEncodingMaps() {
+        for (int j = 0; j < this.dictionaries.length; j++) {
+            if (this.dictionaries[j] != null) {
+                this.info(j).encodingMap = this.dictionaries[j].encodingMap();
+            } else if (this.kinds[j] == CsvSchema.BOOLEAN) {
+                Map<String, Double> encodingMap = new TreeMap<>();
+                encodingMap.put("false", 0.0);
+                encodingMap.put("true", 1.0);
+                this.info(j).encodingMap = encodingMap;
+            }
+        }
+    }
+
+    /**
+     * Recodes each categorical column in the natural order of its values instead of their order of first appearance.
+     */
+    void sortCategories() {
+        for (int j = 0; j < this.dictionaries.length; j++) {
+            if (this.dictionaries[j] != null) {
+                int[] remap = this.dictionaries[j].sort();
+                double[] column = this.columns[j];
+                for (int i = 0; i < this.size; i++) {
+                    column[i] = remap[(int) column[i]];
+                }
+            }
+        }
+    }
+
+    /**
+     * Concatenates the columns parsed from consecutive chunks of a file, in order of the chunks.
+     * The dictionaries of the chunks are merged in order, so each categorical value gets the code
+     * of its first appearance in the whole file, the same as parsing the file at once;
+     * then the codes of each chunk are remapped while copying, one chunk per task.
+     *
+     * @param parts the columns of each chunk, all with the same attributes and class
+     * @return the columns of all chunks, without spare capacity
+     */
+    static CsvColumns concat(CsvColumns[] parts) {
+        CsvColumns res = new CsvColumns(parts[0].attributeInfos, parts[0].classInfo, parts[0].kinds);
+        int width = res.width();
+        int[][][] remaps = new int[parts.length][width][]; // remaps[part][column][local code] = global code
+        int[] offsets = new int[parts.length + 1];
+        for (int p = 0; p < parts.length; p++) {
+            for (int j = 0; j < width; j++) {
+                if (res.dictionaries[j] != null) {
+                    remaps[p][j] = res.dictionaries[j].addAll(parts[p].dictionaries[j]);
+                }
+            }
+            offsets[p + 1] = Math.addExact(offsets[p], parts[p].size);
+        }
+        int size = offsets[parts.length];
+        res.columns = new double[width][size];
+        res.size = size;
+        res.capacity = size;
+        IntStream.range(0, parts.length).parallel().forEach(p -> {
+            CsvColumns part = parts[p];
+            for (int j = 0; j < width; j++) {
+                double[] src = part.columns[j];
+                double[] dst = res.columns[j];
+                int[] remap = remaps[p][j];
+                if (remap == null) {
+                    System.arraycopy(src, 0, dst, offsets[p], part.size);
+                } else {
+                    for (int i = 0; i < part.size; i++) {
+                        dst[offsets[p] + i] = remap[(int) src[i]];
+                    }
+                }
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Wraps the columns as a {@link ColumnarDataSet} without copying them, unless they have spare capacity,
+     * in which case they are trimmed one at a time.
+     *
+     * @return a columnar data set over the columns
+     */
+    ColumnarDataSet toColumnarDataSet() {
+        this.storeEncodingMaps();
+        if (this.capacity != this.size) {
+            for (int j = 0; j < this.columns.length; j++) {
+                this.columns[j] = Arrays.copyOf(this.columns[j], this.size);
+            }
+            this.capacity = this.size;
+        }
+        int dimension = this.attributeInfos.length;
+        double[][] attributeColumns = Arrays.copyOf(this.columns, dimension);
+        double[] classValues = this.classInfo == null ? null : this.columns[dimension];
+        return new ColumnarDataSet(Arrays.asList(this.attributeInfos), this.classInfo, attributeColumns, classValues, null);
+    }
+
+    /**
+     * Transposes the columns into a {@link StandardDataSet} of {@link DenseInstance}s.
+     *
+     * @return a standard data set
+     */
+    DataSet toStandardDataSet() {
+        this.storeEncodingMaps();
+        StandardDataSet res = new StandardDataSet(this.attributeInfos, this.classInfo);
+        int dimension = this.attributeInfos.length;
+        for (int i = 0; i < this.size; i++) {
+            double[] attributeValues = new double[dimension];
+            for (int j = 0; j < dimension; j++) {
+                attributeValues[j] = this.columns[j][i];
+            }
+            if (this.classInfo == null) {
+                res.add(new DenseInstance(attributeValues));
+            } else {
+                res.add(new DenseInstance(attributeValues, this.columns[dimension][i]));
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,177 @@
+package main.java.utils.io;
+
+import main.java.core.*;
+import main.java.core.collection.CategoryDictionary;
+import main.java.core.exception.DimensionNotMatchedException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A {@link DataSource} streaming the rows of a formatted file (see {@link FileTool}) through a {@link CsvParser}.
+ * Rows are parsed straight into the {@link DataChunk} being filled,
+ * neither a {@code List<String[]>} nor a {@link DataSet} is built.
+ * The records are split and parsed as {@link FileTool#loadDataSet(File, String, boolean)} does:
+ * the separator is matched literally, quoted fields may contain it, and compressed files are inflated.
+ * <p>
+ * If there are categorical attributes (or a categorical class), the constructor makes one pass coding their values
+ * by a {@link CategoryDictionary} per column, in order of first appearance,
+ * so the encodings are the same as {@link FileTool#loadDataSet(File, String, boolean)}.
+ * Only the distinct categorical values are held in memory.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSource
+ * @see FileTool#openDataSource(File, String, boolean)
+ */
+public class CsvDataSource implements DataSource {
+
+    /**
+     * The source file.
+     */
+    private final File file;
+
+    /**
+     * The value separator on a line.
+     */
+    private final String separator;
+
+    /**
+     * The number of rows of each chunk returned by {@link #newChunk()}.
+     */
+    private final int chunkSize;
+
+    /**
+     * The attributes, class and dictionaries of the columns, which parse each record.
+     */
+    private final CsvColumns columns;
+
+    /**
+     * Holds each attribute's information.
+     */
+    private final List<AttributeInfo> attributeInfoList;
+
+    /**
+     * Creates a source over a formatted file with chunks of {@link #DEFAULT_CHUNK_SIZE} rows.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the rows are labeled or not
+     * @throws IOException if an I/O error occurs
+     */
+    public CsvDataSource(File file, String separator, boolean labeled) throws IOException {
+        this(file, separator, labeled, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a source over a formatted file.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the rows are labeled or not
+     * @param chunkSize the number of rows of each chunk
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if chunkSize is not positive
+     * @throws DimensionNotMatchedException if a record does not have one value per column
+     */
+    public CsvDataSource(File file, String separator, boolean labeled, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive.");
+        }
+        this.file = file;
+        this.separator = separator;
+        this.chunkSize = chunkSize;
+        try (CsvParser parser = new CsvParser(FileTool.openInputStream(file), separator)) {
+            this.columns = FileTool.newColumns(parser, labeled, false);
+            this.collectCategories(parser);
+        }
+        this.attributeInfoList = Collections.unmodifiableList(Arrays.asList(this.columns.attributeInfos));
+    }
+
+    @Override
+    public List<AttributeInfo> attributeInfoList() {
+        return this.attributeInfoList;
+    }
+
+    @Override
+    public AttributeInfo classInfo() {
+        return this.columns.classInfo;
+    }
+
+    @Override
+    public DataChunk newChunk() {
+        return new DataChunk(this.dimensionality(), this.chunkSize);
+    }
+
+    @Override
+    public ChunkReader open() throws IOException {
+        CsvParser parser = new CsvParser(FileTool.openInputStream(this.file), this.separator);
+        try {
+            parser.next(); // 跳过属性名和属性类型两行
+            parser.next();
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+        return new CsvReader(parser);
+    }
+
+    /**
+     * Codes the values of categorical columns in the remaining records and sets their encoding maps.
+     */
+    private void collectCategories(CsvParser parser) throws IOException {
+        boolean categorical = false;
+        for (CategoryDictionary dictionary: this.columns.dictionaries) {
+            categorical |= dictionary != null;
+        }
+        if (!categorical) { // 全部为数值属性，无需额外遍历
+            return;
+        }
+        while (parser.next()) {
+            this.columns.collectCategories(parser);
+        }
+        this.columns.storeEncodingMaps();
+    }
+
+    /**
+     * Parses one pass over the records into chunks.
+     */
+    private final class CsvReader implements ChunkReader {
+
+        private final CsvParser parser;
+
+        /**
+         * A buffer holding the values of current record, the class value is the last one.
+         */
+        private final double[] row;
+
+        /**
+         * A buffer holding the attribute values of current record.
+         */
+        private final double[] attributes;
+
+        private CsvReader(CsvParser parser) {
+            this.parser = parser;
+            this.row = new double[columns.width()];
+            this.attributes = new double[attributeInfoList.size()];
+        }
+
+        @Override
+        public boolean next(DataChunk chunk) throws IOException {
+            chunk.clear();
+            int dimension = this.attributes.length;
+            while (!chunk.isFull() && this.parser.next()) {
+                columns.parse(this.parser, this.row);
+                System.arraycopy(this.row, 0, this.attributes, 0, dimension);
+                double classValue = columns.classInfo == null ? DenseInstance.NO_LABEL : this.row[dimension];
+                chunk.add(this.attributes, classValue, DenseInstance.DEFAULT_WEIGHT);
+            }
+            return chunk.size() > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.parser.close();
+        }
+    }
+}
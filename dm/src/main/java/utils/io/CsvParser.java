@@ -0,0 +1,652 @@
+package main.java.utils.io;
+
+import main.java.core.collection.CategoryDictionary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A parser splitting delimited text into records and fields by scanning {@code byte[]} buffers directly.
+ * <p>
+ * No {@code String} is created for a field unless asked by {@link #field(int)}:
+ * numbers are parsed from the bytes by {@link #parseDouble(int)}
+ * and categorical values are looked up by their bytes in a {@link CategoryDictionary}.
+ * The text is read as UTF-8, the separator is matched literally (not as a regular expression) and can be several bytes.
+ * </p>
+ * <p>
+ * Like {@link LineIterator} in {@link FileTool}, blank lines and comment lines starting with "#", "//" or "%" are skipped.
+ * A field enclosed in double quotes may contain separators and line breaks, a double quote inside it is escaped
+ * by another double quote (RFC 4180). A trailing carriage return of a line is ignored.
+ * {@link ArffReader} also accepts fields quoted by single quotes, possibly after blanks.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see FileTool
+ */
+public class CsvParser implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final byte QUOTE = '"';
+
+    private static final byte SINGLE_QUOTE = '\'';
+
+    /**
+     * Exact powers of ten as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The stream being read.
+     */
+    private InputStream in;
+
+    /**
+     * The buffer being read instead of a stream, e.g. a mapped region of a file.
+     */
+    private ByteBuffer source;
+
+    /**
+     * Whether the end of the stream has been reached.
+     */
+    private boolean eof;
+
+    /**
+     * The buffer holding [pos, limit) unparsed bytes.
+     */
+    private byte[] buf;
+
+    private int pos;
+
+    private int limit;
+
+    /**
+     * The number of bytes read from the source before buf[0], for {@link #offset()}.
+     */
+    private long discarded;
+
+    /**
+     * The value separator.
+     */
+    private final byte[] separator;
+
+    /**
+     * Whether a field may also be quoted by single quotes, and a quote may follow blanks at the start of a field, as in ARFF.
+     */
+    private boolean arffQuotes;
+
+    /**
+     * The start (inclusive) and end (exclusive) of each field of the current record in buf.
+     */
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    /**
+     * The number of fields of the current record.
+     */
+    private int fieldCount;
+
+    /**
+     * The number of records read.
+     */
+    private long recordCount;
+
+    /**
+     * Creates a parser reading from a stream.
+     *
+     * @param in the stream to read, closed when this parser is closed
+     * @param separator the value separator, such as ","
+     * @throws IllegalArgumentException if the separator is empty
+     */
+    public CsvParser(InputStream in, String separator) {
+        this(separator);
+        this.in = in;
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a parser reading from a stream, where a field may also be quoted by single quotes
+     * and a quote may follow blanks at the start of a field, as in the data of an ARFF file.
+     * A single quote inside a single-quoted field is escaped by another single quote.
+     *
+     * @param in the stream to read, closed when this parser is closed
+     * @param separator the value separator
+     * @param arffQuotes whether to accept ARFF quotes
+     * @throws IllegalArgumentException if the separator is empty
+     */
+    CsvParser(InputStream in, String separator, boolean arffQuotes) {
+        this(in, separator);
+        this.arffQuotes = arffQuotes;
+    }
+
+    /**
+     * Creates a parser reading the remaining bytes of a buffer, such as a mapped region of a file.
+     * The bytes are copied into the parser's own buffer piece by piece, so the source can be larger than the heap.
+     *
+     * @param source the buffer to read, its position is advanced
+     * @param separator the value separator, such as ","
+     * @throws IllegalArgumentException if the separator is empty
+     */
+    public CsvParser(ByteBuffer source, String separator) {
+        this(separator);
+        this.source = source;
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a parser reading a range of a byte array, which is read in place without copying.
+     *
+     * @param bytes the bytes to read
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @param separator the value separator, such as ","
+     * @throws IllegalArgumentException if the separator is empty
+     */
+    public CsvParser(byte[] bytes, int from, int to, String separator) {
+        this(separator);
+        this.buf = bytes;
+        this.pos = from;
+        this.limit = to;
+        this.eof = true;
+        this.discarded = -from;
+    }
+
+    private CsvParser(String separator) {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("The separator must not be empty.");
+        }
+        this.separator = separator.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next record, skipping blank lines and comment lines.
+     *
+     * @return false if there are no more records
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int end = this.findRecordEnd();
+            if (end < 0) {
+                return false;
+            }
+            int start = this.pos;
+            this.pos = end < this.limit ? end + 1 : end; // 跳过换行符
+            int contentEnd = end;
+            if (contentEnd > start && this.buf[contentEnd - 1] == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd == start || this.isComment(start, contentEnd)) {
+                continue;
+            }
+            this.split(start, contentEnd);
+            this.recordCount++;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of fields of the current record.
+     *
+     * @return the number of fields
+     */
+    public int fieldCount() {
+        return this.fieldCount;
+    }
+
+    /**
+     * Returns the number of records read, i.e. the number of the current record counting from 1.
+     *
+     * @return the number of records read
+     */
+    public long recordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Returns the number of bytes consumed from the source, i.e. the offset of the byte following the current record.
+     *
+     * @return the offset of the next record
+     */
+    public long offset() {
+        return this.discarded + this.pos;
+    }
+
+    /**
+     * Returns a field of the current record as a string.
+     *
+     * @param i [0, fieldCount-1]
+     * @return the field, unquoted
+     */
+    public String field(int i) {
+        this.checkField(i);
+        return new String(this.buf, this.starts[i], this.ends[i] - this.starts[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field of the current record as a double, as {@link Double#parseDouble(String)} does.
+     *
+     * @param i [0, fieldCount-1]
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double parseDouble(int i) {
+        this.checkField(i);
+        try {
+            return parseDouble(this.buf, this.starts[i], this.ends[i]);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Record " + this.recordCount + ", field " + i + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a field of the current record expected to be an integer, as {@link #parseInteger(byte[], int, int)} does.
+     *
+     * @param i [0, fieldCount-1]
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double parseInteger(int i) {
+        this.checkField(i);
+        try {
+            return parseInteger(this.buf, this.starts[i], this.ends[i]);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Record " + this.recordCount + ", field " + i + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encodes a field of the current record by a dictionary.
+     *
+     * @param i [0, fieldCount-1]
+     * @param dictionary the dictionary of the column
+     * @return the code of the field, new values get the next code
+     */
+    public int encode(int i, CategoryDictionary dictionary) {
+        this.checkField(i);
+        return dictionary.encode(this.buf, this.starts[i], this.ends[i]);
+    }
+
+    /**
+     * Returns the buffer holding the current record, field i is [{@link #start(int)}, {@link #end(int)}) of it.
+     * The buffer is only valid until the next record is read.
+     */
+    byte[] buffer() {
+        return this.buf;
+    }
+
+    /**
+     * Returns the index in {@link #buffer()} of the first byte of a field, inclusive.
+     */
+    int start(int i) {
+        this.checkField(i);
+        return this.starts[i];
+    }
+
+    /**
+     * Returns the index in {@link #buffer()} of the last byte of a field, exclusive.
+     */
+    int end(int i) {
+        this.checkField(i);
+        return this.ends[i];
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.in != null) {
+            this.in.close();
+            this.in = null;
+        }
+        this.source = null;
+        this.eof = true;
+        this.pos = this.limit;
+    }
+
+    private void checkField(int i) {
+        if (i < 0 || i >= this.fieldCount) {
+            throw new IndexOutOfBoundsException("Record " + this.recordCount + " has " + this.fieldCount + " fields, got field " + i);
+        }
+    }
+
+    /**
+     * Returns the index of the line break ending the record at pos, or limit if the last record has no line break,
+     * reading more bytes if needed; returns -1 if no bytes are left.
+     */
+    private int findRecordEnd() throws IOException {
+        while (true) {
+            int end = this.scanRecord();
+            if (end >= 0) {
+                return end;
+            }
+            if (this.eof) {
+                return this.limit > this.pos ? this.limit : -1;
+            }
+            this.fill(); // 记录跨越了缓冲区末尾，补充数据后从记录开头重新扫描
+        }
+    }
+
+    /**
+     * Returns the index of the line break ending the record at pos, or -1 if it is not within the buffer.
+     * A line break inside a quoted field does not end a record, except in comment lines.
+     * Only a quote at the start of a field opens a quoted field.
+     */
+    private int scanRecord() {
+        if (this.limit - this.pos < 2 && !this.eof) {
+            return -1; // 判断注释"//"至少需要两个字节
+        }
+        if (this.pos < this.limit && this.isComment(this.pos, this.limit)) {
+            for (int i = this.pos; i < this.limit; i++) {
+                if (this.buf[i] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        byte first = this.separator[0];
+        boolean fieldStart = true;
+        byte quote = 0; // 当前引号字段的引号，0表示不在引号内
+        for (int i = this.pos; i < this.limit; i++) {
+            byte b = this.buf[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    if (i + 1 < this.limit && this.buf[i + 1] == quote) {
+                        i++; // 转义的引号""
+                    } else if (i + 1 == this.limit && !this.eof) {
+                        return -1;
+                    } else {
+                        quote = 0;
+                    }
+                }
+            } else if (b == '\n') {
+                return i;
+            } else if (fieldStart && this.isQuote(b)) {
+                quote = b;
+                fieldStart = false;
+            } else if (fieldStart && this.arffQuotes && (b == ' ' || b == '\t') && b != first) {
+                continue; // 引号前的空白
+            } else if (b == first) {
+                if (i + this.separator.length > this.limit && !this.eof) {
+                    return -1;
+                }
+                fieldStart = this.indexOfSeparator(i, Math.min(this.limit, i + this.separator.length)) == i;
+                if (fieldStart) {
+                    i += this.separator.length - 1;
+                }
+            } else {
+                fieldStart = false;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the unparsed bytes to the front of the buffer, grows it if full, and reads more bytes.
+     */
+    private void fill() throws IOException {
+        int remaining = this.limit - this.pos;
+        if (remaining == this.buf.length) { // 一条记录比缓冲区还长
+            byte[] larger = new byte[this.buf.length * 2];
+            System.arraycopy(this.buf, this.pos, larger, 0, remaining);
+            this.buf = larger;
+        } else if (this.pos > 0) {
+            System.arraycopy(this.buf, this.pos, this.buf, 0, remaining);
+        }
+        this.discarded += this.pos;
+        this.pos = 0;
+        this.limit = remaining;
+        int n;
+        if (this.source != null) {
+            n = Math.min(this.source.remaining(), this.buf.length - this.limit);
+            this.source.get(this.buf, this.limit, n);
+            if (n == 0) {
+                n = -1;
+            }
+        } else {
+            n = this.in.read(this.buf, this.limit, this.buf.length - this.limit);
+        }
+        if (n < 0) {
+            this.eof = true;
+        } else {
+            this.limit += n;
+        }
+    }
+
+    private boolean isComment(int start, int end) {
+        byte b = this.buf[start];
+        return b == '#' || b == '%' || (b == '/' && end - start > 1 && this.buf[start + 1] == '/');
+    }
+
+    /**
+     * Splits the record [start, end) into fields, unquoting quoted fields in place.
+     */
+    private void split(int start, int end) {
+        this.fieldCount = 0;
+        int i = start;
+        while (true) {
+            if (this.fieldCount == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.fieldCount * 2);
+                this.ends = Arrays.copyOf(this.ends, this.fieldCount * 2);
+            }
+            int fieldEnd;
+            int open = i;
+            if (this.arffQuotes) {
+                while (open < end && (this.buf[open] == ' ' || this.buf[open] == '\t')) {
+                    open++;
+                }
+            }
+            if (open < end && this.isQuote(this.buf[open])) {
+                byte quote = this.buf[open];
+                i = open;
+                int write = i;
+                int read = i + 1;
+                while (read < end) { // 去掉引号并把""还原为"，结果不长于原文，可原地写回
+                    byte b = this.buf[read];
+                    if (b == quote) {
+                        if (read + 1 < end && this.buf[read + 1] == quote) {
+                            this.buf[write++] = quote;
+                            read += 2;
+                            continue;
+                        }
+                        read++;
+                        break;
+                    }
+                    this.buf[write++] = b;
+                    read++;
+                }
+                this.starts[this.fieldCount] = i;
+                this.ends[this.fieldCount] = write;
+                this.fieldCount++;
+                int next = this.indexOfSeparator(read, end); // 闭合引号后到分隔符前的内容被忽略
+                if (next < 0) {
+                    return;
+                }
+                i = next + this.separator.length;
+                continue;
+            }
+            fieldEnd = this.indexOfSeparator(i, end);
+            this.starts[this.fieldCount] = i;
+            this.ends[this.fieldCount] = fieldEnd < 0 ? end : fieldEnd;
+            this.fieldCount++;
+            if (fieldEnd < 0) {
+                return;
+            }
+            i = fieldEnd + this.separator.length;
+        }
+    }
+
+    private boolean isQuote(byte b) {
+        return b == QUOTE || (this.arffQuotes && b == SINGLE_QUOTE);
+    }
+
+    private int indexOfSeparator(int from, int end) {
+        byte first = this.separator[0];
+        int last = end - this.separator.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (this.buf[i] != first) {
+                continue;
+            }
+            for (int k = 1; k < this.separator.length; k++) {
+                if (this.buf[i + k] != this.separator[k]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses [from, to) of the bytes as a double, as {@link Double#parseDouble(String)} does.
+     * Plain decimal numbers of up to 19 significant digits whose value is exactly computed
+     * by one multiplication or division by a power of ten are parsed directly from the bytes (Clinger's fast path),
+     * others fall back to {@link Double#parseDouble(String)}, so the result is always correctly rounded.
+     *
+     * @param bytes the bytes holding the number
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static double parseDouble(byte[] bytes, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && isBlank(bytes[start])) { // 与String.trim相同
+            start++;
+        }
+        while (end > start && isBlank(bytes[end - 1])) {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0; // 有效数字个数
+        int exponent = 0;
+        boolean seenDigit = false;
+        for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            seenDigit = true;
+            if (mantissa != 0 || bytes[i] != '0') {
+                if (++digits > 19) {
+                    return fallback(bytes, from, to);
+                }
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+            }
+        }
+        if (i < end && bytes[i] == '.') {
+            i++;
+            for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                seenDigit = true;
+                if (mantissa != 0 || bytes[i] != '0') {
+                    if (++digits > 19) {
+                        return fallback(bytes, from, to);
+                    }
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                }
+                exponent--;
+            }
+        }
+        if (!seenDigit) {
+            return fallback(bytes, from, to); // NaN、Infinity、十六进制或非法格式
+        }
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return fallback(bytes, from, to);
+            }
+            int e = 0;
+            for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                if (e > 100000) {
+                    return fallback(bytes, from, to);
+                }
+                e = e * 10 + (bytes[i] - '0');
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != end || mantissa > (1L << 53) || mantissa < 0) {
+            return fallback(bytes, from, to); // 后缀如d/f，或尾数无法精确表示
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent <= 22) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && exponent >= -22) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return fallback(bytes, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses [from, to) of the bytes as a double, accumulating the digits directly if it is a decimal integer
+     * of up to 18 digits, which is exact, and falling back to {@link #parseDouble(byte[], int, int)} otherwise,
+     * so a column of integers holding a few other numbers is still parsed correctly.
+     *
+     * @param bytes the bytes holding the number
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static double parseInteger(byte[] bytes, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && isBlank(bytes[start])) {
+            start++;
+        }
+        while (end > start && isBlank(bytes[end - 1])) {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return parseDouble(bytes, from, to);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return parseDouble(bytes, from, to);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -(double) value : value; // "-0"与parseDouble相同，为-0.0
+    }
+
+    /**
+     * Returns whether a byte is trimmed as {@link String#trim()} trims a char: an ASCII control character or a space.
+     * The byte is compared unsigned, so no byte of a multi-byte UTF-8 character is blank.
+     *
+     * @param b a byte of UTF-8 text
+     * @return true if the byte is blank
+     */
+    static boolean isBlank(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+
+    private static double fallback(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+}
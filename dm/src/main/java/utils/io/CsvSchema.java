@@ -0,0 +1,374 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.collection.CategoryDictionary;
+import main.java.core.sampling.Reservoir;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The kind and estimated cardinality of each column of a delimited file, inferred from a sample of its records,
+ * for files that have a line of names but no line of types.
+ * <p>
+ * A column is {@link #INTEGER} if every sampled value is a decimal integer, else {@link #DOUBLE} if every value is a number,
+ * else {@link #BOOLEAN} if every value is "true" or "false" (ignoring case), else {@link #CATEGORICAL}.
+ * Integer and double columns are numeric attributes, boolean and categorical columns are categorical attributes.
+ * </p>
+ * <p>
+ * Each kind has its own parser in {@link FileTool#loadInferredDataSet(File, String, boolean, CsvSchema)}:
+ * integers are accumulated digit by digit, falling back to the double parser for a value that is not an integer,
+ * booleans are matched without a lookup, and categorical values are looked up in a {@link CategoryDictionary}.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see FileTool#inferSchema(File, String, int)
+ */
+public class CsvSchema {
+
+    /**
+     * The kind of columns of decimal integers.
+     */
+    public static final byte INTEGER = 0;
+
+    /**
+     * The kind of columns of numbers.
+     */
+    public static final byte DOUBLE = 1;
+
+    /**
+     * The kind of columns of "true" and "false".
+     */
+    public static final byte BOOLEAN = 2;
+
+    /**
+     * The kind of columns of other strings.
+     */
+    public static final byte CATEGORICAL = 3;
+
+    /**
+     * The number of records sampled by {@link FileTool#loadInferredDataSet(File, String, boolean)}.
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    /**
+     * The name of each column.
+     */
+    private final String[] names;
+
+    /**
+     * The kind of each column.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The number of distinct values of each column in the sample.
+     */
+    private final int[] cardinalities;
+
+    /**
+     * The number of records sampled.
+     */
+    private final int sampleSize;
+
+    /**
+     * Creates a schema with given kinds of columns, e.g. to override an inferred kind.
+     *
+     * @param names the name of each column
+     * @param kinds the kind of each column
+     * @param cardinalities the estimated number of distinct values of each column
+     * @param sampleSize the number of records the schema was inferred from
+     * @throws IllegalArgumentException if the arrays have different lengths or a kind is unknown
+     */
+    public CsvSchema(String[] names, byte[] kinds, int[] cardinalities, int sampleSize) {
+        if (names.length != kinds.length || names.length != cardinalities.length) {
+            throw new IllegalArgumentException("names, kinds and cardinalities must have the same length.");
+        }
+        for (byte kind : kinds) {
+            if (kind < INTEGER || kind > CATEGORICAL) {
+                throw new IllegalArgumentException("Unknown kind: " + kind);
+            }
+        }
+        this.names = names.clone();
+        this.kinds = kinds.clone();
+        this.cardinalities = cardinalities.clone();
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Infers the schema of a file from the first records after its line of names.
+     *
+     * @param file the source file, which may be gzip-compressed
+     * @param separator the value separator on a line
+     * @param sampleSize the most records to sample, positive
+     * @return the inferred schema
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if sampleSize is not positive
+     */
+    static CsvSchema inferFromHead(File file, String separator, int sampleSize) throws IOException {
+        checkSampleSize(sampleSize);
+        try (CsvParser parser = new CsvParser(FileTool.openInputStream(file), separator)) {
+            Inference inference = new Inference(names(parser));
+            while (inference.count < sampleSize && parser.next()) {
+                inference.add(parser);
+            }
+            return inference.toSchema();
+        }
+    }
+
+    /**
+     * Infers the schema of a file from records drawn uniformly from all records after its line of names
+     * by {@link Reservoir#sample(Iterable, int, Random)}. Only the sampled records are parsed,
+     * but quoted values must not contain line breaks, as records are read as lines.
+     *
+     * @param file the source file, which may be gzip-compressed
+     * @param separator the value separator on a line
+     * @param sampleSize the size of the sample, positive
+     * @param random the source of randomness
+     * @return the inferred schema
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if sampleSize is not positive
+     */
+    static CsvSchema inferFromReservoir(File file, String separator, int sampleSize, Random random) throws IOException {
+        checkSampleSize(sampleSize);
+        try (LineIterator it = new LineIterator(file, true, true)) {
+            if (!it.hasNext()) {
+                throw new EOFException("The file ends before the names of the attributes.");
+            }
+            byte[] header = it.next().getBytes(StandardCharsets.UTF_8);
+            Inference inference = new Inference(names(new CsvParser(header, 0, header.length, separator)));
+            List<String> lines = Reservoir.sample(it, sampleSize, random);
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                CsvParser parser = new CsvParser(bytes, 0, bytes.length, separator);
+                if (parser.next()) {
+                    inference.add(parser);
+                }
+            }
+            return inference.toSchema();
+        }
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int width() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the name of a column.
+     *
+     * @param j [0, width-1]
+     * @return the name
+     */
+    public String name(int j) {
+        return this.names[j];
+    }
+
+    /**
+     * Returns the kind of a column.
+     *
+     * @param j [0, width-1]
+     * @return one of {@link #INTEGER}, {@link #DOUBLE}, {@link #BOOLEAN} and {@link #CATEGORICAL}
+     */
+    public byte kind(int j) {
+        return this.kinds[j];
+    }
+
+    /**
+     * Returns the number of distinct values of a column in the sample,
+     * which is a lower bound of its cardinality in the file.
+     *
+     * @param j [0, width-1]
+     * @return the estimated cardinality
+     */
+    public int cardinality(int j) {
+        return this.cardinalities[j];
+    }
+
+    /**
+     * Returns the number of records sampled.
+     *
+     * @return the size of the sample
+     */
+    public int sampleSize() {
+        return this.sampleSize;
+    }
+
+    /**
+     * Returns the type of attributes of columns of a kind.
+     *
+     * @param kind a kind of columns
+     * @return {@link AttributeInfo#NUMERIC} for integers and doubles, {@link AttributeInfo#CATEGORICAL} otherwise
+     */
+    public static byte attributeType(byte kind) {
+        return kind == INTEGER || kind == DOUBLE ? AttributeInfo.NUMERIC : AttributeInfo.CATEGORICAL;
+    }
+
+    @Override
+    public String toString() {
+        String[] kindNames = {"integer", "double", "boolean", "categorical"};
+        StringBuilder sb = new StringBuilder("CsvSchema{sampleSize=").append(this.sampleSize);
+        for (int j = 0; j < this.names.length; j++) {
+            sb.append(", ").append(this.names[j]).append(": ").append(kindNames[this.kinds[j]])
+                    .append('(').append(this.cardinalities[j]).append(')');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void checkSampleSize(int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("sampleSize must be positive.");
+        }
+    }
+
+    private static String[] names(CsvParser parser) throws IOException {
+        if (!parser.next()) {
+            throw new EOFException("The file ends before the names of the attributes.");
+        }
+        String[] res = new String[parser.fieldCount()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = parser.field(i);
+        }
+        return res;
+    }
+
+    /**
+     * Returns if [from, to) of the bytes, trimmed, is an optionally signed decimal integer.
+     */
+    static boolean isInteger(byte[] bytes, int from, int to) {
+        while (from < to && CsvParser.isBlank(bytes[from])) {
+            from++;
+        }
+        while (to > from && CsvParser.isBlank(bytes[to - 1])) {
+            to--;
+        }
+        if (from < to && (bytes[from] == '-' || bytes[from] == '+')) {
+            from++;
+        }
+        if (from == to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns 1 if [from, to) of the bytes, trimmed, is "true", 0 if it is "false", ignoring case, and -1 otherwise.
+     */
+    static int parseBoolean(byte[] bytes, int from, int to) {
+        while (from < to && CsvParser.isBlank(bytes[from])) {
+            from++;
+        }
+        while (to > from && CsvParser.isBlank(bytes[to - 1])) {
+            to--;
+        }
+        if (matches(bytes, from, to, "true")) {
+            return 1;
+        }
+        return matches(bytes, from, to, "false") ? 0 : -1;
+    }
+
+    private static boolean matches(byte[] bytes, int from, int to, String lowerCase) {
+        if (to - from != lowerCase.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if ((bytes[from + i] | 0x20) != lowerCase.charAt(i)) { // ASCII字母转为小写
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tracks which kinds every sampled value of each column fits, as sampled records are added.
+     */
+    private static final class Inference {
+
+        private final String[] names;
+
+        private final boolean[] integers;
+
+        private final boolean[] numbers;
+
+        private final boolean[] booleans;
+
+        private final CategoryDictionary[] distinct;
+
+        private int count;
+
+        private Inference(String[] names) {
+            this.names = names;
+            this.integers = new boolean[names.length];
+            this.numbers = new boolean[names.length];
+            this.booleans = new boolean[names.length];
+            Arrays.fill(this.integers, true);
+            Arrays.fill(this.numbers, true);
+            Arrays.fill(this.booleans, true);
+            this.distinct = new CategoryDictionary[names.length];
+            for (int j = 0; j < names.length; j++) {
+                this.distinct[j] = new CategoryDictionary();
+            }
+        }
+
+        private void add(CsvParser parser) {
+            byte[] buf = parser.buffer();
+            int width = Math.min(parser.fieldCount(), this.names.length);
+            for (int j = 0; j < width; j++) {
+                int from = parser.start(j);
+                int to = parser.end(j);
+                this.distinct[j].encode(buf, from, to);
+                if (this.integers[j] && !isInteger(buf, from, to)) {
+                    this.integers[j] = false;
+                }
+                if (!this.integers[j] && this.numbers[j] && !isNumber(buf, from, to)) {
+                    this.numbers[j] = false;
+                }
+                if (this.booleans[j] && parseBoolean(buf, from, to) < 0) {
+                    this.booleans[j] = false;
+                }
+            }
+            this.count++;
+        }
+
+        private static boolean isNumber(byte[] buf, int from, int to) {
+            try {
+                CsvParser.parseDouble(buf, from, to);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private CsvSchema toSchema() {
+            int[] cardinalities = new int[this.names.length];
+            byte[] kinds = new byte[this.names.length];
+            for (int j = 0; j < kinds.length; j++) {
+                cardinalities[j] = this.distinct[j].size();
+                if (this.count == 0) { // 没有样本时按数值处理
+                    kinds[j] = DOUBLE;
+                } else if (this.integers[j]) {
+                    kinds[j] = INTEGER;
+                } else if (this.numbers[j]) {
+                    kinds[j] = DOUBLE;
+                } else {
+                    kinds[j] = this.booleans[j] ? BOOLEAN : CATEGORICAL;
+                }
+            }
+            return new CsvSchema(this.names, kinds, cardinalities, this.count);
+        }
+    }
+}
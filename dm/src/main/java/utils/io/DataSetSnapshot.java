@@ -0,0 +1,234 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.DataSet;
+import main.java.core.MappedDataSet;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A versioned binary snapshot of a data set, which can be reloaded without parsing.
+ * <p>
+ * The format of a snapshot file is as follows:
+ * 1. the magic number "JDMS", the format version and the length of the schema (big-endian ints);
+ * 2. the schema (big-endian, as written by {@link DataOutputStream}):
+ * the length and last modified time of the source file (-1 if unknown), the separator it was parsed with (empty if unknown),
+ * the number of instances, the number of attributes, whether the data set is labeled,
+ * then each {@link AttributeInfo} (class first if labeled): name, type, weight, index and encodingMap;
+ * 3. zero padding to a multiple of 8 bytes;
+ * 4. the column block of {@link MappedDataSet} (little-endian doubles).
+ * <p>
+ * {@link #load(Path)} only parses the schema and memory-maps the columns.
+ *
+ * @author Cloudy1225
+ * @see MappedDataSet
+ * @see FileTool
+ */
+public class DataSetSnapshot {
+
+    /**
+     * The magic number at the start of a snapshot file: "JDMS".
+     */
+    public static final int MAGIC = 0x4A444D53;
+
+    /**
+     * The version of the snapshot format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The length of the fixed prefix: magic, version and schema length.
+     */
+    private static final int PREFIX_LENGTH = 12;
+
+    /**
+     * Saves a snapshot of given data set.
+     *
+     * @param dataset the data set to save
+     * @param path the target file
+     * @throws IOException if an I/O error occurs
+     */
+    public static void save(DataSet dataset, Path path) throws IOException {
+        save(dataset, path, -1, -1, "");
+    }
+
+    /**
+     * Saves a snapshot of given data set, recording the length and last modified time of its source file
+     * and the separator the file was parsed with.
+     * The snapshot is written to a temporary file first and then moved to the target,
+     * so readers never see a partially written snapshot.
+     *
+     * @param dataset the data set to save
+     * @param path the target file
+     * @param sourceLength the length of the source file, -1 if unknown
+     * @param sourceModified the last modified time of the source file, -1 if unknown
+     * @param separator the separator the source file was parsed with, empty if unknown
+     * @throws IOException if an I/O error occurs
+     */
+    static void save(DataSet dataset, Path path, long sourceLength, long sourceModified, String separator) throws IOException {
+        ByteArrayOutputStream schemaBytes = new ByteArrayOutputStream();
+        DataOutputStream schema = new DataOutputStream(schemaBytes);
+        schema.writeLong(sourceLength);
+        schema.writeLong(sourceModified);
+        writeString(schema, separator);
+        schema.writeInt(dataset.size());
+        schema.writeInt(dataset.dimensionality());
+        AttributeInfo classInfo = dataset.classInfo();
+        schema.writeBoolean(classInfo != null);
+        if (classInfo != null) {
+            writeAttributeInfo(schema, classInfo);
+        }
+        for (AttributeInfo info: dataset.attributeInfoList()) {
+            writeAttributeInfo(schema, info);
+        }
+        schema.flush();
+        int schemaLength = schemaBytes.size();
+        int padding = (int) (align(PREFIX_LENGTH + schemaLength) - PREFIX_LENGTH - schemaLength);
+
+        Path parent = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(schemaLength);
+                schemaBytes.writeTo(out);
+                out.write(new byte[padding]);
+                out.flush();
+                MappedDataSet.writeColumns(dataset, channel);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Loads a snapshot by parsing its schema and memory-mapping its columns.
+     *
+     * @param path the snapshot file
+     * @return a data set mapping the columns of the snapshot
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static MappedDataSet load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            int schemaLength = readPrefix(in, path);
+            in.readLong(); // sourceLength
+            in.readLong(); // sourceModified
+            readString(in); // separator
+            int size = in.readInt();
+            int dimension = in.readInt();
+            boolean labeled = in.readBoolean();
+            AttributeInfo classInfo = labeled ? readAttributeInfo(in) : null;
+            AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
+            for (int i = 0; i < dimension; i++) {
+                attributeInfoArray[i] = readAttributeInfo(in);
+            }
+            long position = align(PREFIX_LENGTH + schemaLength);
+            return new MappedDataSet(channel, position, size, Arrays.asList(attributeInfoArray), classInfo);
+        }
+    }
+
+    /**
+     * Returns whether the snapshot was saved from the given source file in its current state with the given separator,
+     * i.e. the recorded length, last modified time and separator still match.
+     *
+     * @param path the snapshot file
+     * @param source the source file
+     * @param separator the separator to parse the source file with
+     * @return true if the snapshot exists and is up-to-date
+     */
+    static boolean isUpToDate(Path path, File source, String separator) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readPrefix(in, path);
+            long sourceLength = in.readLong();
+            long sourceModified = in.readLong();
+            return sourceLength == source.length() && sourceModified == source.lastModified()
+                    && readString(in).equals(separator);
+        } catch (IOException e) {
+            return false; // an unreadable snapshot is just rebuilt
+        }
+    }
+
+    /**
+     * Reads and checks the fixed prefix.
+     *
+     * @return the length of the schema
+     */
+    private static int readPrefix(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a data set snapshot: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        return in.readInt();
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    static void writeAttributeInfo(DataOutputStream out, AttributeInfo info) throws IOException {
+        writeString(out, info.name);
+        out.writeByte(info.type);
+        out.writeDouble(info.weight);
+        out.writeInt(info.index);
+        Map<String, Double> encodingMap = info.encodingMap;
+        if (encodingMap == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(encodingMap.size());
+            out.writeBoolean(encodingMap instanceof SortedMap);
+            for (Map.Entry<String, Double> entry: encodingMap.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeDouble(entry.getValue());
+            }
+        }
+    }
+
+    static AttributeInfo readAttributeInfo(DataInputStream in) throws IOException {
+        String name = readString(in);
+        byte type = in.readByte();
+        double weight = in.readDouble();
+        int index = in.readInt();
+        AttributeInfo info = new AttributeInfo(name, type, weight, index);
+        int nEncodings = in.readInt();
+        if (nEncodings >= 0) {
+            // 与LabelEncoder一致：按自然顺序编码时使用TreeMap，否则使用LinkedHashMap
+            Map<String, Double> encodingMap = in.readBoolean() ? new TreeMap<>() : new LinkedHashMap<>();
+            for (int i = 0; i < nEncodings; i++) {
+                String key = readString(in);
+                encodingMap.put(key, in.readDouble());
+            }
+            info.encodingMap = encodingMap;
+        }
+        return info;
+    }
+
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,13 +1,20 @@
 package main.java.utils.io;
 
 import main.java.core.*;
+import main.java.core.exception.DimensionNotMatchedException;
 import org.junit.Assert;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * A class to load data sets from file and write them back.
@@ -22,6 +29,13 @@ import java.util.LinkedList;
  * 7. the class value must at the end of each line;
  * 8. values should be separated by the same separator such as ","...
  * <p>
+ * A file without the second line of types can be loaded by {@link #loadInferredDataSet(File, String, boolean)},
+ * which infers the kind of each column from a sample of the records (see {@link CsvSchema}).
+ * </p>
+ * <p>
+ * A gzip-compressed file is recognized by its first bytes, whatever its name, and inflated on the fly
+ * by a read-ahead thread (see {@link #openInputStream(File)}), so it needs not be decompressed to disk first.
+ * </p>
  *
  * @author Cloudy1225
  * @see DataSet
@@ -30,9 +44,35 @@ import java.util.LinkedList;
  */
 public class FileTool {
 
+    /**
+     * The least number of bytes of a chunk parsed by one task of {@link #loadDataSetParallel(File, String, boolean)}.
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The most chunks a file is split into by {@link #loadDataSetParallel(File, String, boolean)}.
+     */
+    private static final int MAX_CHUNKS = 64;
+
+    /**
+     * The first two bytes of a gzip stream.
+     */
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    /**
+     * The first four bytes of a Zstandard frame, read as a big-endian int.
+     */
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+
+    /**
+     * The size of the buffer of the inflater of a gzip-compressed file.
+     */
+    private static final int INFLATER_BUFFER_SIZE = 1 << 16;
+
     /**
      * Loads a data set from a formatted file.
-     * This method will load a {@link RawDataSet} first and then transform it to {@link StandardDataSet}.
+     * The file is parsed by a {@link CsvParser} into primitive columns, which are then transformed to {@link StandardDataSet}.
+     * The separator is matched literally, not as a regular expression.
      *
      * @param file the source file
      * @param separator the value separator on a line
@@ -48,9 +88,300 @@ public class FileTool {
         }
     }
 
+    /**
+     * Loads a data set from a formatted file into a {@link ColumnarDataSet} in one pass.
+     * Numeric values are parsed and categorical values are coded as each record is read,
+     * and appended to growing columns that become the columns of the data set,
+     * so no row is kept as strings and the memory used is about the size of the final columns.
+     * <p>
+     * Categorical values are coded in order of first appearance, as {@link #loadDataSet(File, String, boolean)} does,
+     * unless sortCategories is true, in which case they are recoded in natural order by a final pass over the codes.
+     * </p>
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @param sortCategories true if categorical values are coded in their natural order
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a value is not numeric
+     */
+    public static DataSet loadColumnarDataSet(File file, String separator, boolean labeled, boolean sortCategories) throws IOException {
+        CsvColumns columns = readColumns(file, separator, labeled, false);
+        if (sortCategories) {
+            columns.sortCategories();
+        }
+        return columns.toColumnarDataSet();
+    }
+
+    /**
+     * Loads a data set from a formatted file, parsing chunks of the file in parallel.
+     * <p>
+     * The file is memory-mapped and the records after the names and types are split into byte ranges
+     * starting at line starts. Each range is parsed on its own fork-join task into columns with its own dictionaries,
+     * and then the columns are concatenated in order of the ranges, merging the dictionaries in that order,
+     * so the data set equals the one of {@link #loadDataSet(File, String, boolean)}, codes of categorical values included.
+     * Files smaller than a few megabytes are parsed by one task.
+     * </p>
+     * <p>
+     * As chunks are split at line breaks, quoted values must not contain line breaks;
+     * load such files by {@link #loadDataSet(File, String, boolean)}.
+     * A record number in an error message counts from the start of the chunk holding the record.
+     * A compressed file cannot be mapped, so it is opened by {@link #openInputStream(File)} and parsed in one pass
+     * by {@link #loadColumnarDataSet(File, String, boolean, boolean)} instead:
+     * a gzip-compressed file is inflated, a Zstandard-compressed file is rejected.
+     * </p>
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @return a {@link ColumnarDataSet} over the parsed columns
+     * @throws IOException if an I/O error occurs, or the file is compressed by Zstandard
+     * @throws NumberFormatException if a value is not numeric
+     */
+    public static DataSet loadDataSetParallel(File file, String separator, boolean labeled) throws IOException {
+        if (isCompressed(file)) {
+            return loadColumnarDataSet(file, separator, labeled, false);
+        }
+        CsvColumns header;
+        long dataStart;
+        try (CsvParser parser = new CsvParser(openInputStream(file), separator)) {
+            header = newColumns(parser, labeled, false);
+            dataStart = parser.offset();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            long[] bounds = chunkBounds(channel, dataStart, length);
+            CsvColumns[] parts = new CsvColumns[bounds.length - 1];
+            try {
+                IntStream.range(0, parts.length).parallel().forEach(c -> {
+                    CsvColumns part = new CsvColumns(header.attributeInfos, header.classInfo, header.kinds);
+                    try {
+                        ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]);
+                        part.readAll(new CsvParser(chunk, separator));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    parts[c] = part;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return CsvColumns.concat(parts).toColumnarDataSet();
+        }
+    }
+
+    /**
+     * Loads a data set from a formatted file, caching it as a {@link DataSetSnapshot} next to the file.
+     * The snapshot is named after the file with the suffix ".jdms",
+     * and is reused as long as the length and last modified time of the file and the separator are unchanged,
+     * otherwise the file is parsed by {@link #loadDataSet(File, String, boolean)} and the snapshot is rewritten.
+     * Either way the data set is mapped from the snapshot, so it is read-only as every {@link MappedDataSet}:
+     * instances can't be added and only weights can be set.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @return a data set mapped from the snapshot
+     * @throws IOException If an I/O error occurs
+     */
+    public static MappedDataSet loadDataSetCached(File file, String separator, boolean labeled) throws IOException {
+        Path snapshot = new File(file.getPath() + ".jdms").toPath();
+        if (DataSetSnapshot.isUpToDate(snapshot, file, separator)) {
+            MappedDataSet dataset = DataSetSnapshot.load(snapshot);
+            if ((dataset.classInfo() != null) == labeled) {
+                return dataset;
+            }
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        DataSet dataset = loadDataSet(file, separator, labeled);
+        DataSetSnapshot.save(dataset, snapshot, length, lastModified, separator);
+        return DataSetSnapshot.load(snapshot);
+    }
+
+    /**
+     * Loads a data set from a file whose first effective line gives the names of the attributes
+     * but which has no line of types, inferring the kind of each column from its first
+     * {@link CsvSchema#DEFAULT_SAMPLE_SIZE} records.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a value after the sample does not fit the kind of its column
+     * @see #inferSchema(File, String, int)
+     */
+    public static DataSet loadInferredDataSet(File file, String separator, boolean labeled) throws IOException {
+        return loadInferredDataSet(file, separator, labeled, inferSchema(file, separator, CsvSchema.DEFAULT_SAMPLE_SIZE));
+    }
+
+    /**
+     * Loads a data set from a file whose first effective line gives the names of the attributes
+     * but which has no line of types, parsing each column by the parser of its kind in the schema.
+     * Integer columns take a fast path for integers, boolean columns are matched directly,
+     * categorical columns are looked up in a dictionary and double columns are parsed as doubles.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @param schema the kinds of the columns, e.g. inferred by {@link #inferSchema(File, String, int)}
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws IllegalArgumentException if a boolean value is neither true nor false
+     * @throws DimensionNotMatchedException if the schema or a record does not have one value per column
+     */
+    public static DataSet loadInferredDataSet(File file, String separator, boolean labeled, CsvSchema schema) throws IOException {
+        try (CsvParser parser = new CsvParser(openInputStream(file), separator)) {
+            String[] names = nextFields(parser);
+            if (names.length != schema.width()) {
+                throw new DimensionNotMatchedException("The file has " + names.length + " columns, the schema has " + schema.width() + ".");
+            }
+            int dimension = labeled ? names.length - 1 : names.length;
+            AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
+            byte[] kinds = new byte[names.length];
+            for (int j = 0; j < names.length; j++) {
+                kinds[j] = schema.kind(j);
+                if (j < dimension) {
+                    attributeInfoArray[j] = new AttributeInfo(names[j], CsvSchema.attributeType(kinds[j]), j);
+                }
+            }
+            AttributeInfo classInfo = labeled ? new AttributeInfo(names[dimension], CsvSchema.attributeType(kinds[dimension]), -1) : null;
+            CsvColumns columns = new CsvColumns(attributeInfoArray, classInfo, kinds);
+            columns.readAll(parser);
+            return columns.toColumnarDataSet();
+        }
+    }
+
+    /**
+     * Infers the kind and cardinality of each column of a file without a line of types from its first records.
+     *
+     * @param file the source file, whose first effective line gives the names of the columns
+     * @param separator the value separator on a line
+     * @param sampleSize the most records to sample, positive
+     * @return the inferred schema
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if sampleSize is not positive
+     */
+    public static CsvSchema inferSchema(File file, String separator, int sampleSize) throws IOException {
+        return CsvSchema.inferFromHead(file, separator, sampleSize);
+    }
+
+    /**
+     * Infers the kind and cardinality of each column of a file without a line of types
+     * from records sampled uniformly over the whole file by a reservoir,
+     * for files whose first records are not representative, e.g. sorted files.
+     *
+     * @param file the source file, whose first effective line gives the names of the columns
+     * @param separator the value separator on a line
+     * @param sampleSize the size of the sample, positive
+     * @param random the source of randomness
+     * @return the inferred schema
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if sampleSize is not positive
+     */
+    public static CsvSchema inferSchema(File file, String separator, int sampleSize, Random random) throws IOException {
+        return CsvSchema.inferFromReservoir(file, separator, sampleSize, random);
+    }
+
+    /**
+     * Loads a data set from a file in LibSVM format ("label index:value ..."), whose dimensionality is the largest index.
+     * The non-zeros are read straight into CSR arrays, no dense row is built.
+     *
+     * @param file the source file
+     * @return a sparse data set with a categorical class
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if an index or a value is not a number
+     * @see LibSvmReader
+     */
+    public static SparseDataSet loadLibSvmDataSet(File file) throws IOException {
+        return LibSvmReader.read(file);
+    }
+
+    /**
+     * Loads a data set from a file in LibSVM format ("label index:value ..."), with given dimensionality.
+     * The non-zeros are read straight into CSR arrays, no dense row is built.
+     *
+     * @param file the source file
+     * @param dimensionality the number of attributes, or -1 to take the largest index in the file
+     * @return a sparse data set with a categorical class
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if an index or a value is not a number
+     * @throws IllegalArgumentException if an index is not in [1, dimensionality]
+     * @see LibSvmReader
+     */
+    public static SparseDataSet loadLibSvmDataSet(File file, int dimensionality) throws IOException {
+        return LibSvmReader.read(file, dimensionality);
+    }
+
+    /**
+     * Loads a data set from a file in ARFF format.
+     * Nominal attributes are encoded by their declared values, in order of declaration.
+     *
+     * @param file the source file
+     * @param labeled whether the last attribute is the class or not
+     * @return a columnar data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric value is not a number
+     * @throws IllegalArgumentException if the header is malformed, or a nominal value is not declared
+     * @see ArffReader
+     */
+    public static ColumnarDataSet loadArffDataSet(File file, boolean labeled) throws IOException {
+        return ArffReader.read(file, labeled);
+    }
+
+    /**
+     * Opens a formatted file as a {@link DataSource} that is read chunk by chunk on each pass,
+     * for files too large to be loaded as a data set.
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @return a re-openable source of the rows in the file
+     * @throws IOException If an I/O error occurs
+     * @see CsvDataSource
+     */
+    public static DataSource openDataSource(File file, String separator, boolean labeled) throws IOException {
+        return new CsvDataSource(file, separator, labeled);
+    }
+
+    /**
+     * Opens a file for reading, inflating it if it is gzip-compressed.
+     * <p>
+     * The format is recognized by the first bytes of the file, not by its name.
+     * A compressed file is read and inflated by a {@link ReadAheadInputStream},
+     * so inflation runs on its own thread and overlaps with the parsing by the caller.
+     * Other files are returned as they are.
+     * </p>
+     *
+     * @param file the file to open
+     * @return a stream of the (inflated) bytes of the file
+     * @throws IOException if an I/O error occurs, or the file is compressed by an unsupported format such as Zstandard
+     */
+    public static InputStream openInputStream(File file) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(new FileInputStream(file), 4);
+        try {
+            byte[] magic = new byte[4];
+            int n = readMagic(in, magic);
+            in.unread(magic, 0, n);
+            if (isGzip(magic, n)) {
+                return new ReadAheadInputStream(new GZIPInputStream(in, INFLATER_BUFFER_SIZE));
+            }
+            if (isZstd(magic, n)) {
+                throw new IOException("Zstandard-compressed files are not supported, recompress " + file + " by gzip.");
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
     /**
      * Loads a labeled data set from a formatted and labeled file.
-     * This method will load a {@link RawDataSet} first and then transform it to {@link StandardDataSet}.
+     * The file is parsed by a {@link CsvParser} into primitive columns, which are then transformed to {@link StandardDataSet}.
      *
      * @param file the source file
      * @param separator the value separator on a line
@@ -59,28 +390,12 @@ public class FileTool {
      * @throws NumberFormatException if a value is not numeric
      */
     public static DataSet loadLabeledDataSet(File file, String separator) throws IOException {
-        InputStreamReader in = new InputStreamReader(new FileInputStream(file));
-        LineIterator it = new LineIterator(in, true, true);
-        String[] firstLine = it.next().split(separator);
-        String[] secondLine = it.next().split(separator);
-        int dimension = firstLine.length - 1;
-        AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
-        for (int i = 0; i < dimension; i++) {
-            attributeInfoArray[i] = new AttributeInfo(firstLine[i], parseType(secondLine[i]), i);
-        }
-        AttributeInfo classInfo = new AttributeInfo(firstLine[dimension], parseType(secondLine[dimension]), -1);
-        LinkedList<String[]> data = new LinkedList<>();
-        while (it.hasNext()) {
-            String line = it.next();
-            data.add(line.split(separator));
-        }
-        RawDataSet raw = new RawDataSet(data, attributeInfoArray, classInfo);
-        return raw.toDataSet();
+        return readColumns(file, separator, true, false).toStandardDataSet();
     }
 
     /**
      * Loads an unlabeled data set from a formatted but unlabeled file.
-     * This method will load a {@link RawDataSet} first and then transform it to {@link StandardDataSet}.
+     * The file is parsed by a {@link CsvParser} into primitive columns, which are then transformed to {@link StandardDataSet}.
      *
      * @param file the source file
      * @param separator the value separator on a line
@@ -89,28 +404,12 @@ public class FileTool {
      * @throws NumberFormatException if a value is not numeric
      */
     public static DataSet loadUnlabeledDataSet(File file, String separator) throws IOException {
-        InputStreamReader in = new InputStreamReader(new FileInputStream(file));
-        LineIterator it = new LineIterator(in, true, true);
-        String[] firstLine = it.next().split(separator);
-        String[] secondLine = it.next().split(separator);
-        int dimension = firstLine.length;
-        AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
-        for (int i = 0; i < dimension; i++) {
-            attributeInfoArray[i] = new AttributeInfo(firstLine[i], parseType(secondLine[i]), i);
-        }
-        LinkedList<String[]> data = new LinkedList<>();
-        while (it.hasNext()) {
-            String line = it.next();
-            data.add(line.split(separator));
-        }
-        RawDataSet raw = new RawDataSet(data, attributeInfoArray);
-        return raw.toDataSet();
+        return readColumns(file, separator, false, false).toStandardDataSet();
     }
 
     /**
-     * Loads a data set from a formatted file.
-     * This method will load a {@link RawDataSet} first and then transform it to {@link StandardDataSet}.
-     * This is faster than {@code loadDataSet}.
+     * Loads a data set from a formatted file, whose attributes and class are all numeric
+     * whatever the second line of the file says.
      *
      * @param file the source file
      * @param separator the value separator on a line
@@ -130,7 +429,6 @@ public class FileTool {
 
     /**
      * Loads a labeled and numeric data set from a formatted and labeled file.
-     * This is faster than {@code loadLabeledDataSet}.
      *
      * @param file the source file
      * @param separator the value separator on a line
@@ -140,33 +438,11 @@ public class FileTool {
      * @deprecated This method only supports the data set with numeric attributes and class
      */
     public static DataSet loadNumericLabeledDataSet(File file, String separator) throws IOException {
-        InputStreamReader in = new InputStreamReader(new FileInputStream(file));
-        LineIterator it = new LineIterator(in, true, true);
-        String[] firstLine = it.next().split(separator);
-        String[] secondLine = it.next().split(separator);
-        int dimension = firstLine.length - 1;
-        AttributeInfo[] attributeInfos = new AttributeInfo[dimension];
-        for (int i = 0; i < dimension; i++) {
-            attributeInfos[i] = new AttributeInfo(firstLine[i], (byte) 1, i);
-        }
-        AttributeInfo classInfo = new AttributeInfo(firstLine[dimension], (byte) 1, -1);
-        StandardDataSet res = new StandardDataSet(attributeInfos, classInfo);
-        while (it.hasNext()) {
-            String line = it.next();
-            String[] words = line.split(separator);
-            double[] attributeValues = new double[dimension];
-            for (int i = 0; i < dimension; i++) {
-                attributeValues[i] = Double.parseDouble(words[i]);
-            }
-            double classValue = Double.parseDouble(words[dimension]); // 未检查NaN的情况
-            res.add(new DenseInstance(attributeValues, classValue));
-        }
-        return res;
+        return readColumns(file, separator, true, true).toStandardDataSet();
     }
 
     /**
      * Loads an unlabeled and numeric data set from a formatted and unlabeled file.
-     * This is faster than {@code loadUnlabeledDataSet}.
      * @param file the source file
      * @param separator the value separator on a line
      * @return an unlabeled data set
@@ -175,26 +451,7 @@ public class FileTool {
      * @deprecated This method only supports the data set with numeric attributes and class
      */
     public static DataSet loadNumericUnlabeledDataSet(File file, String separator) throws IOException {
-        InputStreamReader in = new InputStreamReader(new FileInputStream(file));
-        LineIterator it = new LineIterator(in, true, true);
-        String[] firstLine = it.next().split(separator);
-        String[] secondLine = it.next().split(separator);
-        int dimension = firstLine.length;
-        AttributeInfo[] attributeInfos = new AttributeInfo[dimension];
-        for (int i = 0; i < dimension; i++) {
-            attributeInfos[i] = new AttributeInfo(firstLine[i], (byte) 1, i);
-        }
-        StandardDataSet res = new StandardDataSet(attributeInfos);
-        while (it.hasNext()) {
-            String line = it.next();
-            String[] words = line.split(separator);
-            double[] attributeValues = new double[dimension];
-            for (int i = 0; i < dimension; i++) {
-                attributeValues[i] = Double.parseDouble(words[i]);
-            }
-            res.add(new DenseInstance(attributeValues));
-        }
-        return res;
+        return readColumns(file, separator, false, true).toStandardDataSet();
     }
 
     /**
@@ -275,6 +532,139 @@ public class FileTool {
         return "";
     }
 
+    /**
+     * Parses a formatted file into primitive columns.
+     * The first two effective lines give the name and the type of each attribute (and the class at the end if labeled).
+     *
+     * @param file the source file
+     * @param separator the value separator on a line
+     * @param labeled whether the data set is labeled or not
+     * @param numeric true if all attributes and the class are taken as numeric, ignoring the given types
+     * @return the columns of the file
+     * @throws IOException if an I/O error occurs
+     */
+    private static CsvColumns readColumns(File file, String separator, boolean labeled, boolean numeric) throws IOException {
+        try (CsvParser parser = new CsvParser(openInputStream(file), separator)) {
+            CsvColumns columns = newColumns(parser, labeled, numeric);
+            columns.readAll(parser);
+            return columns;
+        }
+    }
+
+    /**
+     * Reads the names and types of the attributes and creates empty columns for them.
+     *
+     * @param parser the parser positioned at the start of a formatted file
+     * @param labeled whether the data set is labeled or not
+     * @param numeric true if all attributes and the class are taken as numeric, ignoring the given types
+     * @return empty columns
+     * @throws IOException if an I/O error occurs
+     */
+    static CsvColumns newColumns(CsvParser parser, boolean labeled, boolean numeric) throws IOException {
+        String[] names = nextFields(parser);
+        String[] types = nextFields(parser);
+        int dimension = labeled ? names.length - 1 : names.length;
+        AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
+        for (int i = 0; i < dimension; i++) {
+            attributeInfoArray[i] = new AttributeInfo(names[i], numeric ? AttributeInfo.NUMERIC : parseType(types[i]), i);
+        }
+        AttributeInfo classInfo = null;
+        if (labeled) {
+            classInfo = new AttributeInfo(names[dimension], numeric ? AttributeInfo.NUMERIC : parseType(types[dimension]), -1);
+        }
+        return new CsvColumns(attributeInfoArray, classInfo);
+    }
+
+    /**
+     * Returns if a file starts with the magic bytes of gzip or Zstandard, i.e. if it cannot be mapped as text.
+     */
+    private static boolean isCompressed(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] magic = new byte[4];
+            int n = readMagic(in, magic);
+            return isGzip(magic, n) || isZstd(magic, n);
+        }
+    }
+
+    /**
+     * Reads up to magic.length bytes at the start of a stream.
+     *
+     * @return the number of bytes read
+     */
+    private static int readMagic(InputStream in, byte[] magic) throws IOException {
+        int n = 0;
+        int read;
+        while (n < magic.length && (read = in.read(magic, n, magic.length - n)) > 0) {
+            n += read;
+        }
+        return n;
+    }
+
+    private static boolean isGzip(byte[] magic, int n) {
+        return n >= 2 && ((magic[0] & 0xff) << 8 | magic[1] & 0xff) == GZIP_MAGIC;
+    }
+
+    private static boolean isZstd(byte[] magic, int n) {
+        return n == 4 && ByteBuffer.wrap(magic).getInt() == ZSTD_MAGIC;
+    }
+
+    /**
+     * Splits [start, length) of a file into ranges of about equal size, each starting at the start of a line.
+     *
+     * @return the bounds of the ranges: range c is [bounds[c], bounds[c+1])
+     */
+    private static long[] chunkBounds(FileChannel channel, long start, long length) throws IOException {
+        long bytes = length - start;
+        int chunks = (int) Math.max(1, Math.min(MAX_CHUNKS, bytes / MIN_CHUNK_SIZE));
+        chunks = (int) Math.max(chunks, bytes / Integer.MAX_VALUE + 1); // 每段映射不超过2GB
+        long[] bounds = new long[chunks + 1];
+        bounds[0] = start;
+        for (int c = 1; c < chunks; c++) {
+            long nominal = start + bytes / chunks * c;
+            bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, nominal, length));
+        }
+        bounds[chunks] = length;
+        return bounds;
+    }
+
+    /**
+     * Returns the start of the first line beginning at or after a position, or the length if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long p = position - 1; // 前一个字节是换行符时，position已是行首
+        while (p < length) {
+            buffer.clear();
+            int n = channel.read(buffer, p);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return p + i + 1;
+                }
+            }
+            p += n;
+        }
+        return length;
+    }
+
+    /**
+     * Reads the next record of the parser as strings.
+     *
+     * @throws EOFException if there are no more records
+     */
+    private static String[] nextFields(CsvParser parser) throws IOException {
+        if (!parser.next()) {
+            throw new EOFException("The file ends before the names and types of the attributes.");
+        }
+        String[] res = new String[parser.fieldCount()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = parser.field(i);
+        }
+        return res;
+    }
+
     /**
      * Returns if given string is "categorical" or "numeric".
      *
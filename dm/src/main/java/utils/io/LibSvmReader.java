@@ -0,0 +1,262 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.SparseDataSet;
+import main.java.core.collection.CategoryDictionary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reader of files in LibSVM (svmlight) format, one instance per line:
+ * <pre>
+ * label index:value index:value ...
+ * </pre>
+ * Indices start from 1 and values that are not listed are zeros.
+ * <p>
+ * The lines are scanned as bytes by a {@link CsvParser} and appended straight to growing CSR arrays,
+ * which become the arrays of a {@link SparseDataSet}, so no dense row is ever built.
+ * Zeros listed in the file are dropped, indices listed out of order are sorted within their line,
+ * and "qid:" tokens and trailing "#" comments are ignored.
+ * Fields may be separated by spaces or tabs.
+ * </p>
+ * <p>
+ * The class is categorical: labels are coded by their text in order of first appearance,
+ * as a categorical class of {@link FileTool#loadDataSet(File, String, boolean)} is.
+ * Attribute j is numeric and named by its index in the file, i.e. j+1.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see FileTool#loadLibSvmDataSet(File, int)
+ * @see SparseDataSet
+ */
+public class LibSvmReader {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The dimensionality given, or -1 if it is the largest index in the file.
+     */
+    private final int dimensionality;
+
+    private final CategoryDictionary labels = new CategoryDictionary();
+
+    private int[] indptr = new int[DEFAULT_CAPACITY + 1];
+
+    private int[] indices = new int[DEFAULT_CAPACITY];
+
+    private double[] data = new double[DEFAULT_CAPACITY];
+
+    private double[] classValues = new double[DEFAULT_CAPACITY];
+
+    private int size;
+
+    private int nnz;
+
+    /**
+     * The largest attribute index seen, 0-based.
+     */
+    private int maxIndex = -1;
+
+    private LibSvmReader(int dimensionality) {
+        this.dimensionality = dimensionality;
+    }
+
+    /**
+     * Reads a LibSVM file, whose dimensionality is the largest index in it.
+     * A gzip-compressed file is inflated on the fly.
+     *
+     * @param file the source file
+     * @return a sparse data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if an index or a value is not a number
+     * @throws IllegalArgumentException if an index is not positive or is listed twice on a line
+     */
+    public static SparseDataSet read(File file) throws IOException {
+        return read(file, -1);
+    }
+
+    /**
+     * Reads a LibSVM file with a given dimensionality, e.g. a test file which must match its training file.
+     * A gzip-compressed file is inflated on the fly.
+     *
+     * @param file the source file
+     * @param dimensionality the number of attributes, or -1 to take the largest index in the file
+     * @return a sparse data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if an index or a value is not a number
+     * @throws IllegalArgumentException if an index is not in [1, dimensionality] or is listed twice on a line
+     */
+    public static SparseDataSet read(File file, int dimensionality) throws IOException {
+        return read(FileTool.openInputStream(file), dimensionality);
+    }
+
+    /**
+     * Reads LibSVM lines from a stream.
+     *
+     * @param in the stream to read, closed when all lines are read
+     * @param dimensionality the number of attributes, or -1 to take the largest index in the stream
+     * @return a sparse data set
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if an index or a value is not a number
+     * @throws IllegalArgumentException if an index is not in [1, dimensionality] or is listed twice on a line
+     */
+    public static SparseDataSet read(InputStream in, int dimensionality) throws IOException {
+        if (dimensionality < -1) {
+            throw new IllegalArgumentException("dimensionality must be non-negative or -1.");
+        }
+        LibSvmReader reader = new LibSvmReader(dimensionality);
+        try (CsvParser parser = new CsvParser(in, " ")) {
+            while (parser.next()) {
+                reader.append(parser);
+            }
+        }
+        return reader.toDataSet();
+    }
+
+    /**
+     * Appends the line held by the parser.
+     */
+    private void append(CsvParser parser) {
+        if (this.size == this.classValues.length) {
+            int capacity = this.size + (this.size >> 1);
+            this.classValues = Arrays.copyOf(this.classValues, capacity);
+            this.indptr = Arrays.copyOf(this.indptr, capacity + 1);
+        }
+        byte[] buf = parser.buffer();
+        int rowStart = this.nnz;
+        boolean labeled = false;
+        fields:
+        for (int f = 0; f < parser.fieldCount(); f++) {
+            int end = parser.end(f);
+            for (int from = parser.start(f); from < end; ) {
+                int to = from;
+                while (to < end && buf[to] != '\t') {
+                    to++;
+                }
+                if (to > from) {
+                    if (buf[from] == '#') {
+                        break fields;
+                    }
+                    if (!labeled) {
+                        this.classValues[this.size] = this.labels.encode(buf, from, to);
+                        labeled = true;
+                    } else {
+                        this.appendValue(parser, buf, from, to);
+                    }
+                }
+                from = to + 1;
+            }
+        }
+        if (!labeled) {
+            throw new IllegalArgumentException("Record " + parser.recordCount() + " has no label.");
+        }
+        this.sortRow(parser, rowStart);
+        this.indptr[++this.size] = this.nnz;
+    }
+
+    /**
+     * Appends the pair "index:value" at [from, to) of the bytes, unless it is a zero or a "qid:" token.
+     */
+    private void appendValue(CsvParser parser, byte[] buf, int from, int to) {
+        int colon = from;
+        while (colon < to && buf[colon] != ':') {
+            colon++;
+        }
+        if (colon == to) {
+            throw new NumberFormatException("Record " + parser.recordCount() + ": '" +
+                    new String(buf, from, to - from) + "' is not an index:value pair.");
+        }
+        if (colon - from == 3 && buf[from] == 'q' && buf[from + 1] == 'i' && buf[from + 2] == 'd') {
+            return;
+        }
+        int index = parseIndex(parser, buf, from, colon) - 1;
+        if (index < 0 || (this.dimensionality >= 0 && index >= this.dimensionality)) {
+            String bound = this.dimensionality >= 0 ? String.valueOf(this.dimensionality) : "";
+            throw new IllegalArgumentException("Record " + parser.recordCount() + ": index " + (index + 1) +
+                    " is not in [1, " + bound + "].");
+        }
+        double value = CsvParser.parseDouble(buf, colon + 1, to);
+        if (value == 0) {
+            return;
+        }
+        if (this.nnz == this.data.length) {
+            int capacity = this.nnz + (this.nnz >> 1);
+            this.indices = Arrays.copyOf(this.indices, capacity);
+            this.data = Arrays.copyOf(this.data, capacity);
+        }
+        this.indices[this.nnz] = index;
+        this.data[this.nnz] = value;
+        this.nnz++;
+        this.maxIndex = Math.max(this.maxIndex, index);
+    }
+
+    /**
+     * Sorts the non-zeros of the current row by index, they are usually in order already.
+     *
+     * @throws IllegalArgumentException if an index is listed twice
+     */
+    private void sortRow(CsvParser parser, int rowStart) {
+        for (int k = rowStart + 1; k < this.nnz; k++) {
+            int index = this.indices[k];
+            if (index > this.indices[k - 1]) {
+                continue;
+            }
+            double value = this.data[k];
+            int m = k - 1;
+            while (m >= rowStart && this.indices[m] > index) { // 插入排序
+                this.indices[m + 1] = this.indices[m];
+                this.data[m + 1] = this.data[m];
+                m--;
+            }
+            if (m >= rowStart && this.indices[m] == index) {
+                throw new IllegalArgumentException("Record " + parser.recordCount() + ": index " + (index + 1) + " is listed twice.");
+            }
+            this.indices[m + 1] = index;
+            this.data[m + 1] = value;
+        }
+    }
+
+    /**
+     * Wraps the CSR arrays, trimmed to size, as a data set.
+     */
+    private SparseDataSet toDataSet() {
+        int dimension = this.dimensionality >= 0 ? this.dimensionality : this.maxIndex + 1;
+        List<AttributeInfo> attributeInfoList = new ArrayList<>(dimension);
+        for (int j = 0; j < dimension; j++) {
+            attributeInfoList.add(new AttributeInfo(String.valueOf(j + 1), AttributeInfo.NUMERIC, j));
+        }
+        AttributeInfo classInfo = new AttributeInfo("label", AttributeInfo.CATEGORICAL, -1);
+        classInfo.encodingMap = this.labels.encodingMap();
+        return new SparseDataSet(attributeInfoList, classInfo,
+                Arrays.copyOf(this.indptr, this.size + 1),
+                Arrays.copyOf(this.indices, this.nnz),
+                Arrays.copyOf(this.data, this.nnz),
+                Arrays.copyOf(this.classValues, this.size),
+                null);
+    }
+
+    /**
+     * Parses [from, to) of the bytes as a positive decimal int.
+     */
+    private static int parseIndex(CsvParser parser, byte[] buf, int from, int to) {
+        long res = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9 || res > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Record " + parser.recordCount() + ": '" +
+                        new String(buf, from, to - from) + "' is not an index.");
+            }
+            res = res * 10 + digit;
+        }
+        if (from == to || res > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Record " + parser.recordCount() + ": '" +
+                    new String(buf, from, to - from) + "' is not an index.");
+        }
+        return (int) res;
+    }
+}
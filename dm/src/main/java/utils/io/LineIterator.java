@@ -2,8 +2,11 @@ package main.java.utils.io;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 
@@ -40,6 +43,19 @@ public class LineIterator implements Iterable<String>, Iterator<String>, Closeab
      */
     private final ArrayList<String> commentIdentifiers;
 
+    /**
+     * Constructs an iterator of the lines of a UTF-8 file, which is inflated if it is gzip-compressed.
+     *
+     * @param file the file to read
+     * @param skipComments true if ignoring comments line
+     * @param skipBlanks true if ignoring blank line
+     * @throws IOException If an I/O error occurs
+     * @see FileTool#openInputStream(File)
+     */
+    public LineIterator(File file, boolean skipComments, boolean skipBlanks) throws IOException {
+        this(new InputStreamReader(FileTool.openInputStream(file), StandardCharsets.UTF_8), skipComments, skipBlanks);
+    }
+
     /**
      * Constructs an iterator of the lines for a {@link Reader}.
      *
@@ -0,0 +1,487 @@
+package main.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.DataSet;
+import main.java.core.MappedDataSet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A versioned binary snapshot of a fitted model, which can be reloaded without parsing.
+ * <p>
+ * The format of a snapshot file is as follows:
+ * 1. the magic number "JDMM", the format version, the length of the header (big-endian ints)
+ * and the length of the array block (a big-endian long);
+ * 2. the header (big-endian, as written by {@link DataOutputStream}):
+ * the kind of the model, then its scalar parameters;
+ * 3. zero padding to a multiple of 8 bytes;
+ * 4. the array block (little-endian): each array is its length as a long followed by its elements,
+ * padded to a multiple of 8 bytes;
+ * 5. optionally, the column block of {@link MappedDataSet} holding the training set.
+ * </p>
+ * <p>
+ * A model writes its parameters with a {@link Writer} and reads them back in the same order with a {@link Reader}.
+ * The reader memory-maps the file: arrays are copied in bulk from the mapping and the training set stays mapped,
+ * so loading costs about as much as touching the pages of the file.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see DataSetSnapshot
+ * @see MappedDataSet
+ */
+public class ModelSnapshot {
+
+    /**
+     * The magic number at the start of a snapshot file: "JDMM".
+     */
+    public static final int MAGIC = 0x4A444D4D;
+
+    /**
+     * The version of the snapshot format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The length of the fixed prefix: magic, version, header length and array block length.
+     */
+    private static final int PREFIX_LENGTH = 20;
+
+    /**
+     * Starts writing a snapshot of a model of given kind.
+     *
+     * @param kind the kind of the model, checked by {@link #open(Path, String)}
+     * @return a writer of the parameters of the model
+     * @throws IOException if an I/O error occurs
+     */
+    public static Writer writer(String kind) throws IOException {
+        return new Writer(kind);
+    }
+
+    /**
+     * Opens a snapshot of a model of given kind for reading.
+     *
+     * @param path the snapshot file
+     * @param kind the expected kind of the model
+     * @return a reader of the parameters of the model, which must be closed
+     * @throws IOException if an I/O error occurs, the file is not a valid snapshot or holds another kind of model
+     */
+    public static Reader open(Path path, String kind) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new Reader(channel, path, kind);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Collects the parameters of a model, then writes them to a file by {@link #save(Path)}.
+     * Arrays are not copied, so they must not be modified before saving.
+     */
+    public static final class Writer {
+
+        private final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream header = new DataOutputStream(this.headerBytes);
+
+        private final List<Object> arrays = new ArrayList<>();
+
+        private long arrayLength;
+
+        private DataSet dataset;
+
+        private Writer(String kind) throws IOException {
+            DataSetSnapshot.writeString(this.header, kind);
+        }
+
+        /**
+         * Writes a scalar parameter to the header.
+         *
+         * @param value the parameter
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeInt(int value) throws IOException {
+            this.header.writeInt(value);
+            return this;
+        }
+
+        /**
+         * Writes a scalar parameter to the header.
+         *
+         * @param value the parameter
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeDouble(double value) throws IOException {
+            this.header.writeDouble(value);
+            return this;
+        }
+
+        /**
+         * Writes a scalar parameter to the header.
+         *
+         * @param value the parameter
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeBoolean(boolean value) throws IOException {
+            this.header.writeBoolean(value);
+            return this;
+        }
+
+        /**
+         * Writes a string parameter to the header as UTF-8.
+         *
+         * @param value the parameter
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeString(String value) throws IOException {
+            DataSetSnapshot.writeString(this.header, value);
+            return this;
+        }
+
+        /**
+         * Writes an attribute's information: name, type, weight, index and encodingMap.
+         *
+         * @param info the attribute's information
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeAttributeInfo(AttributeInfo info) throws IOException {
+            DataSetSnapshot.writeAttributeInfo(this.header, info);
+            return this;
+        }
+
+        /**
+         * Appends an array to the array block.
+         *
+         * @param values the array
+         * @return this writer
+         */
+        public Writer writeInts(int[] values) {
+            this.arrays.add(values);
+            this.arrayLength += Long.BYTES + DataSetSnapshot.align((long) values.length * Integer.BYTES);
+            return this;
+        }
+
+        /**
+         * Appends an array to the array block.
+         *
+         * @param values the array
+         * @return this writer
+         */
+        public Writer writeDoubles(double[] values) {
+            this.arrays.add(values);
+            this.arrayLength += Long.BYTES + (long) values.length * Double.BYTES;
+            return this;
+        }
+
+        /**
+         * Appends a matrix to the array block row by row, and its number of rows to the header.
+         *
+         * @param values the matrix, whose rows may have different lengths
+         * @return this writer
+         * @throws IOException if an I/O error occurs
+         */
+        public Writer writeMatrix(double[][] values) throws IOException {
+            this.header.writeInt(values.length);
+            for (double[] row: values) {
+                this.writeDoubles(row);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the training set saved after the array block, at most once.
+         *
+         * @param dataset the training set
+         * @return this writer
+         * @throws IllegalStateException if a training set is set already
+         */
+        public Writer writeColumns(DataSet dataset) {
+            if (this.dataset != null) {
+                throw new IllegalStateException("A snapshot holds at most one data set.");
+            }
+            this.dataset = dataset;
+            return this;
+        }
+
+        /**
+         * Writes the snapshot to a temporary file first and then moves it to the target,
+         * so readers never see a partially written snapshot.
+         *
+         * @param path the target file
+         * @throws IOException if an I/O error occurs
+         */
+        public void save(Path path) throws IOException {
+            this.header.flush();
+            int headerLength = this.headerBytes.size();
+            int padding = (int) (DataSetSnapshot.align(PREFIX_LENGTH + headerLength) - PREFIX_LENGTH - headerLength);
+
+            Path parent = path.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(headerLength);
+                    out.writeLong(this.arrayLength);
+                    this.headerBytes.writeTo(out);
+                    out.write(new byte[padding]);
+                    out.flush();
+                    this.writeArrays(channel);
+                    if (this.dataset != null) {
+                        MappedDataSet.writeColumns(this.dataset, channel);
+                    }
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeArrays(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (Object array: this.arrays) {
+                boolean isInts = array instanceof int[];
+                int length = isInts ? ((int[]) array).length : ((double[]) array).length;
+                ensure(buffer, channel, Long.BYTES);
+                buffer.putLong(length);
+                for (int from = 0; from < length; ) {
+                    ensure(buffer, channel, Double.BYTES);
+                    int n;
+                    if (isInts) {
+                        n = Math.min(length - from, buffer.remaining() / Integer.BYTES);
+                        buffer.asIntBuffer().put((int[]) array, from, n);
+                        buffer.position(buffer.position() + n * Integer.BYTES);
+                    } else {
+                        n = Math.min(length - from, buffer.remaining() / Double.BYTES);
+                        buffer.asDoubleBuffer().put((double[]) array, from, n);
+                        buffer.position(buffer.position() + n * Double.BYTES);
+                    }
+                    from += n;
+                }
+                if (isInts && (length & 1) == 1) { // 补齐到8字节
+                    ensure(buffer, channel, Integer.BYTES);
+                    buffer.putInt(0);
+                }
+            }
+            flush(buffer, channel);
+        }
+
+        /**
+         * Flushes the buffer if it has fewer than n bytes remaining.
+         */
+        private static void ensure(ByteBuffer buffer, FileChannel channel, int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush(buffer, channel);
+            }
+        }
+
+        private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the parameters of a model in the order they were written.
+     */
+    public static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+
+        private final DataInputStream header;
+
+        /**
+         * The mapped array block, positioned at the next array.
+         */
+        private final ByteBuffer arrays;
+
+        /**
+         * The position of the column block in the file.
+         */
+        private final long columnPosition;
+
+        private Reader(FileChannel channel, Path path, String kind) throws IOException {
+            this.channel = channel;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a model snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            int headerLength = in.readInt();
+            long arrayLength = in.readLong();
+            if (arrayLength > Integer.MAX_VALUE) {
+                throw new IOException("The array block is too large to map: " + arrayLength + " bytes.");
+            }
+            byte[] headerBytes = new byte[headerLength];
+            in.readFully(headerBytes);
+            this.header = new DataInputStream(new ByteArrayInputStream(headerBytes));
+            String actualKind = DataSetSnapshot.readString(this.header);
+            if (!actualKind.equals(kind)) {
+                throw new IOException("Not a snapshot of " + kind + ": " + path + " holds " + actualKind + ".");
+            }
+            long arrayPosition = DataSetSnapshot.align(PREFIX_LENGTH + headerLength);
+            if (arrayPosition + arrayLength > channel.size()) {
+                throw new IOException("The file is too short: " + path);
+            }
+            this.arrays = channel.map(FileChannel.MapMode.READ_ONLY, arrayPosition, arrayLength)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.columnPosition = arrayPosition + arrayLength;
+        }
+
+        /**
+         * Reads the next scalar parameter of the header.
+         *
+         * @return the parameter
+         * @throws IOException if the header ends
+         */
+        public int readInt() throws IOException {
+            return this.header.readInt();
+        }
+
+        /**
+         * Reads the next scalar parameter of the header.
+         *
+         * @return the parameter
+         * @throws IOException if the header ends
+         */
+        public double readDouble() throws IOException {
+            return this.header.readDouble();
+        }
+
+        /**
+         * Reads the next scalar parameter of the header.
+         *
+         * @return the parameter
+         * @throws IOException if the header ends
+         */
+        public boolean readBoolean() throws IOException {
+            return this.header.readBoolean();
+        }
+
+        /**
+         * Reads the next string parameter of the header.
+         *
+         * @return the parameter
+         * @throws IOException if the header ends
+         */
+        public String readString() throws IOException {
+            return DataSetSnapshot.readString(this.header);
+        }
+
+        /**
+         * Reads the next attribute's information of the header.
+         *
+         * @return the attribute's information
+         * @throws IOException if the header ends
+         */
+        public AttributeInfo readAttributeInfo() throws IOException {
+            return DataSetSnapshot.readAttributeInfo(this.header);
+        }
+
+        /**
+         * Copies the next array of the array block.
+         *
+         * @return the array
+         * @throws IOException if the array block ends
+         */
+        public int[] readInts() throws IOException {
+            int length = this.nextLength(Integer.BYTES);
+            int[] res = new int[length];
+            this.arrays.asIntBuffer().get(res);
+            this.skip(DataSetSnapshot.align((long) length * Integer.BYTES));
+            return res;
+        }
+
+        /**
+         * Copies the next array of the array block.
+         *
+         * @return the array
+         * @throws IOException if the array block ends
+         */
+        public double[] readDoubles() throws IOException {
+            int length = this.nextLength(Double.BYTES);
+            double[] res = new double[length];
+            this.arrays.asDoubleBuffer().get(res);
+            this.skip((long) length * Double.BYTES);
+            return res;
+        }
+
+        /**
+         * Copies the next matrix of the array block.
+         *
+         * @return the matrix
+         * @throws IOException if the header or the array block ends
+         */
+        public double[][] readMatrix() throws IOException {
+            double[][] res = new double[this.header.readInt()][];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = this.readDoubles();
+            }
+            return res;
+        }
+
+        /**
+         * Maps the training set saved after the array block.
+         *
+         * @param size the number of instances
+         * @param attributeInfoList a list contains each attribute's information.
+         * @param classInfo the class information, null if unlabeled
+         * @return a data set mapping the columns of the snapshot
+         * @throws IOException if an I/O error occurs or the file is too short
+         */
+        public MappedDataSet readColumns(int size, List<AttributeInfo> attributeInfoList, AttributeInfo classInfo) throws IOException {
+            return new MappedDataSet(this.channel, this.columnPosition, size, attributeInfoList, classInfo);
+        }
+
+        private int nextLength(int elementSize) throws IOException {
+            if (this.arrays.remaining() < Long.BYTES) {
+                throw new IOException("Unexpected end of the array block.");
+            }
+            long length = this.arrays.getLong();
+            if (length < 0 || length * elementSize > this.arrays.remaining()) {
+                throw new IOException("Invalid array length: " + length);
+            }
+            return (int) length;
+        }
+
+        private void skip(long n) throws IOException {
+            if (n > this.arrays.remaining()) {
+                throw new IOException("Unexpected end of the array block.");
+            }
+            this.arrays.position(this.arrays.position() + (int) n);
+        }
+
+        /**
+         * Closes the file, the data set mapped by {@link #readColumns(int, List, AttributeInfo)} stays valid.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package main.java.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An input stream reading another stream ahead on a dedicated thread.
+ * <p>
+ * The thread fills blocks of bytes from the wrapped stream and hands them to the reader of this stream
+ * through a bounded queue, so reading and inflating a compressed file overlap with parsing it
+ * and building the data set, and at most a few blocks are held in memory.
+ * Blocks are recycled once they are consumed, so no buffer is allocated per block.
+ * </p>
+ * <p>
+ * An exception thrown by the wrapped stream is thrown by the next read after the bytes read before it.
+ * Like other streams, this stream is not safe for use by several threads.
+ * </p>
+ *
+ * @author Cloudy1225
+ * @see FileTool#openInputStream(java.io.File)
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /**
+     * The default number of bytes of a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 18;
+
+    /**
+     * The default number of filled blocks waiting to be read.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * The block marking the end of the wrapped stream.
+     */
+    private static final Block END = new Block(new byte[0], 0, null);
+
+    /**
+     * The stream read ahead.
+     */
+    private final InputStream in;
+
+    /**
+     * Blocks filled by the read-ahead thread, in order.
+     */
+    private final BlockingQueue<Block> filled;
+
+    /**
+     * Buffers consumed by the reader, to be filled again.
+     */
+    private final BlockingQueue<byte[]> free;
+
+    private final int blockSize;
+
+    /**
+     * The most buffers ever allocated: the filled blocks, the one being read and the one being filled.
+     */
+    private final int maxBuffers;
+
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    /**
+     * The block being read, and the position of the next byte in it.
+     */
+    private Block current;
+
+    private int pos;
+
+    /**
+     * Starts reading a stream ahead with blocks of {@link #DEFAULT_BLOCK_SIZE} bytes and {@link #DEFAULT_DEPTH} blocks queued.
+     *
+     * @param in the stream to read, closed when this stream is closed
+     */
+    public ReadAheadInputStream(InputStream in) {
+        this(in, DEFAULT_BLOCK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Starts reading a stream ahead.
+     *
+     * @param in the stream to read, closed when this stream is closed
+     * @param blockSize the number of bytes of a block
+     * @param depth the most filled blocks waiting to be read
+     * @throws IllegalArgumentException if blockSize or depth is not positive
+     */
+    public ReadAheadInputStream(InputStream in, int blockSize, int depth) {
+        if (blockSize <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("blockSize and depth must be positive.");
+        }
+        this.in = in;
+        this.blockSize = blockSize;
+        this.maxBuffers = depth + 2;
+        this.filled = new ArrayBlockingQueue<>(depth);
+        this.free = new ArrayBlockingQueue<>(this.maxBuffers);
+        this.thread = new Thread(this::readAhead, "read-ahead");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.fill()) {
+            return -1;
+        }
+        return this.current.bytes[this.pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.fill()) {
+            return -1;
+        }
+        int n = Math.min(len, this.current.length - this.pos);
+        System.arraycopy(this.current.bytes, this.pos, b, off, n);
+        this.pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        return this.current == null ? 0 : this.current.length - this.pos;
+    }
+
+    /**
+     * Stops the read-ahead thread and closes the wrapped stream.
+     *
+     * @throws IOException if closing the wrapped stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.thread.interrupt();
+        try {
+            this.thread.join(); // 读线程退出后才能关闭被包装的流
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.filled.clear();
+        this.free.clear();
+        this.current = END;
+        this.in.close();
+    }
+
+    /**
+     * Makes sure the current block has unread bytes, taking the next filled block if needed.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.current != null && this.pos < this.current.length) {
+            return true;
+        }
+        if (this.current == END) {
+            return false;
+        }
+        if (this.current != null) {
+            this.free.offer(this.current.bytes);
+            this.current = null;
+        }
+        Block block;
+        try {
+            block = this.filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the read-ahead thread.");
+        }
+        if (block.error != null) {
+            this.current = END;
+            throw new IOException(block.error.getMessage(), block.error);
+        }
+        this.current = block;
+        this.pos = 0;
+        return block != END;
+    }
+
+    /**
+     * The body of the read-ahead thread: fills blocks until the end of the wrapped stream, an error or closing.
+     */
+    private void readAhead() {
+        int allocated = 0;
+        try {
+            while (!this.closed) {
+                byte[] bytes = this.free.poll();
+                if (bytes == null) {
+                    if (allocated < this.maxBuffers) {
+                        bytes = new byte[this.blockSize];
+                        allocated++;
+                    } else {
+                        bytes = this.free.take();
+                    }
+                }
+                int length = 0;
+                int n = 0;
+                Exception error = null;
+                try {
+                    while (length < bytes.length && (n = this.in.read(bytes, length, bytes.length - length)) >= 0) {
+                        length += n;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    error = e;
+                }
+                if (length > 0) {
+                    this.filled.put(new Block(bytes, length, null));
+                }
+                if (error != null) {
+                    this.filled.put(new Block(null, 0, error));
+                    return;
+                }
+                if (n < 0) {
+                    this.filled.put(END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // 流已关闭
+        }
+    }
+
+    /**
+     * The first length bytes of a buffer, or an error of the wrapped stream.
+     */
+    private static final class Block {
+
+        private final byte[] bytes;
+
+        private final int length;
+
+        private final Exception error;
+
+        private Block(byte[] bytes, int length, Exception error) {
+            this.bytes = bytes;
+            this.length = length;
+            this.error = error;
+        }
+    }
+}
@@ -4,13 +4,20 @@ import main.java.classify.Classifier;
 import main.java.classify.decisionTree.*;
 import main.java.classify.evaluation.PerformanceMeasure;
 import main.java.core.DataSet;
+import main.java.core.DataSetView;
 import main.java.core.DataSets;
 import main.java.core.Instance;
+import main.java.core.sampling.Bootstrap;
+import main.java.preprocessing.weight.ClassWeightUtil;
 import main.java.utils.io.FileTool;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 /**
  * Tests decision tree classifiers: ID3, C4.5, CART.
@@ -142,6 +149,66 @@ public class DecisionTreeClassifierTest {
         System.out.println("}");
     }
 
+    @Test
+    public void testConcurrentWeightedFit() throws InterruptedException {
+        DataSet dataset = FileTool.loadIris();
+        Map<Double, Double> classWeight = new TreeMap<>();
+        classWeight.put(dataset.classSet().first(), 5.0);
+        double[] ones = ClassWeightUtil.computeWeight(dataset, null, null);
+        double[] weights = ClassWeightUtil.computeWeight(dataset, classWeight, null);
+
+        // 顺序训练作为参照
+        DecisionTree expected1 = new CartTree(3, 2, 1, 0, 0);
+        expected1.fit(dataset, ones);
+        DecisionTree expected2 = new CartTree(3, 2, 1, 0, 0);
+        expected2.fit(dataset, weights);
+
+        // 在同一数据集上用不同权重并发训练
+        DecisionTree tree1 = new CartTree(3, 2, 1, 0, 0);
+        DecisionTree tree2 = new CartTree(3, 2, 1, 0, 0);
+        Thread thread1 = new Thread(() -> tree1.fit(dataset, ones));
+        Thread thread2 = new Thread(() -> tree2.fit(dataset, weights));
+        thread1.start();
+        thread2.start();
+        thread1.join();
+        thread2.join();
+
+        for (Instance instance: dataset) {
+            Assert.assertEquals(1.0, instance.getWeight(), 0);
+            Assert.assertEquals(expected1.predict(instance), tree1.predict(instance), 0);
+            Assert.assertEquals(expected2.predict(instance), tree2.predict(instance), 0);
+        }
+    }
+
+    @Test
+    public void testBootstrapWeightedFit() {
+        DataSet[] datasets = {FileTool.loadTicTacToe(), FileTool.loadIris()};
+        Random random = new Random(6);
+        for (DataSet dataset: datasets) {
+            int n = dataset.size();
+            // 自助样本的权重含有0：未被抽中的行
+            int[][] samples = {Bootstrap.poisson(n, random), Bootstrap.multinomial(n, n, random)};
+            for (int[] counts: samples) {
+                double[] weights = Bootstrap.weights(counts, null);
+                int[] rows = IntStream.range(0, n).filter(i -> counts[i] > 0).toArray();
+                double[] drawnWeights = Arrays.stream(rows).mapToDouble(i -> weights[i]).toArray();
+                DataSet drawn = new DataSetView(dataset, rows);
+                DecisionTree[] trees = {new ID3Tree(), new C45Tree(), new CartTree()};
+                DecisionTree[] expectedTrees = {new ID3Tree(), new C45Tree(), new CartTree()};
+                for (int t = 0; t < trees.length; t++) {
+                    if (trees[t] instanceof ID3Tree && dataset.attributeInfo(0).continuous()) {
+                        continue; // ID3只能处理离散属性
+                    }
+                    trees[t].fit(dataset, weights);
+                    expectedTrees[t].fit(drawn, drawnWeights); // 权重为0的行与未抽中的行相同
+                    for (Instance instance: dataset) {
+                        Assert.assertEquals(expectedTrees[t].predict(instance), trees[t].predict(instance), 0);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * k-折交叉验证并打印结果
      */
@@ -4,11 +4,16 @@ import main.java.classify.neighbors.*;
 import main.java.core.DataSet;
 import main.java.core.DataSets;
 import main.java.core.DenseInstance;
+import main.java.core.Instance;
+import main.java.core.collection.TopK;
 import main.java.metrics.distance.EuclideanDistance;
 import main.java.metrics.distance.SEuclideanDistance;
 import main.java.utils.io.FileTool;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Map;
+
 /**
  * Tests nearest neighbors classifiers.
  *
@@ -94,4 +99,33 @@ public class NeighborsClassifierTest {
         System.out.println("交叉验证：");
         ClassifierTestUtil.crossValidation(clf, iris, 5);
     }
+
+    @Test
+    public void testBruteMatchesKDTree() {
+        DataSet iris = FileTool.loadIris();
+        BruteKNNClassifier brute = new BruteKNNClassifier(7, KNeighborsClassifier.DISTANCE);
+        KDTreeKNNClassifier kdTree = new KDTreeKNNClassifier(7, KNeighborsClassifier.DISTANCE);
+        brute.fit(iris);
+        kdTree.fit(iris);
+        for (Instance instance: iris) {
+            double[] expected = distances(brute.kNeighbors(instance, 7));
+            Assert.assertArrayEquals(expected, distances(kdTree.kNeighbors(instance, 7)), 1e-12);
+            TopK neighbors = new TopK(7);
+            brute.kNeighbors(instance, neighbors);
+            neighbors.sort();
+            for (int i = 0; i < neighbors.size(); i++) {
+                Assert.assertEquals(expected[i], neighbors.distance(i), 0);
+            }
+            Assert.assertEquals(brute.predict(instance), kdTree.predict(instance), 0);
+        }
+    }
+
+    private static double[] distances(Map<Instance, Double> neighbors) {
+        double[] res = new double[neighbors.size()];
+        int i = 0;
+        for (double distance: neighbors.values()) {
+            res[i++] = distance;
+        }
+        return res;
+    }
 }
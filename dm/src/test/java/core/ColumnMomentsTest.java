@@ -0,0 +1,160 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link ColumnMoments}.
+ *
+ * @author Cloudy1225
+ */
+public class ColumnMomentsTest {
+
+    @Test
+    public void testMoments() {
+        DataSet iris = FileTool.loadIris();
+        double[] weights = new double[iris.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i % 4; // 包含权重为0的实例
+        }
+        ColumnMoments moments = ColumnMoments.of(iris, weights, false);
+        double[][] expected = twoPass(iris, weights);
+        Assert.assertArrayEquals(expected[0], moments.mean(), 1e-12);
+        Assert.assertArrayEquals(expected[1], moments.variance(), 1e-12);
+        Assert.assertArrayEquals(expected[2], moments.min(), 0);
+        Assert.assertArrayEquals(expected[3], moments.max(), 0);
+        Assert.assertEquals(iris.size() - (iris.size() + 3) / 4, moments.count());
+
+        // 不带权重时与逐列计算的方差一致
+        double[] variance = DataSets.var(iris);
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertEquals(DataSets.var(iris, j), variance[j], 1e-12);
+        }
+        Assert.assertArrayEquals(variance, DataSets.var(new ColumnarDataSet(iris)), 0);
+    }
+
+    @Test
+    public void testLargeMagnitude() {
+        // sum(x^2) - sum(x)^2/n 在此处完全抵消
+        AttributeInfo[] attributeInfos = {new AttributeInfo("a", AttributeInfo.NUMERIC, 0)};
+        ColumnarDataSet dataset = new ColumnarDataSet(attributeInfos, new AttributeInfo("class", AttributeInfo.CATEGORICAL, -1));
+        for (int i = 0; i < 1000; i++) {
+            dataset.add(new DenseInstance(new double[]{1e9 + i % 2}, 0));
+        }
+        Assert.assertEquals(0.25, DataSets.var(dataset)[0], 1e-9);
+        Assert.assertEquals(0.25, DataSets.var(dataset, 0), 1e-9);
+    }
+
+    @Test
+    public void testSparse() {
+        Random random = new Random(3);
+        int dimension = 6;
+        AttributeInfo[] attributeInfos = new AttributeInfo[dimension];
+        for (int j = 0; j < dimension; j++) {
+            attributeInfos[j] = new AttributeInfo("a" + j, AttributeInfo.NUMERIC, j);
+        }
+        AttributeInfo classInfo = new AttributeInfo("class", AttributeInfo.CATEGORICAL, -1);
+        SparseDataSet sparse = new SparseDataSet(attributeInfos, classInfo);
+        StandardDataSet dense = new StandardDataSet(attributeInfos, classInfo);
+        for (int i = 0; i < 200; i++) {
+            int nnz = random.nextInt(3);
+            int[] indices = new int[nnz];
+            double[] values = new double[nnz];
+            for (int k = 0; k < nnz; k++) {
+                indices[k] = k * 2 + random.nextInt(2);
+                values[k] = random.nextGaussian() - 3;
+            }
+            SparseInstance instance = new SparseInstance(dimension, indices, values, i % 2);
+            sparse.add(instance);
+            dense.add(new DenseInstance(toDense(instance), i % 2));
+        }
+        ColumnMoments expected = ColumnMoments.of(dense);
+        ColumnMoments actual = ColumnMoments.of(sparse);
+        Assert.assertArrayEquals(expected.variance(), actual.variance(), 1e-12);
+        Assert.assertArrayEquals(expected.mean(), actual.mean(), 1e-12);
+        Assert.assertArrayEquals(expected.min(), actual.min(), 0);
+        Assert.assertArrayEquals(expected.max(), actual.max(), 0);
+
+        // 加权时跳过权重为0的行
+        double[] weights = new double[sparse.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i % 3;
+        }
+        Assert.assertArrayEquals(ColumnMoments.of(dense, weights, false).variance(),
+                ColumnMoments.of(sparse, weights, false).variance(), 1e-12);
+        Assert.assertArrayEquals(ColumnMoments.of(dense, weights, false).min(),
+                ColumnMoments.of(sparse, weights, false).min(), 0);
+    }
+
+    @Test
+    public void testParallel() {
+        AttributeInfo[] attributeInfos = new AttributeInfo[3];
+        for (int j = 0; j < attributeInfos.length; j++) {
+            attributeInfos[j] = new AttributeInfo("a" + j, AttributeInfo.NUMERIC, j);
+        }
+        ColumnarDataSet dataset = new ColumnarDataSet(attributeInfos, new AttributeInfo("class", AttributeInfo.CATEGORICAL, -1));
+        Random random = new Random(11);
+        int n = ColumnMoments.BLOCK_SIZE * 4 + 5;
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] attributes = {random.nextGaussian(), 1e6 + random.nextDouble(), random.nextInt(5)};
+            dataset.add(new DenseInstance(attributes, random.nextInt(2)));
+            weights[i] = random.nextDouble();
+        }
+        ColumnMoments sequential = ColumnMoments.of(dataset, weights, false);
+        ColumnMoments parallel = ColumnMoments.of(dataset, weights, true);
+        Assert.assertArrayEquals(sequential.mean(), parallel.mean(), 1e-6);
+        Assert.assertArrayEquals(sequential.variance(), parallel.variance(), 1e-9);
+        Assert.assertArrayEquals(sequential.min(), parallel.min(), 0);
+        Assert.assertArrayEquals(sequential.max(), parallel.max(), 0);
+        // 分块方式只取决于行数，重复计算的结果完全相同
+        Assert.assertArrayEquals(parallel.variance(), ColumnMoments.of(dataset, weights, true).variance(), 0);
+    }
+
+    /**
+     * Computes the weighted mean, variance, min and max of each attribute in two passes.
+     */
+    private static double[][] twoPass(DataSet dataset, double[] weights) {
+        int dimension = dataset.dimensionality();
+        double[][] res = new double[4][dimension];
+        for (int j = 0; j < dimension; j++) {
+            double sumWeight = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < dataset.size(); i++) {
+                if (weights[i] == 0) {
+                    continue;
+                }
+                double value = dataset.instance(i).attribute(j);
+                sumWeight += weights[i];
+                sum += weights[i] * value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double mean = sum / sumWeight;
+            double m2 = 0;
+            for (int i = 0; i < dataset.size(); i++) {
+                double delta = dataset.instance(i).attribute(j) - mean;
+                m2 += weights[i] * delta * delta;
+            }
+            res[0][j] = mean;
+            res[1][j] = m2 / sumWeight;
+            res[2][j] = min;
+            res[3][j] = max;
+        }
+        return res;
+    }
+
+    private static double[] toDense(SparseInstance instance) {
+        double[] res = new double[instance.dimensionality()];
+        for (int j = 0; j < res.length; j++) {
+            res[j] = instance.attribute(j);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,92 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link ColumnarDataSet}.
+ *
+ * @author Cloudy1225
+ */
+public class ColumnarDataSetTest {
+
+    @Test
+    public void testCopyFromStandard() {
+        DataSet iris = FileTool.loadIris();
+        ColumnarDataSet columnar = new ColumnarDataSet(iris);
+        Assert.assertEquals(iris.size(), columnar.size());
+        Assert.assertEquals(iris.dimensionality(), columnar.dimensionality());
+        Assert.assertEquals(iris.classSet(), columnar.classSet());
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertArrayEquals(iris.attrValues(j), columnar.attrValues(j), 0);
+            Assert.assertEquals(iris.attrValueSet(j), columnar.attrValueSet(j));
+        }
+        Assert.assertArrayEquals(DataSets.var(iris), DataSets.var(columnar), 1e-12);
+    }
+
+    @Test
+    public void testRowView() {
+        AttributeInfo info0 = new AttributeInfo("x0", true, 0);
+        AttributeInfo info1 = new AttributeInfo("x1", true, 1);
+        AttributeInfo classInfo = new AttributeInfo("y", false, -1);
+        ColumnarDataSet dataset = new ColumnarDataSet(new AttributeInfo[] {info0, info1}, classInfo);
+        for (int i = 0; i < 20; i++) {
+            dataset.add(new DenseInstance(new double[] {i, -i}, i % 2));
+        }
+        Assert.assertEquals(20, dataset.size());
+        Instance row = dataset.instance(7);
+        Assert.assertEquals(7, row.attribute(0), 0);
+        Assert.assertEquals(-7, row.attribute(1), 0);
+        Assert.assertEquals(1, row.classValue(), 0);
+        row.setWeight(3);
+        Assert.assertEquals(3, dataset.weightValues()[7], 0);
+        Assert.assertEquals(dataset.instance(7), row);
+        Instance deleted = row.deleteAttribute(0);
+        Assert.assertEquals(1, deleted.dimensionality());
+        Assert.assertEquals(-7, deleted.attribute(0), 0);
+        Assert.assertSame(dataset.attrValues(0), dataset.attrValues(0));
+    }
+
+    @Test
+    public void testZeroCopyColumns() {
+        List<AttributeInfo> attributeInfos = Arrays.asList(new AttributeInfo("x0", true, 0), new AttributeInfo("x1", true, 1));
+        AttributeInfo classInfo = new AttributeInfo("y", false, -1);
+        double[][] columns = {{1, 2, 3}, {4, 5, 6}};
+        double[] classValues = {0, 1, 0};
+        double[] weights = {1, 1, 1};
+        ColumnarDataSet dataset = new ColumnarDataSet(attributeInfos, classInfo, columns, classValues, weights);
+        // 数据集直接使用给定的列，没有复制
+        Assert.assertSame(columns[0], dataset.attrValues(0));
+        Assert.assertSame(columns[1], dataset.attrValues(1));
+        Assert.assertSame(classValues, dataset.classValues());
+        Assert.assertSame(weights, dataset.weightValues());
+        dataset.instance(1).setWeight(7);
+        Assert.assertEquals(7, weights[1], 0);
+        dataset.setClassValue(2, 1);
+        Assert.assertEquals(1, classValues[2], 0);
+
+        // 复制的数据集拥有自己的列
+        ColumnarDataSet copy = dataset.copy();
+        Assert.assertTrue(copy.attrValues(0) != columns[0]);
+        Assert.assertArrayEquals(columns[0], copy.attrValues(0), 0);
+        copy.setWeight(0, 5);
+        Assert.assertEquals(1, weights[0], 0);
+
+        // 增加实例后列被扩容，返回的列仍是数据集的存储
+        dataset.add(new DenseInstance(new double[] {7, 8}, 1));
+        Assert.assertEquals(4, dataset.size());
+        Assert.assertArrayEquals(new double[] {1, 2, 3, 7}, dataset.attrValues(0), 0);
+        Assert.assertSame(dataset.attrValues(0), dataset.attrValues(0));
+
+        try {
+            new ColumnarDataSet(attributeInfos, classInfo, new double[][] {{1, 2}, {3}}, null, null);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
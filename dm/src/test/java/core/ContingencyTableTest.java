@@ -0,0 +1,113 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests {@link ContingencyTable}.
+ *
+ * @author Cloudy1225
+ */
+public class ContingencyTableTest {
+
+    @Test
+    public void testTable() {
+        DataSet iris = FileTool.loadIris();
+        double[] weights = new double[iris.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1 + i % 3;
+        }
+        ContingencyTable[] tables = ContingencyTable.ofAll(iris, weights, -1, false);
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            // 逐个实例累加的条件分布
+            TreeMap<Double, TreeMap<Double, Double>> expected = new TreeMap<>();
+            for (int i = 0; i < iris.size(); i++) {
+                Instance instance = iris.instance(i);
+                TreeMap<Double, Double> subDistribution = expected.computeIfAbsent(instance.attribute(j), key -> new TreeMap<>());
+                for (double clazz: iris.classSet()) {
+                    subDistribution.putIfAbsent(clazz, 0.0);
+                }
+                subDistribution.merge(instance.classValue(), weights[i], Double::sum);
+            }
+            Assert.assertEquals(expected, tables[j].toMap());
+            Assert.assertEquals(expected, ContingencyTable.of(iris, weights, j, -1).toMap());
+
+            TreeMap<Double, Double> rowDist = DataSets.columnDistMap(iris, weights, j);
+            Assert.assertArrayEquals(toArray(rowDist), tables[j].rowSums(), 0);
+        }
+        Assert.assertArrayEquals(toArray(DataSets.columnDistMap(iris, weights, -1)), tables[0].columnSums(), 0);
+
+        // 类作为条件
+        ContingencyTable transposed = ContingencyTable.of(iris, weights, -1, 2);
+        Assert.assertEquals(DataSets.colConDistMap(DataSetView.weighted(iris, weights), -1, 2), transposed.toMap());
+        Assert.assertEquals(ContingencyTable.of(transposed.toMap()).toMap(), transposed.toMap());
+    }
+
+    @Test
+    public void testParallel() {
+        AttributeInfo[] attributeInfos = new AttributeInfo[3];
+        for (int j = 0; j < attributeInfos.length; j++) {
+            attributeInfos[j] = new AttributeInfo("a" + j, AttributeInfo.CATEGORICAL, j);
+        }
+        ColumnarDataSet dataset = new ColumnarDataSet(attributeInfos, new AttributeInfo("class", AttributeInfo.CATEGORICAL, -1));
+        Random random = new Random(5);
+        int n = ContingencyTable.BLOCK_SIZE * 5 + 17;
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] attributes = {random.nextInt(4), random.nextInt(10), random.nextInt(2)};
+            dataset.add(new DenseInstance(attributes, random.nextInt(3)));
+            weights[i] = random.nextInt(5); // 整数权重的和是精确的，与累加顺序无关
+        }
+        ContingencyTable[] sequential = ContingencyTable.ofAll(dataset, weights, -1, false);
+        ContingencyTable[] parallel = ContingencyTable.ofAll(dataset, weights, -1, true);
+        for (int j = 0; j < attributeInfos.length; j++) {
+            Assert.assertEquals(sequential[j].toMap(), parallel[j].toMap());
+            Assert.assertArrayEquals(sequential[j].rowSums(), parallel[j].rowSums(), 0);
+            Assert.assertArrayEquals(sequential[j].columnSums(), parallel[j].columnSums(), 0);
+        }
+
+        // 以属性1为目标时，属性1自身没有列联表
+        ContingencyTable[] byAttribute = ContingencyTable.ofAll(dataset, weights, 1, true);
+        Assert.assertNull(byAttribute[1]);
+        Assert.assertEquals(ContingencyTable.of(dataset, weights, 0, 1).toMap(), byAttribute[0].toMap());
+    }
+
+    @Test
+    public void testBuilder() {
+        DataSet iris = FileTool.loadIris();
+        double[] weights = new double[iris.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 0.1 * (1 + i % 7); // 非整数权重：按行的顺序累加才能精确相等
+        }
+        // 行和列的取值都多于初始容量
+        int[][] pairs = {{0, -1}, {3, -1}, {-1, 2}, {0, 2}};
+        for (int[] pair: pairs) {
+            ContingencyTable.Builder builder = new ContingencyTable.Builder();
+            for (int i = 0; i < iris.size(); i++) {
+                Instance instance = iris.instance(i);
+                double rowValue = pair[0] == -1 ? instance.classValue() : instance.attribute(pair[0]);
+                double columnValue = pair[1] == -1 ? instance.classValue() : instance.attribute(pair[1]);
+                builder.add(rowValue, columnValue, weights[i]);
+            }
+            ContingencyTable expected = ContingencyTable.of(iris, weights, pair[0], pair[1]);
+            ContingencyTable actual = builder.build();
+            Assert.assertEquals(expected.toMap(), actual.toMap());
+            Assert.assertArrayEquals(expected.rowSums(), actual.rowSums(), 0);
+            Assert.assertArrayEquals(expected.columnSums(), actual.columnSums(), 0);
+        }
+    }
+
+    private static double[] toArray(TreeMap<Double, Double> map) {
+        double[] res = new double[map.size()];
+        int i = 0;
+        for (double value: map.values()) {
+            res[i++] = value;
+        }
+        return res;
+    }
+}
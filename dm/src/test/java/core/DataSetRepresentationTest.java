@@ -0,0 +1,52 @@
+package test.java.core;
+
+import main.java.classify.bayes.GaussianNB;
+import main.java.classify.decisionTree.CartTree;
+import main.java.classify.neighbors.BruteKNNClassifier;
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tests that estimators fitted on {@link ColumnarDataSet}, {@link MappedDataSet} and {@link SparseDataSet}
+ * predict the same as on a {@link StandardDataSet} of the same rows.
+ *
+ * @author Cloudy1225
+ */
+public class DataSetRepresentationTest {
+
+    @Test
+    public void testFitEquivalence() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        File file = File.createTempFile("iris", ".col");
+        file.deleteOnExit();
+        MappedDataSet.write(iris, file);
+        DataSet[] representations = {new ColumnarDataSet(iris),
+                MappedDataSet.open(file, iris.attributeInfoList(), iris.classInfo()), new SparseDataSet(iris)};
+
+        GaussianNB nb = new GaussianNB();
+        nb.fit(iris);
+        BruteKNNClassifier knn = new BruteKNNClassifier();
+        knn.fit(iris);
+        CartTree tree = new CartTree();
+        tree.fit(iris);
+        for (DataSet dataset: representations) {
+            GaussianNB otherNB = new GaussianNB();
+            otherNB.fit(dataset);
+            BruteKNNClassifier otherKNN = new BruteKNNClassifier();
+            otherKNN.fit(dataset);
+            CartTree otherTree = new CartTree();
+            otherTree.fit(dataset); // 映射的数据集只在堆上设置权重
+            for (int i = 0; i < iris.size(); i++) {
+                Instance instance = dataset.instance(i);
+                Assert.assertEquals(nb.predict(iris.instance(i)), otherNB.predict(instance), 0);
+                Assert.assertEquals(knn.predict(iris.instance(i)), otherKNN.predict(instance), 0);
+                Assert.assertEquals(tree.predict(iris.instance(i)), otherTree.predict(instance), 0);
+            }
+        }
+    }
+}
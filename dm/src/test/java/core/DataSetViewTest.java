@@ -0,0 +1,86 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests {@link DataSetView}.
+ *
+ * @author Cloudy1225
+ */
+public class DataSetViewTest {
+
+    @Test
+    public void testNestedView() {
+        DataSet iris = FileTool.loadIris();
+        DataSetView view = DataSetView.withoutAttribute(iris, new int[] {10, 20, 30, 40}, 1);
+        Assert.assertEquals(3, view.dimensionality());
+        Assert.assertSame(iris.attributeInfo(2), view.attributeInfo(1));
+        Assert.assertEquals(iris.instance(20).attribute(2), view.instance(1).attribute(1), 0);
+
+        DataSetView nested = DataSetView.withoutAttribute(view, new int[] {3, 1}, 0);
+        Assert.assertSame(iris, nested.parent());
+        Assert.assertArrayEquals(new int[] {40, 20}, nested.rows());
+        Assert.assertEquals(2, nested.dimensionality());
+        Assert.assertEquals(iris.instance(40).attribute(3), nested.instance(0).attribute(1), 0);
+        Assert.assertEquals(iris.instance(40).classValue(), nested.classValues()[0], 0);
+
+        nested.instance(1).setWeight(5);
+        Assert.assertEquals(5, iris.instance(20).getWeight(), 0);
+        iris.instance(20).setWeight(1);
+    }
+
+    @Test
+    public void testWeightedView() {
+        DataSet iris = FileTool.loadIris();
+        double[] weights = new double[iris.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i % 4;
+        }
+        DataSetView view = DataSetView.weighted(iris, weights);
+        for (int i = 0; i < weights.length; i++) {
+            Assert.assertEquals(weights[i], view.instance(i).getWeight(), 0);
+        }
+        Assert.assertArrayEquals(weights, view.weightValues(), 0);
+        view.weightValues()[1] = 100; // 返回的是副本
+        Assert.assertEquals(1, view.instance(1).getWeight(), 0);
+        Assert.assertEquals(3, view.copy().instance(7).getWeight(), 0);
+
+        // 嵌套视图的实例继承所选行的权重
+        DataSetView nested = DataSetView.withoutAttribute(view, new int[] {7, 2}, 0);
+        Assert.assertEquals(3, nested.instance(0).getWeight(), 0);
+        Assert.assertEquals(2, nested.instance(1).getWeight(), 0);
+        Assert.assertArrayEquals(new double[] {3, 2}, nested.weightValues(), 0);
+
+        // 设置权重只修改视图的权重，不修改根数据集
+        view.instance(5).setWeight(9);
+        Assert.assertEquals(9, view.weightValues()[5], 0);
+        Assert.assertEquals(1, iris.instance(5).getWeight(), 0);
+    }
+
+    @Test
+    public void testFolds() {
+        DataSet iris = FileTool.loadIris();
+        DataSet[] folds = DataSets.folds(iris, 7);
+        int[] count = new int[iris.size()];
+        for (DataSet fold: folds) {
+            for (int row: ((DataSetView) fold).rows()) {
+                count[row]++;
+            }
+            for (Instance instance: fold) {
+                Assert.assertTrue(instance instanceof DenseInstance);
+            }
+        }
+        int[] ones = new int[iris.size()];
+        Arrays.fill(ones, 1);
+        Assert.assertArrayEquals(ones, count);
+
+        DataSet[] split = DataSets.trainTestSplit(iris, 0.2);
+        Assert.assertEquals(iris.size(), split[0].size() + split[1].size());
+        Assert.assertEquals(30, split[1].size());
+    }
+}
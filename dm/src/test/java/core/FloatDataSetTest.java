@@ -0,0 +1,76 @@
+package test.java.core;
+
+import main.java.classify.neighbors.BruteKNNClassifier;
+import main.java.core.*;
+import main.java.metrics.distance.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link FloatInstance} and {@link FloatDataSet}.
+ *
+ * @author Cloudy1225
+ */
+public class FloatDataSetTest {
+
+    @Test
+    public void testDistance() {
+        FloatInstance x = new FloatInstance(new float[] {0.1f, 2.5f, -3.3f});
+        FloatInstance y = new FloatInstance(new float[] {1.7f, -0.2f, 4.9f});
+        DenseInstance denseX = new DenseInstance(new double[] {x.attribute(0), x.attribute(1), x.attribute(2)});
+        DenseInstance denseY = new DenseInstance(new double[] {y.attribute(0), y.attribute(1), y.attribute(2)});
+        DistanceMetric[] metrics = {new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance(),
+                new MinkowskiDistance(3), new SEuclideanDistance(new double[] {1, 2, 3})};
+        for (DistanceMetric metric: metrics) {
+            Assert.assertEquals(metric.measure(denseX, denseY), metric.measure(x, y), 0);
+        }
+    }
+
+    @Test
+    public void testMixedDistance() {
+        FloatDataSet floats = new FloatDataSet(FileTool.loadIris());
+        // 查询是双精度实例，其值不能由float精确表示
+        DenseInstance query = new DenseInstance(new double[] {5.1, 3.3, 1.7, 0.3});
+        DistanceMetric[] metrics = {new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance(),
+                new MinkowskiDistance(3), new SEuclideanDistance(new double[] {1, 2, 3, 4})};
+        for (int i = 0; i < floats.size(); i += 7) {
+            FloatInstance row = floats.instance(i); // 共享数据集存储的切片
+            DenseInstance widened = new DenseInstance(new double[] {row.attribute(0), row.attribute(1), row.attribute(2), row.attribute(3)});
+            for (DistanceMetric metric: metrics) {
+                double expected = metric.measure(widened, query);
+                Assert.assertEquals(expected, metric.measure(row, query), 0);
+                Assert.assertEquals(expected, metric.measure(query, row), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFloatDataSet() {
+        DataSet iris = FileTool.loadIris();
+        FloatDataSet floats = new FloatDataSet(iris);
+        Assert.assertEquals(iris.size(), floats.size());
+        StandardDataSet widened = new StandardDataSet(iris.attributeInfoList(), iris.classInfo());
+        for (int i = 0; i < iris.size(); i++) {
+            FloatInstance row = floats.instance(i);
+            double[] attributes = new double[row.dimensionality()];
+            for (int j = 0; j < attributes.length; j++) {
+                Assert.assertEquals(iris.instance(i).attribute(j), row.attribute(j), 1e-6);
+                attributes[j] = row.attribute(j);
+            }
+            Assert.assertEquals(iris.instance(i).classValue(), row.classValue(), 0);
+            widened.add(new DenseInstance(attributes, row.classValue()));
+        }
+        floats.instance(5).setWeight(3);
+        Assert.assertEquals(3, floats.weight(5), 0);
+        floats.instance(5).setWeight(1);
+
+        BruteKNNClassifier floatKNN = new BruteKNNClassifier();
+        floatKNN.fit(floats);
+        BruteKNNClassifier denseKNN = new BruteKNNClassifier();
+        denseKNN.fit(widened);
+        for (int i = 0; i < floats.size(); i++) {
+            Assert.assertEquals(denseKNN.predict(widened.instance(i)), floatKNN.predict(floats.instance(i)), 0);
+        }
+    }
+}
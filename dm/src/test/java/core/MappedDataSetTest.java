@@ -0,0 +1,110 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tests {@link MappedDataSet}.
+ *
+ * @author Cloudy1225
+ */
+public class MappedDataSetTest {
+
+    private static MappedDataSet mapIris(DataSet iris) throws IOException {
+        File file = File.createTempFile("iris", ".col");
+        file.deleteOnExit();
+        MappedDataSet.write(iris, file);
+        return MappedDataSet.open(file, iris.attributeInfoList(), iris.classInfo());
+    }
+
+    @Test
+    public void testWriteAndOpen() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        MappedDataSet mapped = mapIris(iris);
+        Assert.assertEquals(iris.size(), mapped.size());
+        Assert.assertEquals(iris.classSet(), mapped.classSet());
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertArrayEquals(iris.attrValues(j), mapped.attrValues(j), 0);
+        }
+        Assert.assertArrayEquals(iris.classValues(), mapped.classValues(), 0);
+        Assert.assertArrayEquals(DataSets.var(iris), DataSets.var(mapped), 1e-12);
+    }
+
+    @Test
+    public void testBounds() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        MappedDataSet mapped = mapIris(iris);
+        int n = mapped.size();
+        Assert.assertEquals(iris.instance(n - 1).attribute(3), mapped.value(n - 1, 3), 0);
+        int[] rows = {-1, n};
+        for (int row: rows) {
+            try {
+                mapped.instance(row);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException ignored) {
+            }
+            try {
+                mapped.value(row, 0);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException ignored) {
+            }
+        }
+
+        // 文件比声明的行数短
+        File file = File.createTempFile("iris", ".col");
+        file.deleteOnExit();
+        MappedDataSet.write(iris, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - Double.BYTES);
+        }
+        try {
+            MappedDataSet.open(file, iris.attributeInfoList(), iris.classInfo());
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        File file = File.createTempFile("iris", ".col");
+        file.deleteOnExit();
+        // 列块位于文件中间，前后都有其他字节
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(24));
+            MappedDataSet.writeColumns(iris, channel);
+            channel.write(ByteBuffer.allocate(8));
+        }
+        MappedDataSet mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapped = new MappedDataSet(channel, 24, iris.size(), iris.attributeInfoList(), iris.classInfo());
+        }
+        // 通道关闭后映射仍然有效
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertArrayEquals(iris.attrValues(j), mapped.attrValues(j), 0);
+        }
+        Assert.assertArrayEquals(iris.classValues(), mapped.classValues(), 0);
+
+        // 权重只在堆上修改，文件不变
+        mapped.setWeight(0, 4);
+        Assert.assertEquals(4, mapped.weight(0), 0);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedDataSet reopened = new MappedDataSet(channel, 24, iris.size(), iris.attributeInfoList(), iris.classInfo());
+            Assert.assertEquals(1, reopened.weight(0), 0);
+        }
+        try {
+            mapped.setClassValue(0, 1);
+            Assert.fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.metrics.distance.*;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link SparseInstance} and {@link SparseDataSet}.
+ *
+ * @author Cloudy1225
+ */
+public class SparseDataSetTest {
+
+    @Test
+    public void testSparseInstance() {
+        SparseInstance x = new SparseInstance(6, new int[] {1, 4}, new double[] {2, -3}, 1);
+        Assert.assertEquals(2, x.nnz());
+        Assert.assertEquals(0, x.attribute(0), 0);
+        Assert.assertEquals(-3, x.attribute(4), 0);
+        SparseInstance deleted = x.deleteAttribute(1);
+        Assert.assertEquals(5, deleted.dimensionality());
+        Assert.assertEquals(1, deleted.nnz());
+        Assert.assertEquals(-3, deleted.attribute(3), 0);
+        Assert.assertEquals(1, deleted.classValue(), 0);
+
+        SparseInstance y = new SparseInstance(6, new int[] {0, 4, 5}, new double[] {1, 1, 2});
+        DenseInstance denseX = new DenseInstance(new double[] {0, 2, 0, 0, -3, 0});
+        DenseInstance denseY = new DenseInstance(new double[] {1, 0, 0, 0, 1, 2});
+        double[] var = {1, 2, 3, 4, 5, 6};
+        DistanceMetric[] metrics = {new EuclideanDistance(), new ManhattanDistance(), new SEuclideanDistance(var)};
+        for (DistanceMetric metric: metrics) {
+            Assert.assertEquals(metric.measure(denseX, denseY), metric.measure(x, y), 1e-12);
+            Assert.assertEquals(metric.measure(denseX, denseY), metric.measure(x, denseY), 1e-12);
+        }
+    }
+
+    @Test
+    public void testCopyFromStandard() {
+        DataSet iris = FileTool.loadIris();
+        SparseDataSet sparse = new SparseDataSet(iris);
+        Assert.assertEquals(iris.size(), sparse.size());
+        Assert.assertEquals(iris.classSet(), sparse.classSet());
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertArrayEquals(iris.attrValues(j), sparse.attrValues(j), 0);
+        }
+        Assert.assertArrayEquals(DataSets.var(iris), DataSets.var(sparse), 1e-9);
+        Instance row = sparse.instance(3);
+        row.setWeight(2);
+        Assert.assertEquals(2, sparse.instance(3).getWeight(), 0);
+    }
+
+    @Test
+    public void testStoredEntries() {
+        List<AttributeInfo> attributeInfos = new ArrayList<>();
+        for (int j = 0; j < 5; j++) {
+            attributeInfos.add(new AttributeInfo("x" + j, true, j));
+        }
+        int[] indptr = {0, 2, 2, 5};
+        int[] indices = {1, 4, 0, 2, 3};
+        double[] data = {1.5, -2, 3, 4, 5};
+        SparseDataSet dataset = new SparseDataSet(attributeInfos, new AttributeInfo("y", false, -1),
+                indptr, indices, data, new double[] {0, 1, 0}, null);
+        Assert.assertEquals(5, dataset.nnz());
+        // 遍历每一行存储的非零值，恰好是CSR数组中该行的一段
+        int stored = 0;
+        int row = 0;
+        for (Instance instance: dataset) {
+            SparseInstance sparse = (SparseInstance) instance;
+            Assert.assertEquals(indptr[row + 1] - indptr[row], sparse.nnz());
+            for (int k = 0; k < sparse.nnz(); k++, stored++) {
+                Assert.assertEquals(indices[stored], sparse.index(k));
+                Assert.assertEquals(data[stored], sparse.value(k), 0);
+                Assert.assertEquals(data[stored], sparse.attribute(sparse.index(k)), 0);
+            }
+            row++;
+        }
+        Assert.assertEquals(dataset.size(), row);
+        Assert.assertEquals(dataset.nnz(), stored);
+        Assert.assertEquals(0, dataset.instance(1).nnz()); // 全零行没有存储值
+        Assert.assertEquals(0, dataset.instance(0).attribute(2), 0);
+
+        // 从稠密数据集复制时，零不被存储
+        StandardDataSet dense = new StandardDataSet(dataset.attributeInfoList(), dataset.classInfo());
+        for (Instance instance: dataset) {
+            double[] attributes = new double[instance.dimensionality()];
+            for (int j = 0; j < attributes.length; j++) {
+                attributes[j] = instance.attribute(j);
+            }
+            dense.add(new DenseInstance(attributes, instance.classValue()));
+        }
+        SparseDataSet copy = new SparseDataSet(dense);
+        Assert.assertEquals(dataset.nnz(), copy.nnz());
+        Assert.assertEquals(2, copy.instance(0).nnz());
+        Assert.assertEquals(4, copy.instance(0).index(1));
+
+        try {
+            new SparseDataSet(attributeInfos, null, indptr, new int[] {1, 4, 2, 0, 3}, data, null, null);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
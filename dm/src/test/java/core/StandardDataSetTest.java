@@ -0,0 +1,62 @@
+package test.java.core;
+
+import main.java.core.*;
+import main.java.core.collection.ValueCounts;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Tests the incrementally maintained counts of {@link StandardDataSet}.
+ *
+ * @author Cloudy1225
+ */
+public class StandardDataSetTest {
+
+    @Test
+    public void testValueCounts() {
+        ValueCounts counts = new ValueCounts();
+        double[] values = {3, -0.0, 0.0, Double.NaN, 3, 1e300, -2, Double.NaN, 3};
+        TreeSet<Double> expected = new TreeSet<>();
+        for (double value: values) {
+            Assert.assertEquals(expected.add(value), counts.add(value));
+        }
+        for (int i = 0; i < 1000; i++) {
+            counts.add(i * 0.5);
+            expected.add(i * 0.5);
+        }
+        Assert.assertEquals(expected, counts.toSortedSet());
+        Assert.assertEquals(expected.size(), counts.distinct());
+        Assert.assertEquals(values.length + 1000, counts.total());
+        Assert.assertEquals(4, counts.count(3));
+        Assert.assertEquals(2, counts.count(Double.NaN));
+        Assert.assertEquals(1, counts.count(-0.0)); // -0.0 and 0.0 are different, as in TreeSet
+        Assert.assertEquals(2, counts.count(0.0));
+        Assert.assertEquals(0, counts.count(7.25));
+    }
+
+    @Test
+    public void testIncrementalCounts() {
+        DataSet iris = FileTool.loadIris();
+        StandardDataSet dataset = new StandardDataSet(iris.attributeInfoList(), iris.classInfo());
+        for (Instance instance: iris) {
+            dataset.add(instance);
+            SortedSet<Double> classSet = dataset.classSet();
+            Assert.assertEquals(classSet.last(), dataset.classCounts().values()[classSet.size() - 1], 0);
+        }
+        Assert.assertEquals(iris.classSet(), dataset.classSet());
+        for (int j = 0; j < iris.dimensionality(); j++) {
+            Assert.assertEquals(new TreeSet<>(iris.attrValueSet(j)), dataset.attrValueSet(j));
+        }
+        int[] classCounts = dataset.classCounts().counts();
+        Assert.assertArrayEquals(new int[] {50, 50, 50}, classCounts);
+
+        StandardDataSet copy = dataset.copy();
+        copy.add(new DenseInstance(new double[] {1, 2, 3, 4}, 7));
+        Assert.assertEquals(4, copy.classSet().size());
+        Assert.assertEquals(3, dataset.classSet().size());
+    }
+}
@@ -0,0 +1,80 @@
+package test.java.core.collection;
+
+import main.java.core.collection.DoubleList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.Spliterator;
+
+/**
+ * Tests the stream, spliterator and bulk operations of {@link DoubleList}.
+ *
+ * @author Cloudy1225
+ */
+public class DoubleListTest {
+
+    private static DoubleList randomList(int n) {
+        Random random = new Random(4);
+        DoubleList list = new DoubleList();
+        for (int i = 0; i < n; i++) {
+            list.add(random.nextInt(1000) / 8.0);
+        }
+        return list;
+    }
+
+    @Test
+    public void testStream() {
+        DoubleList list = randomList(100000);
+        double[] array = list.toArray();
+        Assert.assertEquals(Arrays.stream(array).sum(), list.stream().sum(), 0);
+        Assert.assertEquals(Arrays.stream(array).sum(), list.parallelStream().sum(), 0); // 元素都是1/8的倍数，求和是精确的
+        Assert.assertEquals(list.size(), list.parallelStream().filter(x -> x >= 0).count());
+        Assert.assertArrayEquals(array, list.parallelStream().toArray(), 0);
+
+        Spliterator.OfDouble spliterator = list.spliterator();
+        Spliterator.OfDouble prefix = spliterator.trySplit();
+        Assert.assertEquals(list.size(), prefix.estimateSize() + spliterator.estimateSize());
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+
+        double[] sum = {0};
+        list.forEachDouble(x -> sum[0] += x);
+        Assert.assertEquals(list.sum(), sum[0], 0);
+        double[] boxedSum = {0};
+        list.forEach(x -> boxedSum[0] += x);
+        Assert.assertEquals(list.sum(), boxedSum[0], 0);
+        try {
+            list.forEachDouble(list::add);
+            Assert.fail();
+        } catch (ConcurrentModificationException ignored) {
+        }
+    }
+
+    @Test
+    public void testBulkOperations() {
+        DoubleList list = randomList(5000);
+        double[] array = list.toArray();
+        Assert.assertEquals(Arrays.stream(array).sum(), list.sum(), 0);
+        Assert.assertEquals(Arrays.stream(array).average().getAsDouble(), list.mean(), 1e-12);
+        Assert.assertEquals(Arrays.stream(array).min().getAsDouble(), list.min(), 0);
+        Assert.assertEquals(Arrays.stream(array).max().getAsDouble(), list.max(), 0);
+        Assert.assertTrue(Double.isNaN(new DoubleList().mean()));
+        Assert.assertTrue(Double.isNaN(new DoubleList().max()));
+
+        list.parallelSort();
+        Arrays.sort(array);
+        Assert.assertArrayEquals(array, list.toArray(), 0);
+        for (double key: new double[]{array[0], array[2500], -1, 200}) {
+            int index = list.binarySearch(key);
+            int expected = Arrays.binarySearch(array, key);
+            Assert.assertEquals(expected >= 0, index >= 0);
+            if (index >= 0) {
+                Assert.assertEquals(key, list.get(index), 0);
+            } else {
+                Assert.assertEquals(expected, index);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package test.java.core.collection;
+
+import main.java.core.collection.DoubleDoubleHashMap;
+import main.java.core.collection.DoubleHashSet;
+import main.java.core.collection.DoubleIntHashMap;
+import main.java.core.collection.ObjectDoubleHashMap;
+import main.java.preprocessing.encoding.LabelEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Tests the primitive hash tables against the boxed collections of {@code java.util}.
+ *
+ * @author Cloudy1225
+ */
+public class PrimitiveHashTest {
+
+    @Test
+    public void testDoubleMaps() {
+        Random random = new Random(1);
+        DoubleDoubleHashMap doubleMap = new DoubleDoubleHashMap();
+        DoubleIntHashMap intMap = new DoubleIntHashMap();
+        DoubleHashSet set = new DoubleHashSet();
+        HashMap<Double, Double> expected = new HashMap<>();
+        for (int step = 0; step < 20000; step++) {
+            double key = random.nextInt(500) / 4.0; // 多次命中同一个键
+            if (random.nextInt(4) == 0) {
+                boolean present = expected.remove(key) != null;
+                Assert.assertEquals(present, doubleMap.remove(key));
+                Assert.assertEquals(present, intMap.remove(key));
+                Assert.assertEquals(present, set.remove(key));
+            } else {
+                expected.merge(key, 1.0, Double::sum);
+                doubleMap.addTo(key, 1.0);
+                intMap.addTo(key, 1);
+                set.add(key);
+            }
+        }
+        Assert.assertEquals(expected.size(), doubleMap.size());
+        Assert.assertEquals(expected.size(), intMap.size());
+        Assert.assertEquals(expected.size(), set.size());
+        for (double key = -1; key < 130; key += 0.25) {
+            Double value = expected.get(key);
+            Assert.assertEquals(value != null, doubleMap.containsKey(key));
+            Assert.assertEquals(value != null, set.contains(key));
+            Assert.assertEquals(value == null ? -1 : value, doubleMap.getOrDefault(key, -1), 0);
+            Assert.assertEquals(value == null ? -1 : value.intValue(), intMap.getOrDefault(key, -1));
+        }
+        HashMap<Double, Double> actual = new HashMap<>();
+        doubleMap.forEach(actual::put);
+        Assert.assertEquals(expected, actual);
+
+        // 与Double.equals相同：NaN等于NaN，0.0与-0.0不同
+        DoubleHashSet special = new DoubleHashSet();
+        Assert.assertTrue(special.add(Double.NaN));
+        Assert.assertFalse(special.add(0.0 / 0.0));
+        Assert.assertTrue(special.add(0.0));
+        Assert.assertTrue(special.add(-0.0));
+        Assert.assertEquals(3, special.size());
+
+        DoubleIntHashMap index = new DoubleIntHashMap();
+        for (double value: new double[]{3, 1, 3, 2, 1}) {
+            index.putIfAbsent(value, index.size());
+        }
+        Assert.assertEquals(0, index.getOrDefault(3, -1));
+        Assert.assertEquals(1, index.getOrDefault(1, -1));
+        Assert.assertEquals(2, index.getOrDefault(2, -1));
+    }
+
+    @Test
+    public void testObjectDoubleMap() {
+        Random random = new Random(2);
+        ObjectDoubleHashMap<String> map = new ObjectDoubleHashMap<>(4);
+        HashMap<String, Double> expected = new HashMap<>();
+        for (int step = 0; step < 10000; step++) {
+            String key = "k" + random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                double increment = random.nextInt(10);
+                Assert.assertEquals(expected.merge(key, increment, Double::sum), map.addTo(key, increment), 0);
+            }
+        }
+        HashMap<String, Double> actual = new HashMap<>();
+        map.forEach(actual::put);
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(-1, map.getOrDefault("absent", -1), 0);
+        Assert.assertEquals(7, map.putIfAbsent("new", 7), 0);
+        Assert.assertEquals(7, map.putIfAbsent("new", 8), 0);
+    }
+
+    @Test
+    public void testPutWhileGrowing() {
+        // put跨越多次扩容
+        DoubleDoubleHashMap doubleMap = new DoubleDoubleHashMap();
+        DoubleIntHashMap intMap = new DoubleIntHashMap();
+        ObjectDoubleHashMap<String> objectMap = new ObjectDoubleHashMap<>();
+        for (int key = 0; key < 1000; key++) {
+            doubleMap.put(key, key + 1);
+            intMap.put(key, key + 1);
+            objectMap.put("k" + key, key + 1);
+        }
+        Assert.assertEquals(1000, doubleMap.size());
+        Assert.assertEquals(1000, intMap.size());
+        Assert.assertEquals(1000, objectMap.size());
+        for (int key = 0; key < 1000; key++) {
+            Assert.assertEquals(key + 1, doubleMap.getOrDefault(key, -1), 0);
+            Assert.assertEquals(key + 1, intMap.getOrDefault(key, -1));
+            Assert.assertEquals(key + 1, objectMap.getOrDefault("k" + key, -1), 0);
+        }
+
+        double[] labels = new double[40];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = 19 - i % 20;
+        }
+        LabelEncoder<Double> encoder = new LabelEncoder<>();
+        encoder.fit(labels, false);
+        double[] encoded = encoder.transform(labels);
+        for (int i = 0; i < labels.length; i++) {
+            Assert.assertEquals(i % 20, encoded[i], 0);
+        }
+    }
+
+    @Test
+    public void testLabelEncoder() {
+        String[] labels = {"b", "c", "a", "b", "c", "d"};
+        LabelEncoder<String> encoder = new LabelEncoder<>();
+        double[] encoded = encoder.fitTransform(labels);
+        Assert.assertArrayEquals(new double[]{0, 1, 2, 0, 1, 3}, encoded, 0);
+        Assert.assertArrayEquals(encoded, encoder.transform(labels), 0);
+        Assert.assertTrue(encoder.getEncodingMap() instanceof TreeMap);
+        Assert.assertArrayEquals(labels, encoder.inverseTransform(encoded));
+
+        LabelEncoder<Double> doubleEncoder = new LabelEncoder<>();
+        doubleEncoder.fit(new double[]{5, 3, 5, 4});
+        Assert.assertArrayEquals(new double[]{1, 2, 0}, doubleEncoder.transform(new double[]{3, 4, 5}), 0);
+        Assert.assertArrayEquals(new double[]{1, 2, 0}, doubleEncoder.transform(new Double[]{3.0, 4.0, 5.0}), 0);
+    }
+}
@@ -0,0 +1,65 @@
+package test.java.core.collection;
+
+import main.java.core.collection.TopK;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link TopK}.
+ *
+ * @author Cloudy1225
+ */
+public class TopKTest {
+
+    @Test
+    public void testSelect() {
+        Random random = new Random(9);
+        TopK topK = new TopK(1);
+        for (int k: new int[]{1, 5, 20, 200}) {
+            topK.reset(k); // 重复使用同一个对象
+            double[] distances = new double[100];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = random.nextInt(30); // 有大量相同的距离
+            }
+            // 以相反的顺序提供，相同距离仍保留较小的索引
+            for (int i = distances.length - 1; i >= 0; i--) {
+                topK.offer(i, distances[i]);
+            }
+            topK.sort();
+            Integer[] order = new Integer[distances.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b])); // 稳定排序
+            Assert.assertEquals(Math.min(k, distances.length), topK.size());
+            for (int i = 0; i < topK.size(); i++) {
+                Assert.assertEquals((int) order[i], topK.index(i));
+                Assert.assertEquals(distances[order[i]], topK.distance(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMaxDistance() {
+        TopK topK = new TopK(2);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, topK.maxDistance(), 0);
+        Assert.assertTrue(topK.offer(0, 3));
+        Assert.assertTrue(topK.offer(1, 1));
+        Assert.assertEquals(3, topK.maxDistance(), 0);
+        Assert.assertFalse(topK.offer(2, 3)); // 距离相同，索引更大
+        Assert.assertTrue(topK.offer(3, 2));
+        Assert.assertEquals(2, topK.maxDistance(), 0);
+        topK.sort();
+        Assert.assertEquals(2, topK.maxDistance(), 0);
+        Assert.assertEquals(1, topK.index(0));
+        Assert.assertEquals(3, topK.index(1));
+        try {
+            topK.offer(4, 0);
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+}
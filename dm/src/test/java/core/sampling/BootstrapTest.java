@@ -0,0 +1,102 @@
+package test.java.core.sampling;
+
+import main.java.core.sampling.Bootstrap;
+import main.java.core.sampling.Reservoir;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Tests the bootstrap and reservoir samples of {@link Bootstrap} and {@link Reservoir}.
+ *
+ * @author Cloudy1225
+ */
+public class BootstrapTest {
+
+    @Test
+    public void testMultinomial() {
+        Random random = new Random(1);
+        int[] counts = Bootstrap.multinomial(1000, 1000, random);
+        Assert.assertEquals(1000, Arrays.stream(counts).sum());
+        long zeros = Arrays.stream(counts).filter(c -> c == 0).count();
+        Assert.assertEquals(1000 / Math.E, zeros, 40); // 约有1/e的行未被抽中
+
+        double[] weights = {1, 0, 3, 6};
+        int[] weighted = Bootstrap.multinomial(weights, 100000, random);
+        Assert.assertEquals(100000, Arrays.stream(weighted).sum());
+        Assert.assertEquals(0, weighted[1]);
+        Assert.assertEquals(10000, weighted[0], 600);
+        Assert.assertEquals(30000, weighted[2], 1000);
+        Assert.assertEquals(60000, weighted[3], 1000);
+
+        Assert.assertArrayEquals(new double[]{2, 0, 9, 6}, Bootstrap.weights(new int[]{2, 5, 3, 1}, weights), 0);
+    }
+
+    @Test
+    public void testPoisson() {
+        Random random = new Random(2);
+        for (double mean: new double[]{0, 0.5, 3, 25, 1000}) {
+            int n = 20000;
+            double sum = 0;
+            double sumSquares = 0;
+            for (int i = 0; i < n; i++) {
+                int k = Bootstrap.nextPoisson(mean, random);
+                sum += k;
+                sumSquares += (double) k * k;
+            }
+            double sampleMean = sum / n;
+            double sampleVar = sumSquares / n - sampleMean * sampleMean;
+            Assert.assertEquals(mean, sampleMean, 5 * Math.sqrt(mean / n) + 1e-9);
+            Assert.assertEquals(mean, sampleVar, 0.05 * mean + 1e-9); // 泊松分布的方差等于均值
+        }
+        int[] counts = Bootstrap.poisson(new double[]{1, 1, 2, 0}, random);
+        Assert.assertEquals(0, counts[3]);
+    }
+
+    @Test
+    public void testReservoir() {
+        Random random = new Random(3);
+        int n = 50;
+        int k = 5;
+        List<Integer> items = new ArrayList<>();
+        IntStream.range(0, n).forEach(items::add);
+        int[] hits = new int[n];
+        int[] rowHits = new int[n];
+        int trials = 20000;
+        for (int t = 0; t < trials; t++) {
+            List<Integer> sample = Reservoir.sample(items, k, random);
+            Assert.assertEquals(k, new HashSet<>(sample).size());
+            sample.forEach(i -> hits[i]++);
+            for (int row: Reservoir.sampleRows(n, k, random)) {
+                rowHits[row]++;
+            }
+        }
+        for (int i = 0; i < n; i++) { // 每项被抽中的概率为k/n
+            Assert.assertEquals(trials * k / (double) n, hits[i], 150);
+            Assert.assertEquals(trials * k / (double) n, rowHits[i], 150);
+        }
+        Assert.assertEquals(3, Reservoir.sample(Arrays.asList(1, 2, 3), k, random).size());
+    }
+
+    @Test
+    public void testWeightedReservoir() {
+        Random random = new Random(4);
+        List<Integer> items = Arrays.asList(0, 1, 2, 3);
+        double[] weights = {1, 0, 2, 7};
+        int[] hits = new int[4];
+        int trials = 40000;
+        for (int t = 0; t < trials; t++) {
+            List<Integer> sample = Reservoir.weightedSample(items, i -> weights[i], 1, random);
+            hits[sample.get(0)]++;
+        }
+        Assert.assertEquals(0, hits[1]);
+        Assert.assertEquals(trials * 0.1, hits[0], 400);
+        Assert.assertEquals(trials * 0.2, hits[2], 500);
+        Assert.assertEquals(trials * 0.7, hits[3], 600);
+
+        List<Integer> all = Reservoir.weightedSample(items, i -> weights[i], 10, random);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(0, 2, 3)), new HashSet<>(all));
+    }
+}
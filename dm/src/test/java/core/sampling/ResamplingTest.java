@@ -0,0 +1,121 @@
+package test.java.core.sampling;
+
+import main.java.core.sampling.Resampling;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the folds and splits of {@link Resampling}.
+ *
+ * @author Cloudy1225
+ */
+public class ResamplingTest {
+
+    /**
+     * Asserts the arrays hold each row of [0, n) exactly once.
+     */
+    private static void assertPartition(int n, int[]... parts) {
+        int[] all = Arrays.stream(parts).flatMapToInt(Arrays::stream).sorted().toArray();
+        Assert.assertEquals(n, all.length);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(i, all[i]);
+        }
+    }
+
+    private static double[] randomClasses(int n, long seed) {
+        Random random = new Random(seed);
+        double[] classValues = new double[n];
+        for (int i = 0; i < n; i++) {
+            classValues[i] = random.nextInt(10) < 7 ? 1 : random.nextInt(3) * 2; // 类别1占多数
+        }
+        return classValues;
+    }
+
+    @Test
+    public void testKFold() {
+        int[][] folds = Resampling.kFold(103, 5, 7);
+        assertPartition(103, folds);
+        for (int f = 0; f < 5; f++) {
+            Assert.assertEquals(f < 3 ? 21 : 20, folds[f].length);
+        }
+        Assert.assertArrayEquals(folds, Resampling.kFold(103, 5, 7)); // 相同的种子得到相同的划分
+        Assert.assertArrayEquals(Resampling.complement(103, folds[0]),
+                Arrays.stream(folds, 1, 5).flatMapToInt(Arrays::stream).sorted().toArray());
+
+        int[][] repeated = Resampling.repeatedKFold(50, 4, 3, 7);
+        Assert.assertEquals(12, repeated.length);
+        for (int r = 0; r < 3; r++) {
+            assertPartition(50, Arrays.copyOfRange(repeated, 4 * r, 4 * r + 4));
+        }
+        Assert.assertFalse(Arrays.equals(repeated[0], repeated[4]));
+
+        try {
+            Resampling.kFold(3, 4, 7);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testStratifiedKFold() {
+        double[] classValues = randomClasses(1000, 3);
+        int k = 7;
+        int[][] folds = Resampling.stratifiedKFold(classValues, k, 11);
+        assertPartition(classValues.length, folds);
+        for (double clazz: new double[]{0, 1, 2, 4}) {
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (int[] fold: folds) {
+                int count = (int) Arrays.stream(fold).filter(i -> classValues[i] == clazz).count();
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+            }
+            Assert.assertTrue(max - min <= 1);
+        }
+        int minSize = Arrays.stream(folds).mapToInt(f -> f.length).min().getAsInt();
+        int maxSize = Arrays.stream(folds).mapToInt(f -> f.length).max().getAsInt();
+        Assert.assertTrue(maxSize - minSize <= 1);
+    }
+
+    @Test
+    public void testGroupKFold() {
+        double[] groups = {3, 3, 3, 1, 1, 2, 5, 5, 5, 5, 4, 4};
+        int[][] folds = Resampling.groupKFold(groups, 3);
+        assertPartition(groups.length, folds);
+        for (int[] fold: folds) {
+            for (int i: fold) {
+                for (int[] other: folds) { // 同组的行不出现在其他折中
+                    if (other != fold) {
+                        for (int j: other) {
+                            Assert.assertNotEquals(groups[i], groups[j], 0);
+                        }
+                    }
+                }
+            }
+        }
+        Assert.assertArrayEquals(new int[]{6, 7, 8, 9}, folds[0]);
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 5}, folds[1]);
+        Assert.assertArrayEquals(new int[]{3, 4, 10, 11}, folds[2]);
+    }
+
+    @Test
+    public void testTrainTestSplit() {
+        int[][] split = Resampling.trainTestSplit(1000, 0.25, 5);
+        Assert.assertEquals(250, split[1].length);
+        assertPartition(1000, split);
+
+        double[] classValues = randomClasses(1003, 8);
+        int[][] stratified = Resampling.stratifiedTrainTestSplit(classValues, 0.3, 5);
+        assertPartition(classValues.length, stratified);
+        Assert.assertEquals(300, stratified[1].length);
+        for (double clazz: new double[]{0, 1, 2, 4}) {
+            long total = Arrays.stream(classValues).filter(c -> c == clazz).count();
+            long test = Arrays.stream(stratified[1]).filter(i -> classValues[i] == clazz).count();
+            Assert.assertEquals(total * 300.0 / classValues.length, test, 1);
+        }
+        Assert.assertArrayEquals(stratified, Resampling.stratifiedTrainTestSplit(classValues, 0.3, 5));
+    }
+}
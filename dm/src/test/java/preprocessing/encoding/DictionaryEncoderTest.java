@@ -0,0 +1,70 @@
+package test.java.preprocessing.encoding;
+
+import main.java.preprocessing.encoding.DictionaryEncoder;
+import main.java.preprocessing.encoding.LabelEncoder;
+import main.java.preprocessing.encoding.exception.LabelUnseenException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests {@link DictionaryEncoder}.
+ *
+ * @author Cloudy1225
+ */
+public class DictionaryEncoderTest {
+
+    @Test
+    public void testFitTransform() {
+        String[] labels = {"b", "c", "a", "b", "c", "d"};
+        DictionaryEncoder encoder = new DictionaryEncoder();
+        int[] encoded = encoder.fitTransform(labels, false);
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 0, 1, 3}, encoded);
+        Assert.assertArrayEquals(encoded, encoder.transform(labels));
+        Assert.assertArrayEquals(labels, encoder.inverseTransform(encoded));
+        Assert.assertEquals(4, encoder.size());
+        Assert.assertTrue(encoder.getEncodingMap() instanceof TreeMap);
+
+        double[] column = new double[labels.length];
+        encoder.transform(labels, column);
+        Assert.assertArrayEquals(new double[]{0, 1, 2, 0, 1, 3}, column, 0);
+
+        // 按自然顺序重新编码
+        int[] remap = encoder.sort();
+        Assert.assertArrayEquals(new int[]{1, 2, 0, 3}, remap);
+        Assert.assertArrayEquals(new int[]{1, 2, 0, 1, 2, 3}, encoder.transform(labels));
+        Assert.assertArrayEquals(new String[]{"a", "b", "c", "d"}, encoder.inverseTransform(new int[]{0, 1, 2, 3}));
+    }
+
+    @Test(expected = LabelUnseenException.class)
+    public void testUnseenLabel() {
+        DictionaryEncoder encoder = new DictionaryEncoder();
+        encoder.fit(new String[]{"a", "b"});
+        encoder.transform(new String[]{"a", "c"});
+    }
+
+    @Test
+    public void testParallel() {
+        // 高基数的列：并行编码与顺序编码、LabelEncoder的结果相同
+        Random random = new Random(7);
+        String[] labels = new String[200000];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = "id" + random.nextInt(50000);
+        }
+        DictionaryEncoder sequential = new DictionaryEncoder();
+        int[] expected = sequential.fitTransform(labels, false);
+        DictionaryEncoder parallel = new DictionaryEncoder();
+        double[] actual = new double[labels.length];
+        parallel.fitTransform(labels, actual, true);
+        for (int i = 0; i < labels.length; i++) {
+            Assert.assertEquals(expected[i], actual[i], 0);
+        }
+        Assert.assertEquals(sequential.size(), parallel.size());
+
+        LabelEncoder<String> labelEncoder = new LabelEncoder<>();
+        Assert.assertArrayEquals(labelEncoder.fitTransform(labels), actual, 0);
+        Assert.assertEquals(labelEncoder.getEncodingMap(), parallel.getEncodingMap());
+    }
+}
@@ -0,0 +1,101 @@
+package test.java.preprocessing.weight;
+
+import main.java.classify.bayes.GaussianNB;
+import main.java.classify.decisionTree.CartTree;
+import main.java.classify.decisionTree.DecisionTree;
+import main.java.core.DataSet;
+import main.java.core.DataSetView;
+import main.java.core.Instance;
+import main.java.core.sampling.Resampling;
+import main.java.preprocessing.weight.Deduplication;
+import main.java.utils.ArrayUtil;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests merging identical rows into weighted rows.
+ *
+ * @author Cloudy1225
+ * @see Deduplication
+ */
+public class DeduplicationTest {
+
+    /**
+     * Returns the iris data set with each row repeated 1 to 4 times in random order.
+     */
+    private static DataSet repeatedIris() {
+        DataSet iris = FileTool.loadIris();
+        Random random = new Random(6);
+        int[] rows = new int[iris.size() * 4];
+        int size = 0;
+        for (int i = 0; i < iris.size(); i++) {
+            for (int r = random.nextInt(4); r >= 0; r--) {
+                rows[size++] = i;
+            }
+        }
+        int[] shuffled = Arrays.copyOf(rows, size);
+        Resampling.shuffle(shuffled, random);
+        return new DataSetView(iris, shuffled);
+    }
+
+    @Test
+    public void testMapping() {
+        DataSet dataset = repeatedIris();
+        Deduplication dedup = Deduplication.of(dataset);
+        Assert.assertTrue(dedup.size() <= 150);
+        Assert.assertEquals(dataset.size(), Arrays.stream(dedup.counts()).sum());
+        Assert.assertEquals(dataset.size(), ArrayUtil.sum(dedup.weights()), 1e-9);
+        int[] inverse = dedup.inverse();
+        int[] representatives = dedup.representatives();
+        for (int i = 0; i < dataset.size(); i++) {
+            Instance instance = dataset.instance(i);
+            Instance representative = dataset.instance(representatives[inverse[i]]);
+            Assert.assertEquals(instance.classValue(), representative.classValue(), 0);
+            for (int j = 0; j < dataset.dimensionality(); j++) {
+                Assert.assertEquals(instance.attribute(j), representative.attribute(j), 0);
+            }
+        }
+        DataSet compact = dedup.dataset();
+        Assert.assertEquals(dedup.size(), compact.size());
+        Assert.assertArrayEquals(dedup.weights(), compact.weightValues(), 0);
+
+        double[] codes = new double[dedup.size()];
+        for (int u = 0; u < codes.length; u++) {
+            codes[u] = u;
+        }
+        double[] expanded = dedup.expand(codes);
+        for (int i = 0; i < expanded.length; i++) {
+            Assert.assertEquals(inverse[i], expanded[i], 0);
+        }
+    }
+
+    @Test
+    public void testIdenticalModels() {
+        DataSet dataset = repeatedIris();
+        Deduplication dedup = Deduplication.of(dataset, ArrayUtil.ones(dataset.size()));
+
+        DecisionTree tree = new CartTree();
+        tree.fit(dataset);
+        DecisionTree compactTree = new CartTree();
+        compactTree.fit(dedup.dataset(), dedup.weights());
+
+        GaussianNB nb = new GaussianNB();
+        nb.fit(dataset);
+        GaussianNB compactNB = new GaussianNB();
+        compactNB.fit(dedup.dataset());
+
+        for (Instance instance: dataset) {
+            Assert.assertEquals(tree.predict(instance), compactTree.predict(instance), 0);
+            Map<Double, Double> expected = nb.jointLogLikelihood(instance);
+            Map<Double, Double> actual = compactNB.jointLogLikelihood(instance);
+            for (double clazz: expected.keySet()) {
+                Assert.assertEquals(expected.get(clazz), actual.get(clazz), 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package test.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.ColumnarDataSet;
+import main.java.utils.io.ArffReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests {@link ArffReader}.
+ *
+ * @author Cloudy1225
+ */
+public class ArffReaderTest {
+
+    private static final String WEATHER = "% the weather data\n" +
+            "@RELATION weather\n" +
+            "\n" +
+            "@attribute outlook {sunny, overcast, 'light rain'}\n" +
+            "@attribute 'temperature (F)' real\n" +
+            "@attribute station string\n" +
+            "@attribute play {yes,no}\n" +
+            "@data\n" +
+            "sunny,85,s1,no\n" +
+            "% a comment\n" +
+            "'light rain', 70.5 ,s2,yes\n" +
+            "overcast,?,s1,yes\n" +
+            "{1 64, 2 s3, 3 no}\n";
+
+    private static ColumnarDataSet read(String text, boolean labeled) throws IOException {
+        return ArffReader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), labeled);
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        ColumnarDataSet dataset = read(WEATHER, true);
+        Assert.assertEquals(4, dataset.size());
+        Assert.assertEquals(3, dataset.dimensionality());
+        Assert.assertEquals("temperature (F)", dataset.attributeInfo(1).name);
+        Assert.assertEquals(AttributeInfo.NUMERIC, dataset.attributeInfo(1).type);
+        Assert.assertEquals("play", dataset.classInfo().name);
+
+        AttributeInfo outlook = dataset.attributeInfo(0);
+        Assert.assertEquals(new ArrayList<>(Arrays.asList("light rain", "overcast", "sunny")), new ArrayList<>(outlook.encodingMap.keySet()));
+        Assert.assertEquals(2, outlook.encodingMap.get("light rain"), 0); // 按声明顺序编码
+        Assert.assertEquals(0, dataset.value(0, 0), 0);
+        Assert.assertEquals(2, dataset.value(1, 0), 0);
+        Assert.assertEquals(70.5, dataset.value(1, 1), 0);
+        Assert.assertTrue(Double.isNaN(dataset.value(2, 1)));
+        Assert.assertEquals(1, dataset.classValue(0), 0);
+        Assert.assertEquals(0, dataset.classValue(1), 0);
+
+        Assert.assertEquals(0, dataset.value(3, 0), 0); // 稀疏行中未列出的值为0
+        Assert.assertEquals(64, dataset.value(3, 1), 0);
+        Assert.assertEquals(2, dataset.value(3, 2), 0);
+        Assert.assertEquals(1, dataset.classValue(3), 0);
+        Assert.assertEquals(3, dataset.attributeInfo(2).encodingMap.size());
+
+        ColumnarDataSet unlabeled = read(WEATHER, false);
+        Assert.assertEquals(4, unlabeled.dimensionality());
+        Assert.assertNull(unlabeled.classInfo());
+    }
+
+    @Test
+    public void testNonAsciiValues() throws IOException {
+        // UTF-8多字节字符的字节不是空白
+        ColumnarDataSet dataset = read("@attribute x {café,b,日本}\n@attribute y numeric\n@data\ncafé,1\n日本 ,2\n{0 café, 1 3}\n", false);
+        Assert.assertEquals(3, dataset.size());
+        Assert.assertEquals(0, dataset.value(0, 0), 0);
+        Assert.assertEquals(2, dataset.value(1, 0), 0);
+        Assert.assertEquals(0, dataset.value(2, 0), 0);
+        Assert.assertEquals(3, dataset.value(2, 1), 0);
+    }
+
+    @Test
+    public void testQuotedValues() throws IOException {
+        ColumnarDataSet dataset = read("@attribute a {'a,b',\"c,d\",e}\n@attribute b string\n@data\n" +
+                "'a,b','x, y'\n \"c,d\" , 'x, y'\n'e',\"z\"\n{0 'e', 1 'z'}\n", false);
+        Assert.assertEquals(4, dataset.size());
+        Assert.assertEquals(2, dataset.dimensionality());
+        Assert.assertEquals(0, dataset.value(0, 0), 0);
+        Assert.assertEquals(1, dataset.value(1, 0), 0);
+        Assert.assertEquals(2, dataset.value(2, 0), 0);
+        Assert.assertEquals(2, dataset.value(3, 0), 0);
+        AttributeInfo b = dataset.attributeInfo(1);
+        Assert.assertEquals(2, b.encodingMap.size());
+        Assert.assertEquals(0, b.encodingMap.get("x, y"), 0);
+        Assert.assertEquals(b.encodingMap.get("z"), dataset.value(3, 1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUndeclaredValue() throws IOException {
+        read("@attribute a {x,y}\n@data\nz\n", false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() throws IOException {
+        read("@attribute a date\n@data\n", false);
+    }
+}
@@ -0,0 +1,164 @@
+package test.java.utils.io;
+
+import main.java.classify.bayes.GaussianNB;
+import main.java.classify.bayes.MultinomialNB;
+import main.java.core.*;
+import main.java.utils.io.CsvDataSource;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Tests {@link CsvDataSource} and fitting from a {@link DataSource}.
+ *
+ * @author Cloudy1225
+ */
+public class CsvDataSourceTest {
+
+    private static final String[] COLORS = {"red", "green", "blue"};
+
+    private static final String[] SIZES = {"S", "M", "L", "XL"};
+
+    /**
+     * Writes a file with two numeric and two categorical attributes and a categorical class.
+     */
+    private static File writeFile(int n) throws IOException {
+        File file = File.createTempFile("source", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(7);
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("# generated");
+            out.println("x,color,y,size,label");
+            out.println("num,cat,num,cat,cat");
+            for (int i = 0; i < n; i++) {
+                int label = random.nextInt(3);
+                double x = random.nextGaussian() + label;
+                double y = 100 + random.nextGaussian() * (label + 1);
+                String color = COLORS[(label + random.nextInt(2)) % COLORS.length];
+                String size = SIZES[random.nextInt(SIZES.length)];
+                out.println(x + "," + color + "," + y + "," + size + ",c" + label);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        File file = writeFile(103);
+        DataSet dataset = FileTool.loadDataSet(file, ",", true);
+        CsvDataSource source = new CsvDataSource(file, ",", true, 10);
+        for (int j = 0; j < dataset.dimensionality(); j++) {
+            Assert.assertEquals(dataset.attributeInfo(j).encodingMap, source.attributeInfoList().get(j).encodingMap);
+        }
+        Assert.assertEquals(dataset.classInfo().encodingMap, source.classInfo().encodingMap);
+
+        for (int pass = 0; pass < 2; pass++) { // 可以重复打开
+            DataChunk chunk = source.newChunk();
+            int row = 0;
+            try (DataSource.ChunkReader reader = source.open()) {
+                while (reader.next(chunk)) {
+                    Assert.assertTrue(chunk.size() <= 10);
+                    for (int r = 0; r < chunk.size(); r++, row++) {
+                        Instance instance = dataset.instance(row);
+                        for (int j = 0; j < dataset.dimensionality(); j++) {
+                            Assert.assertEquals(instance.attribute(j), chunk.value(r, j), 0);
+                        }
+                        Assert.assertEquals(instance.classValue(), chunk.classValue(r), 0);
+                    }
+                }
+            }
+            Assert.assertEquals(dataset.size(), row);
+        }
+    }
+
+    @Test
+    public void testSeparators() throws IOException {
+        // "|"和"."作为正则表达式有特殊含义，引号内的分隔符属于值本身
+        String[] separators = {",", "|", "."};
+        for (String separator: separators) {
+            File file = File.createTempFile("separator", ".csv");
+            file.deleteOnExit();
+            try (PrintWriter out = new PrintWriter(file)) {
+                out.println(String.join(separator, "x", "city", "label"));
+                out.println(String.join(separator, "num", "cat", "cat"));
+                out.println(String.join(separator, "1", "\"a" + separator + "b\"", "yes"));
+                out.println(String.join(separator, "2", "c", "no"));
+                out.println(String.join(separator, "3", "\"a" + separator + "b\"", "no"));
+                out.println(String.join(separator, "4", "\" c \"", "yes"));
+            }
+            DataSet dataset = FileTool.loadDataSet(file, separator, true);
+            CsvDataSource source = new CsvDataSource(file, separator, true, 3);
+            Assert.assertEquals(dataset.attributeInfo(1).encodingMap, source.attributeInfoList().get(1).encodingMap);
+            Assert.assertTrue(source.attributeInfoList().get(1).encodingMap.containsKey("a" + separator + "b"));
+            Assert.assertEquals(dataset.classInfo().encodingMap, source.classInfo().encodingMap);
+            DataChunk chunk = source.newChunk();
+            int row = 0;
+            try (DataSource.ChunkReader reader = source.open()) {
+                while (reader.next(chunk)) {
+                    for (int r = 0; r < chunk.size(); r++, row++) {
+                        Instance instance = dataset.instance(row);
+                        Assert.assertEquals(instance.attribute(0), chunk.value(r, 0), 0);
+                        Assert.assertEquals(instance.attribute(1), chunk.value(r, 1), 0);
+                        Assert.assertEquals(instance.classValue(), chunk.classValue(r), 0);
+                    }
+                }
+            }
+            Assert.assertEquals(4, row);
+        }
+    }
+
+    @Test
+    public void testStatistics() throws IOException {
+        File file = writeFile(500);
+        DataSet dataset = FileTool.loadDataSet(file, ",", true);
+        DataSource source = new CsvDataSource(file, ",", true, 64);
+        Assert.assertArrayEquals(DataSets.var(dataset), DataSets.var(source), 1e-9);
+        Assert.assertEquals(DataSets.columnDistMap(dataset, -1), DataSets.columnDistMap(source, -1));
+        Assert.assertEquals(DataSets.columnDistMap(dataset, 1), DataSets.columnDistMap(source, 1));
+        Assert.assertEquals(DataSets.colConDistMap(dataset, -1, 3), DataSets.colConDistMap(source, -1, 3));
+        Assert.assertEquals(DataSets.colConDistMap(dataset, 1, -1), DataSets.colConDistMap(source, 1, -1));
+    }
+
+    @Test
+    public void testFitFromSource() throws IOException {
+        File file = writeFile(500);
+        DataSet dataset = FileTool.loadDataSet(file, ",", true);
+        DataSource source = new CsvDataSource(file, ",", true, 64);
+
+        GaussianNB gaussian = new GaussianNB();
+        gaussian.fit(dataset);
+        GaussianNB streamed = new GaussianNB();
+        streamed.fit(source);
+        MultinomialNB multinomial = new MultinomialNB();
+        multinomial.fit(dataset);
+        MultinomialNB streamedMultinomial = new MultinomialNB();
+        streamedMultinomial.fit(source);
+        for (Instance instance: dataset) {
+            Assert.assertEquals(gaussian.predict(instance), streamed.predict(instance), 0);
+            Assert.assertEquals(multinomial.jointLogLikelihood(instance), streamedMultinomial.jointLogLikelihood(instance));
+        }
+
+        // 内存中的数据集作为数据源
+        GaussianNB inMemory = new GaussianNB();
+        inMemory.fit(DataSource.of(dataset));
+        for (Instance instance: dataset) {
+            double[] expected = toArray(gaussian.jointLogLikelihood(instance).values());
+            double[] actual = toArray(inMemory.jointLogLikelihood(instance).values());
+            Assert.assertArrayEquals(expected, actual, 1e-6);
+        }
+    }
+
+    private static double[] toArray(java.util.Collection<Double> values) {
+        double[] res = new double[values.size()];
+        int i = 0;
+        for (double value: values) {
+            res[i++] = value;
+        }
+        return res;
+    }
+}
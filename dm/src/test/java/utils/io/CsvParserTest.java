@@ -0,0 +1,244 @@
+package test.java.utils.io;
+
+import main.java.core.*;
+import main.java.core.collection.CategoryDictionary;
+import main.java.utils.io.CsvParser;
+import main.java.utils.io.FileTool;
+import main.java.utils.io.LineIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Tests {@link CsvParser} and loading data sets through it.
+ *
+ * @author Cloudy1225
+ */
+public class CsvParserTest {
+
+    private static CsvParser parser(String text, String separator) {
+        return new CsvParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), separator);
+    }
+
+    private static List<List<String>> records(CsvParser parser) throws IOException {
+        List<List<String>> res = new ArrayList<>();
+        while (parser.next()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < parser.fieldCount(); i++) {
+                fields.add(parser.field(i));
+            }
+            res.add(fields);
+        }
+        return res;
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        String text = "# comment\r\n"
+                + "a,b,c\r\n"
+                + "\n"
+                + "% another comment, \"with a quote\n"
+                + "\"x, y\",\"say \"\"hi\"\"\",\"line\nbreak\"\n"
+                + "1,,3\n"
+                + "4,5\"6,7"; // 字段中间的引号不开启引用，最后一行没有换行符
+        List<List<String>> records = records(parser(text, ","));
+        Assert.assertEquals(4, records.size());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), records.get(0));
+        Assert.assertEquals(Arrays.asList("x, y", "say \"hi\"", "line\nbreak"), records.get(1));
+        Assert.assertEquals(Arrays.asList("1", "", "3"), records.get(2));
+        Assert.assertEquals(Arrays.asList("4", "5\"6", "7"), records.get(3));
+
+        List<List<String>> multi = records(parser("a||b|c||中文\n", "||"));
+        Assert.assertEquals(Arrays.asList("a", "b|c", "中文"), multi.get(0));
+    }
+
+    @Test
+    public void testLongRecords() throws IOException {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(3);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 30000; i++) { // 单条记录远长于缓冲区
+            String field = Integer.toString(random.nextInt());
+            expected.add(field);
+            text.append(i == 0 ? "" : ",").append(field);
+        }
+        text.append("\nlast\n");
+        List<List<String>> records = records(parser(text.toString(), ","));
+        Assert.assertEquals(expected, records.get(0));
+        Assert.assertEquals("last", records.get(1).get(0));
+    }
+
+    @Test
+    public void testParseDouble() {
+        Random random = new Random(5);
+        List<String> texts = new ArrayList<>(Arrays.asList(
+                "0", "-0", "+1.5", " 2.25 ", "1e10", "1E-5", "3.", ".5", "123456789012345678901234",
+                "0.1", "9007199254740993", "1e23", "4.9e-324", "1.7976931348623157E308", "NaN", "-Infinity", "2d"));
+        for (int i = 0; i < 10000; i++) {
+            texts.add(Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20)));
+            texts.add(String.format("%.6f", random.nextDouble() * 1000));
+        }
+        for (String text: texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            double expected = Double.parseDouble(text);
+            Assert.assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(CsvParser.parseDouble(bytes, 0, bytes.length)));
+        }
+        for (String text: new String[]{"", "-", "1e", "1.2.3", "abc", "1,5", "5\u00A0", "\u00A05", "7\u3000"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8); // 非ASCII字节不是空白
+            try {
+                CsvParser.parseDouble(bytes, 0, bytes.length);
+                Assert.fail(text);
+            } catch (NumberFormatException ignored) {
+            }
+            try {
+                CsvParser.parseInteger(bytes, 0, bytes.length);
+                Assert.fail(text);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testDictionary() {
+        CategoryDictionary dictionary = new CategoryDictionary();
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "v" + (i * 7919 % 300);
+        }
+        List<String> firstAppearance = new ArrayList<>();
+        for (String value: values) {
+            int code = dictionary.encode(value);
+            if (code == firstAppearance.size()) {
+                firstAppearance.add(value);
+            }
+            Assert.assertEquals(firstAppearance.indexOf(value), code);
+        }
+        Assert.assertEquals(300, dictionary.size());
+        Assert.assertArrayEquals(firstAppearance.toArray(), dictionary.values());
+    }
+
+    @Test
+    public void testLoadDataSet() throws IOException {
+        File file = File.createTempFile("parser", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(11);
+        String[] colors = {"red", "green", "blue", "红"};
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.println("// header");
+            out.println("x,color,y,label");
+            out.println("numeric,categorical,numeric,categorical");
+            for (int i = 0; i < 5000; i++) {
+                out.println(random.nextGaussian() + "," + colors[random.nextInt(4)] + "," + random.nextInt(100) + ",c" + random.nextInt(3));
+            }
+        }
+        DataSet dataset = FileTool.loadDataSet(file, ",", true);
+        assertSameDataSet(loadRaw(file, ","), dataset);
+    }
+
+    @Test
+    public void testLoadColumnarDataSet() throws IOException {
+        File file = File.createTempFile("columnar", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(12);
+        String[] grades = {"C", "b", "A", "B", "c"};
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.println("grade,score,label");
+            out.println("categorical,numeric,categorical");
+            for (int i = 0; i < 3000; i++) {
+                out.println(grades[random.nextInt(5)] + "," + random.nextInt(100) + ",c" + random.nextInt(4));
+            }
+        }
+        DataSet expected = FileTool.loadDataSet(file, ",", true);
+        DataSet dataset = FileTool.loadColumnarDataSet(file, ",", true, false);
+        Assert.assertTrue(dataset instanceof ColumnarDataSet);
+        assertSameDataSet(expected, dataset);
+
+        DataSet sorted = FileTool.loadColumnarDataSet(file, ",", true, true);
+        Map<String, Double> map = sorted.attributeInfo(0).encodingMap;
+        Assert.assertEquals(Arrays.asList("A", "B", "C", "b", "c"), new ArrayList<>(map.keySet()));
+        Assert.assertEquals(Arrays.asList(0.0, 1.0, 2.0, 3.0, 4.0), new ArrayList<>(map.values()));
+        Map<Double, String> decode = new HashMap<>();
+        expected.attributeInfo(0).encodingMap.forEach((value, code) -> decode.put(code, value));
+        for (int i = 0; i < expected.size(); i++) {
+            String grade = decode.get(expected.instance(i).attribute(0));
+            Assert.assertEquals(map.get(grade), sorted.instance(i).attribute(0), 0);
+            Assert.assertEquals(expected.instance(i).attribute(1), sorted.instance(i).attribute(1), 0);
+        }
+    }
+
+    @Test
+    public void testLoadDataSetParallel() throws IOException {
+        File file = File.createTempFile("parallel", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(13);
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.println("x,city,label");
+            out.println("numeric,categorical,categorical");
+            for (int i = 0; i < 200000; i++) { // 约6MB，分成多段解析；城市编号随行号增大，新值不断出现在后面的段
+                if (i % 5000 == 0) {
+                    out.println("# rows from " + i);
+                }
+                out.println(random.nextGaussian() + ",city" + random.nextInt(i / 1000 + 1) + "," + (random.nextBoolean() ? "yes" : "no"));
+            }
+        }
+        DataSet expected = FileTool.loadDataSet(file, ",", true);
+        DataSet dataset = FileTool.loadDataSetParallel(file, ",", true);
+        Assert.assertTrue(dataset instanceof ColumnarDataSet);
+        assertSameDataSet(expected, dataset);
+
+        DataSet unlabeled = FileTool.loadDataSetParallel(file, ",", false);
+        Assert.assertEquals(3, unlabeled.dimensionality());
+        Assert.assertEquals(expected.attributeInfo(1).encodingMap, unlabeled.attributeInfo(1).encodingMap);
+    }
+
+    @Test
+    public void testByteBufferSource() throws IOException {
+        byte[] bytes = "a,b\n# skipped\n1,2\n".getBytes(StandardCharsets.UTF_8);
+        CsvParser parser = new CsvParser(ByteBuffer.wrap(bytes), ",");
+        Assert.assertTrue(parser.next());
+        Assert.assertEquals(4, parser.offset());
+        Assert.assertTrue(parser.next());
+        Assert.assertEquals("2", parser.field(1));
+        Assert.assertEquals(bytes.length, parser.offset());
+        Assert.assertFalse(parser.next());
+    }
+
+    private static void assertSameDataSet(DataSet expected, DataSet dataset) {
+        Assert.assertEquals(expected.size(), dataset.size());
+        for (int j = 0; j < expected.dimensionality(); j++) {
+            Assert.assertEquals(expected.attributeInfo(j).encodingMap, dataset.attributeInfo(j).encodingMap);
+        }
+        Assert.assertEquals(expected.classInfo().encodingMap, dataset.classInfo().encodingMap);
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < expected.dimensionality(); j++) {
+                Assert.assertEquals(expected.instance(i).attribute(j), dataset.instance(i).attribute(j), 0);
+            }
+            Assert.assertEquals(expected.instance(i).classValue(), dataset.instance(i).classValue(), 0);
+        }
+    }
+
+    /**
+     * Loads a labeled data set the way {@link FileTool} did before parsing bytes: split lines and {@link RawDataSet}.
+     */
+    private static DataSet loadRaw(File file, String separator) throws IOException {
+        try (LineIterator it = new LineIterator(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), true, true)) {
+            String[] names = it.next().split(separator);
+            String[] types = it.next().split(separator);
+            int dimension = names.length - 1;
+            AttributeInfo[] attributeInfoArray = new AttributeInfo[dimension];
+            for (int i = 0; i < dimension; i++) {
+                attributeInfoArray[i] = new AttributeInfo(names[i], types[i].startsWith("num"), i);
+            }
+            AttributeInfo classInfo = new AttributeInfo(names[dimension], types[dimension].startsWith("num"), -1);
+            List<String[]> data = new ArrayList<>();
+            while (it.hasNext()) {
+                data.add(it.next().split(separator));
+            }
+            return new RawDataSet(data, attributeInfoArray, classInfo).toDataSet();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package test.java.utils.io;
+
+import main.java.core.AttributeInfo;
+import main.java.core.DataSet;
+import main.java.utils.io.CsvParser;
+import main.java.utils.io.CsvSchema;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Tests {@link CsvSchema} and loading data sets without a line of types.
+ *
+ * @author Cloudy1225
+ */
+public class CsvSchemaTest {
+
+    private static File write(String text) throws IOException {
+        File file = File.createTempFile("schema", ".csv");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    @Test
+    public void testInfer() throws IOException {
+        File file = write("id,score,flag,city,label\n" +
+                "-2,3,False,Rome,no\n" +
+                "# comment\n" +
+                "1,0.5,true,Paris,yes\n" +
+                "30,1e3,TRUE,Paris,yes\n");
+        CsvSchema schema = FileTool.inferSchema(file, ",", 100);
+        Assert.assertEquals(3, schema.sampleSize());
+        Assert.assertEquals(5, schema.width());
+        Assert.assertEquals("city", schema.name(3));
+        Assert.assertEquals(CsvSchema.INTEGER, schema.kind(0));
+        Assert.assertEquals(CsvSchema.DOUBLE, schema.kind(1));
+        Assert.assertEquals(CsvSchema.BOOLEAN, schema.kind(2));
+        Assert.assertEquals(CsvSchema.CATEGORICAL, schema.kind(3));
+        Assert.assertEquals(2, schema.cardinality(3));
+        Assert.assertEquals(3, schema.cardinality(0));
+
+        Assert.assertEquals(CsvSchema.INTEGER, FileTool.inferSchema(file, ",", 1).kind(1)); // 只看第一条记录
+
+        DataSet dataset = FileTool.loadInferredDataSet(file, ",", true);
+        Assert.assertEquals(3, dataset.size());
+        Assert.assertEquals(4, dataset.dimensionality());
+        Assert.assertEquals(AttributeInfo.NUMERIC, dataset.attributeInfo(0).type);
+        Assert.assertEquals(AttributeInfo.CATEGORICAL, dataset.attributeInfo(2).type);
+        Assert.assertEquals(-2, dataset.instance(0).attribute(0), 0);
+        Assert.assertEquals(1000, dataset.instance(2).attribute(1), 0);
+        Assert.assertEquals(0, dataset.instance(0).attribute(2), 0);
+        Assert.assertEquals(1, dataset.instance(2).attribute(2), 0);
+        Assert.assertEquals(1, dataset.attributeInfo(2).encodingMap.get("true"), 0);
+        Assert.assertEquals(1, dataset.instance(1).attribute(3), 0);
+        Assert.assertEquals(1, dataset.instance(1).classValue(), 0);
+    }
+
+    @Test
+    public void testNonAsciiBlanks() throws IOException {
+        // 推断与解析同样只去掉ASCII空白，不间断空格不是空白
+        File file = write("id,flag,label\n5\u00A0,true\u00A0,a\n 7 ,false,b\n");
+        CsvSchema schema = FileTool.inferSchema(file, ",", 100);
+        Assert.assertEquals(CsvSchema.CATEGORICAL, schema.kind(0));
+        Assert.assertEquals(CsvSchema.CATEGORICAL, schema.kind(1));
+        DataSet dataset = FileTool.loadInferredDataSet(file, ",", true, schema);
+        Assert.assertEquals(2, dataset.size());
+        Assert.assertEquals(2, dataset.attributeInfo(0).encodingMap.size());
+
+        File integers = write("id,label\n 5 ,a\n\t7,b\n");
+        Assert.assertEquals(CsvSchema.INTEGER, FileTool.inferSchema(integers, ",", 100).kind(0));
+        Assert.assertEquals(7, FileTool.loadInferredDataSet(integers, ",", true).instance(1).attribute(0), 0);
+    }
+
+    @Test
+    public void testReservoir() throws IOException {
+        StringBuilder sb = new StringBuilder("x,y\n");
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i).append(',').append(i < 4000 ? String.valueOf(i) : i + ".5").append('\n');
+        }
+        File file = write(sb.toString());
+        Assert.assertEquals(CsvSchema.INTEGER, FileTool.inferSchema(file, ",", 100).kind(1)); // 前面的记录都是整数
+        CsvSchema schema = FileTool.inferSchema(file, ",", 100, new Random(1));
+        Assert.assertEquals(100, schema.sampleSize());
+        Assert.assertEquals(CsvSchema.INTEGER, schema.kind(0));
+        Assert.assertEquals(CsvSchema.DOUBLE, schema.kind(1));
+
+        // 整数列中样本之外的小数由double解析器处理
+        DataSet dataset = FileTool.loadInferredDataSet(file, ",", false, FileTool.inferSchema(file, ",", 100));
+        Assert.assertEquals(4999.5, dataset.instance(4999).attribute(1), 0);
+    }
+
+    @Test
+    public void testParseInteger() {
+        String[] values = {"0", "-0", "+17", " 42 ", "123456789012345678", "1234567890123456789", "3.25", "-1e2"};
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(CsvParser.parseInteger(bytes, 0, bytes.length)));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package test.java.utils.io;
+
+import main.java.core.*;
+import main.java.utils.io.DataSetSnapshot;
+import main.java.utils.io.FileTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests {@link DataSetSnapshot}.
+ *
+ * @author Cloudy1225
+ */
+public class DataSetSnapshotTest {
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        DataSet ticTacToe = FileTool.loadTicTacToe();
+        Path path = Files.createTempFile("tic-tac-toe", ".jdms");
+        path.toFile().deleteOnExit();
+        DataSetSnapshot.save(ticTacToe, path);
+        DataSet loaded = DataSetSnapshot.load(path);
+
+        Assert.assertEquals(ticTacToe.size(), loaded.size());
+        Assert.assertEquals(ticTacToe.classInfo().name, loaded.classInfo().name);
+        Assert.assertEquals(ticTacToe.classInfo().encodingMap, loaded.classInfo().encodingMap);
+        Assert.assertArrayEquals(ticTacToe.classValues(), loaded.classValues(), 0);
+        for (int j = 0; j < ticTacToe.dimensionality(); j++) {
+            AttributeInfo expected = ticTacToe.attributeInfo(j);
+            AttributeInfo actual = loaded.attributeInfo(j);
+            Assert.assertEquals(expected.name, actual.name);
+            Assert.assertEquals(expected.type, actual.type);
+            Assert.assertEquals(expected.index, actual.index);
+            Assert.assertEquals(expected.weight, actual.weight, 0);
+            Assert.assertEquals(expected.encodingMap, actual.encodingMap);
+            Assert.assertArrayEquals(ticTacToe.attrValues(j), loaded.attrValues(j), 0);
+        }
+    }
+
+    @Test
+    public void testLoadDataSetCached() throws IOException {
+        File dir = Files.createTempDirectory("snapshot").toFile();
+        File csv = new File(dir, "data.csv");
+        File snapshot = new File(dir, "data.csv.jdms");
+        csv.deleteOnExit();
+        snapshot.deleteOnExit();
+        dir.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println("x,color,y");
+            out.println("num,cat,cat");
+            out.println("1.5,red,yes");
+            out.println("2.5,blue,no");
+        }
+
+        DataSet parsed = FileTool.loadDataSet(csv, ",", true);
+        DataSet first = FileTool.loadDataSetCached(csv, ",", true);
+        Assert.assertTrue(snapshot.exists());
+        Assert.assertArrayEquals(parsed.attrValues(0), first.attrValues(0), 0);
+        DataSet cached = FileTool.loadDataSetCached(csv, ",", true);
+        Assert.assertArrayEquals(parsed.attrValues(0), cached.attrValues(0), 0);
+        Assert.assertEquals(parsed.attributeInfo(1).encodingMap, cached.attributeInfo(1).encodingMap);
+        // 无论是否命中缓存，结果都是只读的
+        for (DataSet dataset: new DataSet[]{first, cached}) {
+            try {
+                dataset.add(parsed.instance(0));
+                Assert.fail();
+            } catch (UnsupportedOperationException ignored) {
+            }
+        }
+
+        // 分隔符不同时重新解析，即使文件的长度和修改时间不变
+        long modified = csv.lastModified();
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println("x;color;y");
+            out.println("num;cat;cat");
+            out.println("7.5;red;yes");
+            out.println("2.5;pink;no");
+        }
+        Assert.assertTrue(csv.setLastModified(modified));
+        DataSet semicolon = FileTool.loadDataSetCached(csv, ";", true);
+        Assert.assertArrayEquals(new double[]{7.5, 2.5}, semicolon.attrValues(0), 0);
+        Assert.assertTrue(semicolon.attributeInfo(1).encodingMap.containsKey("pink"));
+
+        // the snapshot is rebuilt once the csv changes
+        try (PrintWriter out = new PrintWriter(csv)) {
+            out.println("x,color,y");
+            out.println("num,cat,cat");
+            out.println("1.5,red,yes");
+            out.println("2.5,blue,no");
+            out.println("3.5,green,no");
+        }
+        DataSet reparsed = FileTool.loadDataSetCached(csv, ",", true);
+        Assert.assertEquals(3, reparsed.size());
+        Assert.assertEquals(3, FileTool.loadDataSetCached(csv, ",", true).size());
+    }
+}
@@ -2,10 +2,15 @@ package test.java.utils.io;
 
 import main.java.core.DataSet;
 import main.java.utils.io.FileTool;
+import main.java.utils.io.LineIterator;
+import main.java.utils.io.ReadAheadInputStream;
+import org.junit.Assert;
 import org.junit.Test;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
 
 
 public class FileToolTest {
@@ -23,4 +28,101 @@ public class FileToolTest {
         System.out.println(FileTool.loadTicTacToe());
         System.out.println(FileTool.loadBreastCancer());
     }
+
+    @Test
+    public void testLoadCompressed() throws IOException {
+        File plain = File.createTempFile("compressed", ".csv");
+        File gzip = File.createTempFile("compressed", ".csv.gz");
+        plain.deleteOnExit();
+        gzip.deleteOnExit();
+        StringBuilder sb = new StringBuilder("x,color,label\nnumeric,categorical,categorical\n");
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            sb.append(random.nextInt(100)).append(",c").append(random.nextInt(7)).append(random.nextBoolean() ? ",yes\n" : ",no\n");
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new FileOutputStream(plain)) {
+            out.write(bytes);
+        }
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+            out.write(bytes);
+        }
+
+        DataSet expected = FileTool.loadDataSet(plain, ",", true);
+        for (DataSet dataset : new DataSet[]{FileTool.loadDataSet(gzip, ",", true), FileTool.loadDataSetParallel(gzip, ",", true)}) {
+            Assert.assertEquals(expected.size(), dataset.size());
+            Assert.assertEquals(expected.attributeInfo(1).encodingMap, dataset.attributeInfo(1).encodingMap);
+            for (int i = 0; i < expected.size(); i++) {
+                for (int j = 0; j < expected.dimensionality(); j++) {
+                    Assert.assertEquals(expected.instance(i).attribute(j), dataset.instance(i).attribute(j), 0);
+                }
+                Assert.assertEquals(expected.instance(i).classValue(), dataset.instance(i).classValue(), 0);
+            }
+        }
+
+        int lines = 0;
+        try (LineIterator it = new LineIterator(gzip, true, true)) {
+            for (String line : it) {
+                lines++;
+            }
+        }
+        Assert.assertEquals(20002, lines);
+    }
+
+    @Test
+    public void testRejectZstd() throws IOException {
+        // Zstandard帧的魔数，其后的内容不是文本
+        File zstd = File.createTempFile("compressed", ".csv.zst");
+        zstd.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(zstd)) {
+            out.write(new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0x04, 0x58, 0x1a, 0x00});
+            out.write("x,label\nnumeric,categorical\n1,a\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            FileTool.loadDataSetParallel(zstd, ",", true);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("Zstandard"));
+        }
+    }
+
+    @Test
+    public void testReadAhead() throws IOException {
+        byte[] bytes = new byte[100000];
+        new Random(3).nextBytes(bytes);
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(bytes), 1000, 2)) {
+            Assert.assertEquals(bytes[0] & 0xff, in.read());
+            copy.write(bytes[0]);
+            byte[] buffer = new byte[777];
+            int n;
+            while ((n = in.read(buffer, 0, buffer.length)) >= 0) {
+                copy.write(buffer, 0, n);
+            }
+            Assert.assertEquals(-1, in.read());
+        }
+        Assert.assertArrayEquals(bytes, copy.toByteArray());
+
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (++this.count > 10) {
+                    throw new IOException("broken");
+                }
+                return 1;
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(failing, 4, 1)) {
+            for (int i = 0; i < 8; i++) {
+                Assert.assertEquals(1, in.read());
+            }
+            Assert.assertEquals(2, in.read(new byte[8], 0, 8)); // 出错前读到的字节
+            in.read();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("broken", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package test.java.utils.io;
+
+import main.java.core.SparseDataSet;
+import main.java.core.SparseInstance;
+import main.java.utils.io.LibSvmReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests {@link LibSvmReader}.
+ *
+ * @author Cloudy1225
+ */
+public class LibSvmReaderTest {
+
+    private static SparseDataSet read(String text, int dimensionality) throws IOException {
+        return LibSvmReader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), dimensionality);
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        String text = "# header comment\n" +
+                "+1 1:0.5 3:-2\n" +
+                "-1  qid:7 4:1e3\t2:0 1:1 # trailing comment\n" +
+                "+1\r\n" +
+                "2 3:4\n";
+        SparseDataSet dataset = read(text, -1);
+        Assert.assertEquals(4, dataset.size());
+        Assert.assertEquals(4, dataset.dimensionality());
+        Assert.assertEquals(5, dataset.nnz()); // 显式的0被丢弃
+        Assert.assertEquals("1", dataset.attributeInfo(0).name);
+
+        SparseInstance second = dataset.instance(1);
+        Assert.assertEquals(1, second.attribute(0), 0);
+        Assert.assertEquals(0, second.attribute(1), 0);
+        Assert.assertEquals(1000, second.attribute(3), 0); // 乱序的索引被排序
+        Assert.assertEquals(0, dataset.instance(2).nnz());
+        Assert.assertEquals(-2, dataset.instance(0).attribute(2), 0);
+
+        Assert.assertEquals(3, dataset.classInfo().encodingMap.size());
+        Assert.assertEquals(0, dataset.instance(0).classValue(), 0);
+        Assert.assertEquals(1, dataset.instance(1).classValue(), 0);
+        Assert.assertEquals(0, dataset.instance(2).classValue(), 0);
+        Assert.assertEquals(2, dataset.instance(3).classValue(), 0);
+        Assert.assertEquals(2, dataset.classInfo().encodingMap.get("2"), 0);
+
+        Assert.assertEquals(10, read(text, 10).dimensionality());
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        String[] texts = {"1 0:1\n", "1 2:1 2:3\n", "1 5:1\n", "1 a:1\n", "1 2\n"};
+        for (String text : texts) {
+            try {
+                read(text, 4);
+                Assert.fail(text);
+            } catch (IllegalArgumentException e) { // 包括NumberFormatException
+                Assert.assertTrue(e.getMessage().startsWith("Record 1"));
+            }
+        }
+    }
+}
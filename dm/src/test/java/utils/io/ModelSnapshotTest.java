@@ -0,0 +1,109 @@
+package test.java.utils.io;
+
+import main.java.classify.bayes.GaussianNB;
+import main.java.classify.bayes.MultinomialNB;
+import main.java.classify.decisionTree.*;
+import main.java.classify.neighbors.KDTreeKNNClassifier;
+import main.java.core.DataSet;
+import main.java.core.DenseInstance;
+import main.java.core.Instance;
+import main.java.metrics.distance.MinkowskiDistance;
+import main.java.utils.io.FileTool;
+import main.java.utils.io.ModelSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests {@link ModelSnapshot}: every saved model predicts like the fitted one once loaded.
+ *
+ * @author Cloudy1225
+ */
+public class ModelSnapshotTest {
+
+    private static Path tempFile() throws IOException {
+        Path path = Files.createTempFile("model", ".jdmm");
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    @Test
+    public void testDecisionTree() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        DataSet ticTacToe = FileTool.loadTicTacToe();
+        DecisionTree[] trees = {new CartTree(), new C45Tree(4, 2, 1, 0, 0), new CartTree(), new ID3Tree()};
+        DataSet[] datasets = {iris, iris, ticTacToe, ticTacToe};
+        for (int t = 0; t < trees.length; t++) {
+            DecisionTree tree = trees[t];
+            tree.fit(datasets[t]);
+            Path path = tempFile();
+            tree.save(path);
+            FlatTree loaded = FlatTree.load(path);
+            for (Instance instance: datasets[t]) {
+                Assert.assertEquals(tree.predict(instance), loaded.predict(instance), 0);
+            }
+            // 缺失值和未见过的离散值
+            double[] values = new double[datasets[t].dimensionality()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = j % 2 == 0 ? Double.NaN : 100;
+            }
+            DenseInstance unknown = new DenseInstance(values);
+            Assert.assertEquals(tree.predict(unknown), loaded.predict(unknown), 0);
+        }
+    }
+
+    @Test
+    public void testNaiveBayes() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        GaussianNB gaussian = new GaussianNB();
+        gaussian.fit(iris);
+        Path path = tempFile();
+        gaussian.save(path);
+        GaussianNB loadedGaussian = GaussianNB.load(path);
+        for (Instance instance: iris) {
+            Assert.assertEquals(gaussian.predict(instance), loadedGaussian.predict(instance), 0);
+            Assert.assertEquals(gaussian.jointLogLikelihood(instance), loadedGaussian.jointLogLikelihood(instance));
+        }
+
+        DataSet ticTacToe = FileTool.loadTicTacToe();
+        MultinomialNB multinomial = new MultinomialNB(0.5);
+        multinomial.fit(ticTacToe);
+        multinomial.save(path);
+        MultinomialNB loadedMultinomial = MultinomialNB.load(path);
+        for (Instance instance: ticTacToe) {
+            Assert.assertEquals(multinomial.jointLogLikelihood(instance), loadedMultinomial.jointLogLikelihood(instance));
+        }
+    }
+
+    @Test
+    public void testKDTreeKNN() throws IOException {
+        DataSet iris = FileTool.loadIris();
+        KDTreeKNNClassifier[] classifiers = {
+                new KDTreeKNNClassifier(),
+                new KDTreeKNNClassifier(3, KDTreeKNNClassifier.UNIFORM, new MinkowskiDistance(3))
+        };
+        for (KDTreeKNNClassifier clf: classifiers) {
+            clf.fit(iris);
+            Path path = tempFile();
+            clf.save(path);
+            KDTreeKNNClassifier loaded = KDTreeKNNClassifier.load(path);
+            for (Instance instance: iris) {
+                Assert.assertEquals(clf.predict(instance), loaded.predict(instance), 0);
+                Assert.assertEquals(clf.kNeighbors(instance, 5).values().toString(),
+                        loaded.kNeighbors(instance, 5).values().toString());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadOtherKind() throws IOException {
+        GaussianNB gaussian = new GaussianNB();
+        gaussian.fit(FileTool.loadIris());
+        Path path = tempFile();
+        gaussian.save(path);
+        MultinomialNB.load(path);
+    }
+}